@@ -0,0 +1,125 @@
+package main.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class generates script statements of the given size for the 
+ * benchmarks.
+ * 
+ * @author SoundlyGifted
+ */
+final class BenchmarkScripts {
+    
+    // Name of the variable the benchmarked "set" expressions assign to.
+    static final String RESULT_VAR = "$result";
+    
+    // Operators the generated "set" expressions consist of (no division).
+    private static final String[] OPERATORS = {"+", "*", "-"};
+    
+    private BenchmarkScripts() {}
+    
+    
+    /* Name of the i-th generated variable. */
+    static String varName(int index) {
+        return "$v" + index;
+    }
+    
+    
+    /**
+     * Generates "set" operation expressions that assign values to the 
+     * variables $v0, $v1, ... (without the "set" operator).
+     */
+    static List<String> assignments(int varCount) {
+        List<String> expressions = new ArrayList<>(varCount);
+        for (int i = 0; i < varCount; i++) {
+            expressions.add(varName(i) + " = " + (i + 2));
+        }
+        return expressions;
+    }
+    
+    
+    /**
+     * Generates "set" operation expression (without the "set" operator) that 
+     * assigns to $result an expression of the given number of operands. The 
+     * first "depth" operations are nested in brackets, i.e. for depth 2: 
+     * "((a + b) * c) - d". Every second operand is a variable if varCount is 
+     * positive.
+     */
+    static String setExpression(int size, int depth, int varCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(depth, size - 1); i++) {
+            sb.append('(');
+        }
+        sb.append(operand(0, varCount));
+        for (int i = 1; i < size; i++) {
+            sb.append(' ').append(OPERATORS[i % OPERATORS.length]).append(' ')
+                    .append(operand(i, varCount));
+            if (i <= depth) {
+                sb.append(')');
+            }
+        }
+        return RESULT_VAR + " = " + sb;
+    }
+    
+    
+    /**
+     * Generates "print" operation expression (without the "print" operator) 
+     * of the given number of comma-separated parts: string literals, or 
+     * variables (cycled through varCount variables).
+     */
+    static String printExpression(int parts, boolean variables, 
+            int varCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            if (variables) {
+                sb.append(varName(i % varCount));
+            } else {
+                sb.append("\"part ").append(i).append(" \"");
+            }
+        }
+        return sb.toString();
+    }
+    
+    
+    /**
+     * Generates script lines of the given kind: "comments" (only comment 
+     * lines, i.e. the line parsing cost), or "statements" (a mix of comment, 
+     * blank, "set" and "print" lines).
+     */
+    static List<String> scriptLines(String kind, int lineCount) {
+        List<String> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            if (kind.equals("comments")) {
+                lines.add("# comment line " + i);
+                continue;
+            }
+            switch (i % 4) {
+                case 0:
+                    lines.add("# comment line " + i);
+                    break;
+                case 1:
+                    lines.add("");
+                    break;
+                case 2:
+                    lines.add("set $v" + (i % 16) + " = (" + i + " + 3) * 2");
+                    break;
+                default:
+                    lines.add("print \"line \", $v" + ((i - 1) % 16));
+                    break;
+            }
+        }
+        return lines;
+    }
+    
+    
+    private static String operand(int index, int varCount) {
+        if (varCount > 0 && index % 2 == 0) {
+            return varName(index / 2 % varCount);
+        }
+        return String.valueOf(index % 9 + 1);
+    }
+}
@@ -0,0 +1,29 @@
+package main.benchmarks;
+
+import main.io.OutputSink;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class consumes printed lines with the JMH blackhole, so that only the 
+ * cost of building the lines is measured.
+ * 
+ * @author SoundlyGifted
+ */
+final class BlackholeOutputSink extends OutputSink {
+    
+    private final Blackhole blackhole;
+
+    BlackholeOutputSink(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void printLine(CharSequence line) {
+        blackhole.consume(line);
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is buffered.
+    }
+}
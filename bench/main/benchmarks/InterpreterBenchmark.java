@@ -0,0 +1,65 @@
+package main.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import main.process.ExecutionMode;
+import main.process.ScriptInterpreter;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the whole script interpretation. The "comments" script 
+ * measures the line parsing (operator lookup) cost, the "statements" script
+ * is a mix of comment, blank, "set" and "print" lines.
+ * 
+ * @author SoundlyGifted
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    
+    // Kind of the script lines: "comments" or "statements".
+    @Param({"comments", "statements"})
+    public String script;
+    
+    // Number of script lines.
+    @Param({"1000"})
+    public int lineCount;
+    
+    @Param({"COMPILED", "REFERENCE", "BYTECODE"})
+    public ExecutionMode mode;
+    
+    private List<String> lines;
+    private ScriptInterpreter interpreter;
+    
+    
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        lines = BenchmarkScripts.scriptLines(script, lineCount);
+        interpreter = new ScriptInterpreter(mode, 
+                new BlackholeOutputSink(blackhole));
+    }
+    
+    
+    @Benchmark
+    public void interpretScript() throws UnsupportedScriptOperationException,
+            WrongScriptExpressionException {
+        interpreter.interpretScript(lines);
+    }
+}
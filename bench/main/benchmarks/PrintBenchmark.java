@@ -0,0 +1,101 @@
+package main.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.operations.CompiledPrintOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.PrintOperationPerformer;
+import main.process.operations.SetOperationPerformer;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the "print" operation with many string literals or many 
+ * variables: the reference engine (parsing the expression text on each 
+ * print), compiling the expression, and printing the compiled expression.
+ * 
+ * @author SoundlyGifted
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrintBenchmark {
+    
+    // Number of comma-separated parts in the expression.
+    @Param({"4", "32"})
+    public int parts;
+    
+    // Kind of the parts: "literals" or "variables".
+    @Param({"literals", "variables"})
+    public String content;
+    
+    // Number of distinct variables printed (for the "variables" content).
+    @Param({"8"})
+    public int varCount;
+    
+    private String expression;
+    private PrintOperationPerformer performer;
+    private Map<String, Integer> vars;
+    private CompiledPrintOperation operation;
+    private VariableFrame frame;
+    
+    
+    @Setup
+    public void setUp(Blackhole blackhole) 
+            throws WrongScriptExpressionException {
+        expression = BenchmarkScripts.printExpression(parts, 
+                content.equals("variables"), varCount);
+        performer = new PrintOperationPerformer(
+                new BlackholeOutputSink(blackhole));
+        
+        SetOperationPerformer setPerformer = new SetOperationPerformer();
+        vars = new HashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        frame = new VariableFrame(0);
+        for (String assignment : BenchmarkScripts.assignments(varCount)) {
+            setPerformer.performOperation(assignment, vars);
+            CompiledSetOperation set 
+                    = setPerformer.compileOperation(assignment, symbols);
+            frame.ensureCapacity(symbols.size());
+            set.perform(frame);
+        }
+        operation = performer.compileOperation(expression, symbols);
+        frame.ensureCapacity(symbols.size());
+    }
+    
+    
+    @Benchmark
+    public void reference() throws WrongScriptExpressionException {
+        performer.performOperation(expression, vars);
+    }
+    
+    
+    @Benchmark
+    public CompiledPrintOperation compile() 
+            throws WrongScriptExpressionException {
+        return performer.compileOperation(expression, new SymbolTable());
+    }
+    
+    
+    @Benchmark
+    public void compiledPrint() throws WrongScriptExpressionException {
+        operation.perform(frame);
+    }
+}
@@ -0,0 +1,92 @@
+package main.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import main.io.ScriptLineStream;
+import main.io.ScriptReader;
+import main.io.exceptions.FileReadingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of reading a script file: reading all the lines, streaming the 
+ * lines, and streaming the lines from the memory-mapped file.
+ * 
+ * @author SoundlyGifted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptReaderBenchmark {
+    
+    // Number of lines in the script file.
+    @Param({"1000", "100000"})
+    public int lineCount;
+    
+    private Path scriptFile;
+    private String scriptFileName;
+    private final Charset charset = Charset.defaultCharset();
+    
+    
+    @Setup
+    public void setUp() throws IOException {
+        scriptFile = Files.createTempFile("benchmark", ".txt");
+        Files.write(scriptFile, BenchmarkScripts.scriptLines("statements", 
+                lineCount), charset);
+        scriptFileName = scriptFile.toString();
+    }
+    
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(scriptFile);
+    }
+    
+    
+    @Benchmark
+    public Collection<String> readScriptFile() throws FileReadingException {
+        return ScriptReader.readScriptFile(scriptFileName, charset);
+    }
+    
+    
+    @Benchmark
+    public void streamScriptFile(Blackhole blackhole) 
+            throws FileReadingException, IOException {
+        try (ScriptLineStream lines 
+                = ScriptReader.openScriptFile(scriptFileName, charset, false)) {
+            for (String line : lines) {
+                blackhole.consume(line);
+            }
+        }
+    }
+    
+    
+    @Benchmark
+    public void streamMappedScriptFile(Blackhole blackhole) 
+            throws FileReadingException, IOException {
+        try (ScriptLineStream lines 
+                = ScriptReader.openScriptFile(scriptFileName, charset, true)) {
+            for (String line : lines) {
+                blackhole.consume(line);
+            }
+        }
+    }
+}
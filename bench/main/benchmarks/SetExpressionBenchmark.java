@@ -0,0 +1,100 @@
+package main.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.SetOperationPerformer;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the "set" operation: the reference engine (parsing and 
+ * calculating the expression text), compiling the expression into an 
+ * expression tree, and evaluating the compiled expression. Expressions are 
+ * flat or have the first operations nested in brackets.
+ * 
+ * @author SoundlyGifted
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetExpressionBenchmark {
+    
+    // Number of operands in the expression.
+    @Param({"8", "32", "128"})
+    public int size;
+    
+    // Bracket nesting depth (0 - flat expression).
+    @Param({"0", "7"})
+    public int depth;
+    
+    // Number of distinct variables in the expression (0 - only numbers).
+    @Param({"0", "8"})
+    public int varCount;
+    
+    private String expression;
+    private SetOperationPerformer performer;
+    private Map<String, Integer> vars;
+    private CompiledSetOperation operation;
+    private VariableFrame frame;
+    private int resultSlot;
+    
+    
+    @Setup
+    public void setUp() throws WrongScriptExpressionException {
+        expression = BenchmarkScripts.setExpression(size, depth, varCount);
+        performer = new SetOperationPerformer();
+        
+        vars = new HashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        frame = new VariableFrame(0);
+        for (String assignment : BenchmarkScripts.assignments(varCount)) {
+            performer.performOperation(assignment, vars);
+            CompiledSetOperation set 
+                    = performer.compileOperation(assignment, symbols);
+            frame.ensureCapacity(symbols.size());
+            set.perform(frame);
+        }
+        operation = performer.compileOperation(expression, symbols);
+        frame.ensureCapacity(symbols.size());
+        resultSlot = operation.getVarToAssignSlot();
+    }
+    
+    
+    @Benchmark
+    public Map<String, Integer> reference() 
+            throws WrongScriptExpressionException {
+        performer.performOperation(expression, vars);
+        return vars;
+    }
+    
+    
+    @Benchmark
+    public CompiledSetOperation compile() 
+            throws WrongScriptExpressionException {
+        return performer.compileOperation(expression, new SymbolTable());
+    }
+    
+    
+    @Benchmark
+    public int compiledEvaluate() throws WrongScriptExpressionException {
+        operation.perform(frame);
+        return frame.get(resultSlot);
+    }
+}
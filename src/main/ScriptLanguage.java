@@ -1,12 +1,52 @@
 package main;
 
-import java.util.Collection;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
+import main.batch.BatchReport;
+import main.batch.BatchRunner;
+import main.io.AsyncOutputSink;
+import main.io.ChannelOutputSink;
+import main.io.CheckpointWriter;
+import main.io.CompiledScriptCache;
 import main.io.KeyboardInputReader;
+import main.io.OutputSink;
+import main.io.PrintStreamOutputSink;
+import main.process.ExecutionMode;
 import main.process.ScriptInterpreter;
+import main.process.binary.CompiledScript;
+import main.process.check.ScriptChecker;
+import main.process.check.ScriptError;
+import main.process.checkpoint.Checkpoint;
 import main.process.exceptions.UnsupportedScriptOperationException;
 import main.process.exceptions.WrongScriptExpressionException;
+import main.process.memoization.ExpressionCache;
+import main.process.modules.ModuleStore;
+import main.process.monitoring.InterpreterMetrics;
+import main.process.profile.ScriptProfiler;
+import main.server.ScriptClient;
+import main.server.ScriptServer;
+import main.io.ScriptLineStream;
 import main.io.ScriptReader;
+import main.io.ScriptWriter;
+import main.io.exceptions.CheckpointMismatchException;
 import main.io.exceptions.FileReadingException;
+import main.io.exceptions.FileWritingException;
+import main.io.exceptions.OutputWritingException;
+import main.watch.ScriptWatcher;
 
 /**
  * Main class of script language interpreter program that interprets and 
@@ -15,50 +55,130 @@ import main.io.exceptions.FileReadingException;
  * @author SoundlyGifted
  */
 public class ScriptLanguage {
-
+    
+    // Number of batch buffers used by the asynchronous output sink.
+    private static final int ASYNC_OUTPUT_BATCH_COUNT = 4;
+    
+    // Maximum number of the hot lines in the profile report.
+    private static final int PROFILE_REPORT_LINES = 50;
+    
     /**
      * @param args the command line arguments
      */
     public static void main(String[] args) {
 
-        String fileName; // Name of the file that contains the script.
-        Collection<String> scriptLines; // Script lines read from the file.
-        
-        /* Reading the name of the file as a command line argument or as a 
-         * console user keyboard input (if no argument was provided).
-         */
-        if (args.length > 1) {
-            System.out.println("[ScriptLanguage: Command Line Args Error] "
-                    + "Application launched with more than one command line "
-                    + "argument.");
+        // Reading command line options and the name of the file.
+        ScriptOptions options = ScriptOptions.parse(args);
+        if (options == null) {
             waitForUserInput();
             return;
-        } else if (args.length > 0) {
-            fileName = args[0];
-        } else {
+        }
+        boolean server = options.serverSocket != null;
+        boolean client = options.clientSocket != null;
+        
+        /* Reading the name of the file as a console user keyboard input (if 
+         * it was not provided as a command line argument).
+         */
+        if (options.fileName == null && !server && !client) {
             System.out.println("[ScriptLanguage] Application launched with no "
-                    + "command line arguments.");
+                    + "script file name argument.");
             System.out.print("[ScriptLanguage] Please input the name of the "
                     + "text file (including extension), i.e. 'file.txt': ");
-            fileName = KeyboardInputReader.readKeyboardInput();
+            options.fileName = KeyboardInputReader.readKeyboardInput();
             System.out.println();
         }
+        
+        /* The server and the client do not wait for the user input, so that 
+         * they can be used from other programs.
+         */
+        String error = options.validate();
+        if (error != null) {
+            System.out.println("[ScriptLanguage: Command Line Args Error] "
+                    + error);
+            if (client) {
+                System.exit(ScriptClient.EXIT_CONNECTION_ERROR);
+            }
+            if (!server) {
+                waitForUserInput();
+            }
+            return;
+        }
+        
+        if (server) {
+            runServer(options.serverSocket, options.mode, options.optimizing, 
+                    options.cacheDirectory);
+        } else if (client) {
+            System.exit(runOnServer(options.clientSocket, options.fileName, 
+                    options.charset));
+        } else if (options.checking) {
+            checkScript(options.fileName, options.charset);
+            if (!options.isStandardInput()) {
+                waitForUserInput();
+            }
+        } else if (options.watching) {
+            watchScript(options.fileName, options.charset);
+        } else if (options.batch) {
+            runBatch(options.fileName, options.mode, options.optimizing, 
+                    options.charset, options.batchThreads, 
+                    options.cacheDirectory);
+        } else if (options.compiledFileName != null) {
+            compileScript(options.fileName, options.compiledFileName, 
+                    options.charset);
+            waitForUserInput();
+        } else {
+            runScript(options);
+        }
+    }
+    
+    
+    /* Reads the script (or the compiled script) and executes it, then 
+     * reports the profile, memoization and checkpoints (if enabled).
+     */
+    private static void runScript(ScriptOptions options) {
+        String fileName = options.fileName;
+        Charset charset = options.charset;
+        ExecutionMode mode = options.mode;
+        
+        // The script from the standard input is always streamed.
+        boolean readingStandardInput = options.isStandardInput();
+        boolean streaming = options.streaming || readingStandardInput;
+        boolean compiledInput = ScriptReader.isCompiledScriptFile(fileName);
+        Iterable<String> scriptLines;
 
-        // Reading the script from the file.
+        /* Reading (or opening for streaming) the script from the file, or 
+         * loading the compiled script.
+         */
+        ScriptLineStream scriptStream = null;
+        CompiledScript compiledScript = null;
+        Checkpoint checkpoint = null;
         try {
-            scriptLines = ScriptReader.readScriptFile(fileName);            
-        } catch (FileReadingException frex) {
-            /* Printing to the screen the file reading error message obtained 
-             * from the custom exception for the user to check the input file.
-             */
-            if (frex.getCause() != null) {
-                System.out.println("[ScriptLanguage: File Reading Error] " 
-                        + frex.getMessage() + ", caused by: " 
-                        +  frex.getCause().toString());
+            if (options.resuming) {
+                checkpoint = ScriptReader.readCheckpoint( 
+                        options.checkpointFileName);
+            }
+            if (compiledInput) {
+                compiledScript = ScriptReader.readCompiledScript(fileName);
+            } else if (options.cacheDirectory != null) {
+                compiledScript = new CompiledScriptCache(options.cacheDirectory) 
+                        .getCompiledScript(fileName, charset, 
+                                new ScriptInterpreter(mode)::compileScript);
+                if (compiledScript == null) {
+                    System.out.println("[ScriptLanguage] The script has "
+                            + "custom or include operations, so it is "
+                            + "executed without the compiled script cache.");
+                }
+            }
+            if (compiledScript != null) {
+                scriptLines = null;
+            } else if (streaming) {
+                scriptStream = ScriptReader.openScriptFile(fileName, charset, 
+                        options.memoryMapped);
+                scriptLines = scriptStream;
             } else {
-                System.out.println("[ScriptLanguage: File Reading Error] " 
-                        + frex.getMessage());
+                scriptLines = ScriptReader.readScriptFile(fileName, charset);
             }
+        } catch (FileReadingException frex) {
+            printFileReadingError(frex);
             waitForUserInput();
             return;
         }
@@ -66,9 +186,39 @@ public class ScriptLanguage {
         /* Making script interpretation (parsing, validating, calculating / 
          * processing each statement in the script consequently).
         */
-        ScriptInterpreter interpreter = new ScriptInterpreter();
+        OutputSink output = createOutputSink(options.outputKind, 
+                options.outputBufferSize, options.outputFlushMillis);
+        ScriptProfiler profiler = (options.profileName != null) 
+                ? new ScriptProfiler(fileName) : null;
+        ExpressionCache expressionCache = (options.memoizeSize > 0) 
+                ? new ExpressionCache(options.memoizeSize) : null;
+        ModuleStore modules = new ModuleStore(charset);
+        String scriptFileName = readingStandardInput ? null : fileName;
+        ScriptInterpreter interpreter = (profiler != null) 
+                ? new ScriptInterpreter(output, profiler, modules, 
+                        scriptFileName) 
+                : new ScriptInterpreter(mode, output, options.optimizing, 
+                        expressionCache, modules, scriptFileName);
+        CheckpointWriter checkpointWriter = 
+                (options.checkpointFileName != null) 
+                ? new CheckpointWriter(options.checkpointFileName, 
+                        options.checkpointMillis) 
+                : null;
+        if (checkpoint != null) {
+            System.out.println("[ScriptLanguage: Checkpoint] Resuming the "
+                    + "script after line " + checkpoint.getLineNumber() + " ("
+                    + checkpoint.getSlotCount() + " variables restored).");
+        }
         try {
-           interpreter.interpretScript(scriptLines);
+           if (compiledScript != null) {
+               interpreter.interpretCompiledScript(compiledScript);
+           } else if (checkpointWriter != null) {
+               interpreter.interpretScript(scriptLines, checkpoint, 
+                       checkpointWriter);
+           } else {
+               interpreter.interpretScript(scriptLines);
+           }
+           output.close();
            System.out.println();
         } catch(UnsupportedScriptOperationException 
                 | WrongScriptExpressionException exception) {
@@ -77,8 +227,333 @@ public class ScriptLanguage {
              */
             System.out.println("[ScriptLanguage: Script Error] " 
                     + exception.getMessage());
+        } catch (UncheckedIOException uioex) {
+            // Error during streaming the script lines from the file.
+            printFileReadingError(new FileReadingException(uioex.getMessage(),
+                    uioex.getCause()));
+        } catch (OutputWritingException owex) {
+            System.out.println("[ScriptLanguage: Output Writing Error] " 
+                    + owex.getMessage() + ", caused by: " 
+                    + owex.getCause());
+        } catch (CheckpointMismatchException cmex) {
+            System.out.println("[ScriptLanguage: Checkpoint Error] "
+                    + cmex.getMessage() + ".");
+        } catch (RuntimeException rex) {
+            // I.e., division by zero in a "set" expression.
+            System.out.println("[ScriptLanguage: Runtime Error] " + rex);
+        } finally {
+            closeScriptStream(scriptStream);
+            closeOutputSink(output);
+            
+            // Checkpoints are reported also when the script failed.
+            closeCheckpointWriter(checkpointWriter, options.checkpointFileName);
+        }
+        
+        // The profile is written also when the script failed.
+        if (profiler != null) {
+            writeProfile(profiler, options.profileName);
+        }
+        if (expressionCache != null) {
+            System.out.println("[ScriptLanguage: Memoization] "
+                    + expressionCache.getReport());
+        }
+        
+        /* The standard input is already read to the end, so there is no user 
+         * input to wait for.
+         */
+        if (!readingStandardInput) {
+            waitForUserInput();
+        }
+    }
+    
+    
+    /* Runs the batch of scripts in isolated interpreters and prints output 
+     * (or error) of each script in the order of the script files, followed by
+     * the batch summary. The program does not wait for the user input in the 
+     * batch mode.
+     */
+    private static void runBatch(String source, ExecutionMode mode, 
+            boolean optimizing, Charset charset, int threads, 
+            String cacheDirectory) {
+        List<String> scriptFileNames;
+        try {
+            scriptFileNames = ScriptReader.listScriptFiles(source);
+        } catch (FileReadingException frex) {
+            printFileReadingError(frex);
+            return;
+        }
+        
+        registerMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            BatchReport report = new BatchRunner(mode, optimizing, 
+                    charset, executor, cacheDirectory != null 
+                            ? new CompiledScriptCache(cacheDirectory) : null)
+                    .run(scriptFileNames, result -> {
+                        System.out.println("[ScriptLanguage: Batch] " 
+                                + result.getScriptFileName());
+                        System.out.print(result.getOutput());
+                        if (result.isFailed()) {
+                            System.out.println(result.getError());
+                        }
+                    });
+            System.out.println();
+            report.printSummary(System.out);
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    
+    /* Compiles the script into the compiled script file. Script errors are 
+     * stored in the compiled script and reported when it is executed.
+     */
+    private static void compileScript(String fileName, String compiledFileName,
+            Charset charset) {
+        try {
+            CompiledScript script = new ScriptInterpreter().compileScript(
+                    ScriptReader.readScriptFile(fileName, charset));
+            if (script == null) {
+                System.out.println("[ScriptLanguage: Script Error] Custom and "
+                        + "include operations cannot be stored in a compiled "
+                        + "script.");
+                return;
+            }
+            ScriptWriter.writeCompiledScript(compiledFileName, script);
+            System.out.println("[ScriptLanguage] Script compiled into '" 
+                    + compiledFileName + "'.");
+        } catch (FileReadingException frex) {
+            printFileReadingError(frex);
+        } catch (FileWritingException fwex) {
+            System.out.println("[ScriptLanguage: File Writing Error] " 
+                    + fwex.getMessage() + (fwex.getCause() != null 
+                            ? ", caused by: " + fwex.getCause() : ""));
+        }
+    }
+    
+    
+    /* Writes the report of the hot lines and the collapsed stacks of the 
+     * profiled script into the profile files.
+     */
+    private static void writeProfile(ScriptProfiler profiler, 
+            String profileName) {
+        String reportFileName = profileName + ".profile";
+        String stacksFileName = profileName + ".folded";
+        try (PrintStream report = new PrintStream(new BufferedOutputStream(
+                        new FileOutputStream(reportFileName)), false, 
+                        StandardCharsets.UTF_8); 
+                PrintStream stacks = new PrintStream(new BufferedOutputStream(
+                        new FileOutputStream(stacksFileName)), false, 
+                        StandardCharsets.UTF_8)) {
+            profiler.printReport(report, PROFILE_REPORT_LINES);
+            profiler.printCollapsedStacks(stacks);
+            if (report.checkError() || stacks.checkError()) {
+                throw new IOException("Error during writing the profile");
+            }
+            System.out.println("[ScriptLanguage: Profile] Hot lines written "
+                    + "into '" + reportFileName + "', collapsed stacks into '"
+                    + stacksFileName + "'.");
+        } catch (IOException ioex) {
+            System.out.println("[ScriptLanguage: File Writing Error] " 
+                    + "Error during writing the '" + profileName 
+                    + "' profile files, caused by: " + ioex);
+        }
+    }
+    
+    
+    /* Runs the script server until the program is terminated. Each 
+     * connection is handled by its own thread.
+     */
+    private static void runServer(String socketFileName, ExecutionMode mode,
+            boolean optimizing, String cacheDirectory) {
+        registerMetrics();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            new ScriptServer(Paths.get(socketFileName), mode, optimizing, 
+                    executor, cacheDirectory != null 
+                            ? new CompiledScriptCache(cacheDirectory) : null)
+                    .serve(() -> System.out.println("[ScriptLanguage: Server] "
+                            + "Listening on '" + socketFileName + "'."));
+        } catch (IOException ioex) {
+            System.out.println("[ScriptLanguage: Server Error] " + ioex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    
+    /* Runs the script on the script server and returns the exit status of the
+     * script.
+     */
+    private static int runOnServer(String socketFileName, String fileName, 
+            Charset charset) {
+        try {
+            return new ScriptClient(Paths.get(socketFileName))
+                    .run(fileName, charset, System.out);
+        } catch (IOException ioex) {
+            System.out.println("[ScriptLanguage: Server Connection Error] " 
+                    + ioex);
+            return ScriptClient.EXIT_CONNECTION_ERROR;
+        }
+    }
+    
+    
+    /* Checks the whole script (compiling it on all the processors) and prints
+     * all the script errors with their line numbers, followed by the summary.
+     */
+    private static void checkScript(String fileName, Charset charset) {
+        List<String> scriptLines;
+        try {
+            if (fileName.equals(ScriptReader.STANDARD_INPUT_NAME)) {
+                scriptLines = new ArrayList<>();
+                ScriptLineStream stream = ScriptReader.openScriptFile(
+                        fileName, charset, false);
+                try {
+                    stream.forEach(scriptLines::add);
+                } finally {
+                    closeScriptStream(stream);
+                }
+            } else {
+                scriptLines = ScriptReader.readScriptFile(fileName, charset);
+            }
+        } catch (FileReadingException frex) {
+            printFileReadingError(frex);
+            return;
+        } catch (UncheckedIOException uioex) {
+            printFileReadingError(new FileReadingException(uioex.getMessage(),
+                    uioex.getCause()));
+            return;
+        }
+        
+        long startNanos = System.nanoTime();
+        ScriptInterpreter interpreter = new ScriptInterpreter( 
+                ExecutionMode.COMPILED, new PrintStreamOutputSink(System.out), 
+                false, null, new ModuleStore(charset), 
+                fileName.equals(ScriptReader.STANDARD_INPUT_NAME) 
+                        ? null : fileName);
+        List<ScriptError> errors = new ScriptChecker(interpreter) 
+                .check(scriptLines, ForkJoinPool.commonPool());
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        for (ScriptError error : errors) {
+            System.out.println("[ScriptLanguage: Script Error] Line " 
+                    + error.getLineNumber() + ": " + error.getMessage());
+        }
+        System.out.println("[ScriptLanguage: Check] " + scriptLines.size() 
+                + " lines checked in " + elapsedMillis + " ms: " 
+                + errors.size() + (errors.size() == 1 ? " error." : " errors."));
+    }
+    
+    
+    /* Executes the script and re-executes it on each change of the file until
+     * the program is terminated.
+     */
+    private static void watchScript(String fileName, Charset charset) {
+        try {
+            new ScriptWatcher(fileName, charset, System.out).watch();
+        } catch (FileReadingException frex) {
+            printFileReadingError(frex);
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    
+    /* Makes the interpreter metrics visible to JMX clients in the 
+     * long-running modes (the server and the batch mode).
+     */
+    private static void registerMetrics() {
+        try {
+            InterpreterMetrics.register();
+        } catch (JMException jmex) {
+            System.out.println("[ScriptLanguage: Monitoring Error] " 
+                    + "Interpreter metrics are not available, caused by: " 
+                    + jmex);
+        }
+    }
+    
+    
+    /* Printing to the screen the file reading error message obtained from the
+     * custom exception for the user to check the input file.
+     */
+    private static void printFileReadingError(FileReadingException frex) {
+        if (frex.getCause() != null) {
+            System.out.println("[ScriptLanguage: File Reading Error] " 
+                    + frex.getMessage() + ", caused by: " 
+                    +  frex.getCause().toString());
+        } else {
+            System.out.println("[ScriptLanguage: File Reading Error] " 
+                    + frex.getMessage());
+        }
+    }
+    
+    
+    /* Creates output sink of the given kind. Sinks that write directly to the 
+     * standard output channel are created after flushing System.out, so that 
+     * the output keeps its order.
+     */
+    private static OutputSink createOutputSink(String outputKind, 
+            int outputBufferSize, long outputFlushMillis) {
+        if (outputKind.equals("print")) {
+            return new PrintStreamOutputSink(System.out);
+        }
+        System.out.flush();
+        FileChannel standardOutput 
+                = new FileOutputStream(FileDescriptor.out).getChannel();
+        if (outputKind.equals("channel")) {
+            return new ChannelOutputSink(standardOutput, 
+                    OutputSink.STANDARD_OUTPUT_CHARSET, outputBufferSize, 
+                    outputFlushMillis);
+        }
+        return new AsyncOutputSink(standardOutput, 
+                OutputSink.STANDARD_OUTPUT_CHARSET, outputBufferSize, 
+                ASYNC_OUTPUT_BATCH_COUNT, outputFlushMillis);
+    }
+    
+    
+    private static void closeOutputSink(OutputSink output) {
+        try {
+            output.close();
+        } catch (OutputWritingException owex) {
+            // The error was already reported or the output is not available.
+        }
+    }
+    
+    
+    /* Writes the last checkpoint handed over (if any) and prints the number of 
+     * the written checkpoints.
+     */
+    private static void closeCheckpointWriter( 
+            CheckpointWriter checkpointWriter, String checkpointFileName) {
+        if (checkpointWriter == null) {
+            return;
+        }
+        try {
+            checkpointWriter.close();
+        } catch (FileWritingException fwex) {
+            System.out.println("[ScriptLanguage: File Writing Error] "
+                    + fwex.getMessage() + ", caused by: " + fwex.getCause());
+        }
+        if (checkpointWriter.getWrittenCount() > 0) {
+            System.out.println("[ScriptLanguage: Checkpoint] "
+                    + checkpointWriter.getWrittenCount() + " checkpoints "
+                    + "written into '" + checkpointFileName + "', the last one "
+                    + "after line " + checkpointWriter.getLastLineNumber() 
+                    + " (run with " + ScriptOptions.Option.RESUME.getName() 
+                    + " to resume from it).");
+        }
+    }
+    
+    
+    private static void closeScriptStream(ScriptLineStream scriptStream) {
+        if (scriptStream != null) {
+            try {
+                scriptStream.close();
+            } catch (IOException ioex) {
+                // The script is already interpreted, nothing more to read.
+            }
         }
-        waitForUserInput();
     }
     
     
@@ -0,0 +1,518 @@
+package main;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import main.io.ScriptReader;
+import main.process.ExecutionMode;
+
+/**
+ * This class holds the command line options of the application. The options 
+ * are parsed by {@link #parse(String[])}, and {@link #validate()} owns the 
+ * compatibility rules: each feature option declares the options it rejects 
+ * (see {@link #RULES}), so that a new feature adds its rule instead of 
+ * another check in the main method.
+ *
+ * @author SoundlyGifted
+ */
+final class ScriptOptions {
+
+    /**
+     * Command line options. Options that end with "=" take a value, other 
+     * options are flags.
+     */
+    enum Option {
+
+        // Selects script execution mode, i.e. "--mode=reference".
+        MODE("--mode="), 
+
+        /* Streams script lines from the file while the script is executed
+         * instead of reading the whole file first.
+         */
+        STREAM("--stream"), 
+
+        // Streams script lines from the memory-mapped file (implies STREAM).
+        MAPPED("--mapped"), 
+
+        // Sets the charset of the script file, i.e. "--charset=UTF-8".
+        CHARSET("--charset="), 
+
+        /* Optimizes the whole compiled script before execution (constant
+         * folding and removing unused "set" operations).
+         */
+        OPTIMIZE("--optimize"), 
+
+        /* Selects the output sink for the printed lines: "print" (System.out, 
+         * default), "channel" (large buffer written directly to the standard 
+         * output FileChannel) or "async" (batches written by a background 
+         * thread).
+         */
+        OUTPUT("--output="), 
+
+        // Sets the output buffer (batch) size in bytes.
+        OUTPUT_BUFFER("--output-buffer="), 
+
+        /* Sets the maximum delay in milliseconds before printed lines are
+         * written (0 - written when the buffer is full).
+         */
+        OUTPUT_FLUSH("--output-flush-ms="), 
+
+        /* Compiles the script into the given compiled script file, 
+         * i.e. "--compile=script.slc", instead of executing it.
+         */
+        COMPILE("--compile="), 
+
+        /* Keeps compiled scripts in the given cache directory, 
+         * i.e. "--cache=.slcache", so that repeated runs of the same script 
+         * do not parse it again.
+         */
+        CACHE("--cache="), 
+
+        /* Executes the script and then re-executes the lines affected by each
+         * change of the script file.
+         */
+        WATCH("--watch"), 
+
+        /* Runs many scripts in parallel: the file name argument is a
+         * directory, a glob pattern or "@" followed by a manifest file name.
+         */
+        BATCH("--batch"), 
+
+        /* Sets the number of threads that run scripts in the batch mode (the
+         * number of processors by default).
+         */
+        BATCH_THREADS("--batch-threads="), 
+
+        /* Checks the whole script without executing it and reports all the
+         * script errors with their line numbers.
+         */
+        CHECK("--check"), 
+
+        /* Runs the script server listening on the given Unix domain socket
+         * file, i.e. "--server=/tmp/script.sock".
+         */
+        SERVER("--server="), 
+
+        /* Runs the script on the script server listening on the given Unix
+         * domain socket file and exits with the script exit status.
+         */
+        CLIENT("--client="), 
+
+        /* Profiles the script lines and writes the report of the hot lines
+         * into "<name>.profile" and the collapsed stacks for flame graph 
+         * tools into "<name>.folded", i.e. "--profile=run1".
+         */
+        PROFILE("--profile="), 
+
+        /* Memoizes the results of "set" expressions in a cache of the given
+         * number of results and prints the hit rate of the cache after the 
+         * script, i.e. "--memoize=4096".
+         */
+        MEMOIZE("--memoize="), 
+
+        /* Periodically writes checkpoints of the script variables into the
+         * given file, i.e. "--checkpoint=run1.ckpt".
+         */
+        CHECKPOINT("--checkpoint="), 
+
+        /* Sets the interval in milliseconds between the checkpoints (60
+         * seconds by default).
+         */
+        CHECKPOINT_INTERVAL("--checkpoint-ms="), 
+
+        // Resumes the script from the checkpoint file (requires CHECKPOINT).
+        RESUME("--resume");
+
+        private final String prefix;
+
+        Option(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * @return the option name as it is typed (i.e., "--mode=" for the 
+         * options that take a value).
+         */
+        String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * @return the option name without the value separator, 
+         * i.e. "--mode".
+         */
+        String getName() {
+            return prefix.endsWith("=")
+                    ? prefix.substring(0, prefix.length() - 1) : prefix;
+        }
+
+        // Finds the option of the argument, or returns null.
+        private static Option find(String arg) {
+            for (Option option : values()) {
+                if (option.prefix.endsWith("=") ? arg.startsWith(option.prefix)
+                        : arg.equals(option.prefix)) {
+                    return option;
+                }
+            }
+            return null;
+        }
+    }
+
+    /* Compatibility rule of a feature option: the options it cannot be
+     * combined with (because the feature ignores them or cannot support 
+     * them).
+     */
+    private static final class Rule {
+
+        private final Option feature;
+
+        /* Where the rejected options are not supported, i.e. "in the batch
+         * mode".
+         */
+        private final String context;
+
+        private final Set<Option> rejected;
+
+        private Rule(Option feature, String context, Set<Option> rejected) {
+            this.feature = feature;
+            this.context = context;
+            this.rejected = rejected;
+        }
+    }
+
+    /* Compatibility rules checked in this order. The rules of the server and
+     * the client list the options they support instead.
+     */
+    private static final List<Rule> RULES = List.of( 
+            new Rule(Option.SERVER, "by the script server", 
+                    allExcept(Option.SERVER, Option.MODE, Option.OPTIMIZE, 
+                            Option.CACHE)), 
+            new Rule(Option.CLIENT, "by the script client (execution options "
+                    + "are set by the server)", 
+                    allExcept(Option.CLIENT, Option.CHARSET)), 
+            new Rule(Option.PROFILE, "when profiling the script", 
+                    EnumSet.of(Option.MAPPED, Option.OPTIMIZE, Option.WATCH, 
+                            Option.BATCH, Option.CHECK, Option.COMPILE, 
+                            Option.CACHE)), 
+            new Rule(Option.MEMOIZE, "with memoization", 
+                    EnumSet.of(Option.PROFILE, Option.WATCH, Option.BATCH, 
+                            Option.CHECK, Option.COMPILE)), 
+            new Rule(Option.CHECKPOINT, "with checkpoints", 
+                    EnumSet.of(Option.MAPPED, Option.OPTIMIZE, Option.PROFILE, 
+                            Option.WATCH, Option.BATCH, Option.CHECK, 
+                            Option.COMPILE, Option.CACHE)), 
+            new Rule(Option.CHECK, "when checking the script", 
+                    EnumSet.of(Option.WATCH, Option.BATCH, Option.COMPILE, 
+                            Option.CACHE)), 
+            new Rule(Option.WATCH, "in the watch mode", 
+                    EnumSet.of(Option.STREAM, Option.MAPPED, Option.OPTIMIZE, 
+                            Option.OUTPUT, Option.OUTPUT_BUFFER, 
+                            Option.OUTPUT_FLUSH, Option.BATCH, 
+                            Option.BATCH_THREADS, Option.COMPILE, 
+                            Option.CACHE)), 
+            new Rule(Option.BATCH, "in the batch mode", 
+                    EnumSet.of(Option.STREAM, Option.MAPPED, Option.OUTPUT, 
+                            Option.OUTPUT_BUFFER, Option.OUTPUT_FLUSH, 
+                            Option.COMPILE, Option.PROFILE, Option.MEMOIZE, 
+                            Option.CHECKPOINT, Option.CHECKPOINT_INTERVAL, 
+                            Option.RESUME)));
+
+    /* Feature options that are supported only in the compiled execution
+     * mode.
+     */
+    private static final Set<Option> COMPILED_MODE_ONLY = EnumSet.of( 
+            Option.WATCH, Option.PROFILE, Option.MEMOIZE, Option.CHECKPOINT);
+
+    /* Feature options that execute the script from its text, so they are not
+     * supported for compiled script files.
+     */
+    private static final Set<Option> SCRIPT_TEXT_ONLY = EnumSet.of( 
+            Option.PROFILE, Option.CHECKPOINT);
+
+    // Options given in the command line.
+    private final Set<Option> given = EnumSet.noneOf(Option.class);
+
+    String fileName = null; // Name of the file that contains the script.
+    ExecutionMode mode = ExecutionMode.COMPILED; // Script execution mode.
+    boolean streaming = false; // Whether to stream the script lines.
+    boolean memoryMapped = false; // Whether to memory-map the script file.
+    Charset charset = Charset.defaultCharset(); // Script file charset.
+    String outputKind = "print"; // Output sink kind.
+    int outputBufferSize = 1 << 20; // Output buffer size in bytes.
+    long outputFlushMillis = 0; // Maximum output delay in milliseconds.
+    boolean optimizing = false; // Whether to optimize the script.
+    boolean batch = false; // Whether to run many scripts in parallel.
+    boolean watching = false; // Whether to watch the script file.
+    boolean checking = false; // Whether to check the script only.
+    String serverSocket = null; // Socket file of the script server.
+    String clientSocket = null; // Socket file of the server to run on.
+    String profileName = null; // Name of the profile files.
+    int memoizeSize = 0; // Size of the expression cache (0 - no cache).
+    String checkpointFileName = null; // File of the checkpoints.
+    long checkpointMillis = 60_000; // Interval between the checkpoints.
+    boolean resuming = false; // Whether to resume from the checkpoint.
+    int batchThreads = Runtime.getRuntime().availableProcessors();
+    String compiledFileName = null; // File to compile the script into.
+    String cacheDirectory = null; // Compiled script cache directory.
+
+    private ScriptOptions() {
+    }
+
+
+    /**
+     * Parses the command line options (arguments that start with "--") and 
+     * the name of the file. Errors are printed.
+     *
+     * @param args the command line arguments.
+     * @return the options, or null if an argument is not valid.
+     */
+    static ScriptOptions parse(String[] args) {
+        ScriptOptions options = new ScriptOptions();
+        for (String arg : args) {
+            Option option = Option.find(arg);
+            if (option != null) {
+                options.given.add(option);
+                if (!options.set(option, arg)) {
+                    return null;
+                }
+            } else if (options.fileName == null) {
+                options.fileName = arg;
+            } else {
+                printError("Application launched with more than one script "
+                        + "file name argument.");
+                return null;
+            }
+        }
+        return options;
+    }
+
+
+    /**
+     * @param option the option.
+     * @return true if the option was given in the command line.
+     */
+    boolean isGiven(Option option) {
+        return given.contains(option);
+    }
+
+
+    /**
+     * @return true if the script is read from the standard input.
+     */
+    boolean isStandardInput() {
+        return ScriptReader.STANDARD_INPUT_NAME.equals(fileName);
+    }
+
+
+    /**
+     * Checks that the options can be used together. The file name must be 
+     * known (entered by the user, if it was not an argument), except for the 
+     * server and the client.
+     *
+     * @return the error message, or null if the options are valid.
+     */
+    String validate() {
+        if (serverSocket != null && fileName != null) {
+            return "The script server does not take a script file name.";
+        }
+        if (clientSocket != null && (fileName == null || isStandardInput())) {
+            return "The script client requires a script file name.";
+        }
+        for (Rule rule : RULES) {
+            if (!given.contains(rule.feature)) {
+                continue;
+            }
+            for (Option option : rule.rejected) {
+                if (given.contains(option)) {
+                    return "The " + option.getName() + " option is not "
+                            + "supported " + rule.context + ".";
+                }
+            }
+        }
+        if (resuming && checkpointFileName == null) {
+            return "Resuming the script requires the checkpoint file option.";
+        }
+
+        if (mode == ExecutionMode.REFERENCE) {
+            if (optimizing) {
+                return "Optimization is not supported in the reference "
+                        + "execution mode.";
+            }
+            if (compiledFileName != null || cacheDirectory != null
+                    || (fileName != null
+                            && ScriptReader.isCompiledScriptFile(fileName))) {
+                return "Compiled scripts are not supported in the reference "
+                        + "execution mode.";
+            }
+        }
+        for (Option option : COMPILED_MODE_ONLY) {
+            if (given.contains(option) && mode != ExecutionMode.COMPILED) {
+                return "The " + option.getName() + " option is supported "
+                        + "only in the compiled execution mode.";
+            }
+        }
+        boolean compiledInput = fileName != null
+                && ScriptReader.isCompiledScriptFile(fileName);
+        for (Option option : SCRIPT_TEXT_ONLY) {
+            if (given.contains(option) && compiledInput) {
+                return "The " + option.getName() + " option is not supported "
+                        + "for compiled script files.";
+            }
+        }
+
+        // The script from the standard input is always streamed.
+        if (checking || watching || batch || serverSocket != null
+                || clientSocket != null
+                || !(streaming || isStandardInput())) {
+            return null;
+        }
+        if (mode == ExecutionMode.BYTECODE || mode == ExecutionMode.PARALLEL) {
+            return "Streaming script lines is not supported in the "
+                    + mode.name().toLowerCase() + " execution mode that "
+                    + "compiles the whole script.";
+        }
+        if (optimizing) {
+            return "Streaming script lines is not supported when optimizing "
+                    + "the whole script.";
+        }
+        if (compiledInput || compiledFileName != null
+                || cacheDirectory != null) {
+            return "Streaming script lines is not supported for compiled "
+                    + "scripts.";
+        }
+        return null;
+    }
+
+
+    /* Sets the value of the option from the argument, or prints the error
+     * and returns false if the value is not valid.
+     */
+    private boolean set(Option option, String arg) {
+        String value = arg.substring(option.getPrefix().length());
+        switch (option) {
+            case MODE:
+                mode = ExecutionMode.forName(value);
+                if (mode == null) {
+                    printError("Unknown execution mode in '" + arg
+                            + "' argument.");
+                    return false;
+                }
+                return true;
+            case STREAM:
+                streaming = true;
+                return true;
+            case MAPPED:
+                streaming = true;
+                memoryMapped = true;
+                return true;
+            case CHARSET:
+                try {
+                    charset = Charset.forName(value);
+                } catch (IllegalArgumentException iaex) {
+                    printError("Unknown charset in '" + arg + "' argument.");
+                    return false;
+                }
+                return true;
+            case OPTIMIZE:
+                optimizing = true;
+                return true;
+            case OUTPUT:
+                if (!Arrays.asList("print", "channel", "async")
+                        .contains(value)) {
+                    printError("Unknown output in '" + arg + "' argument.");
+                    return false;
+                }
+                outputKind = value;
+                return true;
+            case OUTPUT_BUFFER:
+                outputBufferSize = (int) parseNumber(option, arg, 1, 
+                        Integer.MAX_VALUE);
+                return outputBufferSize >= 0;
+            case OUTPUT_FLUSH:
+                outputFlushMillis = parseNumber(option, arg, 0, 
+                        Long.MAX_VALUE);
+                return outputFlushMillis >= 0;
+            case COMPILE:
+                compiledFileName = value;
+                return true;
+            case CACHE:
+                cacheDirectory = value;
+                return true;
+            case WATCH:
+                watching = true;
+                return true;
+            case BATCH:
+                batch = true;
+                return true;
+            case BATCH_THREADS:
+                batchThreads = (int) parseNumber(option, arg, 1, 
+                        Integer.MAX_VALUE);
+                return batchThreads >= 0;
+            case CHECK:
+                checking = true;
+                return true;
+            case SERVER:
+                serverSocket = value;
+                return true;
+            case CLIENT:
+                clientSocket = value;
+                return true;
+            case PROFILE:
+                profileName = value;
+                return true;
+            case MEMOIZE:
+                memoizeSize = (int) parseNumber(option, arg, 1, 
+                        Integer.MAX_VALUE);
+                return memoizeSize >= 0;
+            case CHECKPOINT:
+                checkpointFileName = value;
+                return true;
+            case CHECKPOINT_INTERVAL:
+                checkpointMillis = parseNumber(option, arg, 0, 
+                        Long.MAX_VALUE);
+                return checkpointMillis >= 0;
+            case RESUME:
+                resuming = true;
+                return true;
+            default: 
+                throw new AssertionError(option);
+        }
+    }
+
+
+    /* Parses the number of the option (i.e., "--memoize=4096") and returns
+     * it, or prints the error naming the option and returns -1 if the number 
+     * is not valid or is out of the given range.
+     */
+    private static long parseNumber(Option option, String arg, long minimum, 
+            long maximum) {
+        try {
+            long number = Long.parseLong(arg.substring( 
+                    option.getPrefix().length()));
+            if (number >= minimum && number <= maximum) {
+                return number;
+            }
+        } catch (NumberFormatException nfex) {
+            // Reported below together with the out of range numbers.
+        }
+        printError("Invalid number in '" + arg + "' argument: "
+                + option.getName() + " must be a whole number "
+                + (maximum == Long.MAX_VALUE ? "of at least " + minimum
+                        : "from " + minimum + " to " + maximum) + ".");
+        return -1;
+    }
+
+
+    private static void printError(String message) {
+        System.out.println("[ScriptLanguage: Command Line Args Error] "
+                + message);
+    }
+
+
+    // Set of all the options except the given ones.
+    private static Set<Option> allExcept(Option first, Option... rest) {
+        return EnumSet.complementOf(EnumSet.of(first, rest));
+    }
+}
@@ -0,0 +1,113 @@
+package main.batch;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class contains results of a batch run (in the order of the script 
+ * files) and calculates the batch summary: throughput and per-script latency 
+ * percentiles.
+ * 
+ * @author SoundlyGifted
+ */
+public final class BatchReport {
+    
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    
+    private final List<BatchScriptResult> results;
+    private final long elapsedNanos;
+    
+    // Per-script latencies in ascending order.
+    private final long[] sortedLatencies;
+
+    /**
+     * Creates BatchReport instance.
+     * 
+     * @param results results of the scripts in the order of the script files.
+     * @param elapsedNanos wall-clock time of the whole batch in nanoseconds.
+     */
+    public BatchReport(List<BatchScriptResult> results, long elapsedNanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedNanos = elapsedNanos;
+        sortedLatencies = new long[results.size()];
+        for (int i = 0; i < sortedLatencies.length; i++) {
+            sortedLatencies[i] = results.get(i).getElapsedNanos();
+        }
+        Arrays.sort(sortedLatencies);
+    }
+    
+    
+    public List<BatchScriptResult> getResults() {
+        return results;
+    }
+    
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    
+    public int getFailedCount() {
+        int failed = 0;
+        for (BatchScriptResult result : results) {
+            if (result.isFailed()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+    
+    
+    /**
+     * @return number of scripts executed per second.
+     */
+    public double getThroughput() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return results.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    
+    /**
+     * Returns per-script latency percentile (nearest-rank method).
+     * 
+     * @param percentile percentile in the range (0, 100].
+     * @return latency in nanoseconds, or 0 if the batch is empty.
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return sortedLatencies[Math.min(Math.max(rank, 1), 
+                sortedLatencies.length) - 1];
+    }
+    
+    
+    /**
+     * Prints the batch summary.
+     * 
+     * @param out the stream to print the summary to.
+     */
+    public void printSummary(PrintStream out) {
+        out.println("[ScriptLanguage: Batch Summary] Scripts: " 
+                + results.size() + ", failed: " + getFailedCount() 
+                + ", total time: " + formatMillis(elapsedNanos) 
+                + " ms, throughput: " + String.format(Locale.ROOT, "%.1f", 
+                        getThroughput()) + " scripts/s");
+        out.println("[ScriptLanguage: Batch Summary] Latency: p50 " 
+                + formatMillis(getLatencyPercentile(50)) + " ms, p90 " 
+                + formatMillis(getLatencyPercentile(90)) + " ms, p99 " 
+                + formatMillis(getLatencyPercentile(99)) + " ms, max " 
+                + formatMillis(getLatencyPercentile(100)) + " ms");
+    }
+    
+    
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+}
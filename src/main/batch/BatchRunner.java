@@ -0,0 +1,160 @@
+package main.batch;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import main.io.CompiledScriptCache;
+import main.io.ScriptReader;
+import main.io.StringOutputSink;
+import main.io.exceptions.FileReadingException;
+import main.process.ExecutionMode;
+import main.process.ScriptInterpreter;
+import main.process.binary.CompiledScript;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.modules.ModuleStore;
+
+/**
+ * This class runs many script files in parallel on the given executor. Each 
+ * script is executed by its own Script Interpreter instance (isolated script 
+ * variables) and its output and error are captured separately.
+ * 
+ * @author SoundlyGifted
+ */
+public final class BatchRunner {
+    
+    private final ExecutionMode mode;
+    private final boolean optimizing;
+    private final Charset charset;
+    private final ExecutorService executor;
+    
+    // Cache of compiled scripts, or null if scripts are not cached.
+    private final CompiledScriptCache cache;
+    
+    // Compiled files included by the scripts (shared by all the scripts).
+    private final ModuleStore modules;
+
+    /**
+     * Creates BatchRunner instance that does not cache compiled scripts.
+     * 
+     * @param mode script execution mode.
+     * @param optimizing whether to optimize the scripts before execution.
+     * @param charset charset of the script files.
+     * @param executor executor that runs the scripts (it is not shut down by
+     * the batch runner).
+     */
+    public BatchRunner(ExecutionMode mode, boolean optimizing, 
+            Charset charset, ExecutorService executor) {
+        this(mode, optimizing, charset, executor, null);
+    }
+    
+    
+    /**
+     * Creates BatchRunner instance. Compiled script files are executed 
+     * without parsing in any mode (in the reference mode, like in the 
+     * compiled mode).
+     * 
+     * @param mode script execution mode.
+     * @param optimizing whether to optimize the scripts before execution.
+     * @param charset charset of the script files.
+     * @param executor executor that runs the scripts (it is not shut down by
+     * the batch runner).
+     * @param cache cache of compiled scripts used for script text files (not
+     * in the reference mode), or null.
+     */
+    public BatchRunner(ExecutionMode mode, boolean optimizing, 
+            Charset charset, ExecutorService executor, 
+            CompiledScriptCache cache) {
+        this.mode = mode;
+        this.optimizing = optimizing;
+        this.charset = charset;
+        this.executor = executor;
+        this.cache = (mode != ExecutionMode.REFERENCE) ? cache : null;
+        modules = new ModuleStore(charset);
+    }
+    
+    
+    /**
+     * Runs the scripts and waits for all of them to finish.
+     * 
+     * @param scriptFileNames names of the script files.
+     * @param resultConsumer receives each script result in the order of the 
+     * script files as soon as the script and all the preceding ones finished
+     * (i.e., to print the results while the batch is running).
+     * @return the batch report.
+     * @throws InterruptedException is thrown when the current thread is 
+     * interrupted while waiting for the scripts.
+     */
+    public BatchReport run(List<String> scriptFileNames, 
+            Consumer<BatchScriptResult> resultConsumer) 
+            throws InterruptedException {
+        long start = System.nanoTime();
+        
+        List<Future<BatchScriptResult>> futures 
+                = new ArrayList<>(scriptFileNames.size());
+        for (String scriptFileName : scriptFileNames) {
+            futures.add(executor.submit(() -> runScript(scriptFileName)));
+        }
+        
+        List<BatchScriptResult> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            BatchScriptResult result;
+            try {
+                result = futures.get(i).get();
+            } catch (ExecutionException eex) {
+                // Errors (i.e., StackOverflowError) are not caught by the task.
+                result = new BatchScriptResult(scriptFileNames.get(i), "", 
+                        "[ScriptLanguage: Runtime Error] " + eex.getCause(), 0);
+            }
+            results.add(result);
+            resultConsumer.accept(result);
+        }
+        
+        return new BatchReport(results, System.nanoTime() - start);
+    }
+    
+    
+    /* Reads and executes one script. The error message has the same form as 
+     * in the single script mode.
+     */
+    private BatchScriptResult runScript(String scriptFileName) {
+        long start = System.nanoTime();
+        StringOutputSink output = new StringOutputSink();
+        String error = null;
+        try {
+            ScriptInterpreter interpreter = new ScriptInterpreter(mode, 
+                    output, optimizing, null, modules, scriptFileName);
+            CompiledScript compiledScript = null;
+            if (ScriptReader.isCompiledScriptFile(scriptFileName)) {
+                compiledScript 
+                        = ScriptReader.readCompiledScript(scriptFileName);
+            } else if (cache != null) {
+                // Scripts that cannot be compiled are executed from text.
+                compiledScript = cache.getCompiledScript(scriptFileName, 
+                        charset, interpreter::compileScript);
+            }
+            if (compiledScript != null) {
+                interpreter.interpretCompiledScript(compiledScript);
+            } else {
+                interpreter.interpretScript(
+                        ScriptReader.readScriptFile(scriptFileName, charset));
+            }
+        } catch (FileReadingException frex) {
+            error = "[ScriptLanguage: File Reading Error] " + frex.getMessage()
+                    + (frex.getCause() != null 
+                            ? ", caused by: " + frex.getCause() : "");
+        } catch (UnsupportedScriptOperationException 
+                | WrongScriptExpressionException exception) {
+            error = "[ScriptLanguage: Script Error] " + exception.getMessage();
+        } catch (RuntimeException rex) {
+            // I.e., division by zero in a "set" expression.
+            error = "[ScriptLanguage: Runtime Error] " + rex;
+        }
+        return new BatchScriptResult(scriptFileName, output.getOutput(), error, 
+                System.nanoTime() - start);
+    }
+}
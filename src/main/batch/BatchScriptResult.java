@@ -0,0 +1,58 @@
+package main.batch;
+
+/**
+ * This class contains the result of one script run in the batch mode: the 
+ * captured script output, the error message (if the script failed) and the
+ * time it took to read and execute the script.
+ * 
+ * @author SoundlyGifted
+ */
+public final class BatchScriptResult {
+    
+    private final String scriptFileName;
+    private final String output;
+    private final String error;
+    private final long elapsedNanos;
+
+    /**
+     * Creates BatchScriptResult instance.
+     * 
+     * @param scriptFileName name of the script file.
+     * @param output lines printed by the script.
+     * @param error error message, or null if the script finished normally.
+     * @param elapsedNanos time of reading and executing the script in 
+     * nanoseconds.
+     */
+    public BatchScriptResult(String scriptFileName, String output, 
+            String error, long elapsedNanos) {
+        this.scriptFileName = scriptFileName;
+        this.output = output;
+        this.error = error;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    
+    public String getScriptFileName() {
+        return scriptFileName;
+    }
+    
+    
+    public String getOutput() {
+        return output;
+    }
+    
+    
+    public String getError() {
+        return error;
+    }
+    
+    
+    public boolean isFailed() {
+        return error != null;
+    }
+    
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,160 @@
+package main.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import main.io.exceptions.OutputWritingException;
+
+/**
+ * This class encodes script output lines into byte batches in the printing 
+ * thread and hands the batches to a background thread that writes them to a 
+ * channel. Batch buffers circulate through a bounded ring: when all of them 
+ * are waiting to be written, printing blocks until the background thread 
+ * frees one. Batches are written in the order they were printed.
+ * 
+ * @author SoundlyGifted
+ */
+public final class AsyncOutputSink extends ByteBufferOutputSink {
+    
+    // Batch that tells the background thread to stop.
+    private static final ByteBuffer END_OF_OUTPUT = ByteBuffer.allocate(0);
+    
+    private final WritableByteChannel channel;
+    
+    // Batches waiting to be written, and empty batches to be filled.
+    private final BlockingQueue<ByteBuffer> filledBatches;
+    private final BlockingQueue<ByteBuffer> emptyBatches;
+    
+    private final Thread writerThread;
+    
+    // Numbers of batches handed over and written (guarded by "this").
+    private long handedOverCount = 0;
+    private long writtenCount = 0;
+    
+    // First error of the background thread.
+    private volatile IOException writingError;
+    
+    private boolean closed = false;
+
+    /**
+     * Creates AsyncOutputSink instance and starts its background thread.
+     * 
+     * @param channel the channel to write the output to.
+     * @param charset charset of the output.
+     * @param batchSize size of one batch buffer in bytes.
+     * @param batchCount number of batch buffers in the ring (at least 2).
+     * @param maxDelayMillis maximum delay in milliseconds before the printed 
+     * lines are handed to the background thread, or 0 if lines are handed 
+     * over only when the batch is full or flushed.
+     */
+    public AsyncOutputSink(WritableByteChannel channel, Charset charset, 
+            int batchSize, int batchCount, long maxDelayMillis) {
+        super(charset, ByteBuffer.allocateDirect(batchSize), maxDelayMillis);
+        this.channel = channel;
+        filledBatches = new ArrayBlockingQueue<>(batchCount);
+        emptyBatches = new ArrayBlockingQueue<>(batchCount);
+        for (int i = 1; i < batchCount; i++) {
+            emptyBatches.add(ByteBuffer.allocateDirect(batchSize));
+        }
+        writerThread = new Thread(this::writeBatches, "script-output-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    protected ByteBuffer writeBuffer(ByteBuffer filled) {
+        checkWritingError();
+        try {
+            synchronized (this) {
+                handedOverCount++;
+            }
+            filledBatches.put(filled);
+            return emptyBatches.take();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new OutputWritingException("Interrupted during writing the "
+                    + "script output", iex);
+        }
+    }
+
+    /**
+     * Hands the printed lines to the background thread and waits until all 
+     * of them are written.
+     */
+    @Override
+    public void flush() {
+        super.flush();
+        try {
+            synchronized (this) {
+                while (writtenCount < handedOverCount) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new OutputWritingException("Interrupted during writing the "
+                    + "script output", iex);
+        }
+        checkWritingError();
+    }
+
+    /**
+     * Writes all the printed lines and stops the background thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            try {
+                filledBatches.put(END_OF_OUTPUT);
+                writerThread.join();
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    
+    // Background thread loop.
+    private void writeBatches() {
+        try {
+            ByteBuffer batch;
+            while ((batch = filledBatches.take()) != END_OF_OUTPUT) {
+                try {
+                    if (writingError == null) {
+                        while (batch.hasRemaining()) {
+                            channel.write(batch);
+                        }
+                    }
+                } catch (IOException ioex) {
+                    writingError = ioex;
+                } finally {
+                    batch.clear();
+                    emptyBatches.put(batch);
+                    synchronized (this) {
+                        writtenCount++;
+                        notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException iex) {
+            // Stopping the background thread.
+        }
+    }
+    
+    
+    private void checkWritingError() {
+        if (writingError != null) {
+            throw new OutputWritingException("Error during writing the script "
+                    + "output", writingError);
+        }
+    }
+}
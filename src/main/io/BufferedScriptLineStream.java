@@ -0,0 +1,29 @@
+package main.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * This class streams script lines decoded by a buffered character reader.
+ * 
+ * @author SoundlyGifted
+ */
+final class BufferedScriptLineStream extends ScriptLineStream {
+    
+    private final BufferedReader input;
+
+    BufferedScriptLineStream(BufferedReader input, String sourceName) {
+        super(sourceName);
+        this.input = input;
+    }
+
+    @Override
+    protected String readNextLine() throws IOException {
+        return input.readLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
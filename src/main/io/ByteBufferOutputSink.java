@@ -0,0 +1,271 @@
+package main.io;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This is an abstract class of an output sink that encodes printed lines into
+ * a large byte buffer and hands the filled buffer over for writing when it 
+ * is full (size threshold) or when the time since the last hand-over exceeds 
+ * the maximum delay (time threshold, checked when a line is printed).
+ * 
+ * Lines are written in segments when the charset encodes ASCII characters 
+ * as the same single bytes: integer values are written as ASCII digits, and 
+ * literal segments are encoded in advance if they are ASCII or the charset 
+ * is UTF-8 or a single-byte charset (encoding the line in parts gives the 
+ * same bytes as encoding the whole line).
+ * 
+ * @author SoundlyGifted
+ */
+public abstract class ByteBufferOutputSink extends OutputSink 
+        implements SegmentOutputSink {
+    
+    // Size of the array that collects the segments of the lines.
+    private static final int SEGMENTS_SIZE = 4096;
+    
+    // Maximum number of bytes of an int value (the sign and 10 digits).
+    private static final int MAX_INT_LENGTH = 11;
+    
+    private final CharsetEncoder encoder;
+    
+    // Whether ASCII characters are encoded as the same single bytes.
+    private final boolean asciiCompatible;
+    
+    private final byte[] lineSeparator;
+    
+    // Whether literal segments with non-ASCII characters can be encoded.
+    private final boolean encodingSegments;
+    
+    /* Segments of the lines written in segments, copied into the buffer at 
+     * once when they fill this array, before a line is printed as characters 
+     * and before the buffer is handed over (putting small segments into a 
+     * direct buffer one by one costs much more than copying them here).
+     */
+    private final byte[] segments = new byte[SEGMENTS_SIZE];
+    private int segmentsLength;
+    
+    // Maximum delay between hand-overs of printed lines (0 - no time limit).
+    private final long maxDelayNanos;
+    private long lastWriteTime;
+    
+    // Buffer that is being filled with the encoded lines.
+    private ByteBuffer buffer;
+
+    /**
+     * Initializes the sink.
+     * 
+     * @param charset charset of the output.
+     * @param buffer buffer to fill with the encoded lines.
+     * @param maxDelayMillis maximum delay in milliseconds between hand-overs 
+     * of printed lines for writing, or 0 if lines are handed over only when 
+     * the buffer is full or flushed.
+     */
+    protected ByteBufferOutputSink(Charset charset, ByteBuffer buffer, 
+            long maxDelayMillis) {
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = isAsciiCompatible(charset);
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+        this.encodingSegments = asciiCompatible 
+                && (charset.equals(StandardCharsets.UTF_8) 
+                        || encoder.maxBytesPerChar() == 1.0f);
+        this.buffer = buffer;
+        this.maxDelayNanos = maxDelayMillis * 1_000_000;
+        this.lastWriteTime = System.nanoTime();
+    }
+    
+    /**
+     * Hands the filled buffer over for writing.
+     * 
+     * @param filled the buffer with the encoded lines (ready for reading).
+     * @return empty buffer to continue filling with the encoded lines.
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    protected abstract ByteBuffer writeBuffer(ByteBuffer filled);
+
+    @Override
+    public void printLine(CharSequence line) {
+        if (segmentsLength > 0) {
+            putSegments();
+        }
+        int length = line.length();
+        int i = 0;
+        if (asciiCompatible) {
+            // Fast path: ASCII characters are copied as bytes.
+            while (i < length) {
+                char c = line.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                if (!buffer.hasRemaining()) {
+                    handOver();
+                }
+                buffer.put((byte) c);
+                i++;
+            }
+        }
+        if (i < length) {
+            encode(CharBuffer.wrap(line, i, length));
+        }
+        put(lineSeparator, 0, lineSeparator.length);
+        if (maxDelayNanos > 0 
+                && System.nanoTime() - lastWriteTime >= maxDelayNanos) {
+            handOver();
+        }
+    }
+    
+    @Override
+    public boolean writesSegments() {
+        return asciiCompatible;
+    }
+    
+    @Override
+    public byte[] encodeSegment(String segment) {
+        if (!asciiCompatible) {
+            return null;
+        }
+        byte[] bytes = new byte[segment.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = segment.charAt(i);
+            if (c >= 0x80) {
+                return encodingSegments ? segment.getBytes(encoder.charset()) 
+                        : null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+    
+    @Override
+    public void writeSegment(byte[] segment) {
+        if (segment.length > segments.length - segmentsLength) {
+            putSegments();
+            if (segment.length > segments.length) {
+                put(segment, 0, segment.length);
+                return;
+            }
+        }
+        System.arraycopy(segment, 0, segments, segmentsLength, 
+                segment.length);
+        segmentsLength += segment.length;
+    }
+    
+    @Override
+    public void writeInt(int value) {
+        if (MAX_INT_LENGTH > segments.length - segmentsLength) {
+            putSegments();
+        }
+        /* Digits are computed from the negative value, which also holds the 
+         * minimum int value.
+         */
+        int rest = (value < 0) ? value : -value;
+        int position = segmentsLength + digitCount(rest) 
+                + ((value < 0) ? 1 : 0);
+        segmentsLength = position;
+        do {
+            segments[--position] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (value < 0) {
+            segments[--position] = '-';
+        }
+    }
+    
+    @Override
+    public void endLine() {
+        writeSegment(lineSeparator);
+        if (maxDelayNanos > 0 
+                && System.nanoTime() - lastWriteTime >= maxDelayNanos) {
+            handOver();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (segmentsLength > 0) {
+            putSegments();
+        }
+        if (buffer.position() > 0) {
+            handOver();
+        }
+    }
+    
+    
+    // Returns the number of digits of the negative (or zero) value.
+    private static int digitCount(int negative) {
+        int bound = -10;
+        for (int count = 1; count < 10; count++) {
+            if (negative > bound) {
+                return count;
+            }
+            bound *= 10;
+        }
+        return 10;
+    }
+    
+    
+    // Puts the collected segments of the lines into the buffer.
+    private void putSegments() {
+        int length = segmentsLength;
+        segmentsLength = 0;
+        put(segments, 0, length);
+    }
+    
+    
+    // Puts the bytes into the buffer, handing the buffer over when it is full.
+    private void put(byte[] bytes, int offset, int length) {
+        while (length > buffer.remaining()) {
+            int part = buffer.remaining();
+            buffer.put(bytes, offset, part);
+            offset += part;
+            length -= part;
+            handOver();
+        }
+        buffer.put(bytes, offset, length);
+    }
+    
+    
+    private void encode(CharBuffer chars) {
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                handOver();
+            }
+        } while (result.isOverflow());
+        while (encoder.flush(buffer).isOverflow()) {
+            handOver();
+        }
+    }
+    
+    
+    // Checks whether the charset encodes all ASCII characters as ASCII bytes.
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] ascii = new byte[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        return charset.canEncode() && Arrays.equals(ascii, 
+                new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+    }
+    
+    
+    private void handOver() {
+        if (segmentsLength > 0) {
+            putSegments();
+        }
+        buffer.flip();
+        countBytesWritten(buffer.remaining());
+        buffer = writeBuffer(buffer);
+        lastWriteTime = System.nanoTime();
+    }
+}
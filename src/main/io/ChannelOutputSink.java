@@ -0,0 +1,50 @@
+package main.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import main.io.exceptions.OutputWritingException;
+
+/**
+ * This class encodes script output lines into a large direct byte buffer and 
+ * writes it straight to a channel (i.e., the FileChannel of the standard 
+ * output or of a file) in the printing thread.
+ * 
+ * @author SoundlyGifted
+ */
+public final class ChannelOutputSink extends ByteBufferOutputSink {
+    
+    private final WritableByteChannel channel;
+
+    /**
+     * Creates ChannelOutputSink instance.
+     * 
+     * @param channel the channel to write the output to.
+     * @param charset charset of the output.
+     * @param bufferSize size of the output buffer in bytes.
+     * @param maxDelayMillis maximum delay in milliseconds before the printed 
+     * lines are written, or 0 if lines are written only when the buffer is 
+     * full or flushed.
+     */
+    public ChannelOutputSink(WritableByteChannel channel, Charset charset, 
+            int bufferSize, long maxDelayMillis) {
+        super(charset, ByteBuffer.allocateDirect(bufferSize), maxDelayMillis);
+        this.channel = channel;
+    }
+
+    @Override
+    protected ByteBuffer writeBuffer(ByteBuffer filled) {
+        try {
+            while (filled.hasRemaining()) {
+                channel.write(filled);
+            }
+        } catch (IOException ioex) {
+            throw new OutputWritingException("Error during writing the script "
+                    + "output", ioex);
+        } finally {
+            filled.clear();
+        }
+        return filled;
+    }
+}
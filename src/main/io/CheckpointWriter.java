@@ -0,0 +1,200 @@
+package main.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import main.io.exceptions.FileWritingException;
+import main.process.checkpoint.Checkpoint;
+
+/**
+ * This class writes checkpoints of a script execution to a file from a 
+ * background thread. The background thread tells when the next checkpoint is 
+ * due (the interval after the previous checkpoint was written), and the 
+ * interpreting thread then hands over a checkpoint (a copy of the variables) 
+ * and goes on with the script while the checkpoint is encoded and written. 
+ * No checkpoint is due while the previous one is being written, so the 
+ * script execution never waits for the file.
+ *
+ * Each checkpoint is written into a temporary file in the same directory, 
+ * which is forced to the storage device and then atomically moved over the 
+ * checkpoint file, so the checkpoint file always holds a complete checkpoint.
+ *
+ * @author SoundlyGifted
+ */
+public final class CheckpointWriter {
+
+    private final Path file;
+    private final long intervalMillis;
+
+    private final Thread writerThread;
+
+    // Whether the next checkpoint is due (set by the background thread).
+    private volatile boolean due = false;
+
+    // Checkpoint handed over and not yet taken by the background thread.
+    private Checkpoint pending;
+
+    // Number of checkpoints written and the line of the last one.
+    private long writtenCount = 0;
+    private int lastLineNumber = 0;
+
+    // First error of the background thread.
+    private Exception writingError;
+
+    private boolean closed = false;
+
+    /**
+     * Creates CheckpointWriter instance and starts its background thread.
+     *
+     * @param fileName checkpoint file name (it is replaced by each new 
+     * checkpoint).
+     * @param intervalMillis interval in milliseconds between the end of 
+     * writing a checkpoint and the next checkpoint (0 - the next checkpoint 
+     * is due as soon as the previous one is written).
+     */
+    public CheckpointWriter(String fileName, long intervalMillis) {
+        file = Paths.get(fileName).toAbsolutePath();
+        this.intervalMillis = intervalMillis;
+        writerThread = new Thread(this::writeCheckpoints, 
+                "script-checkpoint-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @return true if the next checkpoint is due, false otherwise.
+     */
+    public boolean isDue() {
+        return due;
+    }
+
+    /**
+     * Hands the checkpoint over to the background thread (the next one is not 
+     * due until this one is written).
+     *
+     * @param checkpoint the checkpoint.
+     */
+    public synchronized void write(Checkpoint checkpoint) {
+        due = false;
+        pending = checkpoint;
+        notifyAll();
+    }
+
+    /**
+     * @return number of the checkpoints written.
+     */
+    public synchronized long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * @return number of the script lines executed before the last written 
+     * checkpoint (0 if none was written).
+     */
+    public synchronized int getLastLineNumber() {
+        return lastLineNumber;
+    }
+
+    /**
+     * Writes the checkpoint handed over last (if it is not written yet) and 
+     * stops the background thread.
+     *
+     * @throws main.io.exceptions.FileWritingException is thrown when a 
+     * checkpoint could not be written.
+     */
+    public void close() throws FileWritingException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (writingError != null) {
+                throw new FileWritingException("Error during writing the '"
+                        + file + "' checkpoint file", writingError);
+            }
+        }
+    }
+
+
+    // Background thread loop.
+    private void writeCheckpoints() {
+        try {
+            while (true) {
+                Checkpoint checkpoint;
+                synchronized (this) {
+                    long dueTime = System.currentTimeMillis() + intervalMillis;
+                    long remaining;
+                    while (!closed && (remaining = dueTime
+                            - System.currentTimeMillis()) > 0) {
+                        wait(remaining);
+                    }
+                    due = !closed;
+                    while (!closed && pending == null) {
+                        wait();
+                    }
+                    if (pending == null) {
+                        return;
+                    }
+                    checkpoint = pending;
+                    pending = null;
+                }
+                try {
+                    store(checkpoint.toByteBuffer());
+                    synchronized (this) {
+                        writtenCount++;
+                        lastLineNumber = checkpoint.getLineNumber();
+                    }
+                } catch (IOException | RuntimeException exception) {
+                    // I.e., the directory is not writable.
+                    synchronized (this) {
+                        if (writingError == null) {
+                            writingError = exception;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException iex) {
+            // Stopping the background thread.
+        } finally {
+            due = false;
+        }
+    }
+
+
+    private void store(ByteBuffer buffer) throws IOException {
+        Path temporaryFile = Files.createTempFile(file.getParent(), 
+                "checkpoint", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, 
+                    StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temporaryFile, file, 
+                    StandardCopyOption.REPLACE_EXISTING, 
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioex) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException deleteException) {
+                ioex.addSuppressed(deleteException);
+            }
+            throw ioex;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package main.io;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import main.io.exceptions.FileReadingException;
+import main.process.binary.CompiledScript;
+
+/**
+ * This class represents a directory of compiled scripts, so that repeated 
+ * runs of the same script do not parse the script text again. A compiled 
+ * script is stored in a file named by the SHA-256 hash of the script file 
+ * contents, its charset and the compiled script format version, so a changed
+ * script or a new format version never uses a stale compiled script.
+ * 
+ * Compiled scripts are written to a temporary file first and then moved to 
+ * the cache file, so several processes can share the cache directory. Like 
+ * other compile caches, the cache is only an optimization: a cache file that 
+ * cannot be read is replaced, and failures to write the cache are ignored.
+ * 
+ * @author SoundlyGifted
+ */
+public final class CompiledScriptCache {
+    
+    // Hash algorithm of the cache keys.
+    private static final String KEY_ALGORITHM = "SHA-256";
+    
+    // Cache directory.
+    private final Path directory;
+
+    /**
+     * Creates instance of CompiledScriptCache that stores compiled scripts in
+     * the given directory (created when the first script is stored).
+     * 
+     * @param directory cache directory name.
+     */
+    public CompiledScriptCache(String directory) {
+        this.directory = Paths.get(directory);
+    }
+    
+    
+    /**
+     * Returns the compiled script of a script text file: the cached one if 
+     * the file was compiled before, otherwise the script compiled by the 
+     * given compiler (which is then stored in the cache). The file is read 
+     * once, so the compiled script always matches its cache key. Scripts the 
+     * compiler cannot compile are not cached.
+     * 
+     * @param inFileName input text file name including extension.
+     * @param charset charset of the file.
+     * @param compiler compiles script lines or returns null if it cannot, 
+     * i.e. {@link main.process.ScriptInterpreter#compileScript(Iterable)}.
+     * @return the compiled script, or null if the compiler cannot compile 
+     * the script.
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read or is not an allowed file type.
+     */
+    public CompiledScript getCompiledScript(String inFileName, Charset charset,
+            Function<Iterable<String>, CompiledScript> compiler) 
+            throws FileReadingException {
+        byte[] contents = ScriptReader.readScriptFileBytes(inFileName);
+        Path cacheFile = directory.resolve(key(contents, charset) + "." 
+                + CompiledScript.FILE_EXTENSION);
+        
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                return ScriptReader.readCompiledScript(cacheFile);
+            } catch (IOException ioex) {
+                // The cache file is replaced by the newly compiled script.
+            }
+        }
+        
+        CompiledScript script = compiler.apply(
+                readLines(inFileName, contents, charset));
+        if (script != null) {
+            store(cacheFile, script);
+        }
+        return script;
+    }
+    
+    
+    private void store(Path cacheFile, CompiledScript script) {
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            temporaryFile = Files.createTempFile(directory, "compiling", 
+                    ".tmp");
+            ScriptWriter.writeCompiledScript(temporaryFile, script);
+            Files.move(temporaryFile, cacheFile, 
+                    StandardCopyOption.REPLACE_EXISTING, 
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioex) {
+            // The script is executed without being cached.
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException deleteException) {
+                    ioex.addSuppressed(deleteException);
+                }
+            }
+        }
+    }
+    
+    
+    private static String key(byte[] contents, Charset charset) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException nsaex) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(nsaex);
+        }
+        digest.update((CompiledScript.FORMAT_VERSION + " " + charset.name() 
+                + "\n").getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest(contents)) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+    
+    
+    private static List<String> readLines(String inFileName, byte[] contents, 
+            Charset charset) throws FileReadingException {
+        try (BufferedReader input = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(contents), charset))) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = input.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        } catch (IOException ioex) {
+            throw new FileReadingException("Error during reading the '" 
+                    + inFileName + "' file", ioex);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package main.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class streams script lines from a compressed script file. A background 
+ * read-ahead thread decompresses the file, decodes it and splits it into 
+ * lines, and hands the lines over in batches through a bounded queue, so that 
+ * decompression overlaps with the script execution and the interpreting 
+ * thread takes a whole batch of lines at a time. When all the batches in the 
+ * queue are waiting to be executed, reading ahead blocks until the 
+ * interpreting thread takes one.
+ *
+ * @author SoundlyGifted
+ */
+final class CompressedScriptLineStream extends ScriptLineStream {
+
+    // Maximum number of script lines in one batch.
+    private static final int BATCH_LINES = 4096;
+
+    // Maximum number of batches read ahead of the script execution.
+    private static final int READ_AHEAD_BATCHES = 4;
+
+    // Batch that tells that all the lines were read.
+    private static final String[] END_OF_SCRIPT = new String[0];
+
+    private final BufferedReader input;
+
+    // Batches of lines read ahead (END_OF_SCRIPT is the last one).
+    private final BlockingQueue<String[]> batches
+            = new ArrayBlockingQueue<>(READ_AHEAD_BATCHES);
+
+    private final Thread readerThread;
+
+    // Error of the background thread (set before END_OF_SCRIPT is put).
+    private volatile IOException readingError;
+
+    // Batch being iterated and index of its next line.
+    private String[] batch = new String[0];
+    private int index = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Creates CompressedScriptLineStream instance and starts its read-ahead 
+     * thread.
+     *
+     * @param input reader of the decompressed script text (it is closed by 
+     * the read-ahead thread).
+     * @param sourceName name of the script source (used in error messages).
+     */
+    CompressedScriptLineStream(BufferedReader input, String sourceName) {
+        super(sourceName);
+        this.input = input;
+        readerThread = new Thread(this::readBatches, "script-read-ahead");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    @Override
+    protected String readNextLine() throws IOException {
+        if (index == batch.length) {
+            if (batch == END_OF_SCRIPT) {
+                return null;
+            }
+            try {
+                batch = batches.take();
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during reading the script", 
+                        iex);
+            }
+            index = 0;
+            if (batch == END_OF_SCRIPT) {
+                if (readingError != null) {
+                    throw readingError;
+                }
+                return null;
+            }
+        }
+        return batch[index++];
+    }
+
+    /**
+     * Stops the read-ahead thread (also when not all the lines were read) and 
+     * waits until it closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /* Background thread loop. END_OF_SCRIPT is put whatever happens, so that 
+     * the interpreting thread never waits for a thread that failed.
+     */
+    private void readBatches() {
+        try (input) {
+            String[] lines = new String[BATCH_LINES];
+            int count = 0;
+            String line;
+            while ((line = input.readLine()) != null) {
+                lines[count++] = line;
+                if (count == BATCH_LINES) {
+                    batches.put(lines);
+                    lines = new String[BATCH_LINES];
+                    count = 0;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            if (count > 0) {
+                batches.put(Arrays.copyOf(lines, count));
+            }
+        } catch (IOException ioex) {
+            readingError = ioex;
+        } catch (InterruptedException iex) {
+            /* The stream is closed, the remaining lines are not needed (the 
+             * interrupt status is restored, so END_OF_SCRIPT is not waited 
+             * to be put into the full queue).
+             */
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            // I.e., OutOfMemoryError or a decompression error.
+            readingError = new IOException("Failed to read the script", t);
+        } finally {
+            try {
+                batches.put(END_OF_SCRIPT);
+            } catch (InterruptedException iex) {
+                // The stream is closed.
+            }
+        }
+    }
+}
@@ -13,7 +13,7 @@ public final class KeyboardInputReader {
     
     /**
      * Reads console user keyboard input until the newline (line feed) symbol 
-     * '\n' is met (Enter pressed).
+     * '\n' is met (Enter pressed) or the input is closed.
      * 
      * @return 
      */
@@ -23,7 +23,7 @@ public final class KeyboardInputReader {
         while(true) {
             try {
                 i = System.in.read();
-                if (i == '\n') {
+                if (i == '\n' || i == -1) {
                     break;
                 }
                 sb.append((char) i);
@@ -0,0 +1,181 @@
+package main.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class streams script lines from a memory-mapped file. Line boundaries 
+ * are found on raw bytes, and blank lines and comment lines (ignored by the 
+ * Script Interpreter) are skipped without decoding them. Only the remaining 
+ * statement text (without surrounding whitespace) is turned into strings, 
+ * with a fast path for pure-ASCII lines.
+ * 
+ * Files of any size are read through a window of the file that is mapped into
+ * memory at a time and moved forward when the end of the window is reached.
+ * 
+ * The file charset must encode line feed, carriage return, space, tab and '#'
+ * as the same single bytes as ASCII does (see {@link #supports(Charset)}).
+ * 
+ * @author SoundlyGifted
+ */
+final class MappedScriptLineStream extends ScriptLineStream {
+    
+    // Size of the file window mapped into memory at a time.
+    private static final int WINDOW_SIZE = 1 << 28;
+    
+    // ASCII bytes of the characters that must be single bytes in the charset.
+    private static final byte[] ASCII_BYTES_TO_SUPPORT 
+            = "\n\r\t\u000B\f\u001C\u001D\u001E\u001F #"
+                    .getBytes(StandardCharsets.US_ASCII);
+    
+    private final FileChannel channel;
+    private final long fileSize;
+    private final Charset charset;
+    
+    // Currently mapped window of the file and its position in the file.
+    private MappedByteBuffer window;
+    private long windowPosition;
+    
+    // Index of the start of the next line in the window.
+    private int index;
+    
+    // Buffer for the bytes of the line being turned into a string.
+    private byte[] lineBytes = new byte[256];
+
+    MappedScriptLineStream(FileChannel channel, Charset charset, 
+            String sourceName) throws IOException {
+        super(sourceName);
+        this.channel = channel;
+        this.charset = charset;
+        fileSize = channel.size();
+        mapWindow(0, WINDOW_SIZE);
+    }
+    
+    /**
+     * Checks whether the file charset can be read by the memory-mapped line 
+     * stream.
+     * 
+     * @param charset the file charset.
+     * @return true if the charset is supported, false otherwise.
+     */
+    static boolean supports(Charset charset) {
+        return charset.canEncode() && Arrays.equals(ASCII_BYTES_TO_SUPPORT, 
+                new String(ASCII_BYTES_TO_SUPPORT, StandardCharsets.US_ASCII)
+                        .getBytes(charset));
+    }
+
+    @Override
+    protected String readNextLine() throws IOException {
+        while (windowPosition + index < fileSize) {
+            int limit = window.limit();
+            int end = index;
+            while (end < limit) {
+                byte b = window.get(end);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                end++;
+            }
+            
+            /* Moving the window when the line (or the "\r\n" line terminator)
+             * continues after the end of the window.
+             */
+            if ((end == limit || (end == limit - 1 && window.get(end) == '\r'))
+                    && windowPosition + limit < fileSize) {
+                moveWindow(end - index);
+                continue;
+            }
+            
+            int start = index;
+            index = end;
+            if (end < limit) {
+                index++;
+                if (window.get(end) == '\r' && index < limit 
+                        && window.get(index) == '\n') {
+                    index++;
+                }
+            }
+            
+            String line = readStatement(start, end);
+            if (line != null) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    
+    /* Returns the line text without surrounding whitespace, or null if the 
+     * line is blank or is a comment.
+     */
+    private String readStatement(int start, int end) {
+        while (start < end && isAsciiWhitespace(window.get(start))) {
+            start++;
+        }
+        while (end > start && isAsciiWhitespace(window.get(end - 1))) {
+            end--;
+        }
+        
+        // Skipping blank lines and comments ("#" operator lines).
+        if (start == end) {
+            return null;
+        }
+        if (window.get(start) == '#' 
+                && (start + 1 == end || window.get(start + 1) == ' ')) {
+            return null;
+        }
+        
+        int length = end - start;
+        if (length > lineBytes.length) {
+            lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+        }
+        window.get(start, lineBytes, 0, length);
+        
+        int highBits = 0;
+        for (int i = 0; i < length; i++) {
+            highBits |= lineBytes[i];
+        }
+        if ((highBits & 0x80) == 0) {
+            // Pure-ASCII line is the same in any supported charset.
+            return new String(lineBytes, 0, length, StandardCharsets.ISO_8859_1);
+        }
+        return new String(lineBytes, 0, length, charset);
+    }
+    
+    
+    /* Maps the next window of the file that starts at the current line and is
+     * large enough to contain more than the given bytes of the line.
+     */
+    private void moveWindow(int lineLength) throws IOException {
+        long position = windowPosition + index;
+        long size = Math.min(Math.max(WINDOW_SIZE, 2 * (lineLength + 2L)), 
+                Integer.MAX_VALUE);
+        if (position + size <= windowPosition + window.limit()) {
+            throw new IOException("Script line is too long");
+        }
+        mapWindow(position, (int) size);
+    }
+    
+    
+    private void mapWindow(long position, int size) throws IOException {
+        windowPosition = position;
+        index = 0;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, 
+                Math.min(size, fileSize - position));
+    }
+    
+    
+    // Checks whitespace the same way as Character.isWhitespace for ASCII.
+    private static boolean isAsciiWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+}
@@ -0,0 +1,76 @@
+package main.io;
+
+import java.io.Closeable;
+import java.nio.charset.Charset;
+
+/**
+ * This is an abstract class of an output sink that receives the lines printed
+ * by the "print" script operations.
+ * 
+ * Sinks that encode the lines into bytes can also write a line in segments 
+ * (see {@link SegmentOutputSink}).
+ * 
+ * Output sinks are not thread-safe: lines must be printed by one thread at a 
+ * time. Closing a sink does not close the underlying stream or channel.
+ * 
+ * @author SoundlyGifted
+ */
+public abstract class OutputSink implements Closeable {
+    
+    /**
+     * Charset of the standard output (the same as System.out uses).
+     */
+    public static final Charset STANDARD_OUTPUT_CHARSET 
+            = System.getProperty("sun.stdout.encoding") != null 
+                    ? Charset.forName(System.getProperty("sun.stdout.encoding"))
+                    : Charset.defaultCharset();
+    
+    // Number of bytes (or characters) of the output written so far.
+    private long bytesWritten;
+    
+    /**
+     * Prints the line followed by the line separator.
+     * 
+     * @param line the line to print.
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    public abstract void printLine(CharSequence line);
+    
+    /**
+     * Writes all the printed lines to the underlying output.
+     * 
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    public abstract void flush();
+    
+    /**
+     * Flushes the printed lines and releases resources of the sink.
+     * 
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+    
+    /**
+     * @return number of bytes handed over for writing so far (sinks that do 
+     * not encode the lines themselves count the printed characters, 
+     * including line separators).
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    /**
+     * Adds to the number of bytes handed over for writing.
+     * 
+     * @param count number of bytes (or characters).
+     */
+    protected final void countBytesWritten(long count) {
+        bytesWritten += count;
+    }
+}
@@ -0,0 +1,36 @@
+package main.io;
+
+import java.io.PrintStream;
+
+/**
+ * This class prints script output lines to a print stream (i.e., System.out).
+ * 
+ * @author SoundlyGifted
+ */
+public final class PrintStreamOutputSink extends OutputSink {
+    
+    private static final int LINE_SEPARATOR_LENGTH 
+            = System.lineSeparator().length();
+    
+    private final PrintStream stream;
+
+    /**
+     * Creates PrintStreamOutputSink instance.
+     * 
+     * @param stream the print stream to print lines to.
+     */
+    public PrintStreamOutputSink(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void printLine(CharSequence line) {
+        stream.println(line.toString());
+        countBytesWritten(line.length() + LINE_SEPARATOR_LENGTH);
+    }
+
+    @Override
+    public void flush() {
+        stream.flush();
+    }
+}
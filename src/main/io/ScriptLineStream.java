@@ -0,0 +1,84 @@
+package main.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This is an abstract class of a stream of script lines that are read one by 
+ * one from an opened file or from the standard input, so that only the line 
+ * being interpreted is kept in memory. The lines can be iterated only once.
+ * 
+ * @author SoundlyGifted
+ */
+public abstract class ScriptLineStream implements Iterable<String>, Closeable {
+    
+    // Name of the script source (used in error messages).
+    private final String sourceName;
+    
+    private boolean iterated = false;
+
+    ScriptLineStream(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Returns iterator that reads the next script line when it is requested.
+     * Errors during reading are thrown as UncheckedIOException.
+     * 
+     * @return iterator over the script lines.
+     * @throws java.lang.IllegalStateException is thrown when the lines were 
+     * already iterated.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("Script lines of '" + sourceName 
+                    + "' can be read only once");
+        }
+        iterated = true;
+        
+        return new Iterator<String>() {
+            private String nextLine;
+            private boolean nextLineRead = false;
+            
+            @Override
+            public boolean hasNext() {
+                if (!nextLineRead) {
+                    nextLine = readLine();
+                    nextLineRead = true;
+                }
+                return nextLine != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                nextLineRead = false;
+                return nextLine;
+            }
+        };
+    }
+    
+    /**
+     * Reads the next script line.
+     * 
+     * @return the next script line, or null if there are no more lines.
+     * @throws java.io.IOException is thrown when the line cannot be read.
+     */
+    protected abstract String readNextLine() throws IOException;
+    
+    
+    private String readLine() {
+        try {
+            return readNextLine();
+        } catch (IOException ioex) {
+            throw new UncheckedIOException("Error during reading the '" 
+                    + sourceName + "' file", ioex);
+        }
+    }
+}
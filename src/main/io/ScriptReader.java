@@ -2,12 +2,32 @@ package main.io;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import main.io.exceptions.FileReadingException;
+import main.process.binary.CompiledScript;
+import main.process.checkpoint.Checkpoint;
 
 /**
  * This class is designed to read a sript line by line from a specified file.
@@ -16,21 +36,59 @@ import main.io.exceptions.FileReadingException;
  */
 public final class ScriptReader {
     
-    // Acceptable file extensions
-    private static final String[] INPUT_FILE_EXTENSIONS = {"txt"};    
+    // Extensions of compressed script text files (gzip and zlib deflate).
+    private static final String GZIP_EXTENSION = "gz";
+    private static final String DEFLATE_EXTENSION = "deflate";
+    
+    // Acceptable file extensions (script text files and compiled scripts).
+    private static final String[] INPUT_FILE_EXTENSIONS 
+            = {"txt", "txt." + GZIP_EXTENSION, "txt." + DEFLATE_EXTENSION, 
+                    CompiledScript.FILE_EXTENSION};
+    
+    // File name that stands for the standard input.
+    public static final String STANDARD_INPUT_NAME = "-";
+    
+    // Size of the read buffer used for streaming script lines.
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    
+    // Size of the buffer of compressed bytes read from a compressed file.
+    private static final int DECOMPRESSION_BUFFER_SIZE = 1 << 20;
+    
+    // Prefix of the batch manifest file name, i.e. "@scripts.lst".
+    private static final String MANIFEST_PREFIX = "@";
+    
+    // Symbols that make a batch source a glob pattern.
+    private static final String GLOB_SYMBOLS = "*?[{";
     
     private ScriptReader() {}
     
     /**
-     * This method reads a script from a text file line by line.
+     * This method reads a script from a text file line by line in the default
+     * charset.
      * 
      * @param inFileName input text file name including extension.
-     * @return Collection of strings (lines read from the file).
+     * @return List of strings (lines read from the file).
      * @throws main.io.exceptions.FileReadingException is thrown when the file 
      * cannot be read or is not an allowed file type.
      */
-    public static Collection<String> readScriptFile(String inFileName) 
+    public static List<String> readScriptFile(String inFileName) 
             throws FileReadingException {
+        return readScriptFile(inFileName, Charset.defaultCharset());
+    }
+    
+    
+    /**
+     * This method reads a script from a text file line by line. A compressed 
+     * file (".txt.gz" or ".txt.deflate") is decompressed while it is read.
+     * 
+     * @param inFileName input text file name including extension.
+     * @param charset charset of the file.
+     * @return List of strings (lines read from the file).
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read or is not an allowed file type.
+     */
+    public static List<String> readScriptFile(String inFileName, 
+            Charset charset) throws FileReadingException {
         if (inFileName == null || inFileName.strip().isEmpty()) {
             throw new FileReadingException("File to read not specified");
         }
@@ -38,17 +96,21 @@ public final class ScriptReader {
         File file = new File(inFileName);
          
         if (file.isFile() && file.canRead()) {
-            String fileExtension = getFileExtension(file.getName());
+            String fileExtension = getInputFileExtension(file.getName());
             inputFileExtensionCheck(fileExtension);
-           
-            try (BufferedReader input 
-                    = new BufferedReader(new FileReader(inFileName))) {
-                Collection<String> lines = new LinkedList<>();
+            textFileCheck(inFileName);
+            
+            if (isCompressedFile(inFileName)) {
+                return readCompressedScriptFile(file, charset);
+            }
+            try (BufferedReader input = new BufferedReader(
+                    new FileReader(inFileName, charset))) {
+                List<String> lines = new ArrayList<>();
                 String line;
                 while ((line = input.readLine()) != null) {
                     lines.add(line);
                 }
-                return new ArrayList<>(lines);
+                return lines;
             } catch (IOException ioex) {
                 throw new FileReadingException("Error during reading the '" 
                         + inFileName + "' file", ioex);
@@ -59,6 +121,386 @@ public final class ScriptReader {
     }
     
     
+    /**
+     * This method opens a script text file (or the standard input, if the file
+     * name is "-") for streaming the script line by line in the default 
+     * charset. Lines are read only when they are requested, so memory use 
+     * does not depend on the script length.
+     * 
+     * @param inFileName input text file name including extension, or "-".
+     * @return stream of script lines that must be closed after reading.
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read or is not an allowed file type.
+     */
+    public static ScriptLineStream openScriptFile(String inFileName) 
+            throws FileReadingException {
+        return openScriptFile(inFileName, Charset.defaultCharset(), false);
+    }
+    
+    
+    /**
+     * This method opens a script text file (or the standard input, if the file
+     * name is "-") for streaming the script line by line. Lines are read only 
+     * when they are requested, so memory use does not depend on the script 
+     * length.
+     * 
+     * A memory-mapped file is read as raw bytes: blank and comment lines are 
+     * skipped without decoding, and only statement text is turned into 
+     * strings. Memory mapping is not used for the standard input, for 
+     * compressed files and for charsets that do not encode ASCII symbols as 
+     * single bytes (i.e., UTF-16).
+     * 
+     * A compressed file (".txt.gz" or ".txt.deflate") is decompressed by a 
+     * read-ahead thread while the script is executed, and its lines are 
+     * handed over in batches.
+     * 
+     * @param inFileName input text file name including extension, or "-".
+     * @param charset charset of the file.
+     * @param memoryMapped whether to read the file through memory mapping.
+     * @return stream of script lines that must be closed after reading.
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read or is not an allowed file type.
+     */
+    public static ScriptLineStream openScriptFile(String inFileName, 
+            Charset charset, boolean memoryMapped) 
+            throws FileReadingException {
+        if (inFileName == null || inFileName.strip().isEmpty()) {
+            throw new FileReadingException("File to read not specified");
+        }
+        
+        if (inFileName.equals(STANDARD_INPUT_NAME)) {
+            return new BufferedScriptLineStream(new BufferedReader(
+                    new InputStreamReader(System.in, charset), 
+                    STREAM_BUFFER_SIZE), "standard input");
+        }
+
+        File file = new File(inFileName);
+         
+        if (file.isFile() && file.canRead()) {
+            String fileExtension = getInputFileExtension(file.getName());
+            inputFileExtensionCheck(fileExtension);
+            textFileCheck(inFileName);
+            
+            try {
+                if (isCompressedFile(inFileName)) {
+                    return openCompressedScriptFile(file, charset);
+                }
+                if (memoryMapped && MappedScriptLineStream.supports(charset)) {
+                    return new MappedScriptLineStream(FileChannel.open(
+                            file.toPath(), StandardOpenOption.READ), charset, 
+                            inFileName);
+                }
+                return new BufferedScriptLineStream(new BufferedReader(
+                        new FileReader(inFileName, charset), 
+                        STREAM_BUFFER_SIZE), inFileName);
+            } catch (IOException ioex) {
+                throw new FileReadingException("Error during reading the '" 
+                        + inFileName + "' file", ioex);
+            }
+        }
+        throw new FileReadingException("File '" + inFileName + "' not found or "
+                + "cannot read the file");
+    }
+    
+    
+    /**
+     * This method reads a compiled script file. The file is memory-mapped, and
+     * the instruction stream of the compiled script is not copied from the 
+     * mapped file, so the file must not be changed while the compiled script 
+     * is used.
+     * 
+     * @param inFileName input compiled script file name including extension.
+     * @return the compiled script.
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read, is not a compiled script file or has a different format
+     * version.
+     */
+    public static CompiledScript readCompiledScript(String inFileName) 
+            throws FileReadingException {
+        if (inFileName == null || inFileName.strip().isEmpty()) {
+            throw new FileReadingException("File to read not specified");
+        }
+
+        File file = new File(inFileName);
+         
+        if (file.isFile() && file.canRead()) {
+            if (!isCompiledScriptFile(inFileName)) {
+                throw new FileReadingException("The '" + inFileName 
+                        + "' file is not a compiled script file");
+            }
+            try {
+                return readCompiledScript(file.toPath());
+            } catch (IOException ioex) {
+                throw new FileReadingException("Error during reading the '" 
+                        + inFileName + "' file", ioex);
+            }
+        }
+        throw new FileReadingException("File '" + inFileName + "' not found or "
+                + "cannot read the file");
+    }
+    
+    
+    /**
+     * This method reads a checkpoint file of a script execution. The file is 
+     * memory-mapped, so the values of the variables are read in bulk.
+     * 
+     * @param inFileName checkpoint file name.
+     * @return the checkpoint.
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read, is not a checkpoint file or its checksum does not match.
+     */
+    public static Checkpoint readCheckpoint(String inFileName) 
+            throws FileReadingException {
+        if (inFileName == null || inFileName.strip().isEmpty()) {
+            throw new FileReadingException("File to read not specified");
+        }
+        
+        File file = new File(inFileName);
+        
+        if (file.isFile() && file.canRead()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), 
+                    StandardOpenOption.READ)) {
+                return Checkpoint.read(channel.map( 
+                        FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException ioex) {
+                throw new FileReadingException("Error during reading the '"
+                        + inFileName + "' checkpoint file", ioex);
+            }
+        }
+        throw new FileReadingException("File '" + inFileName + "' not found or "
+                + "cannot read the file");
+    }
+    
+    
+    /**
+     * @param fileName file name including extension.
+     * @return true if the file name has the compiled script extension, false 
+     * otherwise.
+     */
+    public static boolean isCompiledScriptFile(String fileName) {
+        return getFileExtension(fileName).equals(CompiledScript.FILE_EXTENSION);
+    }
+    
+    
+    /* Memory-maps the compiled script file (the mapping remains valid after 
+     * the file channel is closed).
+     */
+    static CompiledScript readCompiledScript(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, 
+                StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            return CompiledScript.read(buffer);
+        }
+    }
+    
+    
+    /* Reads the whole script text file as bytes (i.e., to compute its cache 
+     * key). A compressed file is read as its decompressed bytes.
+     */
+    static byte[] readScriptFileBytes(String inFileName) 
+            throws FileReadingException {
+        if (inFileName == null || inFileName.strip().isEmpty()) {
+            throw new FileReadingException("File to read not specified");
+        }
+
+        File file = new File(inFileName);
+         
+        if (file.isFile() && file.canRead()) {
+            inputFileExtensionCheck(getInputFileExtension(file.getName()));
+            textFileCheck(inFileName);
+            try {
+                if (isCompressedFile(inFileName)) {
+                    try (InputStream input = openDecompressingStream(file)) {
+                        return input.readAllBytes();
+                    }
+                }
+                return Files.readAllBytes(file.toPath());
+            } catch (IOException ioex) {
+                throw new FileReadingException("Error during reading the '" 
+                        + inFileName + "' file", ioex);
+            }
+        }
+        throw new FileReadingException("File '" + inFileName + "' not found or "
+                + "cannot read the file");
+    }
+    
+    
+    /**
+     * This method lists script files for the batch mode. The source can be:
+     * a directory (all the files with acceptable extensions in it), a glob 
+     * pattern, i.e. "scripts/**&#47;*.txt" (all the matching files under the
+     * directory that precedes the first pattern symbol), or a manifest file 
+     * name after "@", i.e. "@scripts.lst" (script file names one per line, 
+     * relative to the manifest directory; blank lines and "# " comments are 
+     * ignored). Any other source is a single script file name.
+     * 
+     * @param source directory, glob pattern or "@" followed by manifest file 
+     * name.
+     * @return script file names (in a stable order for directories and glob
+     * patterns, in the manifest order for manifests).
+     * @throws main.io.exceptions.FileReadingException is thrown when the 
+     * directory or the manifest cannot be read.
+     */
+    public static List<String> listScriptFiles(String source) 
+            throws FileReadingException {
+        if (source == null || source.strip().isEmpty()) {
+            throw new FileReadingException("Scripts to read not specified");
+        }
+        
+        try {
+            if (source.startsWith(MANIFEST_PREFIX)) {
+                return readManifest(Paths.get(source.substring(
+                        MANIFEST_PREFIX.length())));
+            }
+            if (Files.isDirectory(Paths.get(source))) {
+                try (Stream<Path> files = Files.list(Paths.get(source))) {
+                    return files.filter(file -> Files.isRegularFile(file) 
+                            && isAcceptableExtension(getInputFileExtension( 
+                                    file.getFileName().toString())))
+                            .map(Path::toString).sorted()
+                            .collect(Collectors.toList());
+                }
+            }
+            int patternStart = indexOfGlobSymbol(source);
+            if (patternStart >= 0) {
+                return findGlobMatches(source, patternStart);
+            }
+        } catch (IOException | UncheckedIOException | InvalidPathException ex) {
+            throw new FileReadingException("Error during listing the '" 
+                    + source + "' scripts", ex);
+        }
+        return List.of(source);
+    }
+    
+    
+    private static List<String> readManifest(Path manifest) 
+            throws IOException {
+        Path directory = manifest.toAbsolutePath().getParent();
+        List<String> scriptFileNames = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            line = line.strip();
+            if (line.isEmpty() || line.equals("#") || line.startsWith("# ")) {
+                continue;
+            }
+            scriptFileNames.add(directory.resolve(line).normalize().toString());
+        }
+        return scriptFileNames;
+    }
+    
+    
+    private static int indexOfGlobSymbol(String source) {
+        for (int i = 0; i < source.length(); i++) {
+            if (GLOB_SYMBOLS.indexOf(source.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    
+    /* Walks the directory that precedes the first glob pattern symbol and 
+     * matches the (normalized) file paths against the whole pattern.
+     */
+    private static List<String> findGlobMatches(String pattern, 
+            int patternStart) throws IOException {
+        int separator = Math.max(pattern.lastIndexOf('/', patternStart), 
+                pattern.lastIndexOf(File.separatorChar, patternStart));
+        Path walkRoot = separator < 0 
+                ? Paths.get(".") : Paths.get(pattern.substring(0, separator + 1));
+        PathMatcher matcher = FileSystems.getDefault()
+                .getPathMatcher("glob:" + Paths.get(pattern).normalize());
+        if (!Files.isDirectory(walkRoot)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(walkRoot)) {
+            return files.map(Path::normalize)
+                    .filter(file -> matcher.matches(file) 
+                            && Files.isRegularFile(file))
+                    .map(Path::toString).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    
+    /* Opens the stream of the decompressed bytes of a compressed script file: 
+     * gzip for ".gz" files, zlib-wrapped deflate (as written by 
+     * java.util.zip.DeflaterOutputStream) for ".deflate" files.
+     */
+    private static InputStream openDecompressingStream(File file) 
+            throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            if (getFileExtension(file.getName()).equals(GZIP_EXTENSION)) {
+                return new GZIPInputStream(input, DECOMPRESSION_BUFFER_SIZE);
+            }
+            return new InflaterInputStream(input, new Inflater(), 
+                    DECOMPRESSION_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            };
+        } catch (IOException ioex) {
+            // I.e., the file does not start with the gzip header.
+            input.close();
+            throw ioex;
+        }
+    }
+    
+    
+    private static ScriptLineStream openCompressedScriptFile(File file, 
+            Charset charset) throws IOException {
+        return new CompressedScriptLineStream(new BufferedReader( 
+                new InputStreamReader(openDecompressingStream(file), charset), 
+                STREAM_BUFFER_SIZE), file.getPath());
+    }
+    
+    
+    private static List<String> readCompressedScriptFile(File file, 
+            Charset charset) throws FileReadingException {
+        try (ScriptLineStream scriptStream 
+                = openCompressedScriptFile(file, charset)) {
+            List<String> lines = new ArrayList<>();
+            scriptStream.forEach(lines::add);
+            return lines;
+        } catch (IOException ioex) {
+            throw new FileReadingException("Error during reading the '"
+                    + file.getPath() + "' file", ioex);
+        } catch (UncheckedIOException uioex) {
+            throw new FileReadingException(uioex.getMessage(), 
+                    uioex.getCause());
+        }
+    }
+    
+    
+    private static boolean isCompressedFile(String fileName) {
+        String fileExtension = getFileExtension(fileName);
+        return fileExtension.equals(GZIP_EXTENSION) 
+                || fileExtension.equals(DEFLATE_EXTENSION);
+    }
+    
+    
+    /* Returns the file extension, including the extension before the 
+     * compression one for compressed files, i.e. "txt.gz".
+     */
+    private static String getInputFileExtension(String fileName) {
+        String fileExtension = getFileExtension(fileName);
+        if (isCompressedFile(fileName)) {
+            String innerExtension = getFileExtension(fileName.substring(0, 
+                    fileName.length() - fileExtension.length() - 1));
+            if (!innerExtension.isEmpty()) {
+                return innerExtension + "." + fileExtension;
+            }
+        }
+        return fileExtension;
+    }
+    
+    
     private static String getFileExtension(String fileName) {
         
         final String WINDOWS_FILE_SEPARATOR = "\\";
@@ -87,15 +529,20 @@ public final class ScriptReader {
     }
 
     
-    private static void inputFileExtensionCheck(String fileExtension) 
-            throws FileReadingException {
+    private static boolean isAcceptableExtension(String fileExtension) {
         boolean isAcceptable = false;
         for (String acceptableExtension : INPUT_FILE_EXTENSIONS) {
             if (fileExtension.equals(acceptableExtension)) {
                 isAcceptable = true;
             }
         }
-        if (isAcceptable == false) {
+        return isAcceptable;
+    }
+    
+    
+    private static void inputFileExtensionCheck(String fileExtension) 
+            throws FileReadingException {
+        if (isAcceptableExtension(fileExtension) == false) {
             StringBuilder sb = new StringBuilder();
             for (String ext : INPUT_FILE_EXTENSIONS) {
                 sb.append(ext);
@@ -106,4 +553,13 @@ public final class ScriptReader {
                     + sb.toString().strip());
         }
     }
+    
+    
+    private static void textFileCheck(String fileName) 
+            throws FileReadingException {
+        if (isCompiledScriptFile(fileName)) {
+            throw new FileReadingException("The '" + fileName + "' file is a "
+                    + "compiled script, not a script text file");
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package main.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import main.io.exceptions.FileWritingException;
+import main.process.binary.CompiledScript;
+
+/**
+ * This class is designed to write a compiled script to a file.
+ * 
+ * @author SoundlyGifted
+ */
+public final class ScriptWriter {
+    
+    private ScriptWriter() {}
+    
+    /**
+     * This method writes a compiled script in the binary form to a file 
+     * (replacing the file contents, if the file exists).
+     * 
+     * @param outFileName output file name including extension.
+     * @param script the compiled script.
+     * @throws main.io.exceptions.FileWritingException is thrown when the file 
+     * cannot be written or is not a compiled script file.
+     */
+    public static void writeCompiledScript(String outFileName, 
+            CompiledScript script) throws FileWritingException {
+        if (outFileName == null || outFileName.strip().isEmpty()) {
+            throw new FileWritingException("File to write not specified");
+        }
+        if (!ScriptReader.isCompiledScriptFile(outFileName)) {
+            throw new FileWritingException("The output file extension is not "
+                    + "acceptable. Acceptable extension: " 
+                    + CompiledScript.FILE_EXTENSION);
+        }
+        try {
+            writeCompiledScript(Paths.get(outFileName), script);
+        } catch (IOException ioex) {
+            throw new FileWritingException("Error during writing the '" 
+                    + outFileName + "' file", ioex);
+        }
+    }
+    
+    
+    /* Writes the binary form of the compiled script to the file.
+     */
+    static void writeCompiledScript(Path file, CompiledScript script) 
+            throws IOException {
+        ByteBuffer buffer = script.toByteBuffer();
+        try (FileChannel channel = FileChannel.open(file, 
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package main.io;
+
+/**
+ * This interface is implemented by the output sinks that encode the printed 
+ * lines into bytes and can also write a line in segments: literal parts of 
+ * the line encoded once in advance and integer values written straight as 
+ * digits, followed by the end of the line.
+ *
+ * A line written in segments must be ended by {@link #endLine()} before a 
+ * line is printed by {@link OutputSink#printLine(CharSequence)}.
+ *
+ * @author SoundlyGifted
+ */
+public interface SegmentOutputSink {
+
+    /**
+     * @return true if the sink can write lines in segments in its charset, 
+     * false if lines are printed only by 
+     * {@link OutputSink#printLine(CharSequence)}.
+     */
+    boolean writesSegments();
+
+    /**
+     * Encodes the literal segment of the printed lines once, so that writing 
+     * it does not encode it again.
+     *
+     * @param segment the literal segment.
+     * @return encoded segment, or null if the sink does not write lines in 
+     * segments or cannot write this segment encoded in advance.
+     */
+    byte[] encodeSegment(String segment);
+
+    /**
+     * Writes the encoded segment of the current line.
+     *
+     * @param segment the segment encoded by {@link #encodeSegment(String)}.
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    void writeSegment(byte[] segment);
+
+    /**
+     * Writes the decimal digits (and the sign) of the value to the current 
+     * line.
+     *
+     * @param value the value.
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    void writeInt(int value);
+
+    /**
+     * Ends the current line written in segments (writes the line separator).
+     *
+     * @throws main.io.exceptions.OutputWritingException is thrown when the 
+     * output cannot be written.
+     */
+    void endLine();
+}
@@ -0,0 +1,34 @@
+package main.io;
+
+/**
+ * This class collects script output lines in memory, i.e. to capture the 
+ * output of one script run in the batch mode.
+ * 
+ * @author SoundlyGifted
+ */
+public final class StringOutputSink extends OutputSink {
+    
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    
+    private final StringBuilder output = new StringBuilder();
+
+    @Override
+    public void printLine(CharSequence line) {
+        output.append(line).append(LINE_SEPARATOR);
+        countBytesWritten(line.length() + LINE_SEPARATOR.length());
+    }
+
+    @Override
+    public void flush() {
+        // Lines are already collected.
+    }
+    
+    
+    /**
+     * @return all the lines printed so far, each followed by the line 
+     * separator.
+     */
+    public String getOutput() {
+        return output.toString();
+    }
+}
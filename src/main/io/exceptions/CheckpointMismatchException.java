@@ -0,0 +1,30 @@
+package main.io.exceptions;
+
+/**
+ * Checked Exception that is thrown when the script cannot be resumed from the 
+ * checkpoint because the script lines executed before the checkpoint were 
+ * changed.
+ *
+ * @author SoundlyGifted
+ */
+public class CheckpointMismatchException extends Exception {
+
+    // Exceptions of the application are never serialized.
+    private static final long serialVersionUID = 1L;
+
+    public CheckpointMismatchException() {
+        super();
+    }
+
+    public CheckpointMismatchException(String message){
+        super(message);
+    }
+
+    public CheckpointMismatchException(String message, Throwable cause){
+        super(message, cause);
+    }
+
+    public CheckpointMismatchException(Throwable cause){
+        super(cause);
+    }
+}
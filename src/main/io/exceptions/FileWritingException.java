@@ -0,0 +1,25 @@
+package main.io.exceptions;
+
+/**
+ * Checked Exception that is thrown when file cannot be written.
+ * 
+ * @author SoundlyGifted
+ */
+public class FileWritingException extends Exception {
+    
+    public FileWritingException() {
+        super();
+    }
+    
+    public FileWritingException(String message){
+        super(message);
+    }
+    
+    public FileWritingException(String message, Throwable cause){
+        super(message, cause);
+    }
+    
+    public FileWritingException(Throwable cause){
+        super(cause);
+    }    
+}
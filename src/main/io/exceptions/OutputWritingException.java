@@ -0,0 +1,27 @@
+package main.io.exceptions;
+
+/**
+ * Unchecked Exception that is thrown when the script output cannot be 
+ * written. It is unchecked because the output is written from inside the 
+ * script operations.
+ * 
+ * @author SoundlyGifted
+ */
+public class OutputWritingException extends RuntimeException {
+    
+    public OutputWritingException() {
+        super();
+    }
+    
+    public OutputWritingException(String message){
+        super(message);
+    }
+    
+    public OutputWritingException(String message, Throwable cause){
+        super(message, cause);
+    }
+    
+    public OutputWritingException(Throwable cause){
+        super(cause);
+    }    
+}
@@ -0,0 +1,50 @@
+package main.process;
+
+/**
+ * Script execution modes supported by the Script Interpreter.
+ * 
+ * @author SoundlyGifted
+ */
+public enum ExecutionMode {
+    
+    /**
+     * Each "set" script operation is compiled once into an immutable 
+     * expression tree that is evaluated on primitive integers (default mode).
+     */
+    COMPILED,
+    
+    /**
+     * Each "set" script operation is parsed and calculated directly from the 
+     * script text by the reference engine.
+     */
+    REFERENCE,
+    
+    /**
+     * The whole script is compiled into a generated JVM class that keeps 
+     * script variables in int fields. Falls back to the compiled mode when the
+     * script cannot be compiled into bytecode.
+     */
+    BYTECODE,
+    
+    /**
+     * The whole script is compiled, and independent "set" script operations 
+     * (that do not read values of each other) are evaluated concurrently on 
+     * the common fork-join pool. Lines are printed in the script line order.
+     */
+    PARALLEL;
+    
+    /**
+     * Finds execution mode by its command line name (case insensitive).
+     * 
+     * @param name execution mode name, i.e. "compiled".
+     * @return the execution mode, or null if there is no such mode.
+     */
+    public static ExecutionMode forName(String name) {
+        for (ExecutionMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
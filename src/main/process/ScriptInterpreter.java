@@ -1,17 +1,50 @@
 package main.process;
 
-import java.util.AbstractMap;
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import jdk.jfr.FlightRecorder;
+import main.io.CheckpointWriter;
+import main.io.OutputSink;
+import main.io.PrintStreamOutputSink;
+import main.io.exceptions.CheckpointMismatchException;
+import main.process.binary.CompiledScript;
+import main.process.bytecode.BytecodeCompiler;
+import main.process.bytecode.ScriptProgram;
+import main.process.checkpoint.Checkpoint;
+import main.process.lexer.ScriptLexer;
+import main.process.memoization.ExpressionCache;
+import main.process.modules.ModuleStore;
+import main.process.monitoring.InterpreterMetrics;
+import main.process.monitoring.ScriptExecutionEvent;
+import main.process.monitoring.SlowStatementEvent;
 import main.process.exceptions.UnsupportedScriptOperationException;
 import main.process.exceptions.WrongScriptExpressionException;
+import main.process.operations.ArrayOperationPerformer;
+import main.process.operations.BlockBuilder;
+import main.process.operations.CompiledArrayOperation;
+import main.process.operations.CompiledBlockOperation;
+import main.process.operations.CompiledErrorOperation;
+import main.process.operations.CompiledIncludeOperation;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.ControlOperationPerformer;
+import main.process.operations.IncludeOperationPerformer;
 import main.process.operations.OperationPerformer;
+import main.process.operations.OperationRegistry;
 import main.process.operations.PrintOperationPerformer;
 import main.process.operations.SetOperationPerformer;
+import main.process.optimization.ScriptOptimizer;
+import main.process.parallel.ParallelScriptProgram;
+import main.process.profile.ProfiledOperation;
+import main.process.profile.ScriptProfiler;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
 
 /**
  * This class represents Script Interpreter and contains methods to interpret
@@ -21,27 +54,181 @@ import main.process.operations.SetOperationPerformer;
  */
 public class ScriptInterpreter {
     
-    // Set of script language operators supported in the application.
-    private final Set<String> OPERATORS;
+    // Script execution mode.
+    private final ExecutionMode mode;
     
-    /* Mapping of script language variables to their values obtained by "set" 
-     * script language operation during the script interpretation.
+    // Output sink that receives lines printed by the script.
+    private final OutputSink output;
+    
+    // Whether to optimize the whole compiled script before execution.
+    private final boolean optimizing;
+    
+    // Profiler of the script lines, or null if the script is not profiled.
+    private final ScriptProfiler profiler;
+    
+    /* Cache of the "set" expression results, or null if the results are not 
+     * memoized.
      */
-    private Map<String, Integer> vars;
+    private final ExpressionCache expressionCache;
+    
+    // Performers of the script operations (they keep no script state).
+    private final PrintOperationPerformer printPerformer;
+    private final SetOperationPerformer setPerformer;
+    private final ArrayOperationPerformer arrayPerformer;
+    
+    // Registry that finds the performers of the script operators.
+    private final OperationRegistry registry;
 
 
     /**
-     * Creates instance of Script Interpreter.
-     * Initializes private fields that contain supported script operators and 
-     * script variables/values mapping.
+     * Creates instance of Script Interpreter that runs in the default 
+     * (compiled) execution mode.
      */
     public ScriptInterpreter() {
-        OPERATORS = new HashSet<>();
-        OPERATORS.add("#"); // This is a comment in the script (ignored).
-        OPERATORS.add("print"); // This is a print operation in the script.
-        OPERATORS.add("set"); // This is an assignment operation in the script.
-
-        vars = new HashMap<>();
+        this(ExecutionMode.COMPILED);
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter that prints to the standard 
+     * output.
+     * 
+     * @param mode script execution mode.
+     */
+    public ScriptInterpreter(ExecutionMode mode) {
+        this(mode, new PrintStreamOutputSink(System.out));
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter that does not optimize scripts.
+     * 
+     * @param mode script execution mode.
+     * @param output output sink that receives lines printed by the script.
+     */
+    public ScriptInterpreter(ExecutionMode mode, OutputSink output) {
+        this(mode, output, false);
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter.
+     * Initializes private field that contains supported script operators.
+     * Script variables are created for each script interpretation, so the 
+     * same instance can interpret several scripts (one after another, or 
+     * concurrently if the output sink is not shared).
+     * 
+     * @param mode script execution mode.
+     * @param output output sink that receives lines printed by the script.
+     * @param optimizing whether to optimize the whole compiled script before 
+     * execution (constant folding and removing unused "set" operations). The
+     * optimized script is not streamed, and optimization is not used in the 
+     * reference mode.
+     */
+    public ScriptInterpreter(ExecutionMode mode, OutputSink output, 
+            boolean optimizing) {
+        this(mode, output, optimizing, null, null, null, null);
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter that memoizes the results of 
+     * "set" expressions in the expression cache. The results are memoized in 
+     * the compiled execution mode (in other modes the cache is not used). 
+     * The cache is not thread-safe, so the interpreter must execute one 
+     * script at a time.
+     * 
+     * @param mode script execution mode.
+     * @param output output sink that receives lines printed by the script.
+     * @param optimizing whether to optimize the whole compiled script before 
+     * execution.
+     * @param expressionCache cache of the "set" expression results.
+     */
+    public ScriptInterpreter(ExecutionMode mode, OutputSink output, 
+            boolean optimizing, ExpressionCache expressionCache) {
+        this(mode, output, optimizing, null, expressionCache, null, null);
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter that executes the scripts of the 
+     * given file: files included by the "include" operations are resolved 
+     * relative to the directory of the script file, and their compiled 
+     * modules are kept in the module store (which can be shared by the 
+     * interpreters of a batch or a server).
+     * 
+     * @param mode script execution mode.
+     * @param output output sink that receives lines printed by the script.
+     * @param optimizing whether to optimize the whole compiled script before 
+     * execution.
+     * @param expressionCache cache of the "set" expression results, or null.
+     * @param modules store of the compiled included files.
+     * @param scriptFileName name of the script file, or null if the script 
+     * is not read from a file (files are included from the current 
+     * directory).
+     */
+    public ScriptInterpreter(ExecutionMode mode, OutputSink output, 
+            boolean optimizing, ExpressionCache expressionCache, 
+            ModuleStore modules, String scriptFileName) {
+        this(mode, output, optimizing, null, expressionCache, modules, 
+                scriptFileName);
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter that profiles the script lines 
+     * it executes.
+     * 
+     * @param output output sink that receives lines printed by the script.
+     * @param profiler profiler that records statistics of each executed 
+     * script line. Lines are profiled when the script is executed line by 
+     * line in the compiled mode (not when executing a compiled script).
+     */
+    public ScriptInterpreter(OutputSink output, ScriptProfiler profiler) {
+        this(ExecutionMode.COMPILED, output, false, profiler, null, null, 
+                null);
+    }
+    
+    
+    /**
+     * Creates instance of Script Interpreter that profiles the script lines 
+     * of the given file (see 
+     * {@link #ScriptInterpreter(OutputSink, ScriptProfiler)}). Files included 
+     * by the "include" operations are resolved relative to the directory of 
+     * the script file.
+     * 
+     * @param output output sink that receives lines printed by the script.
+     * @param profiler profiler that records statistics of each executed 
+     * script line.
+     * @param modules store of the compiled included files.
+     * @param scriptFileName name of the script file, or null if the script 
+     * is not read from a file.
+     */
+    public ScriptInterpreter(OutputSink output, ScriptProfiler profiler, 
+            ModuleStore modules, String scriptFileName) {
+        this(ExecutionMode.COMPILED, output, false, profiler, null, modules, 
+                scriptFileName);
+    }
+    
+    
+    private ScriptInterpreter(ExecutionMode mode, OutputSink output, 
+            boolean optimizing, ScriptProfiler profiler, 
+            ExpressionCache expressionCache, ModuleStore modules, 
+            String scriptFileName) {
+        this.mode = mode;
+        this.output = output;
+        this.optimizing = optimizing && mode != ExecutionMode.REFERENCE;
+        this.profiler = profiler;
+        this.expressionCache = (mode == ExecutionMode.COMPILED) 
+                ? expressionCache : null;
+        printPerformer = new PrintOperationPerformer(output);
+        setPerformer = new SetOperationPerformer();
+        arrayPerformer = new ArrayOperationPerformer();
+        registry = (modules != null) 
+                ? new OperationRegistry(output, printPerformer, setPerformer, 
+                        arrayPerformer, modules, scriptFileName) 
+                : new OperationRegistry(output, printPerformer, setPerformer, 
+                        arrayPerformer);
     }
 
     
@@ -56,91 +243,725 @@ public class ScriptInterpreter {
      * the screen for the user.
      * 
      * @param scriptLines the collection of script lines o(statements) to be 
-     * parsed, evaluated and performed.
+     * parsed, evaluated and performed. Lines are requested one by one, so they
+     * can be streamed from the source while the script is executed (except in
+     * the bytecode and parallel modes and when optimizing, which compile the 
+     * whole script before execution).
      * @throws main.process.exceptions.UnsupportedScriptOperationException is 
      * thrown when the script operation is not supported in the application.
      * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
      * when the script operation expression has wrong syntax.
      */
-    public void interpretScript(Collection<String> scriptLines) 
+    public void interpretScript(Iterable<String> scriptLines) 
             throws UnsupportedScriptOperationException, 
             WrongScriptExpressionException {
         
-        OperationPerformer printPerformer = null;
-        OperationPerformer setPerformer = null;
-        
-        Entry<String, String> parsedLine;
-        String operator;
-        String operationExpression;
-        for (String line : scriptLines) {
-            parsedLine = parseLine(line);
-            operator = parsedLine.getKey();
-            operationExpression = parsedLine.getValue();
-            
-            switch (operator) {
-                case "print":
-                    if (printPerformer == null) {
-                        printPerformer = new PrintOperationPerformer();
-                    }
-                    printPerformer.performOperation(operationExpression, vars);
-                    break;
-                case "set":
-                    if (setPerformer == null) {
-                        setPerformer = new SetOperationPerformer();
-                    }
-                    setPerformer.performOperation(operationExpression, vars);
-                    break;
-                default:
-                    break;
+        execute(stats -> {
+            if (mode == ExecutionMode.BYTECODE 
+                    || mode == ExecutionMode.PARALLEL || optimizing) {
+                interpretWholeScript(scriptLines, stats);
+            } else if (profiler != null) {
+                interpretProfiledLines(scriptLines, stats);
+            } else {
+                interpretScriptLines(scriptLines, stats);
             }
+        });
+    }
+    
+    
+    /**
+     * Interprets and executes script lines one by one like 
+     * {@link #interpretScript(Iterable)} does in the compiled mode, resuming 
+     * the script from a checkpoint and taking checkpoints when the checkpoint 
+     * writer tells they are due. Checkpoints are taken between the script 
+     * lines outside of "while" and "if" blocks.
+     * 
+     * @param scriptLines the collection of script lines (statements), 
+     * including the lines executed before the checkpoint.
+     * @param checkpoint checkpoint to resume the script from (the script 
+     * lines executed before it are skipped), or null to execute the script 
+     * from the start.
+     * @param checkpointWriter writer that receives the checkpoints, or null.
+     * @throws main.process.exceptions.UnsupportedScriptOperationException is 
+     * thrown when the script operation is not supported in the application.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     * @throws main.io.exceptions.CheckpointMismatchException is thrown when 
+     * the script lines executed before the checkpoint differ from the lines 
+     * the checkpoint was taken after (no script line is executed then).
+     * @throws IllegalStateException is thrown when this interpreter does not 
+     * execute scripts line by line in the compiled mode (i.e., it optimizes 
+     * or profiles the scripts).
+     */
+    public void interpretScript(Iterable<String> scriptLines, 
+            Checkpoint checkpoint, CheckpointWriter checkpointWriter) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException, CheckpointMismatchException {
+        if (mode != ExecutionMode.COMPILED || optimizing || profiler != null) {
+            throw new IllegalStateException("Checkpoints are supported only "
+                    + "when executing scripts line by line in the compiled "
+                    + "mode");
+        }
+        Iterator<String> lines = scriptLines.iterator();
+        int linesHash = (checkpoint != null) 
+                ? skipCheckpointedLines(lines, checkpoint) : 0;
+        execute(stats -> interpretCheckpointedLines(lines, checkpoint, 
+                linesHash, checkpointWriter, stats));
+    }
+    
+    
+    /* Executes the script, flushes the output and records the execution in 
+     * the interpreter metrics and the Flight Recorder event.
+     */
+    private void execute(ScriptExecution execution) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        ExecutionStats stats = new ExecutionStats();
+        ScriptExecutionEvent event = null;
+        if (FlightRecorder.isInitialized()) {
+            event = new ScriptExecutionEvent();
+            event.begin();
+        }
+        long outputBytes = output.getBytesWritten();
+        Throwable error = null;
+        try {
+            execution.run(stats);
+        } catch (UnsupportedScriptOperationException 
+                | WrongScriptExpressionException | RuntimeException exception) {
+            error = exception;
+            throw exception;
+        } finally {
+            // All the printed lines are written before returning.
+            try {
+                output.flush();
+            } finally {
+                recordExecution(event, stats, outputBytes, error);
+            }
+        }
+    }
+    
+    
+    /* Adds the results of the script execution to the interpreter metrics and
+     * commits the Flight Recorder event of the script execution (if it is 
+     * recorded). Flight Recorder events are created only after the Flight 
+     * Recorder was started, because loading an event class initializes the 
+     * Flight Recorder support, which costs much more than running a small 
+     * script.
+     */
+    private void recordExecution(ScriptExecutionEvent event, 
+            ExecutionStats stats, long outputBytesBefore, Throwable error) {
+        long outputBytes = output.getBytesWritten() - outputBytesBefore;
+        InterpreterMetrics.getInstance().scriptExecuted(stats.statements, 
+                stats.variables, outputBytes, error);
+        if (event == null) {
+            return;
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.mode = mode.name().toLowerCase();
+            event.statements = stats.statements;
+            event.variables = stats.variables;
+            event.outputBytes = outputBytes;
+            event.error = (error != null) ? error.toString() : null;
+            event.commit();
+        }
+    }
+
+    
+    /* Interprets and executes script lines one by one. In the compiled mode 
+     * each line is compiled first, with script variables resolved into slots
+     * of a variable frame. Statements are timed for the slow statement 
+     * Flight Recorder events only while the event is recorded.
+     */
+    private void interpretScriptLines(Iterable<String> scriptLines, 
+            ExecutionStats stats) throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
         
-        /* Initializing a new set of script language variables for the next 
-         * script interpretation.
+        /* Mapping of script language variables to their values obtained by 
+         * "set" script language operation (reference mode).
          */
-        vars = new HashMap<>();
+        Map<String, Integer> vars = new HashMap<>();
+        
+        // Mapping of script variables to their arrays (reference mode).
+        Map<String, int[]> arrays = new HashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        VariableFrame frame = newFrame(0);
+        
+        // Blocks that are not ended yet.
+        BlockBuilder blocks = new BlockBuilder();
+        ReferenceBlocks referenceBlocks = new ReferenceBlocks();
+        
+        boolean timingStatements = FlightRecorder.isInitialized() 
+                && new SlowStatementEvent().isEnabled();
+        int lineNumber = 0;
+        try {
+            for (String line : scriptLines) {
+                lineNumber++;
+                SlowStatementEvent statementEvent = null;
+                if (timingStatements) {
+                    statementEvent = new SlowStatementEvent();
+                    statementEvent.begin();
+                }
+                if (mode != ExecutionMode.REFERENCE 
+                        ? performCompiledLine(line, symbols, frame, blocks)
+                        : performReferenceLine(line, vars, arrays, 
+                                referenceBlocks)) {
+                    stats.statements++;
+                }
+                if (statementEvent != null) {
+                    statementEvent.end();
+                    if (statementEvent.shouldCommit()) {
+                        statementEvent.lineNumber = lineNumber;
+                        statementEvent.statement = (line != null) 
+                                ? line.strip() : "";
+                        statementEvent.commit();
+                    }
+                }
+            }
+            blocks.finish();
+            referenceBlocks.finish();
+        } finally {
+            stats.variables = (mode != ExecutionMode.REFERENCE) 
+                    ? symbols.size() : vars.size() + arrays.size();
+        }
     }
     
     
-    private Entry<String, String> parseLine(String scriptLine) 
-            throws UnsupportedScriptOperationException {
-        
-        Entry<String, String> parsedLine;
-
+    /* Compiles and performs one script line. Returns true if the line is an
+     * operation (not a blank line or a comment) or ends a block, which is 
+     * performed then.
+     */
+    private boolean performCompiledLine(String line, SymbolTable symbols, 
+            VariableFrame frame, BlockBuilder blocks) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        CompiledOperation operation = compileBlockLine(line, symbols, blocks);
+        if (operation == null) {
+            return false;
+        }
+        frame.ensureCapacity(symbols.size());
+        operation.perform(frame);
+        return true;
+    }
+    
+    
+    /* Interprets and performs one script line in the reference mode. Returns 
+     * true if the line is an operation (not a blank line or a comment) or ends
+     * a block, which is performed then.
+     */
+    private boolean performReferenceLine(String line, 
+            Map<String, Integer> vars, Map<String, int[]> arrays, 
+            ReferenceBlocks referenceBlocks) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
         // Ignoring blank lines (empty script language statements).
-        if (scriptLine == null || scriptLine.strip().isEmpty()) {
-            parsedLine = new AbstractMap.SimpleEntry<>("", "");
-            return parsedLine;
+        if (line == null) {
+            return false;
         }
-        scriptLine = scriptLine.strip();
-
-        String operator;
-        String operationExpression;
+        int start = ScriptLexer.stripStart(line, 0, line.length());
+        int end = ScriptLexer.stripEnd(line, start, line.length());
+        if (start == end) {
+            return false;
+        }
+        int operatorEnd = OperationRegistry.operatorEnd(line, start, end);
+        OperationPerformer performer 
+                = registry.getPerformer(line, start, operatorEnd);
+        if (performer == null) {
+            return false;
+        }
+        String expression 
+                = line.substring(ScriptLexer.stripStart(line, operatorEnd, end), 
+                        end);
+        if (performer instanceof ControlOperationPerformer 
+                || referenceBlocks.isBuilding()) {
+            /* Lines of a block are kept until the end of the block and 
+             * interpreted again on each iteration.
+             */
+            if (!referenceBlocks.add(performer, expression)) {
+                return false;
+            }
+            referenceBlocks.perform(0, referenceBlocks.size(), vars, arrays);
+            referenceBlocks.clear();
+            return true;
+        }
+        performReference(performer, expression, vars, arrays);
+        return true;
+    }
+    
+    
+    /* Performs the operation in the reference mode. Operations that read or 
+     * assign arrays (including "set" and the included files) get the arrays 
+     * mapping.
+     */
+    private static void performReference(OperationPerformer performer, 
+            String expression, Map<String, Integer> vars, 
+            Map<String, int[]> arrays) throws WrongScriptExpressionException {
+        if (performer instanceof ArrayOperationPerformer) {
+            ((ArrayOperationPerformer) performer).performOperation(expression, 
+                    vars, arrays);
+        } else if (performer instanceof PrintOperationPerformer) {
+            ((PrintOperationPerformer) performer).performOperation(expression, 
+                    vars, arrays);
+        } else if (performer instanceof IncludeOperationPerformer) {
+            ((IncludeOperationPerformer) performer).performOperation( 
+                    expression, vars, arrays);
+        } else if (performer instanceof SetOperationPerformer) {
+            ((SetOperationPerformer) performer).performOperation(expression, 
+                    vars, arrays);
+        } else {
+            performer.performOperation(expression, vars);
+        }
+    }
+    
+    
+    /* Compiles the script line and adds it to the block builder. Returns the
+     * operation to perform (the line itself or the block it ends), or null if 
+     * the line is blank, a comment or a line of a block. Syntax errors of the
+     * lines of a block are raised when the lines are reached.
+     */
+    private CompiledOperation compileBlockLine(String line, 
+            SymbolTable symbols, BlockBuilder blocks) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        CompiledOperation operation;
+        try {
+            operation = compileLine(line, symbols);
+        } catch (WrongScriptExpressionException wseex) {
+            blocks.addError(wseex);
+            return null;
+        }
+        return (operation != null) ? blocks.add(operation) : null;
+    }
+    
+    
+    /* Compiles and executes script lines one by one like the compiled mode 
+     * does, recording the parse phase (compiling the line) and the evaluate 
+     * or print phase (performing the operation) of each line. The lines of 
+     * block bodies record their own executions (see ProfiledOperation).
+     */
+    private void interpretProfiledLines(Iterable<String> scriptLines, 
+            ExecutionStats stats) throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        SymbolTable symbols = new SymbolTable();
+        VariableFrame frame = newFrame(0);
+        BlockBuilder blocks = new BlockBuilder(operation 
+                -> new ProfiledOperation(profiler, operation, 
+                        profiledPhase(operation)));
+        
+        int lineNumber = 0;
+        try {
+            for (String line : scriptLines) {
+                profiler.startLine(++lineNumber, line);
+                CompiledOperation operation 
+                        = compileBlockLine(line, symbols, blocks);
+                if (operation == null && blocks.isBuilding()) {
+                    profiler.lineCompiledIntoBlock();
+                }
+                profiler.endPhase(ScriptProfiler.Phase.PARSE);
+                if (operation != null) {
+                    frame.ensureCapacity(symbols.size());
+                    operation.perform(frame);
+                    stats.statements++;
+                    profiler.endPhase(profiledPhase(operation));
+                }
+            }
+            blocks.finish();
+        } finally {
+            stats.variables = symbols.size();
+        }
+    }
+    
+    
+    // Returns the phase the execution of the compiled line is recorded as.
+    private static ScriptProfiler.Phase profiledPhase( 
+            CompiledOperation operation) {
+        return operation instanceof CompiledSetOperation 
+                || operation instanceof CompiledArrayOperation 
+                || operation instanceof CompiledBlockOperation 
+                ? ScriptProfiler.Phase.EVALUATE : ScriptProfiler.Phase.PRINT;
+    }
+    
+    
+    /* Skips the script lines executed before the checkpoint and returns 
+     * their hash, or throws the exception if they differ from the lines the 
+     * checkpoint was taken after.
+     */
+    private static int skipCheckpointedLines(Iterator<String> lines, 
+            Checkpoint checkpoint) throws CheckpointMismatchException {
+        int lineNumber = 0;
+        int linesHash = 0;
+        while (lineNumber < checkpoint.getLineNumber() && lines.hasNext()) {
+            linesHash = Checkpoint.hashLine(linesHash, lines.next());
+            lineNumber++;
+        }
+        if (lineNumber != checkpoint.getLineNumber() 
+                || linesHash != checkpoint.getLinesHash()) {
+            throw new CheckpointMismatchException("The script lines 1-"
+                    + checkpoint.getLineNumber() + " differ from the lines "
+                    + "the checkpoint was taken after");
+        }
+        return linesHash;
+    }
+    
+    
+    /* Compiles and executes script lines one by one like the compiled mode 
+     * does, after restoring the variables of the checkpoint (if any, its 
+     * lines are already skipped). The lines are hashed, so that the lines 
+     * executed before a checkpoint are checked when the script is resumed 
+     * from it.
+     */
+    private void interpretCheckpointedLines(Iterator<String> lines, 
+            Checkpoint checkpoint, int linesHash, 
+            CheckpointWriter checkpointWriter, ExecutionStats stats) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        SymbolTable symbols = new SymbolTable();
+        VariableFrame frame = (checkpoint != null) 
+                ? checkpoint.restore(symbols) : new VariableFrame(0);
+        if (expressionCache != null) {
+            frame.attachExpressionCache(expressionCache);
+        }
+        BlockBuilder blocks = new BlockBuilder();
+        
+        int lineNumber = (checkpoint != null) ? checkpoint.getLineNumber() : 0;
+        try {
+            while (lines.hasNext()) {
+                String line = lines.next();
+                lineNumber++;
+                linesHash = Checkpoint.hashLine(linesHash, line);
+                if (performCompiledLine(line, symbols, frame, blocks)) {
+                    stats.statements++;
+                }
+                if (checkpointWriter != null && checkpointWriter.isDue() 
+                        && !blocks.isBuilding()) {
+                    frame.ensureCapacity(symbols.size());
+                    checkpointWriter.write(Checkpoint.capture(lineNumber, 
+                            linesHash, symbols, frame));
+                }
+            }
+            blocks.finish();
+        } finally {
+            stats.variables = symbols.size();
+        }
+    }
+    
+    
+    /* Compiles the whole script (and optimizes it, if enabled) and executes 
+     * it. Script lines are compiled in order up to the first line with an 
+     * error, which is raised after the preceding lines were executed.
+     */
+    private void interpretWholeScript(Iterable<String> scriptLines, 
+            ExecutionStats stats) throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        List<CompiledOperation> operations = new ArrayList<>();
+        SymbolTable symbols = new SymbolTable();
+        Exception error = compileOperations(scriptLines, operations, symbols);
+        runOperations(operations, symbols.size(), stats, 
+                error instanceof UnsupportedScriptOperationException 
+                        ? (UnsupportedScriptOperationException) error : null, 
+                error instanceof WrongScriptExpressionException 
+                        ? (WrongScriptExpressionException) error : null);
+    }
+    
+    
+    /**
+     * Compiles the whole script into the binary form that can be stored and 
+     * executed later by {@link #interpretCompiledScript(CompiledScript)} 
+     * without parsing the script text again. Script lines are compiled in 
+     * order up to the first line with an error, which is stored in the 
+     * compiled script and raised after the preceding lines were executed.
+     * 
+     * @param scriptLines the collection of script lines (statements).
+     * @return the compiled script, or null if the script has custom or 
+     * "include" operations, which cannot be stored in a compiled script (the 
+     * script is then executed from its text).
+     */
+    public CompiledScript compileScript(Iterable<String> scriptLines) {
+        List<CompiledOperation> operations = new ArrayList<>();
+        SymbolTable symbols = new SymbolTable();
+        Exception error = compileOperations(scriptLines, operations, symbols);
+        for (CompiledOperation operation : operations) {
+            if (!OperationRegistry.isBuiltIn(operation)) {
+                return null;
+            }
+        }
+        return CompiledScript.encode(operations, symbols, 
+                error instanceof UnsupportedScriptOperationException 
+                        ? (UnsupportedScriptOperationException) error : null, 
+                error instanceof WrongScriptExpressionException 
+                        ? (WrongScriptExpressionException) error : null);
+    }
+    
+    
+    /**
+     * Executes a script compiled by {@link #compileScript(Iterable)}. The 
+     * compiled script is executed like the whole script in the execution mode
+     * of this interpreter (in the reference mode, like in the compiled mode).
+     * 
+     * @param script the compiled script.
+     * @throws main.process.exceptions.UnsupportedScriptOperationException is 
+     * thrown when the script operation is not supported in the application.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    public void interpretCompiledScript(CompiledScript script) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        execute(stats -> {
+            SymbolTable symbols = new SymbolTable();
+            List<CompiledOperation> operations 
+                    = script.decode(symbols, printPerformer, 
+                            setPerformer, arrayPerformer);
+            runOperations(operations, symbols.size(), stats, 
+                    script.getUnsupportedOperationError(), 
+                    script.getWrongExpressionError());
+        });
+    }
+    
+    
+    /* Compiles script lines in order up to the first line with an error and
+     * returns that error (or null). Only the operations that can be performed
+     * without an error (except arithmetic errors) are added to the list.
+     */
+    private Exception compileOperations(Iterable<String> scriptLines, 
+            List<CompiledOperation> operations, SymbolTable symbols) {
+        /* Variables assigned by the compiled "set" operations (values are not 
+         * used until the compiled operations are performed).
+         */
+        VariableFrame frame = new VariableFrame(0);
+        
+        /* Errors of "set" operations are found before execution until the 
+         * first block, "array" or "include" operation, after which the 
+         * assigned variables depend on the script flow (a variable can hold an 
+         * array instead of a value), so the operations raise their errors when 
+         * performed.
+         */
+        boolean checking = true;
+        BlockBuilder blocks = new BlockBuilder();
         
-        if (scriptLine.contains(" ")) {
-            operator = scriptLine.substring(0, scriptLine.indexOf(" "));
-            operationExpression = scriptLine.substring(scriptLine.indexOf(" "))
-                    .strip();
+        CompiledOperation operation;
+        try {
+            for (String line : scriptLines) {
+                operation = compileBlockLine(line, symbols, blocks);
+                if (operation instanceof CompiledErrorOperation) {
+                    // Block with a wrong condition (raised when reached).
+                    return ((CompiledErrorOperation) operation).getError();
+                } else if (operation instanceof CompiledBlockOperation
+                        || operation instanceof CompiledArrayOperation 
+                        || operation instanceof CompiledIncludeOperation) {
+                    checking = false;
+                    operations.add(operation);
+                } else if (checking 
+                        && operation instanceof CompiledSetOperation) {
+                    CompiledSetOperation setOperation 
+                            = (CompiledSetOperation) operation;
+                    frame.ensureCapacity(symbols.size());
+                    WrongScriptExpressionException error 
+                            = setOperation.findError(frame);
+                    if (error != null) {
+                        return error;
+                    }
+                    operations.add(setOperation);
+                    frame.set(setOperation.getVarToAssignSlot(), 0);
+                } else if (operation != null) {
+                    operations.add(operation);
+                }
+            }
+            blocks.finish();
+        } catch (UnsupportedScriptOperationException 
+                | WrongScriptExpressionException exception) {
+            return exception;
+        }
+        return null;
+    }
+    
+    
+    /* Optimizes compiled operations (if enabled) and executes them, then 
+     * raises the script error. In the bytecode mode the operations are 
+     * compiled into a generated JVM class; if they cannot be compiled into 
+     * bytecode (and in the compiled mode), they are performed one by one 
+     * instead. In the parallel mode independent "set" operations are 
+     * evaluated concurrently.
+     */
+    private void runOperations(List<CompiledOperation> operations, 
+            int slotCount, ExecutionStats stats, 
+            UnsupportedScriptOperationException unsupportedOperationError,
+            WrongScriptExpressionException wrongExpressionError) 
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        if (optimizing) {
+            operations = ScriptOptimizer.optimize(operations, slotCount);
+        }
+        ScriptProgram program = (mode == ExecutionMode.BYTECODE) 
+                ? BytecodeCompiler.compile(operations, slotCount) : null;
+        ParallelScriptProgram parallelProgram 
+                = (mode == ExecutionMode.PARALLEL) 
+                        ? ParallelScriptProgram.compile(operations, slotCount) 
+                        : null;
+        stats.variables = slotCount;
+        if (program != null) {
+            program.run(output);
+            stats.statements = operations.size();
+        } else if (parallelProgram != null) {
+            parallelProgram.run(output, ForkJoinPool.commonPool());
+            stats.statements = operations.size();
         } else {
-            operator = scriptLine;
-            operationExpression = "";
+            VariableFrame frame = newFrame(slotCount);
+            for (CompiledOperation compiledOperation : operations) {
+                compiledOperation.perform(frame);
+                stats.statements++;
+            }
         }
-
-        /* Checking if the script language operator is supported in this 
-         * application.
+        
+        if (unsupportedOperationError != null) {
+            throw unsupportedOperationError;
+        }
+        if (wrongExpressionError != null) {
+            throw wrongExpressionError;
+        }
+    }
+    
+    
+    /* Creates the variable frame of a script execution with the expression 
+     * cache attached (if the results are memoized).
+     */
+    private VariableFrame newFrame(int capacity) {
+        VariableFrame frame = new VariableFrame(capacity);
+        if (expressionCache != null) {
+            frame.attachExpressionCache(expressionCache);
+        }
+        return frame;
+    }
+    
+    
+    /**
+     * Parses and compiles one script line. Printing compiled "print" 
+     * operations prints to the output sink of this interpreter.
+     * 
+     * @param scriptLine the script line (statement).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled operation, or null if the line is blank or a comment.
+     * @throws main.process.exceptions.UnsupportedScriptOperationException is 
+     * thrown when the script operation is not supported in the application.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    public CompiledOperation compileLine(String scriptLine, 
+            SymbolTable symbols) throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        return registry.compileLine(scriptLine, symbols);
+    }
+    
+    
+    /* Lines of the blocks that are not ended yet in the reference mode: the 
+     * performer and the expression of each line, and the index of the 
+     * matching "end" line of each "while" and "if" line.
+     */
+    private static final class ReferenceBlocks {
+        
+        private final List<OperationPerformer> performers = new ArrayList<>();
+        private final List<String> expressions = new ArrayList<>();
+        private final List<Integer> ends = new ArrayList<>();
+        
+        // Indexes of the "while" and "if" lines that are not ended yet.
+        private final Deque<Integer> openLines = new ArrayDeque<>();
+        
+        private boolean isBuilding() {
+            return !openLines.isEmpty();
+        }
+        
+        private int size() {
+            return performers.size();
+        }
+        
+        /* Adds the line. Returns true if the line ends the outermost block.
+         */
+        private boolean add(OperationPerformer performer, String expression) 
+                throws WrongScriptExpressionException {
+            int index = performers.size();
+            if (performer instanceof ControlOperationPerformer) {
+                if (((ControlOperationPerformer) performer).startsBlock()) {
+                    openLines.push(index);
+                } else if (openLines.isEmpty()) {
+                    throw ControlOperationPerformer.noBlockError();
+                } else {
+                    ends.set(openLines.pop(), index);
+                }
+            }
+            performers.add(performer);
+            expressions.add(expression);
+            ends.add(-1);
+            return openLines.isEmpty();
+        }
+        
+        /* Interprets the lines in the given range, repeating the "while" 
+         * blocks while their conditions are true.
          */
-        boolean isSupportedOperation = false;
-        for (String supportedOperator : OPERATORS) {
-            if (operator.equals(supportedOperator)) {
-                isSupportedOperation = true;
+        private void perform(int from, int to, Map<String, Integer> vars, 
+                Map<String, int[]> arrays) 
+                throws WrongScriptExpressionException {
+            for (int i = from; i < to; i++) {
+                OperationPerformer performer = performers.get(i);
+                String expression = expressions.get(i);
+                if (!(performer instanceof ControlOperationPerformer) 
+                        || !((ControlOperationPerformer) performer)
+                                .startsBlock()) {
+                    performReference(performer, expression, vars, arrays);
+                    continue;
+                }
+                ControlOperationPerformer control 
+                        = (ControlOperationPerformer) performer;
+                long iterations = 0;
+                while (control.isConditionTrue(expression, vars)) {
+                    if (control.isLoop() && ++iterations 
+                            > ControlOperationPerformer.MAX_ITERATIONS) {
+                        throw control.iterationLimitError(expression);
+                    }
+                    // The body and the "end" line.
+                    perform(i + 1, ends.get(i) + 1, vars, arrays);
+                    if (!control.isLoop()) {
+                        break;
+                    }
+                }
+                i = ends.get(i);
             }
         }
-        if (!isSupportedOperation) {
-            throw new UnsupportedScriptOperationException("Such operation as '" 
-                    + operator + "' is not supported. Program will terminate");
+        
+        private void clear() {
+            performers.clear();
+            expressions.clear();
+            ends.clear();
+        }
+        
+        // Checks that all the blocks are ended at the end of the script.
+        private void finish() throws WrongScriptExpressionException {
+            if (!openLines.isEmpty()) {
+                int line = openLines.peek();
+                throw ((ControlOperationPerformer) performers.get(line))
+                        .noEndError(expressions.get(line));
+            }
         }
+    }
+    
+    
+    // Statistics of one script execution for the interpreter metrics.
+    private static final class ExecutionStats {
+        
+        // Number of statements executed.
+        private long statements;
+        
+        // Number of script variables.
+        private int variables;
+    }
+    
+    
+    // Script execution that records its statistics.
+    @FunctionalInterface
+    private interface ScriptExecution {
         
-        parsedLine = new AbstractMap.SimpleEntry<>(operator, operationExpression);
-        return parsedLine;
+        void run(ExecutionStats stats) 
+                throws UnsupportedScriptOperationException, 
+                WrongScriptExpressionException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package main.process.arrays;
+
+import main.process.expressions.BinaryOperator;
+
+/**
+ * This is an abstract class of the bulk arithmetic on int arrays used by the 
+ * "array" script operations. The operations wrap on overflow like the 
+ * arithmetic of "set" expressions and throw {@link ArithmeticException} on 
+ * division by zero. The result array can be one of the argument arrays.
+ *
+ * The instance uses plain loops, which the JIT compiler vectorizes. The 
+ * explicit Vector API kernel is opt-in: it is compiled only by the build with
+ * the "vector.api" property (see build.xml) and used when the module 
+ * "jdk.incubator.vector" is added to the JVM 
+ * ("--add-modules jdk.incubator.vector").
+ *
+ * @author SoundlyGifted
+ */
+public abstract class ArrayArithmetic {
+
+    // Name of the module of the Vector API.
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final ArrayArithmetic INSTANCE = create();
+
+    /**
+     * @return the bulk arithmetic (vectorized with the Vector API if it is 
+     * built and available).
+     */
+    public static ArrayArithmetic getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * @return true if this arithmetic uses the Vector API.
+     */
+    public abstract boolean isVectorized();
+
+
+    /**
+     * Applies the operator to the elements of two arrays.
+     *
+     * @param operator the arithmetic operator.
+     * @param x left arguments.
+     * @param y right arguments (the same length as the result).
+     * @param result the array that receives the results.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public abstract void apply(BinaryOperator operator, int[] x, int[] y, 
+            int[] result);
+
+
+    /**
+     * Applies the operator to the elements of an array and a number.
+     *
+     * @param operator the arithmetic operator.
+     * @param x left arguments (the same length as the result).
+     * @param y right argument.
+     * @param result the array that receives the results.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public abstract void apply(BinaryOperator operator, int[] x, int y, 
+            int[] result);
+
+
+    /**
+     * Applies the operator to a number and the elements of an array.
+     *
+     * @param operator the arithmetic operator.
+     * @param x left argument.
+     * @param y right arguments (the same length as the result).
+     * @param result the array that receives the results.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public abstract void apply(BinaryOperator operator, int x, int[] y, 
+            int[] result);
+
+
+    /* Loads the vectorized arithmetic by name if the Vector API module is in
+     * the boot layer, so that its class is not linked when it is not (and is
+     * not needed when it is not built).
+     */
+    private static ArrayArithmetic create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (ArrayArithmetic) Class.forName( 
+                        ArrayArithmetic.class.getPackageName()
+                                + ".VectorArrayArithmetic")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // The plain loops are used.
+            }
+        }
+        return new ScalarArrayArithmetic();
+    }
+}
@@ -0,0 +1,86 @@
+package main.process.arrays;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.expressions.BinaryOperator;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a simple arithmetic operation with two arguments in an 
+ * "array" script expression. If one of the arguments is an array, the 
+ * operation is applied to each element (arrays must have the same length), 
+ * and the result is written into a new array or into the array created by an 
+ * argument operation.
+ *
+ * @author SoundlyGifted
+ */
+public final class ArrayBinaryOperation extends ArrayExpression {
+
+    // Arithmetic on arrays (vectorized if the Vector API is available).
+    private static final ArrayArithmetic ARITHMETIC
+            = ArrayArithmetic.getInstance();
+
+    private final BinaryOperator operator;
+    private final ArrayExpression left;
+    private final ArrayExpression right;
+
+    /**
+     * Creates ArrayBinaryOperation instance.
+     *
+     * @param operator the arithmetic operator.
+     * @param left left argument expression.
+     * @param right right argument expression.
+     */
+    public ArrayBinaryOperation(BinaryOperator operator, ArrayExpression left, 
+            ArrayExpression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public int length(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        int leftLength = left.length(frame);
+        int rightLength = right.length(frame);
+        if (leftLength >= 0 && rightLength >= 0 && leftLength != rightLength) {
+            throw new WrongScriptExpressionException("Arrays have different "
+                    + "lengths (" + leftLength + " and " + rightLength + ").");
+        }
+        return Math.max(leftLength, rightLength);
+    }
+
+    @Override
+    public int evaluate(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        return operator.apply(left.evaluate(frame), right.evaluate(frame));
+    }
+
+    @Override
+    public int[] evaluateArray(VariableFrame frame, int length)
+            throws WrongScriptExpressionException {
+        if (left.length(frame) < 0) {
+            int x = left.evaluate(frame);
+            int[] y = right.evaluateArray(frame, length);
+            int[] result = right.createsArray() ? y : new int[length];
+            ARITHMETIC.apply(operator, x, y, result);
+            return result;
+        }
+        int[] x = left.evaluateArray(frame, length);
+        if (right.length(frame) < 0) {
+            int y = right.evaluate(frame);
+            int[] result = left.createsArray() ? x : new int[length];
+            ARITHMETIC.apply(operator, x, y, result);
+            return result;
+        }
+        int[] y = right.evaluateArray(frame, length);
+        int[] result = left.createsArray() ? x
+                : right.createsArray() ? y : new int[length];
+        ARITHMETIC.apply(operator, x, y, result);
+        return result;
+    }
+
+    @Override
+    public boolean createsArray() {
+        return true;
+    }
+}
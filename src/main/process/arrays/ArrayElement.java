@@ -0,0 +1,111 @@
+package main.process.arrays;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents an element of an array variable in an "array" script 
+ * expression, i.e. "$a[$i + 1]". The index is a number expression.
+ *
+ * @author SoundlyGifted
+ */
+public final class ArrayElement extends ArrayExpression {
+
+    private final String name;
+    private final int slot;
+    private final ArrayExpression index;
+
+    /**
+     * Creates ArrayElement instance.
+     *
+     * @param name name of the array variable (including '$').
+     * @param slot slot index of the array variable.
+     * @param index expression of the element index.
+     */
+    public ArrayElement(String name, int slot, ArrayExpression index) {
+        this.name = name;
+        this.slot = slot;
+        this.index = index;
+    }
+
+    @Override
+    public int length(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        checkArray(name, slot, frame);
+        checkIndex(name, index, frame);
+        return -1;
+    }
+
+    @Override
+    public int evaluate(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        int[] array = frame.getArray(slot);
+        return array[checkRange(name, array, index.evaluate(frame))];
+    }
+
+    @Override
+    public int[] evaluateArray(VariableFrame frame, int length) {
+        throw new IllegalStateException("Array element is not an array");
+    }
+
+
+    /**
+     * Checks that the variable holds an array.
+     *
+     * @param name name of the variable.
+     * @param slot slot index of the variable.
+     * @param frame current values and arrays of script variables.
+     * @return the array of the variable.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the variable does not hold an array.
+     */
+    public static int[] checkArray(String name, int slot, VariableFrame frame)
+            throws WrongScriptExpressionException {
+        int[] array = frame.getArray(slot);
+        if (array == null) {
+            throw new WrongScriptExpressionException("Variable " + name
+                    + (frame.isAssigned(slot) ? " is not an array."
+                            : " has no assigned value."));
+        }
+        return array;
+    }
+
+
+    /**
+     * Checks that the value of the array index expression is a number.
+     *
+     * @param name name of the array variable.
+     * @param index expression of the index.
+     * @param frame current values and arrays of script variables.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the value of the index is an array.
+     */
+    public static void checkIndex(String name, ArrayExpression index, 
+            VariableFrame frame) throws WrongScriptExpressionException {
+        if (index.length(frame) >= 0) {
+            throw new WrongScriptExpressionException("Index of array " + name
+                    + " must be a number.");
+        }
+    }
+
+
+    /**
+     * Checks that the index is in the range of the array.
+     *
+     * @param name name of the array variable.
+     * @param array the array.
+     * @param index the index.
+     * @return the index.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the index is out of range.
+     */
+    public static int checkRange(String name, int[] array, int index)
+            throws WrongScriptExpressionException {
+        if (index < 0 || index >= array.length) {
+            throw new WrongScriptExpressionException("Index " + index
+                    + " is out of range of array " + name + " (length "
+                    + array.length + ").");
+        }
+        return index;
+    }
+}
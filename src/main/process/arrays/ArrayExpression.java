@@ -0,0 +1,68 @@
+package main.process.arrays;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This is an abstract class of a compiled node of an "array" script 
+ * expression. The value of a node is either a whole number or an array, 
+ * depending on what the referenced variables hold when the node is 
+ * evaluated: arithmetic on arrays is applied element by element (see 
+ * {@link ArrayArithmetic}), and a number is applied to every element.
+ *
+ * Errors of the nodes are reported by their reasons (without the script 
+ * statement), and the compiled operation adds the statement to the message.
+ *
+ * @author SoundlyGifted
+ */
+public abstract class ArrayExpression {
+
+    /**
+     * Finds the kind of the value of this node and checks the variables that 
+     * the node references. It must be called before the node is evaluated.
+     *
+     * @param frame current values and arrays of script variables.
+     * @return length of the array value of this node, or -1 if the value is 
+     * a number.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when a referenced variable has no assigned value or array, or arrays of 
+     * an operation have different lengths.
+     */
+    public abstract int length(VariableFrame frame)
+            throws WrongScriptExpressionException;
+
+    /**
+     * Evaluates this node which value is a number.
+     *
+     * @param frame current values and arrays of script variables.
+     * @return the value of this node.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when an array index is out of range.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public abstract int evaluate(VariableFrame frame)
+            throws WrongScriptExpressionException;
+
+    /**
+     * Evaluates this node which value is an array.
+     *
+     * @param frame current values and arrays of script variables.
+     * @param length length of the array value (see {@link #length}).
+     * @return the value of this node (it must not be changed if this node 
+     * does not create its array, see {@link #createsArray()}).
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when an array index is out of range.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public abstract int[] evaluateArray(VariableFrame frame, int length)
+            throws WrongScriptExpressionException;
+
+    /**
+     * @return true if the array value of this node is a new array (which can 
+     * be reused for the result of the enclosing operation), false if it is 
+     * the array of a variable.
+     */
+    public boolean createsArray() {
+        return false;
+    }
+}
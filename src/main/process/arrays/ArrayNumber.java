@@ -0,0 +1,38 @@
+package main.process.arrays;
+
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a whole number written directly in an "array" script 
+ * expression.
+ *
+ * @author SoundlyGifted
+ */
+public final class ArrayNumber extends ArrayExpression {
+
+    private final int value;
+
+    /**
+     * Creates ArrayNumber instance.
+     *
+     * @param value the number.
+     */
+    public ArrayNumber(int value) {
+        this.value = value;
+    }
+
+    @Override
+    public int length(VariableFrame frame) {
+        return -1;
+    }
+
+    @Override
+    public int evaluate(VariableFrame frame) {
+        return value;
+    }
+
+    @Override
+    public int[] evaluateArray(VariableFrame frame, int length) {
+        throw new IllegalStateException("Number is not an array");
+    }
+}
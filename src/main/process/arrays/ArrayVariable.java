@@ -0,0 +1,51 @@
+package main.process.arrays;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a reference to a script variable in an "array" script 
+ * expression. Its value is the array or the value that the variable holds.
+ *
+ * @author SoundlyGifted
+ */
+public final class ArrayVariable extends ArrayExpression {
+
+    private final String name;
+    private final int slot;
+
+    /**
+     * Creates ArrayVariable instance.
+     *
+     * @param name name of the referenced variable (including '$').
+     * @param slot slot index of the referenced variable.
+     */
+    public ArrayVariable(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    @Override
+    public int length(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        int[] array = frame.getArray(slot);
+        if (array != null) {
+            return array.length;
+        }
+        if (!frame.isAssigned(slot)) {
+            throw new WrongScriptExpressionException("Variable " + name
+                    + " has no assigned value.");
+        }
+        return -1;
+    }
+
+    @Override
+    public int evaluate(VariableFrame frame) {
+        return frame.get(slot);
+    }
+
+    @Override
+    public int[] evaluateArray(VariableFrame frame, int length) {
+        return frame.getArray(slot);
+    }
+}
@@ -0,0 +1,103 @@
+package main.process.arrays;
+
+import main.process.expressions.BinaryOperator;
+
+/**
+ * This class performs the bulk arithmetic on int arrays with plain loops (one 
+ * loop per operator, which the JIT compiler can unroll and vectorize by 
+ * itself). It is used when the Vector API is not available.
+ *
+ * @author SoundlyGifted
+ */
+final class ScalarArrayArithmetic extends ArrayArithmetic {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+
+    @Override
+    public void apply(BinaryOperator operator, int[] x, int[] y, 
+            int[] result) {
+        int length = result.length;
+        switch (operator) {
+            case MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] * y[i];
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] / y[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] - y[i];
+                }
+                break;
+            default: 
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] + y[i];
+                }
+                break;
+        }
+    }
+
+
+    @Override
+    public void apply(BinaryOperator operator, int[] x, int y, int[] result) {
+        int length = result.length;
+        switch (operator) {
+            case MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] * y;
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] / y;
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] - y;
+                }
+                break;
+            default: 
+                for (int i = 0; i < length; i++) {
+                    result[i] = x[i] + y;
+                }
+                break;
+        }
+    }
+
+
+    @Override
+    public void apply(BinaryOperator operator, int x, int[] y, int[] result) {
+        int length = result.length;
+        switch (operator) {
+            case MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x * y[i];
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x / y[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    result[i] = x - y[i];
+                }
+                break;
+            default: 
+                for (int i = 0; i < length; i++) {
+                    result[i] = x + y[i];
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package main.process.arrays;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+import main.process.expressions.BinaryOperator;
+
+/**
+ * This class performs the bulk arithmetic on int arrays with the Vector API: 
+ * whole vectors of the preferred species (the widest the CPU supports) are 
+ * processed at once, and the tail elements one by one. Each operator has its 
+ * own loop with a constant vector operator, which the JIT compiler turns into 
+ * vector instructions. Division is performed by the plain loops: CPUs have no 
+ * vector int division, and the Vector API emulates it slower than the plain 
+ * division.
+ *
+ * The class is compiled only by the build with the "vector.api" property 
+ * (the default build does not need the incubator module) and is loaded only 
+ * if the "jdk.incubator.vector" module is available (see 
+ * {@link ArrayArithmetic#getInstance()}).
+ *
+ * @author SoundlyGifted
+ */
+final class VectorArrayArithmetic extends ArrayArithmetic {
+
+    private static final VectorSpecies<Integer> SPECIES
+            = IntVector.SPECIES_PREFERRED;
+
+    // Division (CPUs have no vector int division, so it is not faster).
+    private static final ArrayArithmetic DIVISION = new ScalarArrayArithmetic();
+
+    VectorArrayArithmetic() {}
+
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+
+    @Override
+    public void apply(BinaryOperator operator, int[] x, int[] y, 
+            int[] result) {
+        if (operator == BinaryOperator.DIVIDE) {
+            DIVISION.apply(operator, x, y, result);
+            return;
+        }
+        int bound = SPECIES.loopBound(result.length);
+        int i = 0;
+        switch (operator) {
+            case MULTIPLY:
+                for (; i < bound; i += SPECIES.length()) {
+                    IntVector.fromArray(SPECIES, x, i)
+                            .mul(IntVector.fromArray(SPECIES, y, i))
+                            .intoArray(result, i);
+                }
+                break;
+            case SUBTRACT:
+                for (; i < bound; i += SPECIES.length()) {
+                    IntVector.fromArray(SPECIES, x, i)
+                            .sub(IntVector.fromArray(SPECIES, y, i))
+                            .intoArray(result, i);
+                }
+                break;
+            default: 
+                for (; i < bound; i += SPECIES.length()) {
+                    IntVector.fromArray(SPECIES, x, i)
+                            .add(IntVector.fromArray(SPECIES, y, i))
+                            .intoArray(result, i);
+                }
+                break;
+        }
+        for (; i < result.length; i++) {
+            result[i] = operator.apply(x[i], y[i]);
+        }
+    }
+
+
+    @Override
+    public void apply(BinaryOperator operator, int[] x, int y, int[] result) {
+        if (operator == BinaryOperator.DIVIDE) {
+            DIVISION.apply(operator, x, y, result);
+            return;
+        }
+        int bound = SPECIES.loopBound(result.length);
+        int i = 0;
+        switch (operator) {
+            case MULTIPLY:
+                for (; i < bound; i += SPECIES.length()) {
+                    IntVector.fromArray(SPECIES, x, i).mul(y)
+                            .intoArray(result, i);
+                }
+                break;
+            case SUBTRACT:
+                for (; i < bound; i += SPECIES.length()) {
+                    IntVector.fromArray(SPECIES, x, i).sub(y)
+                            .intoArray(result, i);
+                }
+                break;
+            default: 
+                for (; i < bound; i += SPECIES.length()) {
+                    IntVector.fromArray(SPECIES, x, i).add(y)
+                            .intoArray(result, i);
+                }
+                break;
+        }
+        for (; i < result.length; i++) {
+            result[i] = operator.apply(x[i], y);
+        }
+    }
+
+
+    @Override
+    public void apply(BinaryOperator operator, int x, int[] y, int[] result) {
+        if (operator == BinaryOperator.DIVIDE) {
+            DIVISION.apply(operator, x, y, result);
+            return;
+        }
+        IntVector broadcast = IntVector.broadcast(SPECIES, x);
+        int bound = SPECIES.loopBound(result.length);
+        int i = 0;
+        switch (operator) {
+            case MULTIPLY:
+                for (; i < bound; i += SPECIES.length()) {
+                    broadcast.mul(IntVector.fromArray(SPECIES, y, i))
+                            .intoArray(result, i);
+                }
+                break;
+            case SUBTRACT:
+                for (; i < bound; i += SPECIES.length()) {
+                    broadcast.sub(IntVector.fromArray(SPECIES, y, i))
+                            .intoArray(result, i);
+                }
+                break;
+            default: 
+                for (; i < bound; i += SPECIES.length()) {
+                    broadcast.add(IntVector.fromArray(SPECIES, y, i))
+                            .intoArray(result, i);
+                }
+                break;
+        }
+        for (; i < result.length; i++) {
+            result[i] = operator.apply(x, y[i]);
+        }
+    }
+
+}
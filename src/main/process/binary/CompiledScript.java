@@ -0,0 +1,694 @@
+package main.process.binary;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.expressions.BinaryOperation;
+import main.process.expressions.BinaryOperator;
+import main.process.expressions.Expression;
+import main.process.expressions.NumberLiteral;
+import main.process.expressions.VariableReference;
+import main.process.operations.ArrayOperationPerformer;
+import main.process.operations.CompiledArrayOperation;
+import main.process.operations.CompiledBlockOperation;
+import main.process.operations.CompiledErrorOperation;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledPrintOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.OperationPerformer;
+import main.process.operations.PrintOperationPerformer;
+import main.process.operations.SetOperationPerformer;
+import main.process.variables.SymbolTable;
+
+/**
+ * This class represents a script compiled into the compact binary form that 
+ * can be written to a file and loaded (memory-mapped) back without parsing 
+ * the script text again. The binary form consists of:
+ *
+ * 1) header: magic number "SLC1" and format version (4-byte integers); 
+ * 2) symbol table: names of script variables in the order of their slots; 
+ * 3) constant pool: print strings and error messages; 
+ * 4) error of the script: kind (none, unsupported operation or wrong 
+ * expression) and constant pool index of the error message; 
+ * 5) instruction stream: compiled operations, where "set" expressions are 
+ * stored in postfix order, "array" operations as their source expressions, 
+ * and "while" and "if" blocks are stored as the block instruction, the lines 
+ * of the block body and the end instruction.
+ *
+ * Counts, indexes and slots are stored as unsigned variable-length integers, 
+ * number literals as zigzag-encoded variable-length integers, and strings as 
+ * byte length followed by UTF-8 bytes.
+ *
+ * Only the lines up to the first error of the script are compiled (like in 
+ * the whole-script execution), and the error is raised after the compiled 
+ * operations are performed. Lines that can raise errors depending on the 
+ * script flow (in the blocks and after the first block or "array" 
+ * operation) are stored so that 
+ * they raise the same errors: "set" operations as their source expressions 
+ * (compiled once when the script is loaded), and lines with syntax errors as
+ * their error messages.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledScript {
+
+    // File extension of compiled scripts.
+    public static final String FILE_EXTENSION = "slc";
+
+    /* Version of the binary form. It must be changed whenever the binary form
+     * or the way scripts are compiled changes, so that compiled scripts cached 
+     * by the previous versions are not used.
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    // First four bytes of a compiled script ("SLC1").
+    private static final int MAGIC = 0x534C4331;
+
+    // Kinds of the script error.
+    private static final int NO_ERROR = 0;
+    private static final int UNSUPPORTED_OPERATION_ERROR = 1;
+    private static final int WRONG_EXPRESSION_ERROR = 2;
+
+    // Instructions of the instruction stream.
+    private static final byte OP_SET = 1;
+    private static final byte OP_PRINT = 2;
+    private static final byte OP_WHILE = 3;
+    private static final byte OP_IF = 4;
+    private static final byte OP_END = 5;
+    private static final byte OP_ERROR = 6;
+    private static final byte OP_SET_SOURCE = 7;
+    private static final byte OP_ARRAY = 8;
+
+    // Expression instructions of "set" operations (in postfix order).
+    private static final byte EXPR_END = 0;
+    private static final byte EXPR_NUMBER = 1;
+    private static final byte EXPR_VARIABLE = 2;
+    private static final byte EXPR_OPERATOR = 3;
+
+    // Print parts of "print" operations.
+    private static final byte PRINT_STRING = 0;
+    private static final byte PRINT_VARIABLE = 1;
+    private static final byte PRINT_SLICE = 2;
+
+    // Names of script variables in the order of their slots.
+    private final String[] symbolNames;
+
+    // Constant pool (strings referenced by index from the instructions).
+    private final String[] constants;
+
+    // Kind of the script error and index of its message in the constant pool.
+    private final int errorKind;
+    private final int errorMessage;
+
+    // Instruction stream (can be a part of a memory-mapped file).
+    private final ByteBuffer code;
+
+    private CompiledScript(String[] symbolNames, String[] constants, 
+            int errorKind, int errorMessage, ByteBuffer code) {
+        this.symbolNames = symbolNames;
+        this.constants = constants;
+        this.errorKind = errorKind;
+        this.errorMessage = errorMessage;
+        this.code = code;
+    }
+
+
+    /**
+     * Creates the binary form of compiled script operations.
+     *
+     * @param operations compiled "set", "print", "array" and block operations
+     * of the script lines before the first error.
+     * @param symbols symbol table used to compile the operations.
+     * @param unsupportedOperationError error of the first line with an 
+     * unsupported operation, or null.
+     * @param wrongExpressionError error of the first line with a wrong 
+     * expression, or null.
+     * @return the compiled script.
+     * @throws IllegalArgumentException is thrown when an operation is not a 
+     * "set", "print", "array" or block operation (i.e., a custom operation).
+     */
+    public static CompiledScript encode(List<CompiledOperation> operations, 
+            SymbolTable symbols, 
+            UnsupportedScriptOperationException unsupportedOperationError, 
+            WrongScriptExpressionException wrongExpressionError) {
+        String[] symbolNames = new String[symbols.size()];
+        for (int i = 0; i < symbolNames.length; i++) {
+            symbolNames[i] = symbols.getName(i);
+        }
+        Map<String, Integer> constantIndexes = new HashMap<>();
+        List<String> constants = new ArrayList<>();
+        CodeBuffer code = new CodeBuffer();
+
+        /* "set" operations are stored as expression trees while they are 
+         * known to have no errors (before the first block or "array" 
+         * operation).
+         */
+        boolean checked = true;
+        for (CompiledOperation operation : operations) {
+            checked &= !(operation instanceof CompiledBlockOperation)
+                    && !(operation instanceof CompiledArrayOperation);
+            encodeOperation(operation, checked, code, constantIndexes, 
+                    constants);
+        }
+
+        int errorKind = NO_ERROR;
+        int errorMessage = 0;
+        if (unsupportedOperationError != null) {
+            errorKind = UNSUPPORTED_OPERATION_ERROR;
+            errorMessage = constantIndex(unsupportedOperationError.getMessage(), 
+                    constantIndexes, constants);
+        } else if (wrongExpressionError != null) {
+            errorKind = WRONG_EXPRESSION_ERROR;
+            errorMessage = constantIndex(wrongExpressionError.getMessage(), 
+                    constantIndexes, constants);
+        }
+        return new CompiledScript(symbolNames, 
+                constants.toArray(new String[0]), errorKind, errorMessage, 
+                code.toByteBuffer());
+    }
+
+
+    /**
+     * Reads the binary form of a compiled script. Strings are decoded, and the 
+     * instruction stream is checked and kept as a read-only view of the 
+     * buffer, so a memory-mapped file must not be changed while the compiled 
+     * script is used.
+     *
+     * @param buffer buffer that contains the binary form (from its position to 
+     * its limit).
+     * @return the compiled script.
+     * @throws IOException is thrown when the buffer does not contain a valid 
+     * compiled script of this format version.
+     */
+    public static CompiledScript read(ByteBuffer buffer) throws IOException {
+        buffer = buffer.slice();
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a compiled script");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Compiled script format version "
+                        + version + " is not supported (expected "
+                        + FORMAT_VERSION + ")");
+            }
+            String[] symbolNames = readStrings(buffer);
+            String[] constants = readStrings(buffer);
+            int errorKind = getVarInt(buffer);
+            int errorMessage = getVarInt(buffer);
+            if (errorKind > WRONG_EXPRESSION_ERROR
+                    || (errorKind != NO_ERROR
+                            && errorMessage >= constants.length)) {
+                throw new IOException("Invalid script error");
+            }
+            int codeLength = getVarInt(buffer);
+            if (codeLength > buffer.remaining()) {
+                throw new IOException("Instruction stream is truncated");
+            }
+            ByteBuffer code = buffer.slice().limit(codeLength)
+                    .asReadOnlyBuffer();
+            checkCode(code.duplicate(), symbolNames.length, constants.length);
+            return new CompiledScript(symbolNames, constants, errorKind, 
+                    errorMessage, code);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Compiled script is truncated", ex);
+        }
+    }
+
+
+    /**
+     * @return the binary form of this compiled script (a new buffer from 
+     * position 0 to its limit).
+     */
+    public ByteBuffer toByteBuffer() {
+        CodeBuffer header = new CodeBuffer();
+        header.putInt(MAGIC);
+        header.putInt(FORMAT_VERSION);
+        writeStrings(symbolNames, header);
+        writeStrings(constants, header);
+        header.putVarInt(errorKind);
+        header.putVarInt(errorMessage);
+        header.putVarInt(code.remaining());
+        ByteBuffer headerBuffer = header.toByteBuffer();
+        ByteBuffer buffer = ByteBuffer.allocate(headerBuffer.remaining()
+                + code.remaining());
+        buffer.put(headerBuffer).put(code.duplicate());
+        return buffer.flip();
+    }
+
+
+    /**
+     * @return number of script variables (slots) used by the script.
+     */
+    public int getSlotCount() {
+        return symbolNames.length;
+    }
+
+
+    /**
+     * Creates the compiled operations of the script. Script variables are 
+     * added to the symbol table in the order of their slots, so the symbol 
+     * table must be empty.
+     *
+     * @param symbols empty symbol table that receives the script variables.
+     * @param printPerformer performer that creates "print" operations (which 
+     * print to its output sink).
+     * @param setPerformer performer that compiles "set" operations stored as
+     * their source expressions.
+     * @param arrayPerformer performer that compiles "array" operations.
+     * @return compiled operations of the script lines before the first error.
+     */
+    public List<CompiledOperation> decode(SymbolTable symbols, 
+            PrintOperationPerformer printPerformer, 
+            SetOperationPerformer setPerformer, 
+            ArrayOperationPerformer arrayPerformer) {
+        for (String name : symbolNames) {
+            symbols.slotOf(name);
+        }
+        ByteBuffer buffer = code.duplicate();
+        List<CompiledOperation> operations = new ArrayList<>();
+        
+        // Bodies and instructions of the enclosing blocks (the innermost first).
+        Deque<List<CompiledOperation>> outerBodies = new ArrayDeque<>();
+        Deque<Integer> blockStarts = new ArrayDeque<>();
+        while (buffer.hasRemaining()) {
+            byte instruction = buffer.get();
+            switch (instruction) {
+                case OP_SET:
+                    operations.add(decodeSet(buffer));
+                    break;
+                case OP_PRINT:
+                    operations.add(decodePrint(buffer, printPerformer));
+                    break;
+                case OP_WHILE:
+                case OP_IF:
+                    blockStarts.push((int) instruction);
+                    blockStarts.push(getVarInt(buffer));
+                    outerBodies.push(operations);
+                    operations = new ArrayList<>();
+                    break;
+                case OP_END:
+                    int slot = blockStarts.pop();
+                    CompiledOperation block = new CompiledBlockOperation( 
+                            blockStarts.pop() == OP_WHILE, symbolNames[slot], 
+                            slot, operations);
+                    operations = outerBodies.pop();
+                    operations.add(block);
+                    break;
+                case OP_ERROR:
+                    operations.add(new CompiledErrorOperation( 
+                            constants[getVarInt(buffer)]));
+                    break;
+                case OP_ARRAY:
+                    operations.add(decodeSource(buffer, symbols, 
+                            arrayPerformer));
+                    break;
+                default:
+                    operations.add(decodeSource(buffer, symbols, 
+                            setPerformer));
+                    break;
+            }
+        }
+        return operations;
+    }
+
+
+    private CompiledOperation decodeSet(ByteBuffer buffer) {
+        Deque<Expression> operands = new ArrayDeque<>();
+        int slot = getVarInt(buffer);
+        byte instruction;
+        while ((instruction = buffer.get()) != EXPR_END) {
+            if (instruction == EXPR_NUMBER) {
+                operands.push(new NumberLiteral( 
+                        decodeZigZag(getVarInt(buffer))));
+            } else if (instruction == EXPR_VARIABLE) {
+                int varSlot = getVarInt(buffer);
+                operands.push(new VariableReference(symbolNames[varSlot], 
+                        varSlot));
+            } else {
+                BinaryOperator operator
+                        = BinaryOperator.values()[buffer.get()];
+                Expression right = operands.pop();
+                operands.push(new BinaryOperation(operator, operands.pop(), 
+                        right));
+            }
+        }
+        return CompiledSetOperation.forValidExpression(null, symbolNames[slot], 
+                slot, operands.pop());
+    }
+
+
+    private CompiledOperation decodePrint(ByteBuffer buffer, 
+            PrintOperationPerformer printPerformer) {
+        int size = getVarInt(buffer);
+        String[] printStrings = new String[size];
+        boolean[] varNameFlags = new boolean[size];
+        int[] varSlots = new int[size];
+        int[] sliceFrom = null;
+        int[] sliceTo = null;
+        for (int i = 0; i < size; i++) {
+            byte part = buffer.get();
+            varNameFlags[i] = part != PRINT_STRING;
+            if (varNameFlags[i]) {
+                varSlots[i] = getVarInt(buffer);
+                printStrings[i] = symbolNames[varSlots[i]];
+            } else {
+                printStrings[i] = constants[getVarInt(buffer)];
+            }
+            if (part == PRINT_SLICE) {
+                if (sliceFrom == null) {
+                    sliceFrom = new int[size];
+                    sliceTo = new int[size];
+                    Arrays.fill(sliceFrom, -1);
+                }
+                sliceFrom[i] = getVarInt(buffer);
+                sliceTo[i] = getVarInt(buffer) - 1;
+            }
+        }
+        return printPerformer.createOperation(printStrings, varNameFlags, 
+                varSlots, sliceFrom, sliceTo);
+    }
+
+
+    /* Compiles the source expression of the "set" or "array" operation (it 
+     * compiled without errors when the script was compiled, so an error means
+     * that the compiled script was changed).
+     */
+    private CompiledOperation decodeSource(ByteBuffer buffer, 
+            SymbolTable symbols, OperationPerformer performer) {
+        String operationExpression = constants[getVarInt(buffer)];
+        try {
+            return performer.compileOperation(operationExpression, symbols);
+        } catch (WrongScriptExpressionException wseex) {
+            return new CompiledErrorOperation(wseex.getMessage());
+        }
+    }
+
+
+    /**
+     * @return error of the first line with an unsupported operation (raised 
+     * after the compiled operations are performed), or null.
+     */
+    public UnsupportedScriptOperationException getUnsupportedOperationError() {
+        return errorKind == UNSUPPORTED_OPERATION_ERROR
+                ? new UnsupportedScriptOperationException( 
+                        constants[errorMessage])
+                : null;
+    }
+
+
+    /**
+     * @return error of the first line with a wrong expression (raised after 
+     * the compiled operations are performed), or null.
+     */
+    public WrongScriptExpressionException getWrongExpressionError() {
+        return errorKind == WRONG_EXPRESSION_ERROR
+                ? new WrongScriptExpressionException(constants[errorMessage])
+                : null;
+    }
+
+
+    private static int constantIndex(String constant, 
+            Map<String, Integer> constantIndexes, List<String> constants) {
+        Integer index = constantIndexes.get(constant);
+        if (index == null) {
+            index = constants.size();
+            constantIndexes.put(constant, index);
+            constants.add(constant);
+        }
+        return index;
+    }
+
+
+    /* Writes the operation. "set" operations that are not checked are 
+     * written as their source expressions, so that they raise the same errors
+     * as the compiled operations.
+     */
+    private static void encodeOperation(CompiledOperation operation, 
+            boolean checked, CodeBuffer code, 
+            Map<String, Integer> constantIndexes, List<String> constants) {
+        if (operation instanceof CompiledSetOperation) {
+            CompiledSetOperation setOperation
+                    = (CompiledSetOperation) operation;
+            if (checked) {
+                code.put(OP_SET);
+                code.putVarInt(setOperation.getVarToAssignSlot());
+                encodeExpression(setOperation.getExpression(), code);
+                code.put(EXPR_END);
+            } else {
+                code.put(OP_SET_SOURCE);
+                code.putVarInt(constantIndex( 
+                        setOperation.getOperationExpression(), 
+                        constantIndexes, constants));
+            }
+        } else if (operation instanceof CompiledPrintOperation) {
+            CompiledPrintOperation printOperation
+                    = (CompiledPrintOperation) operation;
+            code.put(OP_PRINT);
+            code.putVarInt(printOperation.size());
+            for (int i = 0; i < printOperation.size(); i++) {
+                if (printOperation.isSlice(i)) {
+                    code.put(PRINT_SLICE);
+                    code.putVarInt(printOperation.getVarSlot(i));
+                    code.putVarInt(printOperation.getSliceFrom(i));
+                    code.putVarInt(printOperation.getSliceTo(i) + 1);
+                } else if (printOperation.isVarName(i)) {
+                    code.put(PRINT_VARIABLE);
+                    code.putVarInt(printOperation.getVarSlot(i));
+                } else {
+                    code.put(PRINT_STRING);
+                    code.putVarInt(constantIndex( 
+                            printOperation.getPrintString(i), 
+                            constantIndexes, constants));
+                }
+            }
+        } else if (operation instanceof CompiledBlockOperation) {
+            CompiledBlockOperation block = (CompiledBlockOperation) operation;
+            code.put(block.isLoop() ? OP_WHILE : OP_IF);
+            code.putVarInt(block.getConditionSlot());
+            for (CompiledOperation bodyOperation : block.getBody()) {
+                encodeOperation(bodyOperation, false, code, constantIndexes, 
+                        constants);
+            }
+            code.put(OP_END);
+        } else if (operation instanceof CompiledArrayOperation) {
+            code.put(OP_ARRAY);
+            code.putVarInt(constantIndex( 
+                    ((CompiledArrayOperation) operation)
+                            .getOperationExpression(), 
+                    constantIndexes, constants));
+        } else if (operation instanceof CompiledErrorOperation) {
+            code.put(OP_ERROR);
+            code.putVarInt(constantIndex( 
+                    ((CompiledErrorOperation) operation).getErrorMessage(), 
+                    constantIndexes, constants));
+        } else {
+            throw new IllegalArgumentException("Operation "
+                    + operation.getClass().getSimpleName()
+                    + " cannot be stored in a compiled script");
+        }
+    }
+
+
+    /* Writes the expression tree in postfix order (operands before their
+     * operator).
+     */
+    private static void encodeExpression(Expression expression, 
+            CodeBuffer code) {
+        if (expression instanceof NumberLiteral) {
+            code.put(EXPR_NUMBER);
+            code.putVarInt(encodeZigZag( 
+                    ((NumberLiteral) expression).getValue()));
+        } else if (expression instanceof VariableReference) {
+            code.put(EXPR_VARIABLE);
+            code.putVarInt(((VariableReference) expression).getSlot());
+        } else {
+            BinaryOperation operation = (BinaryOperation) expression;
+            encodeExpression(operation.getLeft(), code);
+            encodeExpression(operation.getRight(), code);
+            code.put(EXPR_OPERATOR);
+            code.put((byte) operation.getOperator().ordinal());
+        }
+    }
+
+
+    /* Checks that the instruction stream is well-formed, so that decoding it
+     * does not fail: instructions and operators are known, slots and constant 
+     * pool indexes are in range, every expression leaves exactly one value, 
+     * and every block is ended.
+     */
+    private static void checkCode(ByteBuffer buffer, int slotCount, 
+            int constantCount) throws IOException {
+        int blockDepth = 0;
+        while (buffer.hasRemaining()) {
+            byte operation = buffer.get();
+            if (operation == OP_SET) {
+                checkIndex(getVarInt(buffer), slotCount);
+                int depth = 0;
+                byte instruction;
+                while ((instruction = buffer.get()) != EXPR_END) {
+                    if (instruction == EXPR_NUMBER) {
+                        getVarInt(buffer);
+                        depth++;
+                    } else if (instruction == EXPR_VARIABLE) {
+                        checkIndex(getVarInt(buffer), slotCount);
+                        depth++;
+                    } else if (instruction == EXPR_OPERATOR && depth >= 2) {
+                        checkIndex(buffer.get(), 
+                                BinaryOperator.values().length);
+                        depth--;
+                    } else {
+                        throw new IOException("Invalid expression");
+                    }
+                }
+                if (depth != 1) {
+                    throw new IOException("Invalid expression");
+                }
+            } else if (operation == OP_PRINT) {
+                int size = getVarInt(buffer);
+                for (int i = 0; i < size; i++) {
+                    byte part = buffer.get();
+                    if (part == PRINT_VARIABLE) {
+                        checkIndex(getVarInt(buffer), slotCount);
+                    } else if (part == PRINT_SLICE) {
+                        checkIndex(getVarInt(buffer), slotCount);
+                        checkIndex(getVarInt(buffer), Integer.MAX_VALUE);
+                        getVarInt(buffer);
+                    } else if (part == PRINT_STRING) {
+                        checkIndex(getVarInt(buffer), constantCount);
+                    } else {
+                        throw new IOException("Invalid print operation");
+                    }
+                }
+            } else if (operation == OP_WHILE || operation == OP_IF) {
+                checkIndex(getVarInt(buffer), slotCount);
+                blockDepth++;
+            } else if (operation == OP_END && blockDepth > 0) {
+                blockDepth--;
+            } else if (operation == OP_ERROR || operation == OP_SET_SOURCE
+                    || operation == OP_ARRAY) {
+                checkIndex(getVarInt(buffer), constantCount);
+            } else {
+                throw new IOException("Unknown instruction " + operation);
+            }
+        }
+        if (blockDepth != 0) {
+            throw new IOException("Block is not ended");
+        }
+    }
+
+
+    private static void checkIndex(int index, int size) throws IOException {
+        if (index < 0 || index >= size) {
+            throw new IOException("Index " + index + " is out of range");
+        }
+    }
+
+
+    private static void writeStrings(String[] strings, CodeBuffer buffer) {
+        buffer.putVarInt(strings.length);
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            buffer.putVarInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+
+    private static String[] readStrings(ByteBuffer buffer) throws IOException {
+        int count = getVarInt(buffer);
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IOException("Invalid string count");
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = getVarInt(buffer);
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Invalid string length");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 35);
+        return value;
+    }
+
+
+    private static int encodeZigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+
+    private static int decodeZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    /* Growable byte buffer for writing the binary form.
+     */
+    private static final class CodeBuffer {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void put(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
+        }
+
+        void put(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void putInt(int value) {
+            put((byte) (value >>> 24));
+            put((byte) (value >>> 16));
+            put((byte) (value >>> 8));
+            put((byte) value);
+        }
+
+        void putVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((byte) value);
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(bytes, 0, size).slice();
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, 
+                        Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
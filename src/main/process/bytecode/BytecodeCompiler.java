@@ -0,0 +1,344 @@
+package main.process.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import main.process.expressions.BinaryOperation;
+import main.process.expressions.Expression;
+import main.process.expressions.NumberLiteral;
+import main.process.expressions.VariableReference;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledPrintOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.PrintOperationPerformer;
+
+/**
+ * This class compiles a whole script (its compiled operations in the script 
+ * line order) into a hidden JVM class. Script variable slots become int fields
+ * of the generated class, and the operations become straight-line code split 
+ * into methods of a limited size, so that the JIT compiler can keep variables
+ * in registers and fold constants.
+ * 
+ * All "set" operations passed to the compiler must be valid with the 
+ * variables assigned by the preceding operations (i.e., must not raise
+ * script errors other than division by zero).
+ * 
+ * @author SoundlyGifted
+ */
+public final class BytecodeCompiler {
+    
+    // Internal names and descriptors used by the generated code.
+    private static final String CLASS_NAME 
+            = "main/process/bytecode/GeneratedScriptProgram";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String OUTPUT_SINK = "main/io/OutputSink";
+    private static final String OUTPUT_SINK_DESCRIPTOR = "Lmain/io/OutputSink;";
+    private static final String PRINT_LINE_DESCRIPTOR 
+            = "(Ljava/lang/CharSequence;)V";
+    private static final String STRING_BUILDER = "java/lang/StringBuilder";
+    
+    // Maximum code size of one generated method (the JVM limit is 64 KB).
+    private static final int MAX_METHOD_CODE_SIZE = 32768;
+    
+    // JVM instructions used by the generated code.
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DUP = 0x59;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IMUL = 0x68;
+    private static final int IDIV = 0x6c;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int NEW = 0xbb;
+    
+    private final ClassFileWriter classFile = new ClassFileWriter();
+    
+    // Variable slots that are assigned at the current point of the script.
+    private final boolean[] assignedSlots;
+    
+    // Code and maximum stack depth of the method being generated.
+    private ByteArrayOutputStream code;
+    private int maxStack;
+    
+    private BytecodeCompiler(int slotCount) {
+        assignedSlots = new boolean[slotCount];
+    }
+    
+    /**
+     * Compiles the script operations into a hidden class and creates an 
+     * instance of it.
+     * 
+     * @param operations compiled script operations in the script line order.
+     * @param slotCount number of script variable slots used by the operations.
+     * @return the compiled script program, or null if the script cannot be 
+     * compiled into bytecode (i.e., when class file limits are exceeded).
+     */
+    public static ScriptProgram compile(List<CompiledOperation> operations, 
+            int slotCount) {
+        try {
+            byte[] bytes = new BytecodeCompiler(slotCount).generate(operations);
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClass(bytes, true);
+            return (ScriptProgram) lookup.lookupClass()
+                    .getDeclaredConstructor().newInstance();
+        } catch (IOException | ReflectiveOperationException | LinkageError 
+                | IllegalArgumentException | UnsupportedOperationException ex) {
+            return null;
+        }
+    }
+    
+    
+    private byte[] generate(List<CompiledOperation> operations) 
+            throws IOException {
+        // Script variables and the output sink.
+        for (int slot = 0; slot < assignedSlots.length; slot++) {
+            classFile.addField(ClassFileWriter.ACC_PRIVATE, "v" + slot, "I");
+        }
+        classFile.addField(ClassFileWriter.ACC_PRIVATE, "output", 
+                OUTPUT_SINK_DESCRIPTOR);
+        
+        // Constructor.
+        startMethod();
+        emit(ALOAD_0);
+        emitU2(INVOKESPECIAL, classFile.methodRef(OBJECT, "<init>", "()V"));
+        emit(RETURN);
+        endMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", 1);
+        
+        // Operations split into private methods of a limited size.
+        int methodCount = 0;
+        int methodMaxStack = 0;
+        ByteArrayOutputStream methodCode = new ByteArrayOutputStream();
+        for (CompiledOperation operation : operations) {
+            startMethod();
+            if (operation instanceof CompiledSetOperation) {
+                generateSet((CompiledSetOperation) operation);
+            } else if (operation instanceof CompiledPrintOperation
+                    && !((CompiledPrintOperation) operation).hasSlices()) {
+                generatePrint((CompiledPrintOperation) operation);
+            } else {
+                throw new UnsupportedOperationException("Operation "
+                        + operation.getClass().getName() + " cannot be "
+                        + "compiled into bytecode.");
+            }
+            if (methodCode.size() + code.size() >= MAX_METHOD_CODE_SIZE 
+                    && methodCode.size() > 0) {
+                addOperationsMethod(methodCount++, methodCode, methodMaxStack);
+                methodCode.reset();
+                methodMaxStack = 0;
+            }
+            code.writeTo(methodCode);
+            methodMaxStack = Math.max(methodMaxStack, maxStack);
+        }
+        if (methodCode.size() > 0) {
+            addOperationsMethod(methodCount++, methodCode, methodMaxStack);
+        }
+        
+        /* Entry method that stores the output sink and calls the operation 
+         * methods in order.
+         */
+        startMethod();
+        emit(ALOAD_0);
+        emit(ALOAD_1);
+        emitU2(PUTFIELD, outputFieldRef());
+        maxStack = 2;
+        for (int i = 0; i < methodCount; i++) {
+            emit(ALOAD_0);
+            emitU2(INVOKESPECIAL, 
+                    classFile.methodRef(CLASS_NAME, "run" + i, "()V"));
+        }
+        emit(RETURN);
+        endMethod(ClassFileWriter.ACC_PUBLIC, "run", 
+                "(" + OUTPUT_SINK_DESCRIPTOR + ")V", 2);
+        
+        return classFile.toByteArray(ClassFileWriter.ACC_PUBLIC 
+                | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER, 
+                CLASS_NAME, OBJECT, "main/process/bytecode/ScriptProgram");
+    }
+    
+    
+    private void addOperationsMethod(int index, ByteArrayOutputStream 
+            methodCode, int methodMaxStack) throws IOException {
+        methodCode.write(RETURN);
+        classFile.addMethod(ClassFileWriter.ACC_PRIVATE, "run" + index, "()V",
+                methodMaxStack, 1, methodCode.toByteArray());
+    }
+    
+    
+    // Generates: this.var = <expression>;
+    private void generateSet(CompiledSetOperation operation) 
+            throws IOException {
+        emit(ALOAD_0);
+        generateExpression(operation.getExpression(), 1);
+        emitU2(PUTFIELD, fieldRef(operation.getVarToAssignSlot()));
+        assignedSlots[operation.getVarToAssignSlot()] = true;
+    }
+    
+    
+    /* Generates code that pushes the expression value on the operand stack 
+     * that already has the given depth.
+     */
+    private void generateExpression(Expression expression, int depth) 
+            throws IOException {
+        maxStack = Math.max(maxStack, depth + 1);
+        if (expression instanceof NumberLiteral) {
+            emitInt(((NumberLiteral) expression).getValue());
+        } else if (expression instanceof VariableReference) {
+            emit(ALOAD_0);
+            emitU2(GETFIELD, 
+                    fieldRef(((VariableReference) expression).getSlot()));
+        } else if (expression instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expression;
+            generateExpression(operation.getLeft(), depth);
+            generateExpression(operation.getRight(), depth + 1);
+            switch (operation.getOperator()) {
+                case MULTIPLY:
+                    emit(IMUL);
+                    break;
+                case DIVIDE:
+                    emit(IDIV);
+                    break;
+                case SUBTRACT:
+                    emit(ISUB);
+                    break;
+                default:
+                    emit(IADD);
+                    break;
+            }
+        } else {
+            throw new UnsupportedOperationException("Expression "
+                    + expression.getClass().getName() + " cannot be compiled "
+                    + "into bytecode.");
+        }
+    }
+    
+    
+    /* Generates: output.printLine(<strings and variable values>);
+     * Values of variables that are not assigned at this point of the script 
+     * are printed as constant strings.
+     */
+    private void generatePrint(CompiledPrintOperation operation) 
+            throws IOException {
+        emit(ALOAD_0);
+        emitU2(GETFIELD, outputFieldRef());
+        
+        boolean printsValues = false;
+        for (int i = 0; i < operation.size(); i++) {
+            if (operation.isVarName(i) 
+                    && assignedSlots[operation.getVarSlot(i)]) {
+                printsValues = true;
+            }
+        }
+        if (!printsValues) {
+            StringBuilder constant = new StringBuilder();
+            for (int i = 0; i < operation.size(); i++) {
+                constant.append(operation.isVarName(i) 
+                        ? PrintOperationPerformer.NULL_VALUE 
+                        : operation.getPrintString(i));
+            }
+            emitLdc(classFile.string(constant.toString()));
+            emitU2(INVOKEVIRTUAL, classFile.methodRef(OUTPUT_SINK, "printLine",
+                    PRINT_LINE_DESCRIPTOR));
+            maxStack = 2;
+            return;
+        }
+        
+        emitU2(NEW, classFile.classRef(STRING_BUILDER));
+        emit(DUP);
+        emitU2(INVOKESPECIAL, 
+                classFile.methodRef(STRING_BUILDER, "<init>", "()V"));
+        maxStack = 3;
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < operation.size(); i++) {
+            String printString = operation.getPrintString(i);
+            if (!operation.isVarName(i)) {
+                constant.append(printString);
+            } else if (!assignedSlots[operation.getVarSlot(i)]) {
+                constant.append(PrintOperationPerformer.NULL_VALUE);
+            } else {
+                appendConstant(constant);
+                emit(ALOAD_0);
+                emitU2(GETFIELD, fieldRef(operation.getVarSlot(i)));
+                emitU2(INVOKEVIRTUAL, classFile.methodRef(STRING_BUILDER, 
+                        "append", "(I)Ljava/lang/StringBuilder;"));
+            }
+        }
+        appendConstant(constant);
+        emitU2(INVOKEVIRTUAL, classFile.methodRef(OUTPUT_SINK, "printLine", 
+                PRINT_LINE_DESCRIPTOR));
+    }
+    
+    
+    // Generates: sb.append("constant"); and clears the constant.
+    private void appendConstant(StringBuilder constant) throws IOException {
+        if (constant.length() > 0) {
+            emitLdc(classFile.string(constant.toString()));
+            emitU2(INVOKEVIRTUAL, classFile.methodRef(STRING_BUILDER, 
+                    "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;"));
+            constant.setLength(0);
+        }
+    }
+    
+    
+    private int outputFieldRef() throws IOException {
+        return classFile.fieldRef(CLASS_NAME, "output", OUTPUT_SINK_DESCRIPTOR);
+    }
+    
+    // Returns the reference to the field of the script variable slot.
+    private int fieldRef(int slot) throws IOException {
+        return classFile.fieldRef(CLASS_NAME, "v" + slot, "I");
+    }
+    
+    
+    private void startMethod() {
+        code = new ByteArrayOutputStream();
+        maxStack = 1;
+    }
+    
+    private void endMethod(int access, String name, String descriptor, 
+            int maxLocals) throws IOException {
+        classFile.addMethod(access, name, descriptor, maxStack, maxLocals, 
+                code.toByteArray());
+    }
+    
+    private void emit(int opcode) {
+        code.write(opcode);
+    }
+    
+    private void emitU2(int opcode, int operand) {
+        code.write(opcode);
+        code.write(operand >> 8);
+        code.write(operand);
+    }
+    
+    private void emitLdc(int poolIndex) {
+        if (poolIndex <= 0xFF) {
+            code.write(LDC);
+            code.write(poolIndex);
+        } else {
+            emitU2(LDC_W, poolIndex);
+        }
+    }
+    
+    private void emitInt(int value) throws IOException {
+        if (value >= -1 && value <= 5) {
+            emit(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            emitU2(SIPUSH, value);
+        } else {
+            emitLdc(classFile.integer(value));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package main.process.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes a minimal JVM class file: the constant pool, int fields, 
+ * and methods that contain straight-line code only (no branches, no exception 
+ * handlers, so no stack map frames are needed).
+ * 
+ * @author SoundlyGifted
+ */
+final class ClassFileWriter {
+    
+    // Class file access flags.
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    
+    // Class file format version (Java 17).
+    private static final int MAJOR_VERSION = 61;
+    
+    // Maximum number of entries in the constant pool and other u2 counters.
+    private static final int MAX_U2 = 0xFFFF;
+    
+    // Constant pool tags.
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+    private int poolCount = 1;
+    
+    private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+    private final DataOutputStream fields = new DataOutputStream(fieldBytes);
+    private int fieldCount = 0;
+    
+    private final List<byte[]> methods = new ArrayList<>();
+    
+    
+    int utf8(String value) throws IOException {
+        Integer index = poolIndexes.get("U" + value);
+        if (index == null) {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+            index = addPoolEntry("U" + value);
+        }
+        return index;
+    }
+    
+    int classRef(String internalName) throws IOException {
+        Integer index = poolIndexes.get("C" + internalName);
+        if (index == null) {
+            int nameIndex = utf8(internalName);
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(nameIndex);
+            index = addPoolEntry("C" + internalName);
+        }
+        return index;
+    }
+    
+    int string(String value) throws IOException {
+        Integer index = poolIndexes.get("S" + value);
+        if (index == null) {
+            int valueIndex = utf8(value);
+            pool.writeByte(CONSTANT_STRING);
+            pool.writeShort(valueIndex);
+            index = addPoolEntry("S" + value);
+        }
+        return index;
+    }
+    
+    int integer(int value) throws IOException {
+        Integer index = poolIndexes.get("I" + value);
+        if (index == null) {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+            index = addPoolEntry("I" + value);
+        }
+        return index;
+    }
+    
+    int fieldRef(String owner, String name, String descriptor) 
+            throws IOException {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+    
+    int methodRef(String owner, String name, String descriptor) 
+            throws IOException {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+    
+    void addField(int access, String name, String descriptor) 
+            throws IOException {
+        checkU2(fieldCount + 1);
+        fields.writeShort(access);
+        fields.writeShort(utf8(name));
+        fields.writeShort(utf8(descriptor));
+        fields.writeShort(0); // No attributes.
+        fieldCount++;
+    }
+    
+    void addMethod(int access, String name, String descriptor, int maxStack, 
+            int maxLocals, byte[] code) throws IOException {
+        checkU2(methods.size() + 1);
+        checkU2(maxStack);
+        if (code.length >= MAX_U2) {
+            throw new IOException("Method code is too large.");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream method = new DataOutputStream(bytes);
+        method.writeShort(access);
+        method.writeShort(utf8(name));
+        method.writeShort(utf8(descriptor));
+        method.writeShort(1); // Code attribute only.
+        method.writeShort(utf8("Code"));
+        method.writeInt(12 + code.length);
+        method.writeShort(maxStack);
+        method.writeShort(maxLocals);
+        method.writeInt(code.length);
+        method.write(code);
+        method.writeShort(0); // No exception handlers.
+        method.writeShort(0); // No attributes.
+        methods.add(bytes.toByteArray());
+    }
+    
+    byte[] toByteArray(int access, String thisClass, String superClass, 
+            String... interfaces) throws IOException {
+        int thisIndex = classRef(thisClass);
+        int superIndex = classRef(superClass);
+        int[] interfaceIndexes = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaceIndexes[i] = classRef(interfaces[i]);
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(MAJOR_VERSION);
+        out.writeShort(poolCount);
+        poolBytes.writeTo(out);
+        out.writeShort(access);
+        out.writeShort(thisIndex);
+        out.writeShort(superIndex);
+        out.writeShort(interfaceIndexes.length);
+        for (int index : interfaceIndexes) {
+            out.writeShort(index);
+        }
+        out.writeShort(fieldCount);
+        fieldBytes.writeTo(out);
+        out.writeShort(methods.size());
+        for (byte[] method : methods) {
+            out.write(method);
+        }
+        out.writeShort(0); // No attributes.
+        return bytes.toByteArray();
+    }
+    
+    
+    private int memberRef(int tag, String owner, String name, 
+            String descriptor) throws IOException {
+        String key = tag + owner + "." + name + ":" + descriptor;
+        Integer index = poolIndexes.get(key);
+        if (index == null) {
+            int classIndex = classRef(owner);
+            String nameAndTypeKey = "N" + name + ":" + descriptor;
+            Integer nameAndTypeIndex = poolIndexes.get(nameAndTypeKey);
+            if (nameAndTypeIndex == null) {
+                int nameIndex = utf8(name);
+                int descriptorIndex = utf8(descriptor);
+                pool.writeByte(CONSTANT_NAME_AND_TYPE);
+                pool.writeShort(nameIndex);
+                pool.writeShort(descriptorIndex);
+                nameAndTypeIndex = addPoolEntry(nameAndTypeKey);
+            }
+            pool.writeByte(tag);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndTypeIndex);
+            index = addPoolEntry(key);
+        }
+        return index;
+    }
+    
+    private int addPoolEntry(String key) throws IOException {
+        checkU2(poolCount + 1);
+        int index = poolCount;
+        poolCount++;
+        poolIndexes.put(key, index);
+        return index;
+    }
+    
+    private static void checkU2(int value) throws IOException {
+        if (value > MAX_U2) {
+            throw new IOException("Class file limit exceeded.");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package main.process.bytecode;
+
+import main.io.OutputSink;
+
+/**
+ * This interface is implemented by the classes generated from scripts by the 
+ * bytecode backend of the Script Interpreter.
+ * 
+ * @author SoundlyGifted
+ */
+public interface ScriptProgram {
+    
+    /**
+     * Executes all the compiled script operations in the script line order.
+     * 
+     * @param output output sink that receives the printed lines.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    void run(OutputSink output);
+}
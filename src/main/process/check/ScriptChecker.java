@@ -0,0 +1,243 @@
+package main.process.check;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import main.process.ScriptInterpreter;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.operations.CompiledArrayOperation;
+import main.process.operations.CompiledControlOperation;
+import main.process.operations.CompiledIncludeOperation;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.ControlOperationPerformer;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class checks the whole script without executing it and finds all the 
+ * errors instead of stopping at the first one. The check runs in two passes:
+ *
+ * 1) script lines are split into chunks that are compiled in parallel on a 
+ * fork-join pool (each chunk with its own symbol table), which finds 
+ * unsupported operations and syntax errors; 
+ * 2) a fast sequential dataflow pass goes through the compiled "set" 
+ * operations in the script order, tracking which variables are assigned, and 
+ * finds references to variables that have no assigned value.
+ *
+ * Errors are reported in the order of the script lines with the same messages 
+ * that executing the script would raise. The lines of "while" and "if" 
+ * blocks are checked as if each block is executed once. The variable of a 
+ * "set" line with an error is considered assigned after that line, so one 
+ * missing assignment is reported once rather than on every line that depends 
+ * on it. Variables assigned by "array" lines are considered assigned too 
+ * (errors of the arrays depend on their lengths and are found only when the 
+ * script is executed), and so are the variables assigned by the included 
+ * files (syntax errors of their lines are found when they are included).
+ *
+ * @author SoundlyGifted
+ */
+public final class ScriptChecker {
+
+    // Number of script lines compiled by one fork-join task.
+    private static final int CHUNK_SIZE = 2048;
+
+    // Interpreter that compiles script lines (it is used concurrently).
+    private final ScriptInterpreter interpreter;
+
+    /**
+     * Creates ScriptChecker instance.
+     *
+     * @param interpreter interpreter that compiles script lines.
+     */
+    public ScriptChecker(ScriptInterpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+
+    /**
+     * Checks the script.
+     *
+     * @param scriptLines script lines (statements).
+     * @param pool fork-join pool that compiles the chunks of script lines.
+     * @return errors found in the script in the order of the script lines.
+     */
+    public List<ScriptError> check(List<String> scriptLines, ForkJoinPool pool) {
+        int chunkCount = (scriptLines.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Chunk[] chunks = new Chunk[chunkCount];
+        pool.invoke(new CompileTask(scriptLines, chunks, 0, chunkCount));
+
+        List<ScriptError> errors = new ArrayList<>();
+        SymbolTable symbols = new SymbolTable();
+        
+        // "while" and "if" lines that are not ended yet (the innermost first).
+        Deque<ScriptError> openBlocks = new ArrayDeque<>();
+        boolean[] assigned = new boolean[16];
+        for (Chunk chunk : chunks) {
+            /* Global slots of the chunk variables, and the chunk frame that
+             * tells which of them are assigned before the chunk.
+             */
+            int[] globalSlots = new int[chunk.symbols.size()];
+            VariableFrame frame = new VariableFrame(globalSlots.length);
+            for (int slot = 0; slot < globalSlots.length; slot++) {
+                globalSlots[slot] = symbols.slotOf(chunk.symbols.getName(slot));
+                if (globalSlots[slot] < assigned.length
+                        && assigned[globalSlots[slot]]) {
+                    frame.set(slot, 0);
+                }
+            }
+            if (symbols.size() > assigned.length) {
+                assigned = Arrays.copyOf(assigned, 
+                        Math.max(assigned.length * 2, symbols.size()));
+            }
+
+            for (int i = 0; i < chunk.operations.length; i++) {
+                int lineNumber = chunk.firstLine + i + 1;
+                if (chunk.errors[i] != null) {
+                    errors.add(new ScriptError(lineNumber, chunk.errors[i]));
+                } else if (chunk.operations[i] instanceof CompiledSetOperation) {
+                    CompiledSetOperation operation
+                            = (CompiledSetOperation) chunk.operations[i];
+                    WrongScriptExpressionException syntaxError
+                            = operation.getSyntaxError();
+                    WrongScriptExpressionException error
+                            = operation.findError(frame);
+                    if (error != null && (syntaxError == null
+                            || !error.getMessage().equals( 
+                                    syntaxError.getMessage()))) {
+                        errors.add(new ScriptError(lineNumber, error));
+                    }
+                    if (syntaxError != null) {
+                        errors.add(new ScriptError(lineNumber, syntaxError));
+                    }
+                    frame.set(operation.getVarToAssignSlot(), 0);
+                    assigned[globalSlots[operation.getVarToAssignSlot()]]
+                            = true;
+                } else if (chunk.operations[i] 
+                        instanceof CompiledArrayOperation) {
+                    int slot = ((CompiledArrayOperation) chunk.operations[i])
+                            .getTargetSlot();
+                    frame.set(slot, 0);
+                    assigned[globalSlots[slot]] = true;
+                } else if (chunk.operations[i] 
+                        instanceof CompiledIncludeOperation) {
+                    for (int slot : ((CompiledIncludeOperation) 
+                            chunk.operations[i]).getAssignedSlots()) {
+                        frame.set(slot, 0);
+                        assigned[globalSlots[slot]] = true;
+                    }
+                } else if (chunk.operations[i] 
+                        instanceof CompiledControlOperation) {
+                    checkControl((CompiledControlOperation) chunk.operations[i],
+                            lineNumber, frame, openBlocks, errors);
+                }
+            }
+        }
+        
+        // Blocks that are not ended are reported in the order of the lines.
+        for (ScriptError openBlock : openBlocks) {
+            errors.add(openBlock);
+        }
+        errors.sort(Comparator.comparingInt(ScriptError::getLineNumber));
+        return errors;
+    }
+
+
+    /* Checks the control line: the condition of a "while" or "if" line must be
+     * assigned, and an "end" line must end a block. The body of a block is 
+     * checked as if it is executed once.
+     */
+    private static void checkControl(CompiledControlOperation control, 
+            int lineNumber, VariableFrame frame, Deque<ScriptError> openBlocks,
+            List<ScriptError> errors) {
+        if (control.startsBlock()) {
+            WrongScriptExpressionException error = control.findError(frame);
+            if (error != null) {
+                errors.add(new ScriptError(lineNumber, error));
+            }
+            openBlocks.push(new ScriptError(lineNumber, control.noEndError()));
+        } else if (openBlocks.isEmpty()) {
+            errors.add(new ScriptError(lineNumber, 
+                    ControlOperationPerformer.noBlockError()));
+        } else {
+            openBlocks.pop();
+            WrongScriptExpressionException error = control.getError();
+            if (error != null) {
+                errors.add(new ScriptError(lineNumber, error));
+            }
+        }
+    }
+
+
+    /* Compiled script lines of one chunk: the compiled operation (null for
+     * blank and comment lines) or the error of each line.
+     */
+    private static final class Chunk {
+
+        private final int firstLine;
+        private final SymbolTable symbols = new SymbolTable();
+        private final CompiledOperation[] operations;
+        private final Exception[] errors;
+
+        private Chunk(int firstLine, int size) {
+            this.firstLine = firstLine;
+            operations = new CompiledOperation[size];
+            errors = new Exception[size];
+        }
+    }
+
+
+    /* Compiles the chunks from the given range, splitting the range in halves
+     * while it has more than one chunk.
+     */
+    private final class CompileTask extends RecursiveAction {
+
+        // Tasks are never serialized.
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> scriptLines;
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+
+        private CompileTask(List<String> scriptLines, Chunk[] chunks, 
+                int from, int to) {
+            this.scriptLines = scriptLines;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CompileTask(scriptLines, chunks, from, middle), 
+                        new CompileTask(scriptLines, chunks, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            int firstLine = from * CHUNK_SIZE;
+            int size = Math.min(CHUNK_SIZE, scriptLines.size() - firstLine);
+            Chunk chunk = new Chunk(firstLine, size);
+            for (int i = 0; i < size; i++) {
+                try {
+                    chunk.operations[i] = interpreter.compileLine( 
+                            scriptLines.get(firstLine + i), chunk.symbols);
+                } catch (UnsupportedScriptOperationException
+                        | WrongScriptExpressionException exception) {
+                    chunk.errors[i] = exception;
+                }
+            }
+            chunks[from] = chunk;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package main.process.check;
+
+/**
+ * This class represents an error found in a script line by 
+ * {@link ScriptChecker}.
+ *
+ * @author SoundlyGifted
+ */
+public final class ScriptError {
+
+    private final int lineNumber;
+    private final Exception error;
+
+    /**
+     * Creates ScriptError instance.
+     *
+     * @param lineNumber number of the script line (starting with 1).
+     * @param error the error that executing the line would raise 
+     * ({@link main.process.exceptions.UnsupportedScriptOperationException} or 
+     * {@link main.process.exceptions.WrongScriptExpressionException}).
+     */
+    public ScriptError(int lineNumber, Exception error) {
+        this.lineNumber = lineNumber;
+        this.error = error;
+    }
+
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+
+    public Exception getError() {
+        return error;
+    }
+
+
+    public String getMessage() {
+        return error.getMessage();
+    }
+}
@@ -0,0 +1,350 @@
+package main.process.checkpoint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a checkpoint of a script execution: the variables of 
+ * the script (names in the order of their slots, values and arrays) after the 
+ * given number of script lines were executed, so that a failed script can be 
+ * resumed after that line instead of being executed again from the start. 
+ * The binary form of a checkpoint consists of:
+ *
+ * 1) header: magic number "SLK1", format version, number of the executed 
+ * lines, hash of the executed lines, number of slots, number of arrays and 
+ * length of the names in bytes (4-byte integers); 
+ * 2) names: names of script variables in the order of their slots (length as 
+ * an unsigned variable-length integer followed by UTF-8 bytes); 
+ * 3) values of the slots (4-byte integers) and the bit set of the slots that 
+ * have an assigned value (8-byte integers); 
+ * 4) arrays: slot, length and elements of each array (4-byte integers); 
+ * 5) CRC-32C checksum of all the preceding bytes.
+ *
+ * Values are stored with fixed widths, so that restoring millions of 
+ * variables from a memory-mapped checkpoint file reads them in bulk.
+ *
+ * @author SoundlyGifted
+ */
+public final class Checkpoint {
+
+    /* Version of the binary form. It must be changed whenever the binary form
+     * changes, so that checkpoints of the previous versions are not restored.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    // First four bytes of a checkpoint ("SLK1").
+    private static final int MAGIC = 0x534C4B31;
+
+    // Size of the header in bytes.
+    private static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+    // Number of the executed script lines and hash of these lines.
+    private final int lineNumber;
+    private final int linesHash;
+
+    // Names of script variables in the order of their slots.
+    private final String[] names;
+
+    // Values and arrays of the variables (not changed after creation).
+    private final VariableFrame frame;
+
+    private Checkpoint(int lineNumber, int linesHash, String[] names, 
+            VariableFrame frame) {
+        this.lineNumber = lineNumber;
+        this.linesHash = linesHash;
+        this.names = names;
+        this.frame = frame;
+    }
+
+
+    /**
+     * Creates the checkpoint of the variables (they are copied, so the script 
+     * execution can go on while the checkpoint is written).
+     *
+     * @param lineNumber number of the executed script lines.
+     * @param linesHash hash of the executed script lines (see 
+     * {@link #hashLine(int, String)}).
+     * @param symbols symbol table of the script variables.
+     * @param frame values of the script variables (with at least as many 
+     * slots as the symbol table has).
+     * @return the checkpoint.
+     */
+    public static Checkpoint capture(int lineNumber, int linesHash, 
+            SymbolTable symbols, VariableFrame frame) {
+        String[] names = new String[symbols.size()];
+        for (int slot = 0; slot < names.length; slot++) {
+            names[slot] = symbols.getName(slot);
+        }
+        return new Checkpoint(lineNumber, linesHash, names, frame.copy());
+    }
+
+
+    /**
+     * Adds the script line to the hash of the preceding script lines.
+     *
+     * @param hash hash of the preceding script lines (0 for the first line).
+     * @param line the script line.
+     * @return hash of the script lines up to the given one.
+     */
+    public static int hashLine(int hash, String line) {
+        return 31 * hash + ((line != null) ? line.hashCode() : 0);
+    }
+
+
+    /**
+     * Reads the checkpoint from its binary form.
+     *
+     * @param buffer buffer that contains the binary form (from its position to 
+     * its limit).
+     * @return the checkpoint.
+     * @throws IOException is thrown when the buffer does not contain a valid 
+     * checkpoint of this format version or its checksum does not match.
+     */
+    public static Checkpoint read(ByteBuffer buffer) throws IOException {
+        buffer = buffer.slice();
+        try {
+            if (buffer.remaining() < HEADER_SIZE + Integer.BYTES
+                    || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a checkpoint");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Checkpoint format version " + version
+                        + " is not supported (expected " + FORMAT_VERSION
+                        + ")");
+            }
+            int checksumPosition = buffer.limit() - Integer.BYTES;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().position(0)
+                    .limit(checksumPosition));
+            if ((int) crc.getValue() != buffer.getInt(checksumPosition)) {
+                throw new IOException("Checkpoint checksum does not match");
+            }
+            buffer.limit(checksumPosition);
+
+            int lineNumber = buffer.getInt();
+            int linesHash = buffer.getInt();
+            int slotCount = buffer.getInt();
+            int arrayCount = buffer.getInt();
+            int namesLength = buffer.getInt();
+            if (lineNumber < 0 || slotCount < 0 || arrayCount < 0
+                    || arrayCount > slotCount || namesLength < 0
+                    || namesLength > buffer.remaining() 
+                    || slotCount > (buffer.remaining() - namesLength) 
+                            / Integer.BYTES) {
+                throw new IOException("Invalid checkpoint header");
+            }
+            String[] names = readNames(buffer, slotCount, namesLength);
+
+            int[] values = new int[slotCount];
+            buffer.asIntBuffer().get(values);
+            buffer.position(buffer.position() + slotCount * Integer.BYTES);
+            long[] assigned = new long[(slotCount + 63) >>> 6];
+            buffer.asLongBuffer().get(assigned);
+            buffer.position(buffer.position() + assigned.length * Long.BYTES);
+            VariableFrame frame = new VariableFrame(slotCount);
+            for (int slot = 0; slot < slotCount; slot++) {
+                if ((assigned[slot >>> 6] & (1L << slot)) != 0) {
+                    frame.set(slot, values[slot]);
+                }
+            }
+            for (int i = 0; i < arrayCount; i++) {
+                int slot = buffer.getInt();
+                int length = buffer.getInt();
+                if (slot < 0 || slot >= slotCount || length < 0
+                        || length > buffer.remaining() / Integer.BYTES) {
+                    throw new IOException("Invalid checkpoint array");
+                }
+                int[] array = new int[length];
+                buffer.asIntBuffer().get(array);
+                buffer.position(buffer.position() + length * Integer.BYTES);
+                frame.setArray(slot, array);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Unexpected data after the checkpoint "
+                        + "arrays");
+            }
+            return new Checkpoint(lineNumber, linesHash, names, frame);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Checkpoint is truncated", ex);
+        }
+    }
+
+
+    /**
+     * @return the binary form of this checkpoint (a new buffer from position 
+     * 0 to its limit).
+     */
+    public ByteBuffer toByteBuffer() {
+        int slotCount = names.length;
+        byte[][] nameBytes = new byte[slotCount][];
+        int namesLength = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            nameBytes[slot] = names[slot].getBytes(StandardCharsets.UTF_8);
+            namesLength += varIntSize(nameBytes[slot].length)
+                    + nameBytes[slot].length;
+        }
+        int arrayCount = 0;
+        long arraysSize = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int[] array = frame.getArray(slot);
+            if (array != null) {
+                arrayCount++;
+                arraysSize += 2 * Integer.BYTES
+                        + (long) array.length * Integer.BYTES;
+            }
+        }
+        long[] assigned = new long[(slotCount + 63) >>> 6];
+        long size = HEADER_SIZE + namesLength
+                + (long) slotCount * Integer.BYTES
+                + (long) assigned.length * Long.BYTES + arraysSize
+                + Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Checkpoint of " + slotCount
+                    + " variables is too large");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(lineNumber);
+        buffer.putInt(linesHash);
+        buffer.putInt(slotCount);
+        buffer.putInt(arrayCount);
+        buffer.putInt(namesLength);
+        for (byte[] bytes : nameBytes) {
+            putVarInt(buffer, bytes.length);
+            buffer.put(bytes);
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (frame.isAssigned(slot)) {
+                buffer.putInt(frame.get(slot));
+                assigned[slot >>> 6] |= 1L << slot;
+            } else {
+                buffer.putInt(0);
+            }
+        }
+        for (long bits : assigned) {
+            buffer.putLong(bits);
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            int[] array = frame.getArray(slot);
+            if (array != null) {
+                buffer.putInt(slot);
+                buffer.putInt(array.length);
+                buffer.asIntBuffer().put(array);
+                buffer.position(buffer.position()
+                        + array.length * Integer.BYTES);
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().flip());
+        buffer.putInt((int) crc.getValue());
+        return buffer.flip();
+    }
+
+
+    /**
+     * Restores the script variables: adds their names to the symbol table in 
+     * the order of their slots, so the symbol table must be empty.
+     *
+     * @param symbols empty symbol table.
+     * @return a new frame with the values and arrays of the variables.
+     */
+    public VariableFrame restore(SymbolTable symbols) {
+        if (symbols.size() != 0) {
+            throw new IllegalArgumentException("Symbol table is not empty");
+        }
+        for (int slot = 0; slot < names.length; slot++) {
+            if (symbols.slotOf(names[slot]) != slot) {
+                throw new IllegalStateException("Variable " + names[slot]
+                        + " is stored in the checkpoint more than once");
+            }
+        }
+        return frame.copy();
+    }
+
+
+    /**
+     * @return number of the script lines executed before the checkpoint.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+
+    /**
+     * @return hash of the script lines executed before the checkpoint (see 
+     * {@link #hashLine(int, String)}).
+     */
+    public int getLinesHash() {
+        return linesHash;
+    }
+
+
+    /**
+     * @return number of script variables (slots) in the checkpoint.
+     */
+    public int getSlotCount() {
+        return names.length;
+    }
+
+
+    /* Reads the names section (copied at once, so that names are decoded
+     * from a heap array also when the buffer is memory-mapped).
+     */
+    private static String[] readNames(ByteBuffer buffer, int slotCount, 
+            int namesLength) throws IOException {
+        byte[] bytes = new byte[namesLength];
+        buffer.get(bytes);
+        String[] names = new String[slotCount];
+        int index = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (index == namesLength) {
+                    throw new IOException("Checkpoint names are truncated");
+                }
+                b = bytes[index++];
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0 && shift < 35);
+            if (length < 0 || length > namesLength - index) {
+                throw new IOException("Invalid checkpoint name length");
+            }
+            names[slot] = new String(bytes, index, length, 
+                    StandardCharsets.UTF_8);
+            index += length;
+        }
+        if (index != namesLength) {
+            throw new IOException("Invalid checkpoint names length");
+        }
+        return names;
+    }
+
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,47 @@
+package main.process.expressions;
+
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a simple arithmetic operation with two arguments in a 
+ * script expression.
+ * 
+ * @author SoundlyGifted
+ */
+public final class BinaryOperation extends Expression {
+    
+    private final BinaryOperator operator;
+    private final Expression left;
+    private final Expression right;
+
+    /**
+     * Creates BinaryOperation instance.
+     * 
+     * @param operator the arithmetic operator.
+     * @param left left argument expression.
+     * @param right right argument expression.
+     */
+    public BinaryOperation(BinaryOperator operator, Expression left, 
+            Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public BinaryOperator getOperator() {
+        return operator;
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+    
+    @Override
+    public int evaluate(VariableFrame frame) {
+        return operator.apply(left.evaluate(frame), right.evaluate(frame));
+    }
+}
@@ -0,0 +1,80 @@
+package main.process.expressions;
+
+/**
+ * Simple arithmetic operators supported in "set" script expressions.
+ * Constants are declared in the order of their priority (highest first), the 
+ * same order in which the reference "set" engine resolves them.
+ * 
+ * @author SoundlyGifted
+ */
+public enum BinaryOperator {
+    MULTIPLY('*'),
+    DIVIDE('/'),
+    SUBTRACT('-'),
+    ADD('+');
+    
+    private final char symbol;
+    
+    private BinaryOperator(char symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return operator symbol as written in the script.
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+    
+    /**
+     * Performs the operation on two whole numbers.
+     * 
+     * @param x left argument.
+     * @param y right argument.
+     * @return the result of the operation.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public int apply(int x, int y) {
+        switch (this) {
+            case MULTIPLY:
+                return x * y;
+            case DIVIDE:
+                return x / y;
+            case SUBTRACT:
+                return x - y;
+            default:
+                return x + y;
+        }
+    }
+    
+    /**
+     * Finds the operator by its script symbol.
+     * 
+     * @param symbol the script symbol.
+     * @return the operator, or null if the symbol is not an operator.
+     */
+    public static BinaryOperator forSymbol(String symbol) {
+        return (symbol.length() == 1) ? forSymbol(symbol.charAt(0)) : null;
+    }
+    
+    /**
+     * Finds the operator by its script symbol character.
+     * 
+     * @param symbol the script symbol character.
+     * @return the operator, or null if the symbol is not an operator.
+     */
+    public static BinaryOperator forSymbol(char symbol) {
+        switch (symbol) {
+            case '*':
+                return MULTIPLY;
+            case '/':
+                return DIVIDE;
+            case '-':
+                return SUBTRACT;
+            case '+':
+                return ADD;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package main.process.expressions;
+
+import main.process.variables.VariableFrame;
+
+/**
+ * This is an abstract class of a compiled script expression node. Expression
+ * trees are built once from the text of a "set" script operation and are
+ * immutable, so they can be evaluated any number of times.
+ * 
+ * @author SoundlyGifted
+ */
+public abstract class Expression {
+    
+    /**
+     * Evaluates this expression node on primitive integers.
+     * 
+     * @param frame current values of script variables. All the variables 
+     * referenced by this expression must already be assigned.
+     * @return the value of the expression.
+     * @throws java.lang.ArithmeticException is thrown on division by zero.
+     */
+    public abstract int evaluate(VariableFrame frame);
+}
@@ -0,0 +1,35 @@
+package main.process.expressions;
+
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a whole number written directly in a script 
+ * expression.
+ * 
+ * @author SoundlyGifted
+ */
+public final class NumberLiteral extends Expression {
+    
+    private final int value;
+
+    /**
+     * Creates NumberLiteral instance.
+     * 
+     * @param value the number.
+     */
+    public NumberLiteral(int value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the number.
+     */
+    public int getValue() {
+        return value;
+    }
+    
+    @Override
+    public int evaluate(VariableFrame frame) {
+        return value;
+    }
+}
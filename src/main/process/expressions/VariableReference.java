@@ -0,0 +1,45 @@
+package main.process.expressions;
+
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a reference to a script variable in a script 
+ * expression.
+ * 
+ * @author SoundlyGifted
+ */
+public final class VariableReference extends Expression {
+    
+    private final String name;
+    private final int slot;
+
+    /**
+     * Creates VariableReference instance.
+     * 
+     * @param name name of the referenced variable (including '$').
+     * @param slot slot index of the referenced variable.
+     */
+    public VariableReference(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    /**
+     * @return name of the referenced variable.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return slot index of the referenced variable.
+     */
+    public int getSlot() {
+        return slot;
+    }
+    
+    @Override
+    public int evaluate(VariableFrame frame) {
+        return frame.get(slot);
+    }
+}
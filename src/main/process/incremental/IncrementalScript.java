@@ -0,0 +1,484 @@
+package main.process.incremental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import main.io.OutputSink;
+import main.process.ExecutionMode;
+import main.process.ScriptInterpreter;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledPrintOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class keeps a compiled script with the results of its last execution
+ * (the value assigned or the line printed by each script line) and updates 
+ * them when the script lines change, re-executing only the lines affected by
+ * the change (compiled execution mode).
+ * 
+ * The changed lines are found as the lines between the common beginning and 
+ * the common end of the old and the new script. The variables before the 
+ * first changed line are restored from the nearest saved variable frame 
+ * (saved every CHECKPOINT_INTERVAL lines), and the changed lines are executed.
+ * The following unchanged lines are executed again only if they read a 
+ * variable which value differs from the previous execution; once all the 
+ * variables have the previous values, the rest of the script gives the same 
+ * results and is not executed.
+ * 
+ * @author SoundlyGifted
+ */
+public final class IncrementalScript {
+    
+    // Number of script lines between the saved variable frames.
+    private static final int CHECKPOINT_INTERVAL = 4096;
+    
+    private final ScriptInterpreter interpreter;
+    private final SymbolTable symbols = new SymbolTable();
+    
+    // Receives the line printed by the print operation being performed.
+    private final LastLineSink printedLine = new LastLineSink();
+    
+    // Script lines with the results of their last execution.
+    private final List<ScriptLine> lines = new ArrayList<>();
+    
+    /* Number of the lines executed in the last execution (the last executed 
+     * line raised the error, if there is an error).
+     */
+    private int executedCount;
+    
+    // Error raised by the last executed line (or null).
+    private Exception error;
+    
+    // Variable frames before the lines i * CHECKPOINT_INTERVAL.
+    private final List<VariableFrame> checkpoints = new ArrayList<>();
+    
+    /* Variables which values differ from the previous execution at the line 
+     * being executed.
+     */
+    private boolean[] changedSlots = new boolean[0];
+    private int changedCount;
+    
+    // Index of the first line which printed line changed (or -1).
+    private int firstChangedPrint;
+    
+    private boolean errorChanged;
+
+    /**
+     * Creates IncrementalScript instance of an empty script.
+     */
+    public IncrementalScript() {
+        interpreter = new ScriptInterpreter(ExecutionMode.COMPILED, 
+                printedLine);
+        checkpoints.add(new VariableFrame(0));
+    }
+    
+    
+    /**
+     * Updates the script lines and executes the lines affected by the change.
+     * 
+     * @param scriptLines new script lines.
+     * @return number of the executed script lines.
+     */
+    public int update(List<String> scriptLines) {
+        firstChangedPrint = -1;
+        errorChanged = false;
+        
+        int oldSize = lines.size();
+        int newSize = scriptLines.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize 
+                && lines.get(prefix).text.equals(scriptLines.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix 
+                && lines.get(oldSize - 1 - suffix).text
+                        .equals(scriptLines.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+        int oldEnd = oldSize - suffix;
+        int newEnd = newSize - suffix;
+        
+        List<ScriptLine> newLines = new ArrayList<>(newEnd - prefix);
+        for (int i = prefix; i < newEnd; i++) {
+            newLines.add(new ScriptLine(scriptLines.get(i)));
+        }
+        
+        // Lines after the error line are not executed anyway.
+        if (prefix == oldSize && prefix == newSize 
+                || error != null && prefix >= executedCount) {
+            lines.subList(prefix, oldEnd).clear();
+            lines.addAll(prefix, newLines);
+            return 0;
+        }
+        
+        VariableFrame frame = restoreFrame(prefix);
+        
+        /* States of the variables assigned by the removed lines at the end of
+         * the removed lines, and of the variables assigned by the new lines 
+         * before the new lines (compared with the states after the new lines).
+         */
+        Map<Integer, Long> previousStates = new HashMap<>();
+        for (int i = prefix; i < Math.min(oldEnd, executedCount); i++) {
+            ScriptLine line = lines.get(i);
+            if (line.error == null && line.isSet()) {
+                previousStates.put(line.setSlot(), assignedState(line.value));
+            } else if (line.error == null && line.isPrint()) {
+                firstChangedPrint = prefix;
+            }
+        }
+        
+        /* Lines after the removed lines keep results of the previous 
+         * execution up to the previous error line (if it is there).
+         */
+        int validEnd = executedCount > oldEnd 
+                ? executedCount - oldEnd + newEnd : newEnd;
+        boolean validError = executedCount > oldEnd && error != null;
+        Exception previousError = error;
+        lines.subList(prefix, oldEnd).clear();
+        lines.addAll(prefix, newLines);
+        while (checkpoints.size() > prefix / CHECKPOINT_INTERVAL + 1) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+        
+        // Executing the new lines.
+        int executed = 0;
+        error = null;
+        for (int i = prefix; i < newEnd; i++) {
+            saveCheckpoint(i, frame);
+            ScriptLine line = lines.get(i);
+            if (!compile(line, frame)) {
+                executed++;
+                return finish(i, validEnd, previousError, executed);
+            }
+            if (line.isSet() && !previousStates.containsKey(line.setSlot())) {
+                previousStates.put(line.setSlot(), 
+                        currentState(frame, line.setSlot()));
+            }
+            executed++;
+            if (!execute(line, frame)) {
+                return finish(i, validEnd, previousError, executed);
+            }
+            if (line.isPrint()) {
+                firstChangedPrint = firstChangedPrint < 0 ? i 
+                        : Math.min(firstChangedPrint, i);
+            }
+        }
+        
+        // Variables which values differ from the previous execution.
+        changedSlots = new boolean[symbols.size()];
+        changedCount = 0;
+        for (Map.Entry<Integer, Long> entry : previousStates.entrySet()) {
+            if (entry.getValue() != currentState(frame, entry.getKey())) {
+                changedSlots[entry.getKey()] = true;
+                changedCount++;
+            }
+        }
+        
+        // Executing the following lines affected by the changed variables.
+        int i = newEnd;
+        for (; i < validEnd && changedCount > 0; i++) {
+            saveCheckpoint(i, frame);
+            ScriptLine line = lines.get(i);
+            boolean errorLine = validError && i == validEnd - 1;
+            if (!errorLine && !readsChangedSlot(line)) {
+                if (line.isSet()) {
+                    frame.set(line.setSlot(), line.value);
+                    markChanged(line.setSlot(), false);
+                }
+                continue;
+            }
+            int previousValue = line.value;
+            String previousPrint = line.printed;
+            executed++;
+            if (!execute(line, frame)) {
+                return finish(i, validEnd, previousError, executed);
+            }
+            if (line.isSet()) {
+                markChanged(line.setSlot(), errorLine 
+                        || line.value != previousValue);
+            } else if (line.isPrint() && (errorLine 
+                    || !line.printed.equals(previousPrint))) {
+                firstChangedPrint = firstChangedPrint < 0 ? i 
+                        : Math.min(firstChangedPrint, i);
+            }
+        }
+        if (i < validEnd) {
+            // The rest of the lines give the same results.
+            executedCount = validEnd;
+            error = validError ? previousError : null;
+            return executed;
+        }
+        
+        // Executing the lines that were not executed before.
+        for (; i < lines.size(); i++) {
+            saveCheckpoint(i, frame);
+            ScriptLine line = lines.get(i);
+            executed++;
+            if (!execute(line, frame)) {
+                return finish(i, validEnd, previousError, executed);
+            }
+            if (line.isPrint()) {
+                firstChangedPrint = firstChangedPrint < 0 ? i 
+                        : Math.min(firstChangedPrint, i);
+            }
+        }
+        executedCount = lines.size();
+        errorChanged = previousError != null;
+        return executed;
+    }
+    
+    
+    /**
+     * @return index of the first script line which printed line changed in 
+     * the last update, or -1 if the printed lines did not change.
+     */
+    public int getFirstChangedPrintLine() {
+        return firstChangedPrint;
+    }
+    
+    
+    /**
+     * @return true if the error raised by the script changed in the last 
+     * update (i.e., appeared, disappeared or moved to another line).
+     */
+    public boolean isErrorChanged() {
+        return errorChanged;
+    }
+    
+    
+    /**
+     * @return the error raised by the script (or null): 
+     * UnsupportedScriptOperationException, WrongScriptExpressionException or
+     * ArithmeticException.
+     */
+    public Exception getError() {
+        return error;
+    }
+    
+    
+    /**
+     * Prints the lines printed by the executed script lines starting with 
+     * the given script line.
+     * 
+     * @param fromLine index of the script line.
+     * @param output output sink to print to.
+     */
+    public void printOutput(int fromLine, OutputSink output) {
+        for (int i = Math.max(fromLine, 0); i < executedCount; i++) {
+            ScriptLine line = lines.get(i);
+            if (line.isPrint() && line.error == null) {
+                output.printLine(line.printed);
+            }
+        }
+    }
+    
+    
+    /* Stops the execution at the line that raised the error. The lines 
+     * printed by the lines after it in the previous execution (up to the 
+     * line validEnd) are not printed anymore.
+     */
+    private int finish(int errorLine, int validEnd, Exception previousError, 
+            int executed) {
+        error = lines.get(errorLine).error;
+        executedCount = errorLine + 1;
+        errorChanged = previousError == null 
+                || !previousError.getClass().equals(error.getClass())
+                || !String.valueOf(previousError.getMessage())
+                        .equals(String.valueOf(error.getMessage()));
+        if (firstChangedPrint > errorLine 
+                || firstChangedPrint < 0 && validEnd > errorLine + 1) {
+            firstChangedPrint = errorLine;
+        }
+        return executed;
+    }
+    
+    
+    /* Executes the line (compiling it first, if needed) and keeps the result.
+     * Returns false if the line raised an error.
+     */
+    private boolean execute(ScriptLine line, VariableFrame frame) {
+        if (!compile(line, frame)) {
+            return false;
+        }
+        try {
+            if (line.operation != null) {
+                line.operation.perform(frame);
+            }
+            if (line.isSet()) {
+                line.value = frame.get(line.setSlot());
+            } else if (line.isPrint()) {
+                line.printed = printedLine.line;
+            }
+            return true;
+        } catch (WrongScriptExpressionException | ArithmeticException ex) {
+            line.error = ex;
+            return false;
+        }
+    }
+    
+    
+    /* Compiles the line if it is not compiled yet. Returns false if the line
+     * has an error.
+     */
+    private boolean compile(ScriptLine line, VariableFrame frame) {
+        line.error = null;
+        if (line.compiled) {
+            return true;
+        }
+        try {
+            line.operation = interpreter.compileLine(line.text, symbols);
+            // Only "set" and "print" lines are recomputed by dependencies.
+            if (line.operation != null && !line.isSet() && !line.isPrint()) {
+                line.operation = null;
+                throw new UnsupportedScriptOperationException("Such operation "
+                        + "as '" + line.text.strip().split(" ", 2)[0] 
+                        + "' is not supported in the watch mode. Program will "
+                        + "terminate");
+            }
+            line.compiled = true;
+        } catch (UnsupportedScriptOperationException 
+                | WrongScriptExpressionException ex) {
+            line.error = ex;
+            return false;
+        } finally {
+            frame.ensureCapacity(symbols.size());
+            if (changedSlots.length < symbols.size()) {
+                changedSlots = Arrays.copyOf(changedSlots, symbols.size());
+            }
+        }
+        return true;
+    }
+    
+    
+    /* Restores variables before the line from the nearest saved frame, using
+     * the values assigned by the lines after the saved frame.
+     */
+    private VariableFrame restoreFrame(int lineIndex) {
+        int checkpoint = Math.min(checkpoints.size() - 1, 
+                lineIndex / CHECKPOINT_INTERVAL);
+        VariableFrame frame = checkpoints.get(checkpoint).copy();
+        frame.ensureCapacity(symbols.size());
+        while (checkpoints.size() > checkpoint + 1) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+        for (int i = checkpoint * CHECKPOINT_INTERVAL; i < lineIndex; i++) {
+            saveCheckpoint(i, frame);
+            ScriptLine line = lines.get(i);
+            if (line.isSet()) {
+                frame.set(line.setSlot(), line.value);
+            }
+        }
+        return frame;
+    }
+    
+    
+    // Saves the frame before the line if it is a checkpoint line.
+    private void saveCheckpoint(int lineIndex, VariableFrame frame) {
+        if (lineIndex % CHECKPOINT_INTERVAL == 0 
+                && lineIndex / CHECKPOINT_INTERVAL == checkpoints.size()) {
+            checkpoints.add(frame.copy());
+        }
+    }
+    
+    
+    private boolean readsChangedSlot(ScriptLine line) {
+        if (line.isSet()) {
+            CompiledSetOperation operation 
+                    = (CompiledSetOperation) line.operation;
+            for (int i = 0; i < operation.getReferencedVarCount(); i++) {
+                if (changedSlots[operation.getReferencedVarSlot(i)]) {
+                    return true;
+                }
+            }
+        } else if (line.isPrint()) {
+            CompiledPrintOperation operation 
+                    = (CompiledPrintOperation) line.operation;
+            for (int i = 0; i < operation.size(); i++) {
+                if (operation.isVarName(i) 
+                        && changedSlots[operation.getVarSlot(i)]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    
+    private void markChanged(int slot, boolean changed) {
+        if (changedSlots[slot] != changed) {
+            changedSlots[slot] = changed;
+            changedCount += changed ? 1 : -1;
+        }
+    }
+    
+    
+    /* Assignment state of a variable (assigned value in the lower bits, and 
+     * the assigned flag in the upper bits).
+     */
+    private static long assignedState(int value) {
+        return (1L << 32) | (value & 0xffffffffL);
+    }
+    
+    
+    private static long currentState(VariableFrame frame, int slot) {
+        return frame.isAssigned(slot) ? assignedState(frame.get(slot)) : 0;
+    }
+    
+    
+    // Script line with the result of its last execution.
+    private static final class ScriptLine {
+        
+        private final String text;
+        private boolean compiled;
+        private CompiledOperation operation;
+        
+        // Value assigned by the "set" operation.
+        private int value;
+        
+        // Line printed by the "print" operation.
+        private String printed;
+        
+        // Error raised by the line.
+        private Exception error;
+
+        private ScriptLine(String text) {
+            this.text = text;
+        }
+        
+        private boolean isSet() {
+            return operation instanceof CompiledSetOperation;
+        }
+        
+        private boolean isPrint() {
+            return operation instanceof CompiledPrintOperation;
+        }
+        
+        private int setSlot() {
+            return ((CompiledSetOperation) operation).getVarToAssignSlot();
+        }
+    }
+    
+    
+    // Output sink that keeps the last printed line.
+    private static final class LastLineSink extends OutputSink {
+        
+        private String line;
+
+        @Override
+        public void printLine(CharSequence line) {
+            this.line = line.toString();
+        }
+
+        @Override
+        public void flush() {
+            // The line is already kept.
+        }
+    }
+}
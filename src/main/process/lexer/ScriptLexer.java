@@ -0,0 +1,458 @@
+package main.process.lexer;
+
+import java.util.Arrays;
+
+/**
+ * This class splits script operation expressions into tokens in a single pass 
+ * over the characters. Tokens are kept as start and end offsets in the 
+ * scanned text together with the token kind, so scanning does not create 
+ * strings, and the same lexer instance is reused for all the lines of a 
+ * script (it is not thread-safe).
+ *
+ * Tokens are found exactly where the text-based parsers of the reference 
+ * engine find them, so the compiled operations report the same errors.
+ *
+ * @author SoundlyGifted
+ */
+public final class ScriptLexer {
+
+    // Results of scanning a "print" expression.
+    public static final int PRINT_VALID = 0;
+    public static final int PRINT_WRONG_VAR_NAMING = 1;
+    public static final int PRINT_WRONG_SYNTAX = 2;
+    public static final int PRINT_OPEN_QUOTE = 3;
+
+    // Initial capacity of the token arrays.
+    private static final int INITIAL_CAPACITY = 32;
+
+    // Scanned text.
+    private CharSequence text;
+
+    // Tokens: start and end offsets in the scanned text and kinds.
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private TokenKind[] kinds = new TokenKind[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Creates ScriptLexer instance.
+     */
+    public ScriptLexer() {}
+
+
+    /**
+     * Splits the expression part of a "set" operation (after "=") into 
+     * tokens. Tokens are separated by whitespace symbols (space, tab, line 
+     * breaks), and each bracket is a separate token. An empty expression is 
+     * one empty {@link TokenKind#WORD} token.
+     *
+     * @param text scanned text.
+     * @param start start offset of the expression (with no whitespace at the 
+     * start and at the end of the expression).
+     * @param end end offset of the expression (exclusive).
+     */
+    public void scanSetExpression(CharSequence text, int start, int end) {
+        this.text = text;
+        count = 0;
+        if (start == end) {
+            add(TokenKind.WORD, start, end);
+            return;
+        }
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (isSeparator(c)) {
+                i++;
+            } else if (c == '(') {
+                add(TokenKind.OPEN_BRACKET, i, ++i);
+            } else if (c == ')') {
+                add(TokenKind.CLOSE_BRACKET, i, ++i);
+            } else {
+                int tokenStart = i++;
+                while (i < end && !isSeparator(c = text.charAt(i))
+                        && c != '(' && c != ')') {
+                    i++;
+                }
+                TokenKind kind;
+                if (text.charAt(tokenStart) == '$') {
+                    kind = TokenKind.VARIABLE;
+                } else if (i - tokenStart == 1
+                        && isOperatorSymbol(text.charAt(tokenStart))) {
+                    kind = TokenKind.OPERATOR;
+                } else {
+                    kind = TokenKind.WORD;
+                }
+                add(kind, tokenStart, i);
+            }
+        }
+    }
+
+
+    /**
+     * Splits a "print" operation expression into {@link TokenKind#STRING} 
+     * tokens (strings in quote marks, without the quote marks) and 
+     * {@link TokenKind#VARIABLE} tokens (variable names separated by commas).
+     *
+     * @param text scanned text.
+     * @param start start offset of the expression (with no whitespace at the 
+     * start and at the end of the expression).
+     * @param end end offset of the expression (exclusive).
+     * @return {@link #PRINT_VALID} or the error found in the expression: 
+     * {@link #PRINT_WRONG_VAR_NAMING}, {@link #PRINT_WRONG_SYNTAX} or 
+     * {@link #PRINT_OPEN_QUOTE}.
+     */
+    public int scanPrintExpression(CharSequence text, int start, int end) {
+        this.text = text;
+        count = 0;
+
+        /* The string or the variable name that is now being read is the text
+         * from readStart to readEnd.
+         */
+        int readStart = start;
+        int readEnd = start;
+
+        /* Variables to define what is now being read
+         * (a string in quotes or a variable).
+         */
+        boolean quoteIsOpen = false;
+        boolean nowReadingVarName = false;
+        boolean commaMet = false;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoteIsOpen = !quoteIsOpen;
+                if (nowReadingVarName) {
+                    return PRINT_WRONG_SYNTAX;
+                }
+                if (quoteIsOpen) {
+                    readStart = i + 1;
+                    readEnd = readStart;
+                } else if (readEnd > readStart) {
+                    if (count > 0 && !commaMet) {
+                        return PRINT_WRONG_SYNTAX;
+                    }
+                    add(TokenKind.STRING, readStart, readEnd);
+                    readEnd = readStart;
+                    commaMet = false;
+                }
+            } else if (quoteIsOpen) {
+                readEnd = i + 1;
+            } else {
+                // Quote is not opened, and this is not a quote symbol.
+                if (!nowReadingVarName && c != ' ' && c != ',' && c != '$') {
+                    return PRINT_WRONG_SYNTAX;
+                }
+
+                if (c == ',') {
+                    if (nowReadingVarName && readEnd > readStart) {
+                        if (!addVariable(readStart, readEnd)) {
+                            return PRINT_WRONG_VAR_NAMING;
+                        }
+                        readEnd = readStart;
+                        commaMet = false;
+                    }
+                    if (count > 0) {
+                        commaMet = true;
+                    }
+                    nowReadingVarName = false;
+                }
+
+                if (c == '$') {
+                    // Reading of previous variable is not finished yet.
+                    if (nowReadingVarName) {
+                        return PRINT_WRONG_SYNTAX;
+                    }
+                    nowReadingVarName = true;
+                    readStart = i;
+                    readEnd = i + 1;
+                } else if (nowReadingVarName) {
+                    if (count > 0 && !commaMet) {
+                        return PRINT_WRONG_SYNTAX;
+                    }
+                    readEnd = i + 1;
+                }
+
+                /* If this is the end of the script expression and a variable
+                 * name is still being read.
+                 */
+                if (i == end - 1 && nowReadingVarName) {
+                    nowReadingVarName = false;
+                    if (readEnd > readStart) {
+                        if (!addVariable(readStart, readEnd)) {
+                            return PRINT_WRONG_VAR_NAMING;
+                        }
+                        readEnd = readStart;
+                        commaMet = false;
+                    }
+                }
+            }
+        }
+        return quoteIsOpen ? PRINT_OPEN_QUOTE : PRINT_VALID;
+    }
+
+
+    /**
+     * @return number of tokens found by the last scan.
+     */
+    public int size() {
+        return count;
+    }
+
+
+    /**
+     * @param index index of the token.
+     * @return kind of the token.
+     */
+    public TokenKind getKind(int index) {
+        return kinds[index];
+    }
+
+
+    /**
+     * @param index index of the token.
+     * @return start offset of the token in the scanned text.
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+
+    /**
+     * @param index index of the token.
+     * @return end offset (exclusive) of the token in the scanned text.
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+
+    /**
+     * @param index index of the token.
+     * @return number of characters in the token.
+     */
+    public int getLength(int index) {
+        return ends[index] - starts[index];
+    }
+
+
+    /**
+     * @return the text scanned by the last scan.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+
+    /**
+     * Creates a string of the token text (i.e., for error messages or for the 
+     * strings to print).
+     *
+     * @param index index of the token.
+     * @return text of the token.
+     */
+    public String getTokenText(int index) {
+        return text.subSequence(starts[index], ends[index]).toString();
+    }
+
+
+    /**
+     * @param index index of the {@link TokenKind#OPERATOR} token.
+     * @return symbol of the operator.
+     */
+    public char getOperatorSymbol(int index) {
+        return text.charAt(starts[index]);
+    }
+
+
+    /**
+     * Parses the token as a whole number the same way as 
+     * {@link Integer#valueOf(String)} does, without creating a string.
+     *
+     * @param index index of the token.
+     * @return the number.
+     * @throws NumberFormatException is thrown when the token is not a whole 
+     * number.
+     */
+    public int parseNumber(int index) {
+        return Integer.parseInt(text, starts[index], ends[index], 10);
+    }
+
+
+    /**
+     * Checks whether the token is a whole number (see 
+     * {@link #parseNumber(int)}).
+     *
+     * @param index index of the token.
+     * @return true if the token is a whole number, false otherwise.
+     */
+    public boolean isNumber(int index) {
+        try {
+            parseNumber(index);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Checks whether a script variable has allowed name: only Latin letters, 
+     * digits and "$" after removing whitespace at the start and at the end 
+     * (the same symbols that the "[a-zA-z$0-9]" pattern matches).
+     *
+     * @param text text that contains the name.
+     * @param start start offset of the name.
+     * @param end end offset of the name (exclusive).
+     * @return true if the variable name is allowed, false otherwise.
+     */
+    public static boolean isAllowedVarName(CharSequence text, int start, 
+            int end) {
+        end = stripEnd(text, start, end);
+        for (int i = stripStart(text, start, end); i < end; i++) {
+            char c = text.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'z')
+                    || (c >= '0' && c <= '9') || c == '$')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Finds the array slice at the end of a printed variable, i.e. "$a[2:5]" 
+     * (elements from index 2 to index 5 exclusive). Both bounds are optional 
+     * whole numbers: "$a[:5]", "$a[2:]" and "$a[:]".
+     *
+     * @param text text that contains the variable with the slice (with no 
+     * whitespace at the start and at the end).
+     * @param start start offset of the variable.
+     * @param end end offset of the variable (exclusive).
+     * @return offset of "[" of the slice, or -1 if the text is not an allowed 
+     * variable name followed by a slice.
+     */
+    public static int sliceStart(CharSequence text, int start, int end) {
+        if (end - start < 4 || text.charAt(end - 1) != ']') {
+            return -1;
+        }
+        int colon = -1;
+        int i = end - 2;
+        for (; i > start; i--) {
+            char c = text.charAt(i);
+            if (c == ':' && colon < 0) {
+                colon = i;
+            } else if (c == '[') {
+                break;
+            } else if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        // Bounds have up to 10 digits, and the name has no whitespace.
+        if (i <= start + 1 || colon < 0 || colon - i > 11 || end - colon > 12
+                || text.charAt(start) != '$' || stripEnd(text, start, i) != i
+                || !isAllowedVarName(text, start, i)) {
+            return -1;
+        }
+        return i;
+    }
+
+
+    /**
+     * Reads a bound of the array slice found by {@link #sliceStart}.
+     *
+     * @param text text that contains the slice.
+     * @param sliceStart offset of "[" of the slice.
+     * @param end end offset of the slice (exclusive, after "]").
+     * @param upper true for the upper bound (after ":"), false for the lower 
+     * bound.
+     * @return the bound, or -1 if it is omitted.
+     */
+    public static int sliceBound(CharSequence text, int sliceStart, int end, 
+            boolean upper) {
+        int i = sliceStart + 1;
+        while (text.charAt(i) != ':') {
+            i++;
+        }
+        int from = upper ? i + 1 : sliceStart + 1;
+        int to = upper ? end - 1 : i;
+        if (from == to) {
+            return -1;
+        }
+        long bound = 0;
+        for (int j = from; j < to; j++) {
+            bound = bound * 10 + (text.charAt(j) - '0');
+        }
+        return (int) Math.min(bound, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * @param text text.
+     * @param start start offset.
+     * @param end end offset (exclusive).
+     * @return offset of the first symbol in the range that is not whitespace 
+     * (the same way as {@link String#strip()} finds it), or end.
+     */
+    public static int stripStart(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+
+    /**
+     * @param text text.
+     * @param start start offset.
+     * @param end end offset (exclusive).
+     * @return offset after the last symbol in the range that is not 
+     * whitespace (the same way as {@link String#strip()} finds it), or start.
+     */
+    public static int stripEnd(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+
+    /* Adds the variable name token (without whitespace at the start and at the
+     * end) if the name is allowed.
+     */
+    private boolean addVariable(int start, int end) {
+        end = stripEnd(text, start, end);
+        start = stripStart(text, start, end);
+        if (!isAllowedVarName(text, start, end)
+                && sliceStart(text, start, end) < 0) {
+            return false;
+        }
+        add(TokenKind.VARIABLE, start, end);
+        return true;
+    }
+
+
+    private void add(TokenKind kind, int start, int end) {
+        if (count == kinds.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            kinds = Arrays.copyOf(kinds, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        kinds[count] = kind;
+        count++;
+    }
+
+
+    // Whitespace symbols that separate "set" expression members ("\s").
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+                || c == '\f' || c == '\r';
+    }
+
+
+    private static boolean isOperatorSymbol(char c) {
+        return c == '*' || c == '/' || c == '-' || c == '+';
+    }
+}
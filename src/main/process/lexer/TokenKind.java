@@ -0,0 +1,30 @@
+package main.process.lexer;
+
+/**
+ * This enumeration contains kinds of the tokens found by {@link ScriptLexer} 
+ * in script operation expressions.
+ *
+ * @author SoundlyGifted
+ */
+public enum TokenKind {
+
+    // Opening bracket "(" of a "set" expression.
+    OPEN_BRACKET, 
+
+    // Closing bracket ")" of a "set" expression.
+    CLOSE_BRACKET, 
+
+    // Math operator ("*", "/", "-" or "+") of a "set" expression.
+    OPERATOR, 
+
+    // Variable name (starts with "$").
+    VARIABLE, 
+
+    /* Any other member of a "set" expression (a number, or a wrong value that
+     * is reported by the parser).
+     */
+    WORD, 
+
+    // String of a "print" expression (without quote marks).
+    STRING
+}
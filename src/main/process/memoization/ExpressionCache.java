@@ -0,0 +1,226 @@
+package main.process.memoization;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import main.process.expressions.Expression;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class memoizes the results of "set" expressions. A result is stored 
+ * under the normalized text of the expression and the versions of the 
+ * variables it reads (see {@link VariableFrame#getVersion(int)}), so the same 
+ * expression on another script line gets the stored result while none of its 
+ * variables was assigned again. The number of the stored results is bounded, 
+ * and the least recently used result is evicted first.
+ *
+ * An expression that raises an error (i.e., division by zero) is evaluated 
+ * again each time, so results and errors are exactly the same as without the 
+ * cache. The cache counts hits, misses and evictions for the report.
+ *
+ * The cache is not thread-safe: it is attached to the variable frame of one 
+ * script executed in one thread, and it forgets the results stored for the 
+ * previous frame when it is attached to another one (versions are counted 
+ * per frame). The counters are kept.
+ *
+ * @author SoundlyGifted
+ */
+public final class ExpressionCache {
+
+    // Maximum number of the stored results.
+    private final int maxSize;
+
+    // Stored results in the order of their use (the least recent first).
+    private final Map<Key, Integer> results;
+
+    // Key of the lookups (reused, so that hits do not allocate).
+    private final Key probe = new Key(new long[8]);
+
+    // Frame the stored results were evaluated for.
+    private VariableFrame frame;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates ExpressionCache instance.
+     *
+     * @param maxSize maximum number of the stored results (at least 1).
+     */
+    public ExpressionCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        results = new LinkedHashMap<>(Math.min(maxSize, 1 << 16), 0.75f, 
+                true) {
+            @Override
+            protected boolean removeEldestEntry( 
+                    Map.Entry<Key, Integer> eldest) {
+                if (size() > ExpressionCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+
+    /**
+     * Attaches the cache to the frame (see 
+     * {@link VariableFrame#attachExpressionCache(ExpressionCache)}), 
+     * forgetting the results stored for another frame.
+     *
+     * @param frame the frame.
+     */
+    public void attach(VariableFrame frame) {
+        if (this.frame != frame) {
+            results.clear();
+            this.frame = frame;
+        }
+    }
+
+
+    /**
+     * Returns the stored result of the expression, or evaluates the 
+     * expression and stores its result.
+     *
+     * @param text normalized text of the expression (equal for the 
+     * expressions that have the same tree).
+     * @param expression the expression.
+     * @param slots slots of all the variables the expression reads (all of 
+     * them have assigned values).
+     * @param frame current values of script variables.
+     * @return value of the expression.
+     */
+    public int evaluate(String text, Expression expression, int[] slots, 
+            VariableFrame frame) {
+        probe.set(text, slots, frame);
+        Integer result = results.get(probe);
+        if (result != null) {
+            hits++;
+            return result;
+        }
+        misses++;
+        int value = expression.evaluate(frame);
+        results.put(probe.copy(), value);
+        return value;
+    }
+
+
+    /**
+     * @return number of the expressions whose result was found in the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+
+    /**
+     * @return number of the expressions that were evaluated.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+
+    /**
+     * @return number of the results evicted to keep the size bounded.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+
+    /**
+     * @return number of the stored results.
+     */
+    public int size() {
+        return results.size();
+    }
+
+
+    /**
+     * @return share of the hits among all the lookups (0 if there were none).
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return (lookups > 0) ? (double) hits / lookups : 0;
+    }
+
+
+    /**
+     * @return one line report of the cache counters.
+     */
+    public String getReport() {
+        return String.format(Locale.ROOT, "%d hits, %d misses (hit rate "
+                + "%.1f%%), %d evictions, %d of %d results stored", hits, 
+                misses, getHitRate() * 100, evictions, size(), maxSize);
+    }
+
+
+    /* Key of a stored result: the normalized expression text and the versions
+     * of the variables the expression reads.
+     */
+    private static final class Key {
+
+        private String text;
+        private long[] versions;
+        private int length;
+        private int hash;
+
+        private Key(long[] versions) {
+            this.versions = versions;
+        }
+
+        private void set(String text, int[] slots, VariableFrame frame) {
+            this.text = text;
+            if (slots.length > versions.length) {
+                versions = new long[Math.max(slots.length, 
+                        versions.length * 2)];
+            }
+            length = slots.length;
+            int h = text.hashCode();
+            for (int i = 0; i < length; i++) {
+                long version = frame.getVersion(slots[i]);
+                versions[i] = version;
+                h = 31 * h + Long.hashCode(version);
+            }
+            hash = h;
+        }
+
+        private Key copy() {
+            Key copy = new Key(Arrays.copyOf(versions, length));
+            copy.text = text;
+            copy.length = length;
+            copy.hash = hash;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            if (hash != other.hash || length != other.length
+                    || !text.equals(other.text)) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (versions[i] != other.versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package main.process.modules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import main.io.OutputSink;
+import main.process.operations.CompiledArrayOperation;
+import main.process.operations.CompiledBlockOperation;
+import main.process.operations.CompiledIncludeOperation;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.variables.SymbolTable;
+
+/**
+ * This class represents a script file compiled once to be included by the 
+ * "include" operations of other scripts: the compiled operations of its 
+ * lines, the names of its variables in the order of their slots and the 
+ * modification time and size of the file it was compiled from.
+ *
+ * A compiled module is not changed after creation, so it is shared by the 
+ * scripts executed concurrently. Its "print" operations print to the output 
+ * sink of the interpreter that compiled it, and the "include" operations 
+ * create their copies that print to their own output sinks.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledModule {
+
+    // Real path of the file.
+    private final Path file;
+
+    // Modification time and size of the file when it was read.
+    private final FileTime lastModified;
+    private final long size;
+
+    // Names of the module variables in the order of their slots.
+    private final String[] names;
+
+    // Compiled operations of the module lines.
+    private final List<CompiledOperation> operations;
+
+    // Output sink the "print" operations print to.
+    private final OutputSink output;
+
+    // Slots of the variables assigned by the module (in any of its lines).
+    private final int[] assignedSlots;
+
+    // Modules included by this module.
+    private final List<CompiledModule> includes;
+
+    /**
+     * Creates CompiledModule instance.
+     *
+     * @param file real path of the file.
+     * @param lastModified modification time of the file when it was read.
+     * @param size size of the file when it was read.
+     * @param symbols symbol table used to compile the operations.
+     * @param operations compiled operations of the module lines (blocks are 
+     * ended).
+     * @param output output sink the "print" operations print to.
+     */
+    public CompiledModule(Path file, FileTime lastModified, long size, 
+            SymbolTable symbols, List<CompiledOperation> operations, 
+            OutputSink output) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.size = size;
+        names = new String[symbols.size()];
+        for (int slot = 0; slot < names.length; slot++) {
+            names[slot] = symbols.getName(slot);
+        }
+        this.operations = Collections.unmodifiableList( 
+                new ArrayList<>(operations));
+        this.output = output;
+
+        boolean[] assigned = new boolean[names.length];
+        List<CompiledModule> includedModules = new ArrayList<>();
+        collectEffects(operations, assigned, includedModules);
+        int count = 0;
+        for (boolean slotAssigned : assigned) {
+            count += slotAssigned ? 1 : 0;
+        }
+        assignedSlots = new int[count];
+        for (int slot = 0, i = 0; slot < assigned.length; slot++) {
+            if (assigned[slot]) {
+                assignedSlots[i++] = slot;
+            }
+        }
+        includes = Collections.unmodifiableList(includedModules);
+    }
+
+
+    /**
+     * @return real path of the file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+
+    /**
+     * @return number of the module variables (slots).
+     */
+    public int getSlotCount() {
+        return names.length;
+    }
+
+
+    /**
+     * @param slot slot of a module variable.
+     * @return name of the variable.
+     */
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+
+    /**
+     * @return compiled operations of the module lines.
+     */
+    public List<CompiledOperation> getOperations() {
+        return operations;
+    }
+
+
+    /**
+     * @return output sink the "print" operations of the module print to.
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+
+
+    /**
+     * @return slots of the variables assigned by the module lines (also in 
+     * the blocks and the included files), in the increasing order.
+     */
+    public int[] getAssignedSlots() {
+        return assignedSlots.clone();
+    }
+
+
+    /**
+     * Checks that neither the file nor the files it includes were changed 
+     * since they were compiled.
+     *
+     * @return true if the module can be used, false if it must be compiled 
+     * again.
+     */
+    public boolean isCurrent() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, 
+                    BasicFileAttributes.class);
+            if (!attributes.lastModifiedTime().equals(lastModified)
+                    || attributes.size() != size) {
+                return false;
+            }
+        } catch (IOException ioex) {
+            // I.e., the file was removed.
+            return false;
+        }
+        for (CompiledModule include : includes) {
+            if (!include.isCurrent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /* Marks the variables assigned by the operations and collects the
+     * included modules (looking into the block bodies).
+     */
+    private static void collectEffects(List<CompiledOperation> operations, 
+            boolean[] assigned, List<CompiledModule> includedModules) {
+        for (CompiledOperation operation : operations) {
+            if (operation instanceof CompiledSetOperation) {
+                assigned[((CompiledSetOperation) operation)
+                        .getVarToAssignSlot()] = true;
+            } else if (operation instanceof CompiledArrayOperation) {
+                assigned[((CompiledArrayOperation) operation)
+                        .getTargetSlot()] = true;
+            } else if (operation instanceof CompiledBlockOperation) {
+                collectEffects(((CompiledBlockOperation) operation).getBody(), 
+                        assigned, includedModules);
+            } else if (operation instanceof CompiledIncludeOperation) {
+                CompiledIncludeOperation include
+                        = (CompiledIncludeOperation) operation;
+                for (int slot : include.getAssignedSlots()) {
+                    assigned[slot] = true;
+                }
+                includedModules.add(include.getModule());
+            }
+        }
+    }
+}
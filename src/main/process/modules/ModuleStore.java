@@ -0,0 +1,126 @@
+package main.process.modules;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import main.io.ScriptReader;
+import main.io.exceptions.FileReadingException;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+
+/**
+ * This class keeps the compiled modules of the script files included by the 
+ * "include" operations in memory, so that a file included by many scripts of 
+ * a batch or a script server (or many times by one script) is read and 
+ * compiled once. Modules are stored by the real path of the file and are used 
+ * while the modification time and size of the file (and of the files it 
+ * includes) are the same as when it was compiled.
+ *
+ * The store is thread-safe. Stored modules are found without locking, and 
+ * modules are compiled one at a time (the files included by a compiled file 
+ * are compiled by the same thread), so a file included by several scripts at 
+ * the same time is compiled once. Files that have errors are not stored, so 
+ * they are compiled again each time they are included (i.e., until a missing 
+ * file they include is created).
+ *
+ * @author SoundlyGifted
+ */
+public final class ModuleStore {
+
+    // Charset of the included files.
+    private final Charset charset;
+
+    // Compiled modules by the real path of the file.
+    private final ConcurrentMap<Path, CompiledModule> modules
+            = new ConcurrentHashMap<>();
+
+    /**
+     * Creates ModuleStore instance.
+     *
+     * @param charset charset of the included files.
+     */
+    public ModuleStore(Charset charset) {
+        this.charset = charset;
+    }
+
+
+    /**
+     * Returns the compiled module of the file: the stored one if the file was 
+     * not changed since it was compiled, otherwise the module compiled by the 
+     * given compiler (which is then stored).
+     *
+     * @param file real path of the file.
+     * @param compiler compiles the lines of the file.
+     * @return the compiled module.
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read or is not an allowed file type.
+     * @throws main.process.exceptions.UnsupportedScriptOperationException is 
+     * thrown when a line of the file has an unsupported operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when a line of the file has wrong syntax.
+     */
+    public CompiledModule getModule(Path file, ModuleCompiler compiler)
+            throws FileReadingException, UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        CompiledModule module = modules.get(file);
+        if (module != null && module.isCurrent()) {
+            return module;
+        }
+        synchronized (modules) {
+            // The file could be compiled while waiting for the lock.
+            module = modules.get(file);
+            if (module != null && module.isCurrent()) {
+                return module;
+            }
+
+            /* The attributes are read before the lines, so a file changed
+             * while it is read is compiled again the next time.
+             */
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, 
+                        BasicFileAttributes.class);
+            } catch (IOException ioex) {
+                throw new FileReadingException("File '" + file + "' not found "
+                        + "or cannot read the file", ioex);
+            }
+            module = compiler.compile(file, attributes.lastModifiedTime(), 
+                    attributes.size(), 
+                    ScriptReader.readScriptFile(file.toString(), charset));
+            modules.put(file, module);
+            return module;
+        }
+    }
+
+
+    /**
+     * Compiler of the lines of an included file.
+     */
+    @FunctionalInterface
+    public interface ModuleCompiler {
+
+        /**
+         * Compiles the lines of the file into the module.
+         *
+         * @param file real path of the file.
+         * @param lastModified modification time of the file.
+         * @param size size of the file.
+         * @param lines lines of the file.
+         * @return the compiled module.
+         * @throws main.process.exceptions.UnsupportedScriptOperationException 
+         * is thrown when a line has an unsupported operation.
+         * @throws main.process.exceptions.WrongScriptExpressionException is 
+         * thrown when a line has wrong syntax.
+         */
+        CompiledModule compile(Path file, FileTime lastModified, long size, 
+                Collection<String> lines)
+                throws UnsupportedScriptOperationException, 
+                WrongScriptExpressionException;
+    }
+}
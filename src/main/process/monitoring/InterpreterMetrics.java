@@ -0,0 +1,152 @@
+package main.process.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class collects live metrics of all the Script Interpreter instances of 
+ * the process. Interpreters add their counters once per script (not per 
+ * statement), so collecting the metrics costs close to nothing. The metrics 
+ * are visible to JMX clients after {@link #register()} is called (the 
+ * long-running modes do it).
+ *
+ * @author SoundlyGifted
+ */
+public final class InterpreterMetrics implements InterpreterMetricsMXBean {
+
+    /**
+     * Name of the MBean in the platform MBean server.
+     */
+    public static final String OBJECT_NAME
+            = "main.process:type=InterpreterMetrics";
+
+    private static final InterpreterMetrics INSTANCE
+            = new InterpreterMetrics();
+
+    private final LongAdder scriptsExecuted = new LongAdder();
+    private final LongAdder scriptsFailed = new LongAdder();
+    private final LongAdder statementsExecuted = new LongAdder();
+    private final LongAdder outputBytesWritten = new LongAdder();
+    private final Map<String, LongAdder> errorCounts
+            = new ConcurrentHashMap<>();
+    private final AtomicInteger lastVariableTableSize = new AtomicInteger();
+    private final AtomicInteger maxVariableTableSize = new AtomicInteger();
+
+    // Previous reading of the statements per second.
+    private long sampleNanos = System.nanoTime();
+    private long sampleStatements;
+    private double statementsPerSecond;
+
+    private InterpreterMetrics() {}
+
+
+    /**
+     * @return the metrics of the process.
+     */
+    public static InterpreterMetrics getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Registers the metrics MBean in the platform MBean server (if it is not 
+     * registered yet).
+     *
+     * @throws JMException is thrown when the MBean cannot be registered.
+     */
+    public static synchronized void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(INSTANCE, name);
+        }
+    }
+
+
+    /**
+     * Adds the results of an executed script.
+     *
+     * @param statements number of statements the script executed.
+     * @param variableTableSize number of the script variables.
+     * @param outputBytes number of output bytes the script wrote.
+     * @param error the error the script failed with, or null.
+     */
+    public void scriptExecuted(long statements, int variableTableSize, 
+            long outputBytes, Throwable error) {
+        scriptsExecuted.increment();
+        statementsExecuted.add(statements);
+        outputBytesWritten.add(outputBytes);
+        lastVariableTableSize.set(variableTableSize);
+        maxVariableTableSize.accumulateAndGet(variableTableSize, Math::max);
+        if (error != null) {
+            scriptsFailed.increment();
+            errorCounts.computeIfAbsent(error.getClass().getSimpleName(), 
+                    type -> new LongAdder()).increment();
+        }
+    }
+
+
+    @Override
+    public long getScriptsExecuted() {
+        return scriptsExecuted.sum();
+    }
+
+
+    @Override
+    public long getScriptsFailed() {
+        return scriptsFailed.sum();
+    }
+
+
+    @Override
+    public long getStatementsExecuted() {
+        return statementsExecuted.sum();
+    }
+
+
+    @Override
+    public synchronized double getStatementsPerSecond() {
+        long now = System.nanoTime();
+        if (now - sampleNanos >= 1_000_000_000L) {
+            long statements = statementsExecuted.sum();
+            statementsPerSecond = (statements - sampleStatements)
+                    * 1_000_000_000.0 / (now - sampleNanos);
+            sampleNanos = now;
+            sampleStatements = statements;
+        }
+        return statementsPerSecond;
+    }
+
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorCounts.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+
+    @Override
+    public int getLastVariableTableSize() {
+        return lastVariableTableSize.get();
+    }
+
+
+    @Override
+    public int getMaxVariableTableSize() {
+        return maxVariableTableSize.get();
+    }
+
+
+    @Override
+    public long getOutputBytesWritten() {
+        return outputBytesWritten.sum();
+    }
+}
@@ -0,0 +1,53 @@
+package main.process.monitoring;
+
+import java.util.Map;
+
+/**
+ * Management interface of the live Script Interpreter metrics (see 
+ * {@link InterpreterMetrics}) that JMX clients (i.e., JConsole) read.
+ *
+ * @author SoundlyGifted
+ */
+public interface InterpreterMetricsMXBean {
+
+    /**
+     * @return number of scripts executed (including failed ones).
+     */
+    long getScriptsExecuted();
+
+    /**
+     * @return number of scripts that failed with an error.
+     */
+    long getScriptsFailed();
+
+    /**
+     * @return number of script statements executed.
+     */
+    long getStatementsExecuted();
+
+    /**
+     * @return statements executed per second since the previous reading of 
+     * this attribute (at least one second ago).
+     */
+    double getStatementsPerSecond();
+
+    /**
+     * @return number of errors by the simple name of the exception type.
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * @return number of variables of the last executed script.
+     */
+    int getLastVariableTableSize();
+
+    /**
+     * @return maximum number of variables of an executed script.
+     */
+    int getMaxVariableTableSize();
+
+    /**
+     * @return number of output bytes written by the scripts.
+     */
+    long getOutputBytesWritten();
+}
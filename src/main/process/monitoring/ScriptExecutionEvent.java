@@ -0,0 +1,39 @@
+package main.process.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event of a script execution: it starts when the script 
+ * starts and ends when the script ends (also with an error). The event is 
+ * recorded only when a recording with this event enabled is active.
+ *
+ * @author SoundlyGifted
+ */
+@Name("main.process.ScriptExecution")
+@Label("Script Execution")
+@Category("Script Language")
+@Description("Execution of a script by the Script Interpreter")
+public final class ScriptExecutionEvent extends Event {
+
+    @Label("Execution Mode")
+    public String mode;
+
+    @Label("Statements")
+    @Description("Number of statements executed")
+    public long statements;
+
+    @Label("Variables")
+    @Description("Number of script variables")
+    public int variables;
+
+    @Label("Output Bytes")
+    public long outputBytes;
+
+    @Label("Error")
+    @Description("Error the script failed with, or null")
+    public String error;
+}
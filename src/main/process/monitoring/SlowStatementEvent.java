@@ -0,0 +1,30 @@
+package main.process.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of a script statement that took longer than the 
+ * threshold (10 ms by default, configurable in the recording settings). 
+ * Statements are timed only while a recording with this event enabled is 
+ * active, and only when the script is executed line by line.
+ *
+ * @author SoundlyGifted
+ */
+@Name("main.process.SlowStatement")
+@Label("Slow Statement")
+@Category("Script Language")
+@Description("Script statement that took longer than the threshold")
+@Threshold("10 ms")
+public final class SlowStatementEvent extends Event {
+
+    @Label("Line Number")
+    public int lineNumber;
+
+    @Label("Statement")
+    public String statement;
+}
@@ -0,0 +1,316 @@
+package main.process.operations;
+
+import java.util.HashMap;
+import java.util.Map;
+import main.process.arrays.ArrayBinaryOperation;
+import main.process.arrays.ArrayElement;
+import main.process.arrays.ArrayExpression;
+import main.process.arrays.ArrayNumber;
+import main.process.arrays.ArrayVariable;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.expressions.BinaryOperator;
+import main.process.lexer.ScriptLexer;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class performs "array" script operation on array variables backed by 
+ * int arrays. The operation has three forms:
+ *
+ * 1) "array $a[10]" creates an array of the given size filled with zeros; 
+ * 2) "array $a[$i] = $x + 1" assigns an element of an existing array; 
+ * 3) "array $c = $a * $b + 3" assigns the value of the expression, which is 
+ * an array if the expression references an array (arithmetic is applied to 
+ * each element, see {@link main.process.arrays.ArrayArithmetic}) and a 
+ * number otherwise.
+ *
+ * Expressions have the same operators and priorities as "set" expressions, 
+ * brackets, and array elements ("$a[$i + 1]"). Variable names are "$" 
+ * followed by Latin letters, digits and underscores. Arrays are printed by 
+ * "print" (whole or sliced, i.e. "print $a[2:5]").
+ *
+ * @author SoundlyGifted
+ */
+public class ArrayOperationPerformer extends OperationPerformer {
+
+    /**
+     * Performs the operation with a variable mapping that has no arrays. 
+     * Arrays are kept by {@link #performOperation(String, Map, Map)}.
+     */
+    @Override
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars) throws WrongScriptExpressionException {
+        performOperation(operationExpression, vars, new HashMap<>());
+    }
+
+
+    /**
+     * Performs "array" script operation: the expression is compiled and 
+     * performed with the referenced variables, and the assigned variable is 
+     * moved to the values or to the arrays mapping.
+     *
+     * @param operationExpression the script operation expression.
+     * @param vars current variable/value mapping of script variables.
+     * @param arrays current variable/array mapping of script variables 
+     * (variables that have a value have no array, and vice versa).
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax or cannot be 
+     * performed with the current variables.
+     */
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars, Map<String, int[]> arrays)
+            throws WrongScriptExpressionException {
+        SymbolTable symbols = new SymbolTable();
+        CompiledArrayOperation operation
+                = compileOperation(operationExpression, symbols);
+        VariableFrame frame = new VariableFrame(symbols.size());
+        for (int slot = 0; slot < symbols.size(); slot++) {
+            String name = symbols.getName(slot);
+            Integer value = vars.get(name);
+            if (value != null) {
+                frame.set(slot, value);
+            } else if (arrays.containsKey(name)) {
+                frame.setArray(slot, arrays.get(name));
+            }
+        }
+        operation.perform(frame);
+
+        int slot = operation.getTargetSlot();
+        String target = symbols.getName(slot);
+        if (frame.isAssigned(slot)) {
+            vars.put(target, frame.get(slot));
+            arrays.remove(target);
+        } else if (frame.getArray(slot) != null) {
+            arrays.put(target, frame.getArray(slot));
+            vars.remove(target);
+        }
+    }
+
+
+    @Override
+    public CompiledArrayOperation compileOperation(String operationExpression, 
+            SymbolTable symbols) throws WrongScriptExpressionException {
+        if (operationExpression == null) {
+            operationExpression = "";
+        }
+        return compileOperation(operationExpression, 0, 
+                operationExpression.length(), symbols);
+    }
+
+
+    /**
+     * Compiles "array" script operation expression that is a part of a 
+     * script line.
+     *
+     * @param scriptLine script line that contains the expression.
+     * @param start start offset of the expression in the line.
+     * @param end end offset of the expression in the line (exclusive).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled "array" operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    @Override
+    public CompiledArrayOperation compileOperation(String scriptLine, 
+            int start, int end, SymbolTable symbols)
+            throws WrongScriptExpressionException {
+        start = ScriptLexer.stripStart(scriptLine, start, end);
+        end = ScriptLexer.stripEnd(scriptLine, start, end);
+        Parser parser = new Parser(scriptLine, start, end, symbols);
+        try {
+            return parser.parseStatement();
+        } catch (WrongScriptExpressionException wseex) {
+            throw new WrongScriptExpressionException("ARRAY statement "
+                    + "'array " + scriptLine.substring(start, end)
+                    + "' is invalid. " + wseex.getMessage());
+        }
+    }
+
+
+    /* Recursive descent parser of an "array" statement. Operators are parsed
+     * by priority like the "set" engine resolves them: "+" (lowest), "-", "/", 
+     * "*" (highest), each left to right.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private final int start;
+        private final int end;
+        private final SymbolTable symbols;
+        private int position;
+
+        private Parser(String text, int start, int end, SymbolTable symbols) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.symbols = symbols;
+            position = start;
+        }
+
+        private CompiledArrayOperation parseStatement()
+                throws WrongScriptExpressionException {
+            skipWhitespace();
+            if (position == end || text.charAt(position) != '$') {
+                throw new WrongScriptExpressionException("Must start with "
+                        + "an array variable.");
+            }
+            String target = readName();
+            int targetSlot = symbols.slotOf(target);
+            ArrayExpression index = null;
+            if (accept('[')) {
+                index = parseSum();
+                expect(']');
+            }
+            skipWhitespace();
+            if (position == end) {
+                if (index == null) {
+                    throw new WrongScriptExpressionException("Must contain "
+                            + "an array size or an assigned expression.");
+                }
+                return new CompiledArrayOperation(text(), target, targetSlot, 
+                        index, null);
+            }
+            expect('=');
+            ArrayExpression expression = parseSum();
+            skipWhitespace();
+            if (position != end) {
+                throw syntaxError();
+            }
+            return new CompiledArrayOperation(text(), target, targetSlot, 
+                    index, expression);
+        }
+
+        private ArrayExpression parseSum()
+                throws WrongScriptExpressionException {
+            ArrayExpression expression = parseDifference();
+            while (accept('+')) {
+                expression = new ArrayBinaryOperation(BinaryOperator.ADD, 
+                        expression, parseDifference());
+            }
+            return expression;
+        }
+
+        private ArrayExpression parseDifference()
+                throws WrongScriptExpressionException {
+            ArrayExpression expression = parseQuotient();
+            while (accept('-')) {
+                expression = new ArrayBinaryOperation( 
+                        BinaryOperator.SUBTRACT, expression, parseQuotient());
+            }
+            return expression;
+        }
+
+        private ArrayExpression parseQuotient()
+                throws WrongScriptExpressionException {
+            ArrayExpression expression = parseProduct();
+            while (accept('/')) {
+                expression = new ArrayBinaryOperation(BinaryOperator.DIVIDE, 
+                        expression, parseProduct());
+            }
+            return expression;
+        }
+
+        private ArrayExpression parseProduct()
+                throws WrongScriptExpressionException {
+            ArrayExpression expression = parseOperand();
+            while (accept('*')) {
+                expression = new ArrayBinaryOperation( 
+                        BinaryOperator.MULTIPLY, expression, parseOperand());
+            }
+            return expression;
+        }
+
+        /* Parses a number (a "-" right before the digits makes it negative), 
+         * a variable, an array element or an expression in brackets.
+         */
+        private ArrayExpression parseOperand()
+                throws WrongScriptExpressionException {
+            skipWhitespace();
+            if (accept('(')) {
+                ArrayExpression expression = parseSum();
+                expect(')');
+                return expression;
+            }
+            if (position < end && text.charAt(position) == '$') {
+                String name = readName();
+                int slot = symbols.slotOf(name);
+                if (accept('[')) {
+                    ArrayExpression index = parseSum();
+                    expect(']');
+                    return new ArrayElement(name, slot, index);
+                }
+                return new ArrayVariable(name, slot);
+            }
+            int numberStart = position;
+            if (position + 1 < end && text.charAt(position) == '-') {
+                position++;
+            }
+            while (position < end && isDigit(text.charAt(position))) {
+                position++;
+            }
+            if (position == numberStart || !isDigit(text.charAt(position - 1))) {
+                position = numberStart;
+                throw syntaxError();
+            }
+            try {
+                return new ArrayNumber(Integer.parseInt( 
+                        text.substring(numberStart, position)));
+            } catch (NumberFormatException nfex) {
+                throw new WrongScriptExpressionException("Number '"
+                        + text.substring(numberStart, position)
+                        + "' is out of range.");
+            }
+        }
+
+        // Reads "$" and the variable name after it.
+        private String readName() throws WrongScriptExpressionException {
+            int nameStart = position++;
+            while (position < end && isNameSymbol(text.charAt(position))) {
+                position++;
+            }
+            if (position == nameStart + 1) {
+                throw new WrongScriptExpressionException("Check variable "
+                        + "naming.");
+            }
+            return text.substring(nameStart, position);
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (position < end && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws WrongScriptExpressionException {
+            if (!accept(c)) {
+                throw syntaxError();
+            }
+        }
+
+        private void skipWhitespace() {
+            position = ScriptLexer.stripStart(text, position, end);
+        }
+
+        private WrongScriptExpressionException syntaxError() {
+            return new WrongScriptExpressionException("Check syntax near "
+                    + "position " + (position - start + 1) + ".");
+        }
+
+        private String text() {
+            return text.substring(start, end);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isNameSymbol(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '_';
+        }
+    }
+}
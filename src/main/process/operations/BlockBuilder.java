@@ -0,0 +1,152 @@
+package main.process.operations;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import main.process.exceptions.WrongScriptExpressionException;
+
+/**
+ * This class puts compiled script lines together into "while" and "if" 
+ * blocks ({@link CompiledBlockOperation}) while the lines are compiled one by 
+ * one in the script order. Lines outside of blocks are returned as they are, 
+ * and a block is returned when its "end" line is added.
+ *
+ * Syntax errors of the lines inside a block are raised when the lines are 
+ * reached ({@link CompiledErrorOperation}), so errors of the lines in a block 
+ * that is not executed are not raised.
+ *
+ * The lines added into block bodies can be wrapped (i.e., by the operations 
+ * that record the execution of each line for the profiler).
+ *
+ * @author SoundlyGifted
+ */
+public final class BlockBuilder {
+
+    // Blocks that are not ended yet (the innermost block first).
+    private final Deque<Block> blocks = new ArrayDeque<>();
+
+    // Wraps the lines added into block bodies.
+    private final UnaryOperator<CompiledOperation> bodyLines;
+
+    /**
+     * Creates BlockBuilder instance that adds the lines into block bodies as 
+     * they are.
+     */
+    public BlockBuilder() {
+        this(UnaryOperator.identity());
+    }
+
+    /**
+     * Creates BlockBuilder instance that wraps the lines added into block 
+     * bodies.
+     *
+     * @param bodyLines wraps a line added into a block body (called when the
+     * line is added, so it can use the current line of the script).
+     */
+    public BlockBuilder(UnaryOperator<CompiledOperation> bodyLines) {
+        this.bodyLines = bodyLines;
+    }
+
+
+    /**
+     * @return true if the next lines are added into a block.
+     */
+    public boolean isBuilding() {
+        return !blocks.isEmpty();
+    }
+
+
+    /**
+     * Adds the next compiled script line.
+     *
+     * @param operation compiled script line.
+     * @return the operation to perform: the line itself if it is outside of 
+     * blocks, the completed block when the line ends the outermost block, or 
+     * null if the line is added into a block.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when an "end" line has no block to end.
+     */
+    public CompiledOperation add(CompiledOperation operation)
+            throws WrongScriptExpressionException {
+        if (operation instanceof CompiledControlOperation) {
+            CompiledControlOperation control
+                    = (CompiledControlOperation) operation;
+            if (control.startsBlock()) {
+                blocks.push(new Block(control));
+                return null;
+            }
+            if (blocks.isEmpty()) {
+                throw ControlOperationPerformer.noBlockError();
+            }
+            Block block = blocks.pop();
+            WrongScriptExpressionException error = control.getError();
+            if (error != null) {
+                block.body.add(bodyLines.apply( 
+                        new CompiledErrorOperation(error.getMessage())));
+            }
+            operation = block.toOperation();
+        }
+        if (blocks.isEmpty()) {
+            return operation;
+        }
+        blocks.peek().body.add(bodyLines.apply(operation));
+        return null;
+    }
+
+
+    /**
+     * Adds the next script line that has a syntax error.
+     *
+     * @param error the syntax error of the line.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the line is not in a block (the error is raised immediately).
+     */
+    public void addError(WrongScriptExpressionException error)
+            throws WrongScriptExpressionException {
+        if (blocks.isEmpty()) {
+            throw error;
+        }
+        blocks.peek().body.add(bodyLines.apply( 
+                new CompiledErrorOperation(error.getMessage())));
+    }
+
+
+    /**
+     * Checks that all the blocks are ended at the end of the script.
+     *
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the innermost block has no "end" line.
+     */
+    public void finish() throws WrongScriptExpressionException {
+        if (!blocks.isEmpty()) {
+            throw blocks.peek().start.noEndError();
+        }
+    }
+
+
+    // A block that is not ended yet.
+    private static final class Block {
+
+        private final CompiledControlOperation start;
+        private final List<CompiledOperation> body = new ArrayList<>();
+
+        private Block(CompiledControlOperation start) {
+            this.start = start;
+        }
+
+        /* Creates the block operation, or the operation that raises the error
+         * of the condition when the block is reached.
+         */
+        private CompiledOperation toOperation() {
+            WrongScriptExpressionException error = start.getError();
+            if (error != null) {
+                return new CompiledErrorOperation(error.getMessage());
+            }
+            return new CompiledBlockOperation( 
+                    start.getKind() == CompiledControlOperation.Kind.WHILE, 
+                    start.getConditionVar(), start.getConditionSlot(), body);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package main.process.operations;
+
+import main.process.arrays.ArrayElement;
+import main.process.arrays.ArrayExpression;
+import main.process.arrays.ArrayVariable;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents an "array" script operation compiled once into an 
+ * expression tree (see {@link ArrayOperationPerformer} for the statement 
+ * forms). Errors found when the operation is performed are raised with the 
+ * statement in the message.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledArrayOperation extends CompiledOperation {
+
+    // Original script operation expression (used in error messages).
+    private final String operationExpression;
+
+    // Name and slot of the variable assigned by this operation.
+    private final String target;
+    private final int targetSlot;
+
+    /* Index of the assigned element or size of the created array, or null if
+     * the whole variable is assigned.
+     */
+    private final ArrayExpression index;
+
+    // Assigned expression, or null if the operation creates an array.
+    private final ArrayExpression expression;
+
+    CompiledArrayOperation(String operationExpression, String target, 
+            int targetSlot, ArrayExpression index, 
+            ArrayExpression expression) {
+        this.operationExpression = operationExpression;
+        this.target = target;
+        this.targetSlot = targetSlot;
+        this.index = index;
+        this.expression = expression;
+    }
+
+    /**
+     * @return original script operation expression (without "array").
+     */
+    public String getOperationExpression() {
+        return operationExpression;
+    }
+
+    /**
+     * @return slot of the variable assigned by this operation.
+     */
+    public int getTargetSlot() {
+        return targetSlot;
+    }
+
+    /**
+     * @return true if this operation assigns an element of an existing 
+     * array, false if it assigns the whole variable.
+     */
+    public boolean isElementAssignment() {
+        return index != null && expression != null;
+    }
+
+    @Override
+    public void perform(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        try {
+            if (expression == null) {
+                createArray(frame);
+            } else if (index != null) {
+                assignElement(frame);
+            } else {
+                assign(frame);
+            }
+        } catch (WrongScriptExpressionException wseex) {
+            throw new WrongScriptExpressionException("ARRAY statement "
+                    + "'array " + operationExpression + "' is invalid. "
+                    + wseex.getMessage());
+        }
+    }
+
+
+    private void createArray(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        if (index.length(frame) >= 0) {
+            throw new WrongScriptExpressionException("Size of array " + target
+                    + " must be a number.");
+        }
+        int size = index.evaluate(frame);
+        if (size < 0) {
+            throw new WrongScriptExpressionException("Array size " + size
+                    + " is negative.");
+        }
+        frame.setArray(targetSlot, new int[size]);
+    }
+
+
+    private void assignElement(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        int[] array = ArrayElement.checkArray(target, targetSlot, frame);
+        ArrayElement.checkIndex(target, index, frame);
+        if (expression.length(frame) >= 0) {
+            throw new WrongScriptExpressionException("Value of an element of "
+                    + "array " + target + " must be a number.");
+        }
+        int element = ArrayElement.checkRange(target, array, 
+                index.evaluate(frame));
+        array[element] = expression.evaluate(frame);
+    }
+
+
+    /* Assigns the value of the expression: a number or an array (the array of
+     * a variable is copied, so that the variables do not share elements).
+     */
+    private void assign(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        int length = expression.length(frame);
+        if (length < 0) {
+            frame.set(targetSlot, expression.evaluate(frame));
+            return;
+        }
+        int[] array = expression.evaluateArray(frame, length);
+        frame.setArray(targetSlot, (expression instanceof ArrayVariable)
+                ? array.clone() : array);
+    }
+}
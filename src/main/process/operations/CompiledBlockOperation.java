@@ -0,0 +1,119 @@
+package main.process.operations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a "while" or "if" block compiled together with the 
+ * compiled lines of its body, so that repeating the block evaluates the body 
+ * without parsing its lines again. The block tests its condition variable 
+ * (true if the value is not zero) and performs the body while (or once if) 
+ * the condition is true. A "while" block raises a script error when it is 
+ * repeated more than {@link ControlOperationPerformer#MAX_ITERATIONS} times.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledBlockOperation extends CompiledOperation {
+
+    // Whether the block is repeated while the condition is true ("while").
+    private final boolean loop;
+
+    // Name and slot of the condition variable.
+    private final String conditionVar;
+    private final int conditionSlot;
+
+    // Compiled lines of the block body.
+    private final CompiledOperation[] body;
+
+    /**
+     * Creates CompiledBlockOperation instance.
+     *
+     * @param loop true for the "while" block, false for the "if" block.
+     * @param conditionVar name of the condition variable.
+     * @param conditionSlot slot of the condition variable.
+     * @param body compiled lines of the block body.
+     */
+    public CompiledBlockOperation(boolean loop, String conditionVar, 
+            int conditionSlot, List<CompiledOperation> body) {
+        this.loop = loop;
+        this.conditionVar = conditionVar;
+        this.conditionSlot = conditionSlot;
+        this.body = body.toArray(new CompiledOperation[0]);
+    }
+
+    /**
+     * @return true for the "while" block, false for the "if" block.
+     */
+    public boolean isLoop() {
+        return loop;
+    }
+
+    /**
+     * @return slot of the condition variable.
+     */
+    public int getConditionSlot() {
+        return conditionSlot;
+    }
+
+    /**
+     * @return compiled lines of the block body.
+     */
+    public List<CompiledOperation> getBody() {
+        return Collections.unmodifiableList(Arrays.asList(body));
+    }
+
+    /* Creates the block with the same condition and the given body (i.e., 
+     * lines of an included file that print to another output sink).
+     */
+    CompiledBlockOperation withBody(List<CompiledOperation> body) {
+        return new CompiledBlockOperation(loop, conditionVar, conditionSlot, 
+                body);
+    }
+
+    /**
+     * Performs the block body while (or once if) the condition variable has a 
+     * non-zero value.
+     *
+     * @param frame current values of script variables.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the condition variable has no assigned value, a line of the body 
+     * raises an error, or the loop exceeds the iteration limit.
+     */
+    @Override
+    public void perform(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        long iterations = 0;
+        while (isConditionTrue(frame)) {
+            if (loop && ++iterations
+                    > ControlOperationPerformer.MAX_ITERATIONS) {
+                throw ControlOperationPerformer.iterationLimitError(kind(), 
+                        conditionVar);
+            }
+            for (CompiledOperation operation : body) {
+                operation.perform(frame);
+            }
+            if (!loop) {
+                return;
+            }
+        }
+    }
+
+
+    private boolean isConditionTrue(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        if (!frame.isAssigned(conditionSlot)) {
+            throw ControlOperationPerformer.notAssignedError(kind(), 
+                    conditionVar);
+        }
+        return frame.get(conditionSlot) != 0;
+    }
+
+
+    private CompiledControlOperation.Kind kind() {
+        return loop ? CompiledControlOperation.Kind.WHILE
+                : CompiledControlOperation.Kind.IF;
+    }
+}
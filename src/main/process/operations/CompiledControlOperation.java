@@ -0,0 +1,126 @@
+package main.process.operations;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a compiled control script line ("while", "if" or 
+ * "end"). It is not performed by itself: {@link BlockBuilder} puts the lines 
+ * between a "while" or "if" line and the matching "end" line together into a 
+ * {@link CompiledBlockOperation}.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledControlOperation extends CompiledOperation {
+
+    /**
+     * Kinds of the control operations.
+     */
+    public enum Kind {
+
+        // Starts a block that is repeated while the condition is true.
+        WHILE, 
+
+        // Starts a block that is executed once if the condition is true.
+        IF, 
+
+        // Ends the block.
+        END
+    }
+
+    private final Kind kind;
+
+    // Condition variable name ("while" and "if"), or the "end" expression.
+    private final String expression;
+
+    // Slot of the condition variable, or -1 if the condition has an error.
+    private final int conditionSlot;
+
+    /* Error message raised when the line is reached, or null if the line has
+     * no errors.
+     */
+    private final String error;
+
+    CompiledControlOperation(Kind kind, String expression, int conditionSlot, 
+            String error) {
+        this.kind = kind;
+        this.expression = expression;
+        this.conditionSlot = conditionSlot;
+        this.error = error;
+    }
+
+    /**
+     * @return kind of the control operation.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return true if the operation starts a block ("while" or "if").
+     */
+    public boolean startsBlock() {
+        return kind != Kind.END;
+    }
+
+    /**
+     * @return name of the condition variable ("while" and "if").
+     */
+    public String getConditionVar() {
+        return expression;
+    }
+
+    /**
+     * @return slot of the condition variable, or -1 if the condition has an 
+     * error.
+     */
+    public int getConditionSlot() {
+        return conditionSlot;
+    }
+
+    /**
+     * @return the error raised when the line is reached, or null if the line 
+     * has no errors.
+     */
+    public WrongScriptExpressionException getError() {
+        return (error != null)
+                ? new WrongScriptExpressionException(error) : null;
+    }
+
+    /**
+     * Finds the error that reaching this line would raise when exactly the 
+     * variables assigned in the frame are assigned.
+     *
+     * @param frame script variables (only their assignment state is used).
+     * @return the error, or null if the line can be performed.
+     */
+    public WrongScriptExpressionException findError(VariableFrame frame) {
+        if (error != null) {
+            return new WrongScriptExpressionException(error);
+        }
+        if (startsBlock() && !frame.isAssigned(conditionSlot)) {
+            return ControlOperationPerformer.notAssignedError(kind, 
+                    expression);
+        }
+        return null;
+    }
+
+    /**
+     * @return the error raised when the block started by this line has no 
+     * "end" line.
+     */
+    public WrongScriptExpressionException noEndError() {
+        return ControlOperationPerformer.noEndError(kind, expression);
+    }
+
+    /**
+     * Control lines are performed as a part of their blocks only.
+     *
+     * @throws IllegalStateException is always thrown.
+     */
+    @Override
+    public void perform(VariableFrame frame) {
+        throw new IllegalStateException("Control operation '"
+                + kind.name().toLowerCase() + "' must be a part of a block");
+    }
+}
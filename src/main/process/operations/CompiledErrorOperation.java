@@ -0,0 +1,46 @@
+package main.process.operations;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a script line of a block that has a syntax error. The 
+ * error is raised when the line is reached, the same way as the reference 
+ * engine raises it when it interprets the line.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledErrorOperation extends CompiledOperation {
+
+    // Error message of the script line.
+    private final String error;
+
+    /**
+     * Creates CompiledErrorOperation instance.
+     *
+     * @param error error message of the script line.
+     */
+    public CompiledErrorOperation(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return error message of the script line.
+     */
+    public String getErrorMessage() {
+        return error;
+    }
+
+    /**
+     * @return the error of the script line.
+     */
+    public WrongScriptExpressionException getError() {
+        return new WrongScriptExpressionException(error);
+    }
+
+    @Override
+    public void perform(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        throw getError();
+    }
+}
@@ -0,0 +1,115 @@
+package main.process.operations;
+
+import java.util.List;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.modules.CompiledModule;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents an "include" script operation: the compiled module 
+ * of the included file and the slots of the including script that hold the 
+ * module variables. The module lines are performed on a frame of the module 
+ * variables, which receives the values and arrays of the script variables 
+ * before the lines and gives back the assigned ones after them, so the file 
+ * is executed as if its lines were written in place of the "include" line.
+ *
+ * @author SoundlyGifted
+ */
+public final class CompiledIncludeOperation extends CompiledOperation {
+
+    // Compiled module of the included file.
+    private final CompiledModule module;
+
+    /* Operations of the module lines (printing to the output sink of the
+     * including script).
+     */
+    private final CompiledOperation[] operations;
+
+    // Slots of the module variables in the including script.
+    private final int[] slots;
+
+    CompiledIncludeOperation(CompiledModule module, 
+            List<CompiledOperation> operations, int[] slots) {
+        this.module = module;
+        this.operations = operations.toArray(new CompiledOperation[0]);
+        this.slots = slots;
+    }
+
+    /**
+     * @return compiled module of the included file.
+     */
+    public CompiledModule getModule() {
+        return module;
+    }
+
+    /**
+     * @return slots of the script variables assigned by the included file 
+     * (see {@link CompiledModule#getAssignedSlots()}).
+     */
+    public int[] getAssignedSlots() {
+        int[] assignedSlots = module.getAssignedSlots();
+        for (int i = 0; i < assignedSlots.length; i++) {
+            assignedSlots[i] = slots[assignedSlots[i]];
+        }
+        return assignedSlots;
+    }
+
+    /**
+     * Performs the lines of the included file.
+     *
+     * @param frame current values of script variables.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when a line of the included file raises an error (the variables 
+     * assigned by the preceding lines keep their values).
+     */
+    @Override
+    public void perform(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        VariableFrame moduleFrame = new VariableFrame(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            int[] array = frame.getArray(slots[i]);
+            if (array != null) {
+                moduleFrame.setArray(i, array);
+            } else if (frame.isAssigned(slots[i])) {
+                moduleFrame.set(i, frame.get(slots[i]));
+            }
+        }
+        try {
+            for (CompiledOperation operation : operations) {
+                operation.perform(moduleFrame);
+            }
+        } finally {
+            copyAssigned(moduleFrame, frame);
+        }
+    }
+
+    /* Creates the operation that performs the given operations of the module
+     * lines (i.e., printing to another output sink).
+     */
+    CompiledIncludeOperation withOperations( 
+            List<CompiledOperation> operations) {
+        return new CompiledIncludeOperation(module, operations, slots);
+    }
+
+
+    /* Copies the values and arrays of the module variables that differ from
+     * the script variables (others are not assigned again, so the versions of 
+     * the script variables read by memoized expressions do not change).
+     */
+    private void copyAssigned(VariableFrame moduleFrame, VariableFrame frame) {
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            int[] array = moduleFrame.getArray(i);
+            if (array != null) {
+                if (frame.getArray(slot) != array) {
+                    frame.setArray(slot, array);
+                }
+            } else if (moduleFrame.isAssigned(i)) {
+                int value = moduleFrame.get(i);
+                if (!frame.isAssigned(slot) || frame.get(slot) != value) {
+                    frame.set(slot, value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package main.process.operations;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.variables.VariableFrame;
+
+/**
+ * This is an abstract class of a script operation that was compiled once from 
+ * the script text and can be performed without parsing the text again.
+ * 
+ * @author SoundlyGifted
+ */
+public abstract class CompiledOperation {
+    
+    /**
+     * Performs the compiled script operation.
+     * 
+     * @param frame current values of script variables that were assigned with 
+     * all the "set" script operations performed by the time when this method 
+     * is called.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation cannot be performed with the current variable 
+     * values.
+     */
+    public abstract void perform(VariableFrame frame) 
+            throws WrongScriptExpressionException;
+}
@@ -0,0 +1,267 @@
+package main.process.operations;
+
+import java.nio.charset.StandardCharsets;
+import main.io.OutputSink;
+import main.io.SegmentOutputSink;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a "print" script operation compiled once into the 
+ * list of strings and variable names to print.
+ * 
+ * If the output sink writes lines in segments ({@link SegmentOutputSink}), 
+ * the operation is also compiled into a template: the strings are encoded into bytes once, and 
+ * printing writes the encoded strings and the digits of the variable values 
+ * straight into the output buffer, without building the line. Otherwise the 
+ * line is built and printed as characters.
+ * 
+ * @author SoundlyGifted
+ */
+public final class CompiledPrintOperation extends CompiledOperation {
+    
+    /* Encoded parts of the printed arrays (they are ASCII, which the sinks 
+     * that write lines in segments encode as the same bytes).
+     */
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_SEPARATOR = {',', ' '};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte[] NULL_VALUE = PrintOperationPerformer.NULL_VALUE 
+            .getBytes(StandardCharsets.US_ASCII);
+    
+    // Strings and variable names to print (in the order of printing).
+    private final String[] printStrings;
+    
+    // Flags that tell which of the print strings are variable names.
+    private final boolean[] varNameFlags;
+    
+    // Slots of the printed variables (not used for other print strings).
+    private final int[] varSlots;
+    
+    /* Start and end indexes of the printed array slices (see 
+     * PrintOperationPerformer), or null if no slices are printed.
+     */
+    private final int[] sliceFrom;
+    private final int[] sliceTo;
+
+    // Output sink that receives the printed line.
+    private final OutputSink output;
+    
+    /* Strings to print encoded by the output sink (null for the variables), 
+     * or null if the line is not written in segments.
+     */
+    private final byte[][] encodedStrings;
+    
+    // The output sink that writes the line in segments, or null.
+    private final SegmentOutputSink segmentOutput;
+
+    CompiledPrintOperation(String[] printStrings, boolean[] varNameFlags, 
+            int[] varSlots, OutputSink output) {
+        this(printStrings, varNameFlags, varSlots, null, null, output);
+    }
+
+    CompiledPrintOperation(String[] printStrings, boolean[] varNameFlags, 
+            int[] varSlots, int[] sliceFrom, int[] sliceTo, 
+            OutputSink output) {
+        this.printStrings = printStrings;
+        this.varNameFlags = varNameFlags;
+        this.varSlots = varSlots;
+        this.sliceFrom = sliceFrom;
+        this.sliceTo = sliceTo;
+        this.output = output;
+        encodedStrings = encodeStrings(printStrings, varNameFlags, output);
+        segmentOutput = (encodedStrings != null) 
+                ? (SegmentOutputSink) output : null;
+    }
+
+    /**
+     * @return number of strings and variables to print.
+     */
+    public int size() {
+        return printStrings.length;
+    }
+    
+    /**
+     * @param index index of the printed item.
+     * @return the string to print, or the variable name if this item is a 
+     * variable.
+     */
+    public String getPrintString(int index) {
+        return printStrings[index];
+    }
+    
+    /**
+     * @param index index of the printed item.
+     * @return true if the printed item is a variable, false otherwise.
+     */
+    public boolean isVarName(int index) {
+        return varNameFlags[index];
+    }
+    
+    /**
+     * @param index index of the printed item.
+     * @return slot of the printed variable (if the printed item is a 
+     * variable).
+     */
+    public int getVarSlot(int index) {
+        return varSlots[index];
+    }
+    
+    /**
+     * @return true if this operation prints array slices.
+     */
+    public boolean hasSlices() {
+        return sliceFrom != null;
+    }
+    
+    /**
+     * @param index index of the printed item.
+     * @return true if the printed item is an array slice.
+     */
+    public boolean isSlice(int index) {
+        return sliceFrom != null && sliceFrom[index] >= 0;
+    }
+    
+    /**
+     * @param index index of the printed array slice.
+     * @return start index of the slice.
+     */
+    public int getSliceFrom(int index) {
+        return sliceFrom[index];
+    }
+    
+    /**
+     * @param index index of the printed array slice.
+     * @return end index of the slice (exclusive), or -1 for the end of the 
+     * array.
+     */
+    public int getSliceTo(int index) {
+        return sliceTo[index];
+    }
+    
+    /**
+     * Creates a print operation with the given print strings that prints to 
+     * the same output (i.e., with variable values substituted by the 
+     * optimizer).
+     * 
+     * @param printStrings strings and variable names to print.
+     * @param varNameFlags flags that tell which of the print strings are 
+     * variable names.
+     * @param varSlots slots of the printed variables.
+     * @return the new print operation.
+     */
+    public CompiledPrintOperation withPrintStrings(String[] printStrings, 
+            boolean[] varNameFlags, int[] varSlots) {
+        return new CompiledPrintOperation(printStrings, varNameFlags, varSlots, 
+                output);
+    }
+    
+    /* Creates the same print operation that prints to another output sink 
+     * (i.e., a line of an included file printed by another script).
+     */
+    CompiledPrintOperation withOutput(OutputSink output) {
+        return new CompiledPrintOperation(printStrings, varNameFlags, varSlots, 
+                sliceFrom, sliceTo, output);
+    }
+    
+    @Override
+    public void perform(VariableFrame frame) {
+        if (encodedStrings != null) {
+            writeSegments(frame);
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < printStrings.length; i++) {
+            if (varNameFlags[i]) {
+                int slot = varSlots[i];
+                if (isSlice(i)) {
+                    appendArray(sb, frame.getArray(slot), sliceFrom[i], 
+                            sliceTo[i]);
+                } else if (frame.isAssigned(slot)) {
+                    sb.append(frame.get(slot));
+                } else {
+                    appendArray(sb, frame.getArray(slot), 0, -1);
+                }
+            } else {
+                sb.append(printStrings[i]);
+            }
+        }
+        output.printLine(sb);
+    }
+    
+    
+    /* Encodes the strings to print, or returns null if the output sink does 
+     * not write lines in segments or cannot encode one of the strings.
+     */
+    private static byte[][] encodeStrings(String[] printStrings, 
+            boolean[] varNameFlags, OutputSink output) {
+        if (!(output instanceof SegmentOutputSink) 
+                || !((SegmentOutputSink) output).writesSegments()) {
+            return null;
+        }
+        SegmentOutputSink segmentOutput = (SegmentOutputSink) output;
+        byte[][] encoded = new byte[printStrings.length][];
+        for (int i = 0; i < printStrings.length; i++) {
+            if (!varNameFlags[i]) {
+                encoded[i] = segmentOutput.encodeSegment(printStrings[i]);
+                if (encoded[i] == null) {
+                    return null;
+                }
+            }
+        }
+        return encoded;
+    }
+    
+    
+    // Writes the line in segments using the encoded strings.
+    private void writeSegments(VariableFrame frame) {
+        for (int i = 0; i < encodedStrings.length; i++) {
+            if (!varNameFlags[i]) {
+                segmentOutput.writeSegment(encodedStrings[i]);
+                continue;
+            }
+            int slot = varSlots[i];
+            if (isSlice(i)) {
+                writeArray(frame.getArray(slot), sliceFrom[i], sliceTo[i]);
+            } else if (frame.isAssigned(slot)) {
+                segmentOutput.writeInt(frame.get(slot));
+            } else {
+                writeArray(frame.getArray(slot), 0, -1);
+            }
+        }
+        segmentOutput.endLine();
+    }
+    
+    
+    /* Writes the array or its slice (bounded the same way as by 
+     * PrintOperationPerformer.appendArray), or the null value if there is no 
+     * array.
+     */
+    private void writeArray(int[] array, int from, int to) {
+        if (array == null) {
+            segmentOutput.writeSegment(NULL_VALUE);
+            return;
+        }
+        from = Math.min(Math.max(from, 0), array.length);
+        to = (to < 0) ? array.length : Math.max(Math.min(to, array.length), 
+                from);
+        segmentOutput.writeSegment(ARRAY_START);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                segmentOutput.writeSegment(ARRAY_SEPARATOR);
+            }
+            segmentOutput.writeInt(array[i]);
+        }
+        segmentOutput.writeSegment(ARRAY_END);
+    }
+    
+    
+    // Appends the array or its slice, or the null value if there is no array.
+    private static void appendArray(StringBuilder sb, int[] array, int from, 
+            int to) {
+        if (array != null) {
+            PrintOperationPerformer.appendArray(sb, array, from, to);
+        } else {
+            sb.append(PrintOperationPerformer.NULL_VALUE);
+        }
+    }
+}
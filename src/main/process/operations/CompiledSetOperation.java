@@ -0,0 +1,365 @@
+package main.process.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import main.process.arrays.ArrayBinaryOperation;
+import main.process.arrays.ArrayExpression;
+import main.process.arrays.ArrayNumber;
+import main.process.arrays.ArrayVariable;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.expressions.BinaryOperation;
+import main.process.expressions.Expression;
+import main.process.expressions.NumberLiteral;
+import main.process.expressions.VariableReference;
+import main.process.memoization.ExpressionCache;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class represents a "set" script operation compiled once into an 
+ * immutable expression tree. Performing the compiled operation does not parse 
+ * the script text again and does not create intermediate strings.
+ * 
+ * Errors that the reference "set" engine raises only depending on which 
+ * variables are assigned (i.e., errors found after a variable reference in the
+ * expression) are kept in the compiled operation and raised when it is 
+ * performed, so the reported error is always the same as in the reference 
+ * engine.
+ * 
+ * When an expression cache is attached to the variable frame, the expression 
+ * is evaluated through the cache under its normalized text (the text of the 
+ * expression tree), so the same expression on other script lines reuses the 
+ * result while the variables it reads are not assigned again.
+ * 
+ * When a referenced variable holds an array, the expression is evaluated 
+ * element by element like "array $c = ..." does (see 
+ * {@link ArrayOperationPerformer}), and the variable is assigned the result 
+ * array. Checking for arrays is done only when a referenced variable has no 
+ * assigned value, so it costs nothing for the expressions on numbers.
+ * 
+ * @author SoundlyGifted
+ */
+public final class CompiledSetOperation extends CompiledOperation {
+    
+    /* Original script operation expression (used in error messages), or null
+     * if the operation was not compiled from the script text.
+     */
+    private final String operationExpression;
+    
+    // Name and slot of the variable to assign the value by this SET operation.
+    private final String varToAssign;
+    private final int varToAssignSlot;
+    
+    /* Distinct names (and slots) of the variables referenced in the expression
+     * in order of their first appearance, and whether that first appearance is
+     * inside brackets.
+     */
+    private final String[] referencedVars;
+    private final int[] referencedSlots;
+    private final boolean[] referencedInBrackets;
+    
+    /* Error message of the syntax error found after a variable reference, or 
+     * null if the expression has no syntax errors.
+     */
+    private final String deferredError;
+    
+    // Compiled expression tree (null if the expression has a syntax error).
+    private final Expression expression;
+    
+    /* Normalized text of the expression tree (the key of the expression 
+     * cache), or null if it was not needed yet.
+     */
+    private String normalizedExpression;
+    
+    /* Expression tree evaluated element by element on arrays, or null if it 
+     * was not needed yet.
+     */
+    private ArrayExpression arrayExpression;
+
+    CompiledSetOperation(String operationExpression, String varToAssign, 
+            int varToAssignSlot, String[] referencedVars, int[] referencedSlots,
+            boolean[] referencedInBrackets, String deferredError, 
+            Expression expression) {
+        this.operationExpression = operationExpression;
+        this.varToAssign = varToAssign;
+        this.varToAssignSlot = varToAssignSlot;
+        this.referencedVars = referencedVars;
+        this.referencedSlots = referencedSlots;
+        this.referencedInBrackets = referencedInBrackets;
+        this.deferredError = deferredError;
+        this.expression = expression;
+    }
+
+    /**
+     * @return original script operation expression (without "set"), or the 
+     * text of the expression tree (with every nested operation in brackets) 
+     * if the operation was not compiled from the script text.
+     */
+    public String getOperationExpression() {
+        if (operationExpression != null) {
+            return operationExpression;
+        }
+        StringBuilder sb = new StringBuilder(varToAssign).append(" = ");
+        appendExpression(expression, false, sb);
+        return sb.toString();
+    }
+
+    /**
+     * @return name of the variable assigned by this SET operation.
+     */
+    public String getVarToAssign() {
+        return varToAssign;
+    }
+
+    /**
+     * @return slot of the variable assigned by this SET operation.
+     */
+    public int getVarToAssignSlot() {
+        return varToAssignSlot;
+    }
+
+    /**
+     * @return compiled expression tree, or null if the expression has a 
+     * syntax error.
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+    
+    /**
+     * @return number of distinct variables referenced in the expression.
+     */
+    public int getReferencedVarCount() {
+        return referencedSlots.length;
+    }
+
+    /**
+     * @param index index of the referenced variable (in order of the first 
+     * appearance in the expression).
+     * @return slot of the referenced variable.
+     */
+    public int getReferencedVarSlot(int index) {
+        return referencedSlots[index];
+    }
+    
+    /**
+     * Creates a copy of this operation that evaluates the given expression 
+     * instead (i.e., simplified by the optimizer). The copy must be used only
+     * where this operation has no error: it checks only that the variables 
+     * referenced in the new expression are assigned.
+     * 
+     * @param expression expression that gives the same value as the compiled 
+     * expression of this operation.
+     * @return the copy of this operation.
+     */
+    public CompiledSetOperation withExpression(Expression expression) {
+        return forValidExpression(operationExpression, varToAssign, 
+                varToAssignSlot, expression);
+    }
+    
+    /**
+     * Creates a "set" operation from an expression tree that has no syntax 
+     * errors (i.e., loaded from a compiled script). The operation checks only 
+     * that the variables referenced in the expression are assigned.
+     * 
+     * @param operationExpression original script operation expression (used 
+     * in error messages), or null to use the text of the expression tree.
+     * @param varToAssign name of the variable to assign.
+     * @param varToAssignSlot slot of the variable to assign.
+     * @param expression expression tree.
+     * @return the operation.
+     */
+    public static CompiledSetOperation forValidExpression(
+            String operationExpression, String varToAssign, 
+            int varToAssignSlot, Expression expression) {
+        List<VariableReference> references = new ArrayList<>();
+        collectReferences(expression, references);
+        String[] vars = new String[references.size()];
+        int[] slots = new int[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = references.get(i).getName();
+            slots[i] = references.get(i).getSlot();
+        }
+        return new CompiledSetOperation(operationExpression, varToAssign, 
+                varToAssignSlot, vars, slots, new boolean[vars.length], null, 
+                expression);
+    }
+    
+    /**
+     * Finds the error that performing this operation would raise when exactly
+     * the variables assigned in the frame are assigned (not counting 
+     * arithmetic errors such as division by zero).
+     * 
+     * @param frame script variables (only their assignment state is used).
+     * @return the error, or null if the operation can be evaluated.
+     */
+    public WrongScriptExpressionException findError(VariableFrame frame) {
+        for (int i = 0; i < referencedSlots.length; i++) {
+            if (!frame.isAssigned(referencedSlots[i])) {
+                return notAssignedError(i);
+            }
+        }
+        if (deferredError != null) {
+            return new WrongScriptExpressionException(deferredError);
+        }
+        return null;
+    }
+    
+    /**
+     * @return the syntax error found after a variable reference in the 
+     * expression (raised when the referenced variables are assigned), or null
+     * if the expression has no syntax errors.
+     */
+    public WrongScriptExpressionException getSyntaxError() {
+        return (deferredError != null) 
+                ? new WrongScriptExpressionException(deferredError) : null;
+    }
+    
+    /**
+     * Evaluates the compiled expression and assigns the result value (or the 
+     * result array, if a referenced variable holds an array) to the SET 
+     * variable.
+     * 
+     * @param frame current values of script variables.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the expression references a variable that has no assigned value or
+     * array, has wrong syntax, or references arrays of different lengths.
+     */
+    @Override
+    public void perform(VariableFrame frame) 
+            throws WrongScriptExpressionException {
+        for (int i = 0; i < referencedSlots.length; i++) {
+            if (!frame.isAssigned(referencedSlots[i])) {
+                performOnArrays(frame);
+                return;
+            }
+        }
+        if (deferredError != null) {
+            throw new WrongScriptExpressionException(deferredError);
+        }
+        ExpressionCache cache = frame.getExpressionCache();
+        if (cache == null) {
+            frame.set(varToAssignSlot, expression.evaluate(frame));
+            return;
+        }
+        if (normalizedExpression == null) {
+            StringBuilder sb = new StringBuilder();
+            appendExpression(expression, false, sb);
+            normalizedExpression = sb.toString();
+        }
+        frame.set(varToAssignSlot, cache.evaluate(normalizedExpression, 
+                expression, referencedSlots, frame));
+    }
+    
+    
+    /* Evaluates the expression element by element when the referenced 
+     * variables that have no assigned value hold arrays, otherwise raises the 
+     * error of the first one that holds no array.
+     */
+    private void performOnArrays(VariableFrame frame) 
+            throws WrongScriptExpressionException {
+        for (int i = 0; i < referencedSlots.length; i++) {
+            if (!frame.isAssigned(referencedSlots[i]) 
+                    && frame.getArray(referencedSlots[i]) == null) {
+                throw notAssignedError(i);
+            }
+        }
+        if (deferredError != null) {
+            throw new WrongScriptExpressionException(deferredError);
+        }
+        if (arrayExpression == null) {
+            arrayExpression = toArrayExpression(expression);
+        }
+        try {
+            int length = arrayExpression.length(frame);
+            if (length < 0) {
+                frame.set(varToAssignSlot, arrayExpression.evaluate(frame));
+                return;
+            }
+            
+            // The array of a variable is copied (variables do not share it).
+            int[] array = arrayExpression.evaluateArray(frame, length);
+            frame.setArray(varToAssignSlot, 
+                    arrayExpression.createsArray() ? array : array.clone());
+        } catch (WrongScriptExpressionException wseex) {
+            throw new WrongScriptExpressionException("SET statement 'set "
+                    + getOperationExpression() + "' is invalid. "
+                    + wseex.getMessage());
+        }
+    }
+    
+    
+    // Converts the expression tree into the tree evaluated on arrays.
+    private static ArrayExpression toArrayExpression(Expression expression) {
+        if (expression instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expression;
+            return new ArrayBinaryOperation(operation.getOperator(), 
+                    toArrayExpression(operation.getLeft()), 
+                    toArrayExpression(operation.getRight()));
+        }
+        if (expression instanceof VariableReference) {
+            VariableReference reference = (VariableReference) expression;
+            return new ArrayVariable(reference.getName(), 
+                    reference.getSlot());
+        }
+        return new ArrayNumber(((NumberLiteral) expression).getValue());
+    }
+    
+    
+    /* Collects distinct variable references of the expression in order of 
+     * their first appearance.
+     */
+    private static void collectReferences(Expression expression, 
+            List<VariableReference> references) {
+        if (expression instanceof VariableReference) {
+            VariableReference reference = (VariableReference) expression;
+            for (VariableReference collected : references) {
+                if (collected.getSlot() == reference.getSlot()) {
+                    return;
+                }
+            }
+            references.add(reference);
+        } else if (expression instanceof BinaryOperation) {
+            collectReferences(((BinaryOperation) expression).getLeft(), 
+                    references);
+            collectReferences(((BinaryOperation) expression).getRight(), 
+                    references);
+        }
+    }
+    
+    
+    private static void appendExpression(Expression expression, 
+            boolean inBrackets, StringBuilder sb) {
+        if (expression instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expression;
+            if (inBrackets) {
+                sb.append('(');
+            }
+            appendExpression(operation.getLeft(), true, sb);
+            sb.append(' ').append(operation.getOperator().getSymbol())
+                    .append(' ');
+            appendExpression(operation.getRight(), true, sb);
+            if (inBrackets) {
+                sb.append(')');
+            }
+        } else if (expression instanceof VariableReference) {
+            sb.append(((VariableReference) expression).getName());
+        } else {
+            sb.append(((NumberLiteral) expression).getValue());
+        }
+    }
+    
+    
+    /* Creates the error raised when referenced variable with the given index 
+     * has no assigned value.
+     */
+    private WrongScriptExpressionException notAssignedError(int index) {
+        if (referencedInBrackets[index]) {
+            return new WrongScriptExpressionException("SET statement 'set " 
+                    + getOperationExpression() + "' is invalid. Check "
+                    + "brackets.");
+        }
+        return new WrongScriptExpressionException("SET statement 'set "
+                + getOperationExpression() + "' is invalid. Variable "
+                + referencedVars[index] + " has no assigned value.");
+    }
+}
@@ -0,0 +1,210 @@
+package main.process.operations;
+
+import java.util.Map;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.lexer.ScriptLexer;
+import main.process.variables.SymbolTable;
+
+/**
+ * This class performs the control script operations: "while" and "if" start 
+ * a block of script lines that is executed while (or once if) the condition 
+ * variable has a non-zero value, and "end" ends the block. The condition of 
+ * a block is one script variable, i.e. "while $count".
+ *
+ * A single control line cannot be performed by itself: compiled control 
+ * lines ({@link CompiledControlOperation}) are put together into blocks by 
+ * {@link BlockBuilder}, and the reference engine tests the conditions with 
+ * {@link #isConditionTrue(String, Map)}.
+ *
+ * @author SoundlyGifted
+ */
+public class ControlOperationPerformer extends OperationPerformer {
+
+    /**
+     * Maximum number of iterations of a "while" block each time the block is 
+     * entered. A loop that exceeds it raises a script error.
+     */
+    public static final long MAX_ITERATIONS = 100_000_000L;
+
+    // Kind of the control operations performed by this performer.
+    private final CompiledControlOperation.Kind kind;
+
+    /**
+     * Creates ControlOperationPerformer instance.
+     *
+     * @param kind kind of the control operations performed by this 
+     * performer.
+     */
+    public ControlOperationPerformer(CompiledControlOperation.Kind kind) {
+        this.kind = kind;
+    }
+
+
+    /**
+     * @return true if the operations of this performer start a block, false 
+     * if they end it.
+     */
+    public boolean startsBlock() {
+        return kind != CompiledControlOperation.Kind.END;
+    }
+
+
+    /**
+     * @return true if the block started by the operations of this performer 
+     * is repeated while its condition is true.
+     */
+    public boolean isLoop() {
+        return kind == CompiledControlOperation.Kind.WHILE;
+    }
+
+
+    /**
+     * Checks the "end" operation expression (it must be empty). The "while" 
+     * and "if" operations only check their conditions here.
+     */
+    @Override
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars) throws WrongScriptExpressionException {
+        if (startsBlock()) {
+            isConditionTrue(operationExpression, vars);
+        } else if (!operationExpression.strip().isEmpty()) {
+            throw new WrongScriptExpressionException(endError( 
+                    operationExpression.strip()));
+        }
+    }
+
+
+    /**
+     * Evaluates the condition of the "while" or "if" operation.
+     *
+     * @param operationExpression the condition (a script variable name).
+     * @param vars current variable/value mapping of script variables.
+     * @return true if the condition variable has a non-zero value.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the condition is not a valid variable name or the variable has no 
+     * assigned value.
+     */
+    public boolean isConditionTrue(String operationExpression, 
+            Map<String, Integer> vars) throws WrongScriptExpressionException {
+        String condition = operationExpression.strip();
+        String error = conditionError(kind, condition);
+        if (error != null) {
+            throw new WrongScriptExpressionException(error);
+        }
+        Integer value = vars.get(condition);
+        if (value == null) {
+            throw notAssignedError(kind, condition);
+        }
+        return value != 0;
+    }
+
+
+    /**
+     * Creates the error raised when the loop exceeds 
+     * {@link #MAX_ITERATIONS}.
+     *
+     * @param operationExpression the condition of the "while" operation.
+     * @return the error.
+     */
+    public WrongScriptExpressionException iterationLimitError( 
+            String operationExpression) {
+        return iterationLimitError(kind, operationExpression.strip());
+    }
+
+
+    /**
+     * Creates the error raised when the block started by the "while" or "if" 
+     * operation has no "end" operation by the end of the script.
+     *
+     * @param operationExpression the condition of the operation.
+     * @return the error.
+     */
+    public WrongScriptExpressionException noEndError( 
+            String operationExpression) {
+        return noEndError(kind, operationExpression.strip());
+    }
+
+
+    /**
+     * Creates the error raised by the "end" operation that has no block to 
+     * end.
+     *
+     * @return the error.
+     */
+    public static WrongScriptExpressionException noBlockError() {
+        return new WrongScriptExpressionException("Invalid end statement. No "
+                + "'while' or 'if' block to end.");
+    }
+
+
+    /**
+     * Compiles the control operation into the line of a block (see 
+     * {@link BlockBuilder}). Errors of the operation are kept in the compiled 
+     * operation and raised when the line is reached.
+     */
+    @Override
+    public CompiledControlOperation compileOperation( 
+            String operationExpression, SymbolTable symbols) {
+        String expression = operationExpression.strip();
+        if (!startsBlock()) {
+            return new CompiledControlOperation(kind, expression, -1, 
+                    expression.isEmpty() ? null : endError(expression));
+        }
+        String error = conditionError(kind, expression);
+        return new CompiledControlOperation(kind, expression, 
+                (error == null) ? symbols.slotOf(expression) : -1, error);
+    }
+
+
+    static WrongScriptExpressionException notAssignedError( 
+            CompiledControlOperation.Kind kind, String condition) {
+        return new WrongScriptExpressionException(kind.name() + " statement '"
+                + statement(kind, condition) + "' is invalid. Variable "
+                + condition + " has no assigned value.");
+    }
+
+
+    static WrongScriptExpressionException iterationLimitError( 
+            CompiledControlOperation.Kind kind, String condition) {
+        return new WrongScriptExpressionException(kind.name() + " statement '"
+                + statement(kind, condition) + "' exceeded the limit of "
+                + MAX_ITERATIONS + " iterations.");
+    }
+
+
+    static WrongScriptExpressionException noEndError( 
+            CompiledControlOperation.Kind kind, String condition) {
+        return new WrongScriptExpressionException(kind.name() + " statement '"
+                + statement(kind, condition) + "' is invalid. No matching "
+                + "'end' statement.");
+    }
+
+
+    // Returns the error of the condition, or null if it is a variable name.
+    private static String conditionError(CompiledControlOperation.Kind kind, 
+            String condition) {
+        if (condition.isEmpty()) {
+            return "Invalid " + kind.name().toLowerCase() + " statement. Must "
+                    + "contain a condition variable.";
+        } else if (condition.charAt(0) != '$'
+                || !ScriptLexer.isAllowedVarName(condition, 0, 
+                        condition.length())) {
+            return kind.name() + " statement '" + statement(kind, condition)
+                    + "' is invalid. Variable '" + condition + "' naming is "
+                    + "invalid.";
+        }
+        return null;
+    }
+
+
+    private static String endError(String expression) {
+        return "END statement 'end " + expression + "' is invalid. Must not "
+                + "contain an expression.";
+    }
+
+
+    private static String statement(CompiledControlOperation.Kind kind, 
+            String condition) {
+        return kind.name().toLowerCase() + " " + condition;
+    }
+}
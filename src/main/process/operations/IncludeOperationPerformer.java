@@ -0,0 +1,319 @@
+package main.process.operations;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import main.io.OutputSink;
+import main.io.exceptions.FileReadingException;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.modules.CompiledModule;
+import main.process.modules.ModuleStore;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class performs "include" script operation: 'include "lib.txt"' 
+ * executes the lines of the script file as if they were written in place of 
+ * the "include" line, so the variables assigned by the file are assigned in 
+ * the including script. The file name is resolved relative to the directory 
+ * of the including file (or the current directory for a script that is not 
+ * read from a file), and a file that includes itself (directly or through 
+ * other included files) is an error.
+ *
+ * Included files are compiled once into modules kept in the module store 
+ * ({@link ModuleStore}), which the interpreters of a batch or a script server 
+ * share. An included file can have "set", "print", "array" and "include" 
+ * lines, comments and blocks ended in the same file. Errors of the file lines 
+ * outside of blocks are raised when the file is included, before any of its 
+ * lines is executed.
+ *
+ * @author SoundlyGifted
+ */
+public class IncludeOperationPerformer extends OperationPerformer {
+
+    // Registry that compiles the lines of the including file.
+    private final OperationRegistry registry;
+
+    // Output sink that receives the lines printed by the included files.
+    private final OutputSink output;
+
+    // Store of the compiled included files.
+    private final ModuleStore modules;
+
+    // Directory the names of the included files are resolved against.
+    private final Path directory;
+
+    /* Real paths of the including file and of the files that include it (the
+     * files that must not be included again).
+     */
+    private final List<Path> includingFiles;
+
+    /**
+     * Creates IncludeOperationPerformer instance for the lines of a script.
+     *
+     * @param registry registry that compiles the lines of the script.
+     * @param output output sink that receives the lines printed by the 
+     * included files.
+     * @param modules store of the compiled included files.
+     * @param scriptFileName name of the script file, or null if the script 
+     * is not read from a file.
+     */
+    IncludeOperationPerformer(OperationRegistry registry, OutputSink output, 
+            ModuleStore modules, String scriptFileName) {
+        this.registry = registry;
+        this.output = output;
+        this.modules = modules;
+        Path scriptFile = (scriptFileName != null)
+                ? scriptFilePath(scriptFileName) : null;
+        directory = (scriptFile != null) ? scriptFile.getParent()
+                : Paths.get("").toAbsolutePath();
+        includingFiles = (scriptFile != null)
+                ? Collections.singletonList(scriptFile)
+                : Collections.emptyList();
+    }
+
+
+    private IncludeOperationPerformer(OperationRegistry registry, 
+            IncludeOperationPerformer includingPerformer, Path file) {
+        this.registry = registry;
+        output = includingPerformer.output;
+        modules = includingPerformer.modules;
+        directory = file.getParent();
+        List<Path> files = new ArrayList<>(includingPerformer.includingFiles);
+        files.add(file);
+        includingFiles = Collections.unmodifiableList(files);
+    }
+
+
+    /* Creates the performer of the "include" lines of the included file (the
+     * registry compiles the lines of that file).
+     */
+    IncludeOperationPerformer forIncludedFile(OperationRegistry registry, 
+            Path file) {
+        return new IncludeOperationPerformer(registry, this, file);
+    }
+
+
+    /**
+     * Performs the operation with a variable mapping that has no arrays. 
+     * Arrays are kept by {@link #performOperation(String, Map, Map)}.
+     */
+    @Override
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars) throws WrongScriptExpressionException {
+        performOperation(operationExpression, vars, new HashMap<>());
+    }
+
+
+    /**
+     * Performs "include" script operation: the included file is compiled 
+     * (or taken from the module store) and performed with the script 
+     * variables, and the variables assigned by it are moved to the values or 
+     * to the arrays mapping.
+     *
+     * @param operationExpression the script operation expression.
+     * @param vars current variable/value mapping of script variables.
+     * @param arrays current variable/array mapping of script variables 
+     * (variables that have a value have no array, and vice versa).
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the file cannot be included or a line of the file raises an error.
+     */
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars, Map<String, int[]> arrays)
+            throws WrongScriptExpressionException {
+        SymbolTable symbols = new SymbolTable();
+        CompiledIncludeOperation operation
+                = compileOperation(operationExpression, symbols);
+        VariableFrame frame = new VariableFrame(symbols.size());
+        for (int slot = 0; slot < symbols.size(); slot++) {
+            String name = symbols.getName(slot);
+            Integer value = vars.get(name);
+            if (value != null) {
+                frame.set(slot, value);
+            } else if (arrays.containsKey(name)) {
+                frame.setArray(slot, arrays.get(name));
+            }
+        }
+        try {
+            operation.perform(frame);
+        } finally {
+            for (int slot = 0; slot < symbols.size(); slot++) {
+                String name = symbols.getName(slot);
+                if (frame.isAssigned(slot)) {
+                    vars.put(name, frame.get(slot));
+                    arrays.remove(name);
+                } else if (frame.getArray(slot) != null) {
+                    arrays.put(name, frame.getArray(slot));
+                    vars.remove(name);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Compiles "include" script operation: the included file is compiled 
+     * (or taken from the module store) and its variables are added to the 
+     * symbol table.
+     *
+     * @param operationExpression the script operation expression (the file 
+     * name in double quotes).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled "include" operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the file cannot be read, includes itself or has an error in a line 
+     * outside of blocks.
+     */
+    @Override
+    public CompiledIncludeOperation compileOperation( 
+            String operationExpression, SymbolTable symbols)
+            throws WrongScriptExpressionException {
+        if (operationExpression == null) {
+            operationExpression = "";
+        }
+        Path file = resolve(operationExpression);
+        if (includingFiles.contains(file)) {
+            throw invalidStatement(operationExpression, "File '" + file
+                    + "' is already being included.");
+        }
+        CompiledModule module;
+        try {
+            module = modules.getModule(file, this::compileModule);
+        } catch (FileReadingException frex) {
+            throw invalidStatement(operationExpression, frex.getMessage()
+                    + ".");
+        } catch (UnsupportedScriptOperationException
+                | WrongScriptExpressionException exception) {
+            throw invalidStatement(operationExpression, 
+                    exception.getMessage());
+        }
+
+        int[] slots = new int[module.getSlotCount()];
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot] = symbols.slotOf(module.getName(slot));
+        }
+        return new CompiledIncludeOperation(module, 
+                (module.getOutput() == output) ? module.getOperations()
+                        : bind(module.getOperations()), 
+                slots);
+    }
+
+
+    /* Resolves the file name of the operation expression into the real path
+     * of the file.
+     */
+    private Path resolve(String operationExpression)
+            throws WrongScriptExpressionException {
+        int length = operationExpression.length();
+        if (length < 3 || operationExpression.charAt(0) != '"'
+                || operationExpression.charAt(length - 1) != '"') {
+            throw invalidStatement(operationExpression, "File name must be "
+                    + "in double quotes.");
+        }
+        String fileName = operationExpression.substring(1, length - 1);
+        try {
+            return directory.resolve(fileName).toRealPath();
+        } catch (InvalidPathException | IOException exception) {
+            throw invalidStatement(operationExpression, "File '" + fileName
+                    + "' not found or cannot read the file.");
+        }
+    }
+
+
+    /* Compiles the lines of the included file like the lines of a script are
+     * compiled one by one (the "include" lines of the file are resolved 
+     * relative to its directory).
+     */
+    private CompiledModule compileModule(Path file, FileTime lastModified, 
+            long size, Collection<String> lines)
+            throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        OperationRegistry fileRegistry = registry.forIncludedFile(file);
+        SymbolTable symbols = new SymbolTable();
+        BlockBuilder blocks = new BlockBuilder();
+        List<CompiledOperation> operations = new ArrayList<>();
+        for (String line : lines) {
+            CompiledOperation operation;
+            try {
+                operation = fileRegistry.compileLine(line, symbols);
+            } catch (WrongScriptExpressionException wseex) {
+                blocks.addError(wseex);
+                continue;
+            }
+            if (operation == null) {
+                continue;
+            }
+
+            // Custom operations cannot be shared by the including scripts.
+            if (!(operation instanceof CompiledControlOperation)
+                    && !(operation instanceof CompiledIncludeOperation)
+                    && !OperationRegistry.isBuiltIn(operation)) {
+                throw new UnsupportedScriptOperationException("Custom "
+                        + "operations cannot be used in included files. "
+                        + "Program will terminate");
+            }
+            operation = blocks.add(operation);
+            if (operation != null) {
+                operations.add(operation);
+            }
+        }
+        blocks.finish();
+        return new CompiledModule(file, lastModified, size, symbols, 
+                operations, output);
+    }
+
+
+    /* Creates the copies of the operations of an included file that print to
+     * the output sink of this performer.
+     */
+    private List<CompiledOperation> bind(List<CompiledOperation> operations) {
+        List<CompiledOperation> bound = new ArrayList<>(operations.size());
+        for (CompiledOperation operation : operations) {
+            if (operation instanceof CompiledPrintOperation) {
+                bound.add(((CompiledPrintOperation) operation)
+                        .withOutput(output));
+            } else if (operation instanceof CompiledBlockOperation) {
+                CompiledBlockOperation block
+                        = (CompiledBlockOperation) operation;
+                bound.add(block.withBody(bind(block.getBody())));
+            } else if (operation instanceof CompiledIncludeOperation) {
+                CompiledIncludeOperation include
+                        = (CompiledIncludeOperation) operation;
+                bound.add(include.withOperations( 
+                        bind(include.getModule().getOperations())));
+            } else {
+                bound.add(operation);
+            }
+        }
+        return bound;
+    }
+
+
+    private static Path scriptFilePath(String scriptFileName) {
+        Path scriptFile = Paths.get(scriptFileName).toAbsolutePath();
+        try {
+            return scriptFile.toRealPath();
+        } catch (IOException ioex) {
+            // The script is not included by its files (it cannot be read).
+            return scriptFile.normalize();
+        }
+    }
+
+
+    private static WrongScriptExpressionException invalidStatement( 
+            String operationExpression, String message) {
+        return new WrongScriptExpressionException("INCLUDE statement "
+                + "'include " + operationExpression + "' is invalid. "
+                + message);
+    }
+}
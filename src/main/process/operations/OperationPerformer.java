@@ -2,6 +2,8 @@ package main.process.operations;
 
 import java.util.Map;
 import main.process.exceptions.WrongScriptExpressionException;
+import main.process.lexer.ScriptLexer;
+import main.process.variables.SymbolTable;
 
 /**
  * This is an abstract class of an Operation Performer that should perform one 
@@ -26,6 +28,43 @@ public abstract class OperationPerformer {
     public abstract void performOperation(String operationExpression, 
             Map<String, Integer> vars) throws WrongScriptExpressionException;
     
+    /**
+     * Compiles script operation once so that it can be performed any number 
+     * of times without parsing the script language expression again.
+     * 
+     * @param operationExpression a script language expression that should be 
+     * compiled.
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled script operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    public abstract CompiledOperation compileOperation(
+            String operationExpression, SymbolTable symbols) 
+            throws WrongScriptExpressionException;
+    
+    /**
+     * Compiles script operation expression that is a part of a script line 
+     * (see {@link #compileOperation(String, SymbolTable)}). Performers may 
+     * override it to compile the expression without creating its substring.
+     * 
+     * @param scriptLine script line that contains the expression.
+     * @param start start offset of the expression in the line.
+     * @param end end offset of the expression in the line (exclusive).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled script operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    public CompiledOperation compileOperation(String scriptLine, int start, 
+            int end, SymbolTable symbols) 
+            throws WrongScriptExpressionException {
+        return compileOperation(scriptLine.substring(start, end).strip(), 
+                symbols);
+    }
+    
     /**
      * Checks whether a script variable has allowed name.
      * 
@@ -33,7 +72,6 @@ public abstract class OperationPerformer {
      * @return true if the variable name is allowed, false otherwise.
      */
     protected boolean isAllowedVarName (String name) {
-        String wrongSymbols = name.strip().replaceAll("[a-zA-z$0-9]", "");
-        return wrongSymbols.isEmpty();
+        return ScriptLexer.isAllowedVarName(name, 0, name.length());
     }
 }
@@ -0,0 +1,39 @@
+package main.process.operations;
+
+import main.io.OutputSink;
+
+/**
+ * Service provider interface of a custom script operation. Providers are 
+ * found with {@link java.util.ServiceLoader} (listed in the 
+ * "META-INF/services/main.process.operations.OperationProvider" file of a jar 
+ * or a classes directory on the class path) when the first script line with 
+ * an operator that is not built in is met, and the performer of a provider is 
+ * created when a Script Interpreter meets its operator for the first time.
+ *
+ * Custom operations are executed line by line in the compiled and reference 
+ * modes, and the whole-script modes execute them without optimizing the 
+ * script. Custom operations may read script variables and print lines, but 
+ * must not assign script variables. They cannot be stored in compiled script 
+ * files and are not supported in the watch mode. The built-in operators 
+ * ("print", "set" and "#") cannot be replaced.
+ *
+ * @author SoundlyGifted
+ */
+public interface OperationProvider {
+
+    /**
+     * @return the operator of the script operation, i.e. the first word of 
+     * the script line (with no whitespace in it).
+     */
+    String getOperator();
+
+    /**
+     * Creates the performer of the script operation.
+     *
+     * @param output output sink that receives the lines printed by the 
+     * script.
+     * @return the performer (it must be thread-safe if the Script Interpreter 
+     * is used concurrently).
+     */
+    OperationPerformer createPerformer(OutputSink output);
+}
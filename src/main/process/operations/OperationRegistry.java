@@ -0,0 +1,355 @@
+package main.process.operations;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import main.io.OutputSink;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.lexer.ScriptLexer;
+import main.process.modules.ModuleStore;
+import main.process.variables.SymbolTable;
+
+/**
+ * This class maps script operators to the performers of the script 
+ * operations. Built-in operators are found by a switch on the first operator 
+ * character, and custom operators ({@link OperationProvider}) are found in 
+ * the short lists of providers with the same first character, so finding the 
+ * performer of a script line does not create objects. The built-in operators 
+ * are "print", "set", "array", "include", the comment "#" and the control 
+ * operators "while", "if" and "end".
+ *
+ * @author SoundlyGifted
+ */
+public final class OperationRegistry {
+
+    // Performers of the control operations (they keep no state).
+    private static final ControlOperationPerformer WHILE_PERFORMER 
+            = new ControlOperationPerformer(CompiledControlOperation.Kind.WHILE);
+    private static final ControlOperationPerformer IF_PERFORMER 
+            = new ControlOperationPerformer(CompiledControlOperation.Kind.IF);
+    private static final ControlOperationPerformer END_PERFORMER 
+            = new ControlOperationPerformer(CompiledControlOperation.Kind.END);
+
+    private final OutputSink output;
+    private final PrintOperationPerformer printPerformer;
+    private final SetOperationPerformer setPerformer;
+    private final ArrayOperationPerformer arrayPerformer;
+    private final IncludeOperationPerformer includePerformer;
+
+    /* Performers of the custom operations (in the order of the providers), 
+     * created when their operators are met for the first time.
+     */
+    private volatile AtomicReferenceArray<OperationPerformer> customPerformers;
+
+    /**
+     * Creates OperationRegistry instance that resolves the files included by 
+     * the script relative to the current directory and compiles them in the 
+     * default charset (the compiled files are not shared with other 
+     * registries).
+     *
+     * @param output output sink that receives the lines printed by the 
+     * script (passed to the performers of custom operations).
+     * @param printPerformer performer of the "print" operations.
+     * @param setPerformer performer of the "set" operations.
+     * @param arrayPerformer performer of the "array" operations.
+     */
+    public OperationRegistry(OutputSink output, 
+            PrintOperationPerformer printPerformer, 
+            SetOperationPerformer setPerformer, 
+            ArrayOperationPerformer arrayPerformer) {
+        this(output, printPerformer, setPerformer, arrayPerformer, 
+                new ModuleStore(Charset.defaultCharset()), null);
+    }
+
+
+    /**
+     * Creates OperationRegistry instance.
+     *
+     * @param output output sink that receives the lines printed by the 
+     * script (passed to the performers of custom operations).
+     * @param printPerformer performer of the "print" operations.
+     * @param setPerformer performer of the "set" operations.
+     * @param arrayPerformer performer of the "array" operations.
+     * @param modules store of the compiled files included by the script.
+     * @param scriptFileName name of the script file the included files are 
+     * resolved relative to, or null if the script is not read from a file.
+     */
+    public OperationRegistry(OutputSink output, 
+            PrintOperationPerformer printPerformer, 
+            SetOperationPerformer setPerformer, 
+            ArrayOperationPerformer arrayPerformer, ModuleStore modules, 
+            String scriptFileName) {
+        this.output = output;
+        this.printPerformer = printPerformer;
+        this.setPerformer = setPerformer;
+        this.arrayPerformer = arrayPerformer;
+        includePerformer = new IncludeOperationPerformer(this, output, 
+                modules, scriptFileName);
+    }
+
+
+    // Creates the registry that compiles the lines of an included file.
+    private OperationRegistry(OperationRegistry registry, Path file) {
+        output = registry.output;
+        printPerformer = registry.printPerformer;
+        setPerformer = registry.setPerformer;
+        arrayPerformer = registry.arrayPerformer;
+        includePerformer = registry.includePerformer.forIncludedFile(this, 
+                file);
+    }
+
+
+    /* Returns the registry that compiles the lines of the included file (its 
+     * "include" lines are resolved relative to the directory of the file).
+     */
+    OperationRegistry forIncludedFile(Path file) {
+        return new OperationRegistry(this, file);
+    }
+
+
+    /**
+     * Finds the performer of the script operation by its operator.
+     *
+     * @param scriptLine the script line.
+     * @param start start offset of the operator in the line.
+     * @param end end offset of the operator in the line (exclusive).
+     * @return the performer, or null if the operation is ignored (comment).
+     * @throws main.process.exceptions.UnsupportedScriptOperationException is 
+     * thrown when the script operation is not supported in the application.
+     */
+    public OperationPerformer getPerformer(String scriptLine, int start, 
+            int end) throws UnsupportedScriptOperationException {
+        int length = end - start;
+        if (length > 0) {
+            switch (scriptLine.charAt(start)) {
+                case 'p':
+                    if (matches(scriptLine, start, length, "print")) {
+                        return printPerformer;
+                    }
+                    break;
+                case 's':
+                    if (matches(scriptLine, start, length, "set")) {
+                        return setPerformer;
+                    }
+                    break;
+                case 'a':
+                    if (matches(scriptLine, start, length, "array")) {
+                        return arrayPerformer;
+                    }
+                    break;
+                case 'w':
+                    if (matches(scriptLine, start, length, "while")) {
+                        return WHILE_PERFORMER;
+                    }
+                    break;
+                case 'i':
+                    if (matches(scriptLine, start, length, "if")) {
+                        return IF_PERFORMER;
+                    }
+                    if (matches(scriptLine, start, length, "include")) {
+                        return includePerformer;
+                    }
+                    break;
+                case 'e':
+                    if (matches(scriptLine, start, length, "end")) {
+                        return END_PERFORMER;
+                    }
+                    break;
+                case '#':
+                    // This is a comment in the script (ignored).
+                    if (length == 1) {
+                        return null;
+                    }
+                    break;
+                default: 
+                    break;
+            }
+
+            int index = Providers.find(scriptLine, start, length);
+            if (index >= 0) {
+                return getCustomPerformer(index);
+            }
+        }
+        throw new UnsupportedScriptOperationException("Such operation as '"
+                + scriptLine.substring(start, end)
+                + "' is not supported. Program will terminate");
+    }
+
+
+    /**
+     * Parses and compiles one script line.
+     * 
+     * @param scriptLine the script line (statement).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled operation, or null if the line is blank or a comment.
+     * @throws main.process.exceptions.UnsupportedScriptOperationException is 
+     * thrown when the script operation is not supported in the application.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    public CompiledOperation compileLine(String scriptLine, 
+            SymbolTable symbols) throws UnsupportedScriptOperationException, 
+            WrongScriptExpressionException {
+        // Ignoring blank lines (empty script language statements).
+        if (scriptLine == null) {
+            return null;
+        }
+        int start = ScriptLexer.stripStart(scriptLine, 0, scriptLine.length());
+        int end = ScriptLexer.stripEnd(scriptLine, start, scriptLine.length());
+        if (start == end) {
+            return null;
+        }
+        
+        int operatorEnd = operatorEnd(scriptLine, start, end);
+        OperationPerformer performer 
+                = getPerformer(scriptLine, start, operatorEnd);
+        if (performer == null) {
+            return null;
+        }
+        return performer.compileOperation(scriptLine, 
+                ScriptLexer.stripStart(scriptLine, operatorEnd, end), end, 
+                symbols);
+    }
+
+
+    /**
+     * Returns the end offset of the operator: the operator is followed by a 
+     * space and the operation expression (the offsets are used instead of 
+     * substrings).
+     *
+     * @param scriptLine the script line.
+     * @param start start offset of the operator in the line.
+     * @param end end offset of the stripped line (exclusive).
+     * @return end offset of the operator (exclusive).
+     */
+    public static int operatorEnd(String scriptLine, int start, int end) {
+        int operatorEnd = scriptLine.indexOf(' ', start);
+        return (operatorEnd < 0 || operatorEnd >= end) ? end : operatorEnd;
+    }
+
+
+    /**
+     * Checks whether the operation is a built-in operation: "print", "set", 
+     * "array", a block of built-in operations or a line of a block with a 
+     * syntax error.
+     * 
+     * @param operation compiled script operation.
+     * @return true if the operation is built in, false if it is a custom or 
+     * an "include" operation, a block that contains one, or a single control 
+     * line.
+     */
+    public static boolean isBuiltIn(CompiledOperation operation) {
+        if (operation instanceof CompiledBlockOperation) {
+            for (CompiledOperation bodyOperation 
+                    : ((CompiledBlockOperation) operation).getBody()) {
+                if (!isBuiltIn(bodyOperation)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return operation instanceof CompiledSetOperation 
+                || operation instanceof CompiledPrintOperation 
+                || operation instanceof CompiledArrayOperation 
+                || operation instanceof CompiledErrorOperation;
+    }
+
+
+    // Creates the performer of the custom operation if it is not created yet.
+    private OperationPerformer getCustomPerformer(int index) {
+        AtomicReferenceArray<OperationPerformer> performers
+                = customPerformers;
+        if (performers == null) {
+            synchronized (this) {
+                if (customPerformers == null) {
+                    customPerformers = new AtomicReferenceArray<>( 
+                            Providers.PROVIDERS.length);
+                }
+                performers = customPerformers;
+            }
+        }
+        OperationPerformer performer = performers.get(index);
+        if (performer == null) {
+            performers.compareAndSet(index, null, 
+                    Providers.PROVIDERS[index].createPerformer(output));
+            performer = performers.get(index);
+        }
+        return performer;
+    }
+
+
+    private static boolean matches(String scriptLine, int start, int length, 
+            String operator) {
+        return length == operator.length()
+                && scriptLine.regionMatches(start, operator, 0, length);
+    }
+
+
+    /* Providers of the custom operations, loaded when the first operator that
+     * is not built in is met (the class is initialized on first use).
+     */
+    private static final class Providers {
+
+        // Index of the provider lists of the operators that are not ASCII.
+        private static final int OTHER = 128;
+
+        private static final OperationProvider[] PROVIDERS = load();
+
+        // Indexes of the providers by the first character of the operator.
+        private static final int[][] BY_FIRST_CHAR = index();
+
+
+        static int find(String scriptLine, int start, int length) {
+            char first = scriptLine.charAt(start);
+            for (int index : BY_FIRST_CHAR[Math.min(first, OTHER)]) {
+                if (matches(scriptLine, start, length, 
+                        PROVIDERS[index].getOperator())) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+
+        /* Loads the providers, skipping the ones with empty operators, 
+         * operators with whitespace, built-in operators and operators of the 
+         * preceding providers.
+         */
+        private static OperationProvider[] load() {
+            List<OperationProvider> providers = new ArrayList<>();
+            List<String> operators = new ArrayList<>( 
+                    Arrays.asList("print", "set", "array", "include", "#", 
+                            "while", "if", "end"));
+            for (OperationProvider provider
+                    : ServiceLoader.load(OperationProvider.class)) {
+                String operator = provider.getOperator();
+                if (operator != null && !operator.isEmpty()
+                        && operator.chars().noneMatch(Character::isWhitespace)
+                        && !operators.contains(operator)) {
+                    operators.add(operator);
+                    providers.add(provider);
+                }
+            }
+            return providers.toArray(new OperationProvider[0]);
+        }
+
+
+        private static int[][] index() {
+            int[][] byFirstChar = new int[OTHER + 1][0];
+            for (int i = 0; i < PROVIDERS.length; i++) {
+                int first = Math.min(PROVIDERS[i].getOperator().charAt(0), 
+                        OTHER);
+                byFirstChar[first] = Arrays.copyOf(byFirstChar[first], 
+                        byFirstChar[first].length + 1);
+                byFirstChar[first][byFirstChar[first].length - 1] = i;
+            }
+            return byFirstChar;
+        }
+    }
+}
@@ -1,36 +1,292 @@
 package main.process.operations;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import main.io.OutputSink;
+import main.io.PrintStreamOutputSink;
 import main.process.exceptions.WrongScriptExpressionException;
+import main.process.lexer.ScriptLexer;
+import main.process.lexer.TokenKind;
+import main.process.variables.SymbolTable;
 
 /**
- * This class performs "print" script operation.
+ * This class performs "print" script operation. A variable that holds an 
+ * array is printed as "[1, 2, 3]", and a slice of the array can be printed 
+ * by adding the bounds to the variable name: "$a[2:5]" prints the elements 
+ * from index 2 to index 5 exclusive (bounds are limited by the array length, 
+ * omitted bounds are the start and the end of the array, and a slice of a 
+ * variable that does not hold an array is printed as {@link #NULL_VALUE}).
  * 
  * @author SoundlyGifted
  */
 public class PrintOperationPerformer extends OperationPerformer {
+    
+    // String printed instead of a value of a variable that is not assigned.
+    public static final String NULL_VALUE = "[null]";
+
+    // Output sink that receives the printed lines.
+    private final OutputSink output;
+    
+    // Lexers of compiled "print" expressions (one per thread).
+    private final ThreadLocal<ScriptLexer> lexers 
+            = ThreadLocal.withInitial(ScriptLexer::new);
 
     /**
      * Default PrintOperationPerformer constructor that creates instance of 
-     * PrintOperationPerformer.
+     * PrintOperationPerformer that prints to the standard output.
      */
-    public PrintOperationPerformer() {}
+    public PrintOperationPerformer() {
+        this(new PrintStreamOutputSink(System.out));
+    }
+    
+    /**
+     * Creates instance of PrintOperationPerformer that prints to the given 
+     * output sink.
+     * 
+     * @param output output sink that receives the printed lines.
+     */
+    public PrintOperationPerformer(OutputSink output) {
+        this.output = output;
+    }
     
     @Override
     public void performOperation(String operationExpression, 
             Map<String, Integer> vars) throws WrongScriptExpressionException {
+        performOperation(operationExpression, vars, Collections.emptyMap());
+    }
+    
+    
+    /**
+     * Performs "print" script operation that can print arrays.
+     * 
+     * @param operationExpression the script operation expression.
+     * @param vars current variable/value mapping of script variables.
+     * @param arrays current variable/array mapping of script variables.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars, Map<String, int[]> arrays) 
+            throws WrongScriptExpressionException {
         if (operationExpression == null || operationExpression.strip().isEmpty()) {
             // Print blank line.
-            System.out.println();
+            output.printLine("");
             return;
         }
-        operationExpression = operationExpression.strip();
 
-        // Collection of parsed strings.
-        Collection<String> printStrings = new ArrayList<>();
+        // Collection of parsed strings and variable names.
+        List<String> printStrings = new ArrayList<>();
+        List<Boolean> varNameFlags = new ArrayList<>();
+        parseOperation(operationExpression.strip(), printStrings, varNameFlags);
 
+        // Printing the result of the script operation expression.
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < printStrings.size(); i++) {
+            if (varNameFlags.get(i)) {
+                /* Resolving variable name into its value (or array) via the
+                 * variables mapping.
+                 */
+                String varName = printStrings.get(i);
+                int sliceStart = ScriptLexer.sliceStart(varName, 0, 
+                        varName.length());
+                if (sliceStart >= 0) {
+                    int[] array = arrays.get(varName.substring(0, sliceStart));
+                    if (array != null) {
+                        appendArray(sb, array, ScriptLexer.sliceBound(varName, 
+                                sliceStart, varName.length(), false), 
+                                ScriptLexer.sliceBound(varName, sliceStart, 
+                                        varName.length(), true));
+                    } else {
+                        sb.append(NULL_VALUE);
+                    }
+                    continue;
+                }
+                Integer varValue = vars.get(varName);
+                if (varValue != null) {
+                    sb.append(varValue.toString());
+                } else if (arrays.containsKey(varName)) {
+                    appendArray(sb, arrays.get(varName), 0, -1);
+                } else {
+                    sb.append(NULL_VALUE);
+                }
+            } else {
+                sb.append(printStrings.get(i));
+            }
+        }
+        output.printLine(sb);
+    }
+    
+    
+    @Override
+    public CompiledPrintOperation compileOperation(String operationExpression,
+            SymbolTable symbols) throws WrongScriptExpressionException {
+        if (operationExpression == null) {
+            return new CompiledPrintOperation(new String[0], new boolean[0], 
+                    new int[0], output);
+        }
+        return compileOperation(operationExpression, 0, 
+                operationExpression.length(), symbols);
+    }
+    
+    
+    /**
+     * Compiles "print" script operation expression that is a part of a script
+     * line. The expression is scanned once by the lexer, and only the strings
+     * to print are created.
+     * 
+     * @param scriptLine script line that contains the expression.
+     * @param start start offset of the expression in the line.
+     * @param end end offset of the expression in the line (exclusive).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled "print" operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    @Override
+    public CompiledPrintOperation compileOperation(String scriptLine, 
+            int start, int end, SymbolTable symbols) 
+            throws WrongScriptExpressionException {
+        start = ScriptLexer.stripStart(scriptLine, start, end);
+        end = ScriptLexer.stripEnd(scriptLine, start, end);
+        ScriptLexer lexer = lexers.get();
+        switch (lexer.scanPrintExpression(scriptLine, start, end)) {
+            case ScriptLexer.PRINT_WRONG_VAR_NAMING:
+                throw new WrongScriptExpressionException("print statement "
+                        + "'print " + scriptLine.substring(start, end) 
+                        + "' is invalid. Check variable naming.");
+            case ScriptLexer.PRINT_WRONG_SYNTAX:
+                throw new WrongScriptExpressionException("print statement "
+                        + "'print " + scriptLine.substring(start, end) 
+                        + "' is invalid. Check syntax.");
+            case ScriptLexer.PRINT_OPEN_QUOTE:
+                throw new WrongScriptExpressionException("print command "
+                        + "'print " + scriptLine.substring(start, end) 
+                        + "' is invalid. Check quote marks.");
+            default:
+                break;
+        }
+        
+        String[] printStrings = new String[lexer.size()];
+        boolean[] flags = new boolean[printStrings.length];
+        int[] slots = new int[printStrings.length];
+        
+        /* Slice bounds (created for the first slice): start index -1 if the 
+         * item is not a slice, end index -1 for the end of the array.
+         */
+        int[] sliceFrom = null;
+        int[] sliceTo = null;
+        for (int i = 0; i < printStrings.length; i++) {
+            flags[i] = lexer.getKind(i) == TokenKind.VARIABLE;
+            if (flags[i]) {
+                int varEnd = lexer.getEnd(i);
+                int sliceStart = ScriptLexer.sliceStart(scriptLine, 
+                        lexer.getStart(i), varEnd);
+                if (sliceStart >= 0) {
+                    if (sliceFrom == null) {
+                        sliceFrom = new int[printStrings.length];
+                        sliceTo = new int[printStrings.length];
+                        Arrays.fill(sliceFrom, -1);
+                    }
+                    sliceFrom[i] = Math.max(ScriptLexer.sliceBound(scriptLine,
+                            sliceStart, varEnd, false), 0);
+                    sliceTo[i] = ScriptLexer.sliceBound(scriptLine, 
+                            sliceStart, varEnd, true);
+                    varEnd = sliceStart;
+                }
+                slots[i] = symbols.slotOf(scriptLine, lexer.getStart(i), 
+                        varEnd);
+                printStrings[i] = symbols.getName(slots[i]);
+            } else {
+                printStrings[i] = lexer.getTokenText(i);
+            }
+        }
+        return new CompiledPrintOperation(printStrings, flags, slots, 
+                sliceFrom, sliceTo, output);
+    }
+    
+    
+    /**
+     * Creates a compiled "print" operation from already parsed print strings
+     * (i.e., loaded from a compiled script) that prints to the output sink of
+     * this performer.
+     * 
+     * @param printStrings strings and variable names to print.
+     * @param varNameFlags flags that tell which of the print strings are 
+     * variable names.
+     * @param varSlots slots of the printed variables.
+     * @return the compiled operation.
+     */
+    public CompiledPrintOperation createOperation(String[] printStrings, 
+            boolean[] varNameFlags, int[] varSlots) {
+        return createOperation(printStrings, varNameFlags, varSlots, null, 
+                null);
+    }
+    
+    
+    /**
+     * Creates a compiled "print" operation that prints array slices from 
+     * already parsed print strings.
+     * 
+     * @param printStrings strings and variable names to print.
+     * @param varNameFlags flags that tell which of the print strings are 
+     * variable names.
+     * @param varSlots slots of the printed variables.
+     * @param sliceFrom start indexes of the printed slices (-1 for the items 
+     * that are not slices), or null if no slices are printed.
+     * @param sliceTo end indexes of the printed slices (-1 for the end of the 
+     * array), or null if no slices are printed.
+     * @return the compiled operation.
+     */
+    public CompiledPrintOperation createOperation(String[] printStrings, 
+            boolean[] varNameFlags, int[] varSlots, int[] sliceFrom, 
+            int[] sliceTo) {
+        return new CompiledPrintOperation(printStrings, varNameFlags, varSlots,
+                sliceFrom, sliceTo, output);
+    }
+    
+    
+    /**
+     * Appends the elements of the array (or of its slice) to the line as 
+     * "[1, 2, 3]". Elements are appended as primitive ints into the line 
+     * buffer, which is grown once for the whole slice, so no string is 
+     * created for an element.
+     * 
+     * @param sb the line.
+     * @param array the array.
+     * @param from start index of the slice (limited by the array length), or
+     * -1 for the start of the array.
+     * @param to end index of the slice (exclusive, limited by the array 
+     * length), or -1 for the end of the array.
+     */
+    public static void appendArray(StringBuilder sb, int[] array, int from, 
+            int to) {
+        from = Math.min(Math.max(from, 0), array.length);
+        to = (to < 0) ? array.length : Math.max(Math.min(to, array.length), 
+                from);
+        sb.ensureCapacity(sb.length() + 2 + (to - from) * 13);
+        sb.append('[');
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',').append(' ');
+            }
+            sb.append(array[i]);
+        }
+        sb.append(']');
+    }
+    
+    
+    /* Parses "print" script operation expression into the strings to print and
+     * the names of variables which values should be printed (in the order of 
+     * printing). For each parsed string a flag is added that tells whether 
+     * this is a variable name.
+     */
+    private void parseOperation(String operationExpression, 
+            List<String> printStrings, List<Boolean> varNameFlags) 
+            throws WrongScriptExpressionException {
         char[] chars = operationExpression.toCharArray();
         StringBuffer sb = new StringBuffer();
 
@@ -62,6 +318,7 @@ public class PrintOperationPerformer extends OperationPerformer {
                         break;
                     }
                     printStrings.add(sb.toString());
+                    varNameFlags.add(false);
                     sb.setLength(0);
                     commaMet = false;
                 }
@@ -82,6 +339,7 @@ public class PrintOperationPerformer extends OperationPerformer {
                                 break;
                             }
                             printStrings.add(sb.toString());
+                            varNameFlags.add(false);
                             sb.setLength(0);
                             commaMet = false;
                         }
@@ -90,16 +348,11 @@ public class PrintOperationPerformer extends OperationPerformer {
                     if (c == ',') {
                         if (nowReadingVarName && !sb.isEmpty()) {
                             String varName = sb.toString().strip();
-                            if (isAllowedVarName(varName)) {
-                                /* Rresolvind varName into its value via the 
-                                 * class field.
-                                 */
-                                Integer varValue = vars.get(varName);
-                                if (varValue != null) {
-                                    printStrings.add(varValue.toString());
-                                } else {
-                                    printStrings.add("[null]");
-                                }
+                            if (isAllowedVarName(varName) 
+                                    || ScriptLexer.sliceStart(varName, 0, 
+                                            varName.length()) >= 0) {
+                                printStrings.add(varName);
+                                varNameFlags.add(true);
                                 commaMet = false;
                             } else {
                                 wrongVarNamingDetected = true;
@@ -139,16 +392,11 @@ public class PrintOperationPerformer extends OperationPerformer {
                         nowReadingVarName = false;
                         if (!sb.isEmpty()) {
                             String varName = sb.toString().strip();
-                            if (isAllowedVarName(varName)) {
-                                /* resolvind varName into its value via the 
-                                 * class field.
-                                 */
-                                Integer varValue = vars.get(varName);
-                                if (varValue != null) {
-                                    printStrings.add(varValue.toString());
-                                } else {
-                                    printStrings.add("[null]");
-                                }
+                            if (isAllowedVarName(varName) 
+                                    || ScriptLexer.sliceStart(varName, 0, 
+                                            varName.length()) >= 0) {
+                                printStrings.add(varName);
+                                varNameFlags.add(true);
                                 commaMet = false;
                             } else {
                                 wrongVarNamingDetected = true;
@@ -175,14 +423,5 @@ public class PrintOperationPerformer extends OperationPerformer {
             throw new WrongScriptExpressionException("print command 'print " 
                     + operationExpression + "' is invalid. Check quote marks.");               
         }
-
-        // Printing the result of the script operation expression.
-        sb.setLength(0);
-        if (!printStrings.isEmpty()) {
-            for (String str : printStrings) {
-                sb.append(str);
-            }
-        }
-        System.out.println(sb.toString());
     }
-}
\ No newline at end of file
+}
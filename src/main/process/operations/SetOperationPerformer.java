@@ -10,6 +10,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import main.process.exceptions.WrongScriptExpressionException;
+import main.process.expressions.BinaryOperation;
+import main.process.expressions.BinaryOperator;
+import main.process.expressions.Expression;
+import main.process.expressions.NumberLiteral;
+import main.process.expressions.VariableReference;
+import main.process.lexer.ScriptLexer;
+import main.process.lexer.TokenKind;
+import main.process.variables.SymbolTable;
+import main.process.variables.VariableFrame;
 
 /**
  * This class performs "set" script operation.
@@ -21,6 +30,10 @@ public class SetOperationPerformer extends OperationPerformer{
     // Collection of SET operation math operators supported in the application.
     private final Collection<String> SET_OPERATION_OPERATORS;
     
+    // Parsers of compiled "set" expressions (one per thread).
+    private final ThreadLocal<ExpressionParser> parsers 
+            = ThreadLocal.withInitial(ExpressionParser::new);
+    
     /**
      * Creates SetOperationPerformer instance and initializes private field
      * that contains supported SET operation math operators.
@@ -85,6 +98,56 @@ public class SetOperationPerformer extends OperationPerformer{
     }
     
     
+    /**
+     * Performs "set" script operation with the arrays of script variables. 
+     * While no variable holds an array, the operation is performed on the 
+     * values mapping by {@link #performOperation(String, Map)}. Otherwise it 
+     * is compiled and performed on the referenced variables, so that an array 
+     * is evaluated element by element (see {@link CompiledSetOperation}), and 
+     * the assigned variable is moved to the values or to the arrays mapping.
+     * 
+     * @param operationExpression the script operation expression.
+     * @param vars current variable/value mapping of script variables.
+     * @param arrays current variable/array mapping of script variables 
+     * (variables that have a value have no array, and vice versa).
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax or cannot be 
+     * performed with the current variables.
+     */
+    public void performOperation(String operationExpression, 
+            Map<String, Integer> vars, Map<String, int[]> arrays)
+            throws WrongScriptExpressionException {
+        if (arrays.isEmpty()) {
+            performOperation(operationExpression, vars);
+            return;
+        }
+        SymbolTable symbols = new SymbolTable();
+        CompiledSetOperation operation
+                = compileOperation(operationExpression, symbols);
+        VariableFrame frame = new VariableFrame(symbols.size());
+        for (int slot = 0; slot < symbols.size(); slot++) {
+            String name = symbols.getName(slot);
+            Integer value = vars.get(name);
+            if (value != null) {
+                frame.set(slot, value);
+            } else if (arrays.containsKey(name)) {
+                frame.setArray(slot, arrays.get(name));
+            }
+        }
+        operation.perform(frame);
+
+        int slot = operation.getVarToAssignSlot();
+        String varToAssign = operation.getVarToAssign();
+        if (frame.isAssigned(slot)) {
+            vars.put(varToAssign, frame.get(slot));
+            arrays.remove(varToAssign);
+        } else {
+            arrays.put(varToAssign, frame.getArray(slot));
+            vars.remove(varToAssign);
+        }
+    }
+    
+    
     private Entry<Entry<String, List<String>>, Map<Integer, Integer>> 
         parseSetExpression(String operationExpression, Map<String, Integer> vars) 
                 throws WrongScriptExpressionException {
@@ -108,48 +171,9 @@ public class SetOperationPerformer extends OperationPerformer{
          */
         Map<Integer, Integer> openBracketIndexes;
         
-        if (!operationExpression.contains("=")) {
-            throw new WrongScriptExpressionException("Invalid set statement. "
-                    + "Must contain assignment operator '='.");
-        } else {
-            if (operationExpression
-                    .substring(operationExpression.indexOf("=") + 1)
-                    .contains("=")) {
-                throw new WrongScriptExpressionException("Invalid set "
-                        + "statement. Must contain only one assignment operator"
-                        + " '='.");
-            }
-        }
-
-        // Defining variable name to assign the value by this SET operation.
-        // Defining expression to assign to the variable by this SET operation.
-        String[] partsOfSet = operationExpression.strip().split("=");
-        if (partsOfSet.length == 0) {
-            throw new WrongScriptExpressionException("Invalid set statement. "
-                    + "No variable for value assignment in SET operation");
-        } else if (partsOfSet.length == 1) {
-            throw new WrongScriptExpressionException("Invalid set statement. "
-                    + "No value to be assigned in SET assignment operation");
-        }
-        // Checking variable name for the variable to be assigned.
-        varToAssign = partsOfSet[0].strip();
-        String expressionToBeAssigned = partsOfSet[1].strip();
-        if (!isAllowedVarName(varToAssign)) {
-            throw new WrongScriptExpressionException("Invalid set statement. "
-                    + "Variable '" + varToAssign + "' is not a valid variable "
-                    + "name.");
-        }
-
-        // Adding spaces around brackets for proper further split into array.
-        expressionToBeAssigned
-                = expressionToBeAssigned
-                        .replace("(", " ( ")
-                        .replace(")", " ) ")
-                        .strip();
-
-        // Parsing expression to assign to the variable.
-        expMembers = new ArrayList<>(Arrays.asList(expressionToBeAssigned
-                        .replaceAll("\\s+", " ").split(" ")));
+        String[] assignment = splitAssignment(operationExpression);
+        varToAssign = assignment[0];
+        expMembers = splitExpressionMembers(assignment[1]);
 
         // Variables to define errors in script operation expression.
         String wrongVarName = null;
@@ -274,6 +298,392 @@ public class SetOperationPerformer extends OperationPerformer{
     }
 
 
+    // Splits SET operation into the variable name and the expression parts.
+    private String[] splitAssignment(String operationExpression) 
+            throws WrongScriptExpressionException {
+        if (!operationExpression.contains("=")) {
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "Must contain assignment operator '='.");
+        } else {
+            if (operationExpression
+                    .substring(operationExpression.indexOf("=") + 1)
+                    .contains("=")) {
+                throw new WrongScriptExpressionException("Invalid set "
+                        + "statement. Must contain only one assignment operator"
+                        + " '='.");
+            }
+        }
+
+        // Defining variable name to assign the value by this SET operation.
+        // Defining expression to assign to the variable by this SET operation.
+        String[] partsOfSet = operationExpression.strip().split("=");
+        if (partsOfSet.length == 0) {
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "No variable for value assignment in SET operation");
+        } else if (partsOfSet.length == 1) {
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "No value to be assigned in SET assignment operation");
+        }
+        // Checking variable name for the variable to be assigned.
+        String varToAssign = partsOfSet[0].strip();
+        String expressionToBeAssigned = partsOfSet[1].strip();
+        if (!isAllowedVarName(varToAssign)) {
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "Variable '" + varToAssign + "' is not a valid variable "
+                    + "name.");
+        }
+
+        return new String[] {varToAssign, expressionToBeAssigned};
+    }
+    
+    
+    // Splits expression to assign to the variable into expression members.
+    private List<String> splitExpressionMembers(String expressionToBeAssigned) {
+        // Adding spaces around brackets for proper further split into array.
+        expressionToBeAssigned
+                = expressionToBeAssigned
+                        .replace("(", " ( ")
+                        .replace(")", " ) ")
+                        .strip();
+
+        return new ArrayList<>(Arrays.asList(expressionToBeAssigned
+                        .replaceAll("\\s+", " ").split(" ")));
+    }
+
+
+    /**
+     * Compiles "set" script operation expression once into an immutable 
+     * expression tree that can be performed without parsing the script text 
+     * again. Errors found before any variable reference in the expression are 
+     * thrown immediately, other errors are raised when the compiled operation 
+     * is performed (the same way as the reference engine would raise them).
+     * 
+     * @param operationExpression a "set" script language expression.
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled "set" operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    @Override
+    public CompiledSetOperation compileOperation(String operationExpression, 
+            SymbolTable symbols) throws WrongScriptExpressionException {
+        // SET operation expression must not be null or empty.
+        if (operationExpression == null) {
+            throw new WrongScriptExpressionException("Empty set expression is "
+                    + "not allowed.");
+        }
+        return compileOperation(operationExpression, 0, 
+                operationExpression.length(), symbols);
+    }
+    
+    
+    /**
+     * Compiles "set" script operation expression that is a part of a script 
+     * line (see {@link #compileOperation(String, SymbolTable)}). The 
+     * expression is scanned once by the lexer, and only the strings kept by 
+     * the compiled operation are created.
+     * 
+     * @param scriptLine script line that contains the expression.
+     * @param start start offset of the expression in the line.
+     * @param end end offset of the expression in the line (exclusive).
+     * @param symbols symbol table that resolves script variable names into 
+     * variable slots.
+     * @return compiled "set" operation.
+     * @throws main.process.exceptions.WrongScriptExpressionException is thrown 
+     * when the script operation expression has wrong syntax.
+     */
+    @Override
+    public CompiledSetOperation compileOperation(String scriptLine, int start, 
+            int end, SymbolTable symbols) 
+            throws WrongScriptExpressionException {
+        // SET operation expression must not be null or empty.
+        int strippedStart = ScriptLexer.stripStart(scriptLine, start, end);
+        int strippedEnd = ScriptLexer.stripEnd(scriptLine, strippedStart, end);
+        if (strippedStart == strippedEnd) {
+            throw new WrongScriptExpressionException("Empty set expression is "
+                    + "not allowed.");
+        }
+        String operationExpression = scriptLine.substring(start, end);
+        
+        // Splitting SET operation at the assignment operator.
+        int assignment = indexOf(scriptLine, '=', start, end);
+        if (assignment < 0) {
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "Must contain assignment operator '='.");
+        } else if (indexOf(scriptLine, '=', assignment + 1, end) >= 0) {
+            throw new WrongScriptExpressionException("Invalid set "
+                    + "statement. Must contain only one assignment operator"
+                    + " '='.");
+        }
+        if (assignment + 1 == strippedEnd) {
+            if (assignment == strippedStart) {
+                throw new WrongScriptExpressionException("Invalid set "
+                        + "statement. No variable for value assignment in SET "
+                        + "operation");
+            }
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "No value to be assigned in SET assignment operation");
+        }
+        
+        // Checking variable name for the variable to be assigned.
+        int varStart = ScriptLexer.stripStart(scriptLine, strippedStart, 
+                assignment);
+        int varEnd = ScriptLexer.stripEnd(scriptLine, varStart, assignment);
+        if (!ScriptLexer.isAllowedVarName(scriptLine, varStart, varEnd)) {
+            throw new WrongScriptExpressionException("Invalid set statement. "
+                    + "Variable '" + scriptLine.substring(varStart, varEnd) 
+                    + "' is not a valid variable name.");
+        }
+        
+        ExpressionParser parser = parsers.get();
+        ScriptLexer lexer = parser.lexer;
+        int expressionStart = ScriptLexer.stripStart(scriptLine, 
+                assignment + 1, strippedEnd);
+        lexer.scanSetExpression(scriptLine, expressionStart, 
+                ScriptLexer.stripEnd(scriptLine, expressionStart, strippedEnd));
+        
+        /* Validating expression members the same way as the reference engine
+         * does, except that variable values are not resolved here. Distinct 
+         * referenced variables are collected in order of their first 
+         * appearance together with whether they first appear inside brackets.
+         */
+        int wrongVarName = -1;
+        int wrongValueFormat = -1;
+        int valueHasMissingOperator = -1;
+        boolean nowProcessingOperation = false;
+
+        int membersCount = 0; // expression members count - except brackets
+        int bracketsCount = 0;
+        parser.referencedCount = 0;
+
+        for (int i = 0; i < lexer.size(); i++) {
+            TokenKind kind = lexer.getKind(i);
+
+            if (kind == TokenKind.OPEN_BRACKET) {
+                bracketsCount++;
+                continue;
+            } else if (kind == TokenKind.CLOSE_BRACKET) {
+                bracketsCount--;
+                continue;
+            }
+
+            membersCount++;
+            if (kind == TokenKind.VARIABLE) {
+                // Check if previous member was also a number.
+                if (membersCount != 1 && nowProcessingOperation == false) {
+                    valueHasMissingOperator = i;
+                    break;
+                }
+                nowProcessingOperation = false;
+
+                if (ScriptLexer.isAllowedVarName(scriptLine, 
+                        lexer.getStart(i), lexer.getEnd(i))) {
+                    parser.addReference(symbols.slotOf(scriptLine, 
+                            lexer.getStart(i), lexer.getEnd(i)), 
+                            bracketsCount != 0);
+                } else {
+                    wrongVarName = i;
+                    break;
+                }
+            } else if (lexer.getLength(i) == 1) {
+                if (kind == TokenKind.OPERATOR) {
+                    /* Check if previous member was also an operator.
+                     * Check if this operator is the last member of 
+                     * expression.
+                     */
+                    if (nowProcessingOperation 
+                            || membersCount == lexer.size()) {
+                        wrongValueFormat = i;
+                        break;
+                    }
+                    nowProcessingOperation = true;
+                } else {
+                    // Check if previous member was also a number.
+                    if (!lexer.isNumber(i) || (membersCount != 1 
+                            && nowProcessingOperation == false)) {
+                        wrongValueFormat = i;
+                        break;
+                    }
+                    nowProcessingOperation = false;
+                }
+            } else {
+                // Check if previous member was also a number.
+                if (membersCount != 1 && nowProcessingOperation == false) {
+                    valueHasMissingOperator = i;
+                    break;
+                }
+                nowProcessingOperation = false;
+
+                if (!lexer.isNumber(i)) {
+                    wrongValueFormat = i;
+                    break;
+                }
+            }
+        }
+
+        // Errors found in this script during parsing.
+        String error = null;
+        if (bracketsCount != 0) {
+            error = "SET statement 'set " + operationExpression 
+                    + "' is invalid. Check brackets.";
+        } else if (wrongVarName >= 0) {
+            error = "SET statement 'set " + operationExpression 
+                    + "' is invalid. Variable '" 
+                    + lexer.getTokenText(wrongVarName) 
+                    + "' naming is invalid.";
+        } else if (wrongValueFormat >= 0) {
+            error = "SET statement 'set " + operationExpression 
+                    + "' is invalid. Value '" 
+                    + lexer.getTokenText(wrongValueFormat) 
+                    + "' is not a number or a valid variable name.";
+        } else if (valueHasMissingOperator >= 0) {
+            error = "SET statement 'set " + operationExpression 
+                    + "' is invalid. '" 
+                    + lexer.getTokenText(valueHasMissingOperator) 
+                    + "' has no preceding operator.";
+        }
+        
+        // Building the expression tree when no errors were found.
+        Expression expression = null;
+        if (error == null) {
+            expression = parser.build(symbols);
+            if (expression == null) {
+                error = "SET statement 'set " + operationExpression 
+                        + "' is invalid. Check syntax.";
+            }
+        }
+        
+        /* Errors that do not depend on variable values are thrown right away.
+         */
+        if (error != null && parser.referencedCount == 0) {
+            throw new WrongScriptExpressionException(error);
+        }
+        
+        String[] referencedVars = new String[parser.referencedCount];
+        int[] referencedSlots = Arrays.copyOf(parser.referencedSlots, 
+                referencedVars.length);
+        boolean[] inBrackets = Arrays.copyOf(parser.referencedInBrackets, 
+                referencedVars.length);
+        for (int i = 0; i < referencedVars.length; i++) {
+            referencedVars[i] = symbols.getName(referencedSlots[i]);
+        }
+        int varToAssignSlot = symbols.slotOf(scriptLine, varStart, varEnd);
+        return new CompiledSetOperation(operationExpression, 
+                symbols.getName(varToAssignSlot), varToAssignSlot, 
+                referencedVars, referencedSlots, inBrackets, error, 
+                expression);
+    }
+    
+    
+    private static int indexOf(String text, char c, int start, int end) {
+        int index = text.indexOf(c, start);
+        return (index < end) ? index : -1;
+    }
+    
+    
+    /* Builds expression tree from validated expression tokens. Operators are 
+     * resolved in the same order as the reference engine does (i.e., "*", "/",
+     * "-", "+" with each operator applied from left to right). The parser 
+     * keeps its lexer and buffers between the lines (one parser per thread).
+     */
+    private static final class ExpressionParser {
+        
+        // Operators from the lowest priority to the highest.
+        private static final BinaryOperator[] OPERATORS_BY_PRIORITY = {
+            BinaryOperator.ADD, 
+            BinaryOperator.SUBTRACT, 
+            BinaryOperator.DIVIDE, 
+            BinaryOperator.MULTIPLY
+        };
+        
+        private final ScriptLexer lexer = new ScriptLexer();
+        
+        /* Distinct slots of the referenced variables and whether they first 
+         * appear inside brackets.
+         */
+        private int[] referencedSlots = new int[16];
+        private boolean[] referencedInBrackets = new boolean[16];
+        private int referencedCount;
+        
+        private SymbolTable symbols;
+        private int position;
+        
+        private void addReference(int slot, boolean inBrackets) {
+            for (int i = 0; i < referencedCount; i++) {
+                if (referencedSlots[i] == slot) {
+                    return;
+                }
+            }
+            if (referencedCount == referencedSlots.length) {
+                referencedSlots = Arrays.copyOf(referencedSlots, 
+                        referencedCount * 2);
+                referencedInBrackets = Arrays.copyOf(referencedInBrackets, 
+                        referencedCount * 2);
+            }
+            referencedSlots[referencedCount] = slot;
+            referencedInBrackets[referencedCount] = inBrackets;
+            referencedCount++;
+        }
+        
+        // Returns the expression tree, or null if the syntax is wrong.
+        private Expression build(SymbolTable symbols) {
+            this.symbols = symbols;
+            position = 0;
+            Expression expression = buildOperation(0);
+            this.symbols = null;
+            if (expression == null || position != lexer.size()) {
+                return null;
+            }
+            return expression;
+        }
+        
+        private Expression buildOperation(int priority) {
+            if (priority == OPERATORS_BY_PRIORITY.length) {
+                return buildOperand();
+            }
+            BinaryOperator operator = OPERATORS_BY_PRIORITY[priority];
+            Expression left = buildOperation(priority + 1);
+            while (left != null && position < lexer.size() 
+                    && lexer.getKind(position) == TokenKind.OPERATOR 
+                    && BinaryOperator.forSymbol(lexer.getOperatorSymbol(
+                            position)) == operator) {
+                position++;
+                Expression right = buildOperation(priority + 1);
+                left = (right == null) 
+                        ? null : new BinaryOperation(operator, left, right);
+            }
+            return left;
+        }
+        
+        private Expression buildOperand() {
+            if (position == lexer.size()) {
+                return null;
+            }
+            int token = position++;
+            switch (lexer.getKind(token)) {
+                case OPEN_BRACKET:
+                    Expression inBrackets = buildOperation(0);
+                    if (inBrackets == null || position == lexer.size() 
+                            || lexer.getKind(position++) 
+                                    != TokenKind.CLOSE_BRACKET) {
+                        return null;
+                    }
+                    return inBrackets;
+                case VARIABLE:
+                    int slot = symbols.slotOf(lexer.getText(), 
+                            lexer.getStart(token), lexer.getEnd(token));
+                    return new VariableReference(symbols.getName(slot), slot);
+                case CLOSE_BRACKET:
+                case OPERATOR:
+                    return null;
+                default:
+                    return new NumberLiteral(lexer.parseNumber(token));
+            }
+        }
+    }
+
+
     // Calculates expression that contain brackets.
     private Integer calculateExpressionWithBrackets(List<String> expMembers,
             Map<Integer, Integer> openBracketIndexes) {
@@ -0,0 +1,230 @@
+package main.process.optimization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import main.process.expressions.BinaryOperation;
+import main.process.expressions.BinaryOperator;
+import main.process.expressions.Expression;
+import main.process.expressions.NumberLiteral;
+import main.process.expressions.VariableReference;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledPrintOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.PrintOperationPerformer;
+
+/**
+ * This class optimizes a whole compiled script (its compiled operations in 
+ * the script line order) before execution:
+ * 1) constant sub-expressions are folded into numbers and variables with 
+ * known constant values are substituted by the values (in "set" and "print"
+ * operations);
+ * 2) "set" operations which assigned values are never read by the following
+ * operations are removed.
+ * 
+ * The optimized script prints the same lines and raises the same first error.
+ * All "set" operations passed to the optimizer must be valid with the 
+ * variables assigned by the preceding operations (i.e., must not raise 
+ * script errors other than division by zero). The operation that divides by
+ * zero is kept as is, and the operations after it (never performed) are 
+ * removed.
+ * 
+ * @author SoundlyGifted
+ */
+public final class ScriptOptimizer {
+    
+    /* Variable slots that are assigned at the current point of the script, 
+     * and values of the assigned variables if the values are known.
+     */
+    private final boolean[] assignedSlots;
+    private final boolean[] knownSlots;
+    private final int[] knownValues;
+    
+    // Operation that divides by zero (the last performed operation), if any.
+    private CompiledSetOperation divisionByZeroOperation;
+    
+    private ScriptOptimizer(int slotCount) {
+        assignedSlots = new boolean[slotCount];
+        knownSlots = new boolean[slotCount];
+        knownValues = new int[slotCount];
+    }
+    
+    /**
+     * Optimizes the script operations.
+     * 
+     * @param operations compiled script operations in the script line order.
+     * @param slotCount number of script variable slots used by the operations.
+     * @return the optimized script operations (the same operations if the 
+     * script contains operations other than "set" and "print", or prints 
+     * array slices).
+     */
+    public static List<CompiledOperation> optimize(
+            List<CompiledOperation> operations, int slotCount) {
+        for (CompiledOperation operation : operations) {
+            if (!(operation instanceof CompiledSetOperation) 
+                    && !(operation instanceof CompiledPrintOperation
+                            && !((CompiledPrintOperation) operation)
+                                    .hasSlices())) {
+                return operations;
+            }
+        }
+        ScriptOptimizer optimizer = new ScriptOptimizer(slotCount);
+        return optimizer.removeDeadStores(optimizer.foldConstants(operations),
+                slotCount);
+    }
+    
+    
+    /* Folds constants in the operations up to the first operation that 
+     * divides by zero.
+     */
+    private List<CompiledOperation> foldConstants(
+            List<CompiledOperation> operations) {
+        List<CompiledOperation> folded = new ArrayList<>(operations.size());
+        for (CompiledOperation operation : operations) {
+            if (operation instanceof CompiledSetOperation) {
+                CompiledSetOperation setOperation 
+                        = (CompiledSetOperation) operation;
+                Expression expression 
+                        = foldExpression(setOperation.getExpression());
+                if (expression == null) {
+                    // Division by zero: the following operations never run.
+                    divisionByZeroOperation = setOperation;
+                    folded.add(setOperation);
+                    break;
+                }
+                int slot = setOperation.getVarToAssignSlot();
+                assignedSlots[slot] = true;
+                knownSlots[slot] = expression instanceof NumberLiteral;
+                if (knownSlots[slot]) {
+                    knownValues[slot] = ((NumberLiteral) expression).getValue();
+                }
+                folded.add(setOperation.withExpression(expression));
+            } else {
+                folded.add(foldPrint((CompiledPrintOperation) operation));
+            }
+        }
+        return folded;
+    }
+    
+    
+    /* Returns the folded expression, or null if evaluating the expression 
+     * always divides by zero (all the sub-expressions are always evaluated).
+     */
+    private Expression foldExpression(Expression expression) {
+        if (expression instanceof VariableReference) {
+            int slot = ((VariableReference) expression).getSlot();
+            if (knownSlots[slot]) {
+                return new NumberLiteral(knownValues[slot]);
+            }
+            return expression;
+        }
+        if (!(expression instanceof BinaryOperation)) {
+            return expression;
+        }
+        BinaryOperation operation = (BinaryOperation) expression;
+        Expression left = foldExpression(operation.getLeft());
+        Expression right = foldExpression(operation.getRight());
+        if (left == null || right == null) {
+            return null;
+        }
+        BinaryOperator operator = operation.getOperator();
+        if (right instanceof NumberLiteral) {
+            int y = ((NumberLiteral) right).getValue();
+            if (operator == BinaryOperator.DIVIDE && y == 0) {
+                return null;
+            }
+            if (left instanceof NumberLiteral) {
+                return new NumberLiteral(operator.apply(
+                        ((NumberLiteral) left).getValue(), y));
+            }
+        }
+        if (left == operation.getLeft() && right == operation.getRight()) {
+            return operation;
+        }
+        return new BinaryOperation(operator, left, right);
+    }
+    
+    
+    /* Substitutes known variable values (and "[null]" for variables that are
+     * not assigned) and joins adjacent strings.
+     */
+    private CompiledPrintOperation foldPrint(CompiledPrintOperation operation) {
+        List<String> printStrings = new ArrayList<>();
+        List<Integer> varSlots = new ArrayList<>(); // -1 for strings.
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < operation.size(); i++) {
+            if (operation.isVarName(i)) {
+                int slot = operation.getVarSlot(i);
+                if (!assignedSlots[slot]) {
+                    sb.append(PrintOperationPerformer.NULL_VALUE);
+                    continue;
+                }
+                if (knownSlots[slot]) {
+                    sb.append(knownValues[slot]);
+                    continue;
+                }
+                if (sb.length() > 0) {
+                    printStrings.add(sb.toString());
+                    varSlots.add(-1);
+                    sb.setLength(0);
+                }
+                printStrings.add(operation.getPrintString(i));
+                varSlots.add(slot);
+            } else {
+                sb.append(operation.getPrintString(i));
+            }
+        }
+        if (sb.length() > 0) {
+            printStrings.add(sb.toString());
+            varSlots.add(-1);
+        }
+        
+        boolean[] flags = new boolean[printStrings.size()];
+        int[] slots = new int[flags.length];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = varSlots.get(i) >= 0;
+            slots[i] = flags[i] ? varSlots.get(i) : 0;
+        }
+        return operation.withPrintStrings(printStrings.toArray(new String[0]), 
+                flags, slots);
+    }
+    
+    
+    /* Removes "set" operations which assigned values are not read before the
+     * variable is assigned again (or before the end of the script). Goes 
+     * from the last operation to the first one, keeping the set of variables 
+     * that are read later.
+     */
+    private List<CompiledOperation> removeDeadStores(
+            List<CompiledOperation> operations, int slotCount) {
+        boolean[] liveSlots = new boolean[slotCount];
+        List<CompiledOperation> optimized = new ArrayList<>(operations.size());
+        for (int i = operations.size() - 1; i >= 0; i--) {
+            CompiledOperation operation = operations.get(i);
+            if (operation instanceof CompiledSetOperation) {
+                CompiledSetOperation setOperation 
+                        = (CompiledSetOperation) operation;
+                int slot = setOperation.getVarToAssignSlot();
+                if (!liveSlots[slot] 
+                        && setOperation != divisionByZeroOperation) {
+                    continue;
+                }
+                liveSlots[slot] = false;
+                for (int j = 0; j < setOperation.getReferencedVarCount(); j++) {
+                    liveSlots[setOperation.getReferencedVarSlot(j)] = true;
+                }
+            } else {
+                CompiledPrintOperation printOperation 
+                        = (CompiledPrintOperation) operation;
+                for (int j = 0; j < printOperation.size(); j++) {
+                    if (printOperation.isVarName(j)) {
+                        liveSlots[printOperation.getVarSlot(j)] = true;
+                    }
+                }
+            }
+            optimized.add(operation);
+        }
+        Collections.reverse(optimized);
+        return optimized;
+    }
+}
@@ -0,0 +1,293 @@
+package main.process.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import main.io.OutputSink;
+import main.process.expressions.BinaryOperation;
+import main.process.expressions.Expression;
+import main.process.expressions.NumberLiteral;
+import main.process.expressions.VariableReference;
+import main.process.operations.CompiledOperation;
+import main.process.operations.CompiledPrintOperation;
+import main.process.operations.CompiledSetOperation;
+import main.process.operations.PrintOperationPerformer;
+
+/**
+ * This class evaluates independent "set" operations of a whole script 
+ * concurrently on a fork-join pool.
+ * 
+ * Each "set" operation writes its value into a separate value cell, and each
+ * variable reference is resolved at compile time into the cell of the last 
+ * preceding "set" operation of that variable. So an operation depends only on
+ * the operations which values it reads, and the operations are evaluated 
+ * level by level: a level contains the operations which dependencies are all
+ * in the preceding levels. After all the values are calculated, the script is
+ * replayed in the script line order: lines are printed in order and the first
+ * division by zero is raised at the same point as in the sequential mode.
+ * 
+ * All "set" operations passed to the program must be valid with the 
+ * variables assigned by the preceding operations (i.e., must not raise 
+ * script errors other than division by zero).
+ * 
+ * @author SoundlyGifted
+ */
+public final class ParallelScriptProgram {
+    
+    // Maximum number of "set" operations evaluated by one fork-join task.
+    private static final int TASK_SIZE = 256;
+    
+    // Print part cell that stands for a string to print.
+    private static final int STRING_PART = -1;
+    
+    // Print part cell that stands for a variable that is not assigned.
+    private static final int NOT_ASSIGNED_PART = -2;
+    
+    private final List<CompiledOperation> operations;
+    
+    /* Expressions of the "set" operations (by value cell) with variable 
+     * references resolved into value cells, and the cells each of them reads.
+     */
+    private final Expression[] expressions;
+    private final int[][] dependencies;
+    
+    // Value cells of the printed parts of each "print" operation (in order).
+    private final List<int[]> printCells;
+    
+    // Value cells grouped by level: cells of level i start at levelStarts[i].
+    private final int[] cellsByLevel;
+    private final int[] levelStarts;
+    
+    /* Calculated values, and errors of the "set" operations that failed. An
+     * operation that depends on a failed one is failed with no error (it is 
+     * never reached in the script line order).
+     */
+    private int[] values;
+    private boolean[] failed;
+    private ArithmeticException[] errors;
+    
+    private ParallelScriptProgram(List<CompiledOperation> operations, 
+            int setCount, int slotCount) {
+        this.operations = operations;
+        expressions = new Expression[setCount];
+        dependencies = new int[setCount][];
+        printCells = new ArrayList<>();
+        
+        int[] cellOfSlot = new int[slotCount]; // Last cell of each variable.
+        Arrays.fill(cellOfSlot, NOT_ASSIGNED_PART);
+        int[] levels = new int[setCount];
+        int levelCount = 0;
+        int cell = 0;
+        List<Integer> cellsRead = new ArrayList<>();
+        for (CompiledOperation operation : operations) {
+            if (operation instanceof CompiledSetOperation) {
+                CompiledSetOperation setOperation 
+                        = (CompiledSetOperation) operation;
+                cellsRead.clear();
+                expressions[cell] = resolveCells(setOperation.getExpression(), 
+                        cellOfSlot, cellsRead);
+                dependencies[cell] = new int[cellsRead.size()];
+                int level = 0;
+                for (int i = 0; i < cellsRead.size(); i++) {
+                    dependencies[cell][i] = cellsRead.get(i);
+                    level = Math.max(level, levels[cellsRead.get(i)] + 1);
+                }
+                levels[cell] = level;
+                levelCount = Math.max(levelCount, level + 1);
+                cellOfSlot[setOperation.getVarToAssignSlot()] = cell++;
+            } else {
+                CompiledPrintOperation printOperation 
+                        = (CompiledPrintOperation) operation;
+                int[] parts = new int[printOperation.size()];
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = printOperation.isVarName(i) 
+                            ? cellOfSlot[printOperation.getVarSlot(i)] 
+                            : STRING_PART;
+                }
+                printCells.add(parts);
+            }
+        }
+        
+        // Counting sort of the value cells by level.
+        levelStarts = new int[levelCount + 1];
+        for (int level : levels) {
+            levelStarts[level + 1]++;
+        }
+        for (int i = 0; i < levelCount; i++) {
+            levelStarts[i + 1] += levelStarts[i];
+        }
+        cellsByLevel = new int[setCount];
+        int[] positions = Arrays.copyOf(levelStarts, levelCount);
+        for (int i = 0; i < setCount; i++) {
+            cellsByLevel[positions[levels[i]]++] = i;
+        }
+    }
+    
+    /**
+     * Builds the dependency graph of the script operations.
+     * 
+     * @param operations compiled script operations in the script line order.
+     * @param slotCount number of script variable slots used by the operations.
+     * @return the parallel program, or null if the script contains operations
+     * other than "set" and "print", or prints array slices.
+     */
+    public static ParallelScriptProgram compile(
+            List<CompiledOperation> operations, int slotCount) {
+        int setCount = 0;
+        for (CompiledOperation operation : operations) {
+            if (operation instanceof CompiledSetOperation) {
+                setCount++;
+            } else if (!(operation instanceof CompiledPrintOperation)
+                    || ((CompiledPrintOperation) operation).hasSlices()) {
+                return null;
+            }
+        }
+        return new ParallelScriptProgram(operations, setCount, slotCount);
+    }
+    
+    
+    /**
+     * Evaluates the "set" operations concurrently, then prints the lines in
+     * the script line order.
+     * 
+     * @param output output sink that receives the printed lines.
+     * @param pool fork-join pool that evaluates the "set" operations.
+     * @throws java.lang.ArithmeticException is thrown on division by zero 
+     * (after the lines printed before it).
+     */
+    public void run(OutputSink output, ForkJoinPool pool) {
+        values = new int[expressions.length];
+        failed = new boolean[expressions.length];
+        errors = new ArithmeticException[expressions.length];
+        
+        for (int level = 0; level < levelStarts.length - 1; level++) {
+            int from = levelStarts[level];
+            int to = levelStarts[level + 1];
+            if (to - from <= TASK_SIZE) {
+                evaluateCells(from, to);
+            } else {
+                pool.invoke(new LevelTask(from, to));
+            }
+        }
+        
+        int cell = 0;
+        int print = 0;
+        for (CompiledOperation operation : operations) {
+            if (operation instanceof CompiledSetOperation) {
+                if (errors[cell] != null) {
+                    throw errors[cell];
+                }
+                cell++;
+            } else {
+                print(output, (CompiledPrintOperation) operation, 
+                        printCells.get(print++));
+            }
+        }
+    }
+    
+    
+    private void print(OutputSink output, CompiledPrintOperation operation, 
+            int[] parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i] == STRING_PART) {
+                sb.append(operation.getPrintString(i));
+            } else if (parts[i] == NOT_ASSIGNED_PART) {
+                sb.append(PrintOperationPerformer.NULL_VALUE);
+            } else {
+                sb.append(values[parts[i]]);
+            }
+        }
+        output.printLine(sb);
+    }
+    
+    
+    // Evaluates value cells of cellsByLevel in the range [from, to).
+    private void evaluateCells(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int cell = cellsByLevel[i];
+            boolean dependencyFailed = false;
+            for (int dependency : dependencies[cell]) {
+                dependencyFailed |= failed[dependency];
+            }
+            if (dependencyFailed) {
+                failed[cell] = true;
+                continue;
+            }
+            try {
+                values[cell] = evaluate(expressions[cell]);
+            } catch (ArithmeticException aex) {
+                errors[cell] = aex;
+                failed[cell] = true;
+            }
+        }
+    }
+    
+    
+    // Evaluates expression which variable references are value cells.
+    private int evaluate(Expression expression) {
+        if (expression instanceof NumberLiteral) {
+            return ((NumberLiteral) expression).getValue();
+        }
+        if (expression instanceof VariableReference) {
+            return values[((VariableReference) expression).getSlot()];
+        }
+        BinaryOperation operation = (BinaryOperation) expression;
+        return operation.getOperator().apply(evaluate(operation.getLeft()), 
+                evaluate(operation.getRight()));
+    }
+    
+    
+    /* Copies the expression with variable references resolved into the value
+     * cells that hold the variable values, and collects the cells (distinct).
+     */
+    private static Expression resolveCells(Expression expression, 
+            int[] cellOfSlot, List<Integer> cellsRead) {
+        if (expression instanceof VariableReference) {
+            VariableReference reference = (VariableReference) expression;
+            int cell = cellOfSlot[reference.getSlot()];
+            if (!cellsRead.contains(cell)) {
+                cellsRead.add(cell);
+            }
+            return new VariableReference(reference.getName(), cell);
+        }
+        if (expression instanceof BinaryOperation) {
+            BinaryOperation operation = (BinaryOperation) expression;
+            return new BinaryOperation(operation.getOperator(), 
+                    resolveCells(operation.getLeft(), cellOfSlot, cellsRead),
+                    resolveCells(operation.getRight(), cellOfSlot, cellsRead));
+        }
+        return expression;
+    }
+    
+    
+    /* Evaluates value cells of one level, splitting the range between 
+     * fork-join tasks.
+     */
+    private final class LevelTask extends RecursiveAction {
+        
+        // Tasks are never serialized.
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+
+        private LevelTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                evaluateCells(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelTask(from, middle), 
+                        new LevelTask(middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package main.process.profile;
+
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.operations.CompiledOperation;
+import main.process.variables.VariableFrame;
+
+/**
+ * This class wraps a compiled line of a block body and records each 
+ * execution of the line in the profiler (see 
+ * {@link ScriptProfiler#enterLine(int)}), so the time of the lines executed 
+ * by a block is charged to the lines themselves instead of the "end" line of 
+ * the block.
+ *
+ * @author SoundlyGifted
+ */
+public final class ProfiledOperation extends CompiledOperation {
+
+    private final ScriptProfiler profiler;
+
+    // Number of the wrapped line.
+    private final int lineNumber;
+
+    // Phase the execution of the line is recorded as.
+    private final ScriptProfiler.Phase phase;
+
+    private final CompiledOperation operation;
+
+    /**
+     * Creates ProfiledOperation instance for the line that is now being 
+     * compiled (the current line of the profiler).
+     *
+     * @param profiler the profiler.
+     * @param operation compiled line.
+     * @param phase phase the execution of the line is recorded as.
+     */
+    public ProfiledOperation(ScriptProfiler profiler, 
+            CompiledOperation operation, ScriptProfiler.Phase phase) {
+        this.profiler = profiler;
+        this.operation = operation;
+        this.phase = phase;
+        lineNumber = profiler.getLineNumber();
+    }
+
+    @Override
+    public void perform(VariableFrame frame)
+            throws WrongScriptExpressionException {
+        profiler.enterLine(lineNumber);
+        try {
+            operation.perform(frame);
+        } finally {
+            profiler.exitLine(phase);
+        }
+    }
+}
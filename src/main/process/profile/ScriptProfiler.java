@@ -0,0 +1,361 @@
+package main.process.profile;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This class records per-line statistics of a script execution: execution 
+ * count, maximum time of one execution, and time and allocated bytes of each 
+ * phase ({@link Phase}). Statistics are kept in flat arrays indexed by the 
+ * line number, and each phase boundary only reads the clock and the bytes 
+ * allocated by the current thread, so the overhead is low enough to profile 
+ * regular runs.
+ *
+ * The lines in the body of a "while" or "if" block are recorded each time 
+ * the block executes them ({@link #enterLine(int)}), and the time of a line 
+ * does not include the time of the lines it executes, so the hot lines of a 
+ * loop are seen in the report (the block itself is recorded on its "end" line 
+ * and is charged only with the checks of its condition).
+ *
+ * When the script finished, the profiler writes the report of the hot lines 
+ * (sorted by the total time) and the collapsed stacks ("script;line;phase 
+ * nanoseconds" lines) that flame graph tools read.
+ *
+ * The profiler is not thread-safe: it profiles one script executed in one 
+ * thread.
+ *
+ * @author SoundlyGifted
+ */
+public final class ScriptProfiler {
+
+    /**
+     * Phases of a script line execution.
+     */
+    public enum Phase {
+
+        // Parsing and compiling the script line.
+        PARSE, 
+
+        // Evaluating the "set" expression and assigning the variable.
+        EVALUATE, 
+
+        // Formatting and printing the "print" line.
+        PRINT
+    }
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    // Statistics of a line: count, max time, then time and bytes per phase.
+    private static final int COUNT = 0;
+    private static final int MAX_NANOS = 1;
+    private static final int PHASES_OFFSET = 2;
+    private static final Phase[] PHASES = Phase.values();
+    private static final int STATS_PER_LINE = PHASES_OFFSET + 2 * PHASES.length;
+
+    // Name of the profiled script (the root of the collapsed stacks).
+    private final String scriptName;
+
+    /* Thread MXBean that measures bytes allocated by the current thread, or
+     * null if the JVM does not support it.
+     */
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    // Statistics of the lines (STATS_PER_LINE values per line).
+    private long[] stats = new long[STATS_PER_LINE * 1024];
+
+    // Texts of the lines (for the report).
+    private String[] lines = new String[1024];
+
+    // Number of the last line that was executed.
+    private int lineCount;
+
+    // Line that is now being executed (index in the lines array), or -1.
+    private int currentLine = -1;
+
+    // Time and allocated bytes at the end of the previous phase.
+    private long markNanos;
+    private long markBytes;
+
+    // Time spent on the current execution of the current line.
+    private long lineNanos;
+
+    /* Lines that execute the nested lines (see enterLine): index of the line, 
+     * time of its execution before its current phase, and time and allocated 
+     * bytes of its current phase before the nested line started.
+     */
+    private int[] enclosingLines = new int[8];
+    private long[] enclosingLineNanos = new long[8];
+    private long[] enclosingPhaseNanos = new long[8];
+    private long[] enclosingPhaseBytes = new long[8];
+
+    // Number of the enclosing lines.
+    private int depth;
+
+    /**
+     * Creates ScriptProfiler instance.
+     *
+     * @param scriptName name of the profiled script.
+     */
+    public ScriptProfiler(String scriptName) {
+        this.scriptName = scriptName;
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean)
+                        .isThreadAllocatedMemorySupported()) {
+            allocationBean = (com.sun.management.ThreadMXBean) bean;
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            allocationBean = null;
+        }
+    }
+
+
+    /**
+     * Starts an execution of the script line.
+     *
+     * @param lineNumber number of the script line (starting with 1).
+     * @param line the script line.
+     */
+    public void startLine(int lineNumber, String line) {
+        int index = lineNumber - 1;
+        if (index >= lines.length) {
+            int capacity = Math.max(lines.length * 2, lineNumber);
+            lines = Arrays.copyOf(lines, capacity);
+            stats = Arrays.copyOf(stats, capacity * STATS_PER_LINE);
+        }
+        if (lines[index] == null) {
+            lines[index] = (line != null) ? line : "";
+        }
+        lineCount = Math.max(lineCount, lineNumber);
+        stats[index * STATS_PER_LINE + COUNT]++;
+        currentLine = index;
+        lineNanos = 0;
+        markBytes = allocatedBytes();
+        markNanos = System.nanoTime();
+    }
+
+
+    /**
+     * Tells that the current line was compiled into the body of a block, so 
+     * compiling it is not counted as an execution of the line (the line is 
+     * counted each time the block executes it).
+     */
+    public void lineCompiledIntoBlock() {
+        stats[currentLine * STATS_PER_LINE + COUNT]--;
+    }
+
+
+    /**
+     * @return number of the line that is now being executed.
+     */
+    public int getLineNumber() {
+        return currentLine + 1;
+    }
+
+
+    /**
+     * Starts an execution of the line (already started once by 
+     * {@link #startLine(int, String)}) by the current line, i.e. a line of a 
+     * block body executed by the block. The current line is paused until 
+     * {@link #exitLine(Phase)} is called, so its phases do not include the 
+     * time and allocated bytes of the nested line.
+     *
+     * @param lineNumber number of the script line (starting with 1).
+     */
+    public void enterLine(int lineNumber) {
+        long nanos = System.nanoTime();
+        long bytes = allocatedBytes();
+        if (depth == enclosingLines.length) {
+            int capacity = depth * 2;
+            enclosingLines = Arrays.copyOf(enclosingLines, capacity);
+            enclosingLineNanos = Arrays.copyOf(enclosingLineNanos, capacity);
+            enclosingPhaseNanos = Arrays.copyOf(enclosingPhaseNanos, capacity);
+            enclosingPhaseBytes = Arrays.copyOf(enclosingPhaseBytes, capacity);
+        }
+        enclosingLines[depth] = currentLine;
+        enclosingLineNanos[depth] = lineNanos;
+        enclosingPhaseNanos[depth] = nanos - markNanos;
+        enclosingPhaseBytes[depth] = bytes - markBytes;
+        depth++;
+
+        currentLine = lineNumber - 1;
+        stats[currentLine * STATS_PER_LINE + COUNT]++;
+        lineNanos = 0;
+        markBytes = bytes;
+        markNanos = nanos;
+    }
+
+
+    /**
+     * Ends the phase and the execution of the nested line started by 
+     * {@link #enterLine(int)} and resumes the line that executed it.
+     *
+     * @param phase the phase.
+     */
+    public void exitLine(Phase phase) {
+        /* Reading the allocated bytes takes longer than reading the clock, so 
+         * it is done within the time of the nested line (like on entering 
+         * it), not of the resumed line.
+         */
+        long bytes = allocatedBytes();
+        long nanos = System.nanoTime();
+        recordPhase(phase, nanos, bytes);
+        depth--;
+        currentLine = enclosingLines[depth];
+        lineNanos = enclosingLineNanos[depth];
+        markNanos = nanos - enclosingPhaseNanos[depth];
+        markBytes = bytes - enclosingPhaseBytes[depth];
+    }
+
+
+    /**
+     * Ends the phase of the current line execution that started when the 
+     * line or the previous phase started.
+     *
+     * @param phase the phase.
+     */
+    public void endPhase(Phase phase) {
+        recordPhase(phase, System.nanoTime(), allocatedBytes());
+        markBytes = allocatedBytes();
+        markNanos = System.nanoTime();
+    }
+
+
+    /**
+     * Prints the report: totals of each phase, then the hot lines sorted by 
+     * the total time (count, total and maximum time, time of each phase, 
+     * allocated bytes and the line text).
+     *
+     * @param out the stream to print the report to.
+     * @param limit maximum number of the hot lines in the report.
+     */
+    public void printReport(PrintStream out, int limit) {
+        /* Totals of the phases, and the hot lines selected by insertion into
+         * the short array of the lines with the largest total time.
+         */
+        long[] phaseNanos = new long[PHASES.length];
+        int[] hotLines = new int[Math.min(limit, lineCount)];
+        long[] hotNanos = new long[hotLines.length];
+        int hotCount = 0;
+        for (int index = 0; index < lineCount; index++) {
+            long nanos = 0;
+            for (Phase phase : PHASES) {
+                long phaseTime = phaseStat(index, phase, 0);
+                phaseNanos[phase.ordinal()] += phaseTime;
+                nanos += phaseTime;
+            }
+            if (nanos == 0 || (hotCount == hotLines.length
+                    && (hotCount == 0 || nanos <= hotNanos[hotCount - 1]))) {
+                continue;
+            }
+            int position = Math.min(hotCount, hotLines.length - 1);
+            while (position > 0 && hotNanos[position - 1] < nanos) {
+                hotLines[position] = hotLines[position - 1];
+                hotNanos[position] = hotNanos[position - 1];
+                position--;
+            }
+            hotLines[position] = index;
+            hotNanos[position] = nanos;
+            hotCount = Math.min(hotCount + 1, hotLines.length);
+        }
+
+        out.println("[ScriptLanguage: Profile] " + scriptName + ": "
+                + lineCount + " lines, parse "
+                + formatMillis(phaseNanos[Phase.PARSE.ordinal()])
+                + " ms, evaluate "
+                + formatMillis(phaseNanos[Phase.EVALUATE.ordinal()])
+                + " ms, print "
+                + formatMillis(phaseNanos[Phase.PRINT.ordinal()]) + " ms"
+                + (allocationBean == null ? " (allocated bytes are not "
+                        + "measured by this JVM)" : ""));
+        out.println(String.format(Locale.ROOT, 
+                "%8s %8s %12s %10s %12s %12s %12s %12s  %s", "line", "count", 
+                "total us", "max us", "parse us", "evaluate us", "print us", 
+                "bytes", "statement"));
+        for (int i = 0; i < hotCount; i++) {
+            int index = hotLines[i];
+            long bytes = 0;
+            for (Phase phase : PHASES) {
+                bytes += phaseStat(index, phase, 1);
+            }
+            out.println(String.format(Locale.ROOT, 
+                    "%8d %8d %12.1f %10.1f %12.1f %12.1f %12.1f %12d  %s", 
+                    index + 1, stats[index * STATS_PER_LINE + COUNT], 
+                    hotNanos[i] / NANOS_PER_MICRO, 
+                    stats[index * STATS_PER_LINE + MAX_NANOS]
+                            / NANOS_PER_MICRO, 
+                    phaseStat(index, Phase.PARSE, 0) / NANOS_PER_MICRO, 
+                    phaseStat(index, Phase.EVALUATE, 0) / NANOS_PER_MICRO, 
+                    phaseStat(index, Phase.PRINT, 0) / NANOS_PER_MICRO, 
+                    bytes, lines[index].strip()));
+        }
+    }
+
+
+    /**
+     * Prints the collapsed stacks: one "script;line N: text;phase nanoseconds" 
+     * line for each phase of each executed line, which flame graph tools 
+     * (i.e., flamegraph.pl) read.
+     *
+     * @param out the stream to print the collapsed stacks to.
+     */
+    public void printCollapsedStacks(PrintStream out) {
+        String root = frameName(scriptName);
+        for (int index = 0; index < lineCount; index++) {
+            String frame = null;
+            for (Phase phase : PHASES) {
+                long nanos = phaseStat(index, phase, 0);
+                if (nanos > 0) {
+                    if (frame == null) {
+                        frame = frameName("line " + (index + 1) + ": "
+                                + lines[index].strip());
+                    }
+                    out.println(root + ";" + frame + ";"
+                            + phase.name().toLowerCase() + " " + nanos);
+                }
+            }
+        }
+    }
+
+
+    // Adds the time and bytes since the end of the previous phase.
+    private void recordPhase(Phase phase, long nanos, long bytes) {
+        int base = currentLine * STATS_PER_LINE;
+        int phaseBase = base + PHASES_OFFSET + 2 * phase.ordinal();
+        long elapsed = nanos - markNanos;
+        stats[phaseBase] += elapsed;
+        stats[phaseBase + 1] += bytes - markBytes;
+        lineNanos += elapsed;
+        if (lineNanos > stats[base + MAX_NANOS]) {
+            stats[base + MAX_NANOS] = lineNanos;
+        }
+    }
+
+
+    // Returns time (offset 0) or allocated bytes (offset 1) of the phase.
+    private long phaseStat(int index, Phase phase, int offset) {
+        return stats[index * STATS_PER_LINE + PHASES_OFFSET
+                + 2 * phase.ordinal() + offset];
+    }
+
+
+    private long allocatedBytes() {
+        return allocationBean != null
+                ? allocationBean.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+
+    // Frame names of the collapsed stacks cannot contain ";" and line breaks.
+    private static String frameName(String text) {
+        return text.replace(';', ',').replace('\n', ' ').replace('\r', ' ');
+    }
+
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,130 @@
+package main.process.variables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class resolves script variable names into dense slot indexes once, 
+ * when script operations are compiled. Compiled operations then access 
+ * variable values in a {@link VariableFrame} by the slot index.
+ *
+ * Names can be looked up directly in the scanned script text, so resolving a 
+ * name that is already in the table does not create a string.
+ *
+ * @author SoundlyGifted
+ */
+public final class SymbolTable {
+
+    // Initial capacity of the hash table (a power of two).
+    private static final int INITIAL_CAPACITY = 16;
+
+    /* Open addressing hash table of slot indexes plus one (zero stands for an
+     * empty entry).
+     */
+    private int[] table = new int[INITIAL_CAPACITY];
+
+    // Script variable names in the order of their slot indexes.
+    private final List<String> names = new ArrayList<>();
+
+    // Hash codes of the variable names in the order of their slot indexes.
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Creates empty SymbolTable instance.
+     */
+    public SymbolTable() {}
+
+    /**
+     * Returns the slot index of a script variable, assigning the next free 
+     * slot index to a variable name that is met for the first time.
+     *
+     * @param name name of a script variable.
+     * @return slot index of the variable.
+     */
+    public int slotOf(String name) {
+        return slotOf(name, 0, name.length());
+    }
+
+    /**
+     * Returns the slot index of a script variable which name is a part of the 
+     * given text, assigning the next free slot index to a variable name that 
+     * is met for the first time.
+     *
+     * @param text text that contains the name of a script variable.
+     * @param start start offset of the name.
+     * @param end end offset of the name (exclusive).
+     * @return slot index of the variable.
+     */
+    public int slotOf(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int mask = table.length - 1;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (table[index] != 0) {
+            int slot = table[index] - 1;
+            if (hashes[slot] == hash && equals(names.get(slot), text, start, 
+                    end)) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+
+        int slot = names.size();
+        names.add(text.subSequence(start, end).toString());
+        if (slot == hashes.length) {
+            hashes = Arrays.copyOf(hashes, slot * 2);
+        }
+        hashes[slot] = hash;
+        table[index] = slot + 1;
+        if (names.size() * 2 > table.length) {
+            rehash();
+        }
+        return slot;
+    }
+
+    /**
+     * @param slot slot index of a script variable.
+     * @return name of the script variable.
+     */
+    public String getName(int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * @return number of slots (distinct script variables) in the table.
+     */
+    public int size() {
+        return names.size();
+    }
+
+
+    private static boolean equals(String name, CharSequence text, int start, 
+            int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // Doubles the hash table keeping it at most half full.
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int slot = 0; slot < names.size(); slot++) {
+            int index = (hashes[slot] ^ (hashes[slot] >>> 16)) & mask;
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = slot + 1;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package main.process.variables;
+
+import java.util.Arrays;
+import main.process.memoization.ExpressionCache;
+
+/**
+ * This class stores values of script variables in a primitive int array 
+ * indexed by the variable slot (see {@link SymbolTable}). A separate bit set 
+ * tells which variables have an assigned value. A variable can hold an array 
+ * instead of a value: arrays are kept in a separate array of int arrays 
+ * (created when the first array is assigned), and a variable that holds an 
+ * array has no assigned value.
+ * 
+ * @author SoundlyGifted
+ */
+public final class VariableFrame {
+    
+    // Variable values by slot index.
+    private int[] values;
+    
+    // Bit set of the slots that have an assigned value.
+    private long[] assigned;
+    
+    // Arrays of the variables by slot index, or null if no array is assigned.
+    private int[][] arrays;
+    
+    /* Versions of the variables by slot index (null if no expression cache is 
+     * attached), and the last version stamped.
+     */
+    private long[] versions;
+    private long version;
+    
+    // Cache of the "set" expression results, or null.
+    private ExpressionCache expressionCache;
+
+    /**
+     * Creates VariableFrame instance with no assigned variables.
+     * 
+     * @param capacity initial number of variable slots.
+     */
+    public VariableFrame(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+        assigned = new long[(values.length + 63) >>> 6];
+    }
+    
+    /**
+     * Makes sure that the frame has at least the given number of slots.
+     * 
+     * @param size required number of variable slots.
+     */
+    public void ensureCapacity(int size) {
+        if (size > values.length) {
+            values = Arrays.copyOf(values, Math.max(size, values.length * 2));
+            assigned = Arrays.copyOf(assigned, (values.length + 63) >>> 6);
+            if (arrays != null) {
+                arrays = Arrays.copyOf(arrays, values.length);
+            }
+            if (versions != null) {
+                versions = Arrays.copyOf(versions, values.length);
+            }
+        }
+    }
+    
+    /**
+     * @return a copy of this frame (values, arrays and assignment state). The 
+     * expression cache is not attached to the copy.
+     */
+    public VariableFrame copy() {
+        VariableFrame copy = new VariableFrame(0);
+        copy.values = values.clone();
+        copy.assigned = assigned.clone();
+        if (arrays != null) {
+            copy.arrays = new int[arrays.length][];
+            for (int slot = 0; slot < arrays.length; slot++) {
+                copy.arrays[slot] = (arrays[slot] != null) 
+                        ? arrays[slot].clone() : null;
+            }
+        }
+        return copy;
+    }
+    
+    /**
+     * @param slot slot index of a script variable.
+     * @return true if the variable has an assigned value, false otherwise.
+     */
+    public boolean isAssigned(int slot) {
+        return (assigned[slot >>> 6] & (1L << slot)) != 0;
+    }
+    
+    /**
+     * @param slot slot index of an assigned script variable.
+     * @return value of the variable.
+     */
+    public int get(int slot) {
+        return values[slot];
+    }
+    
+    /**
+     * Assigns the value to a script variable.
+     * 
+     * @param slot slot index of the script variable.
+     * @param value the value to assign.
+     */
+    public void set(int slot, int value) {
+        values[slot] = value;
+        assigned[slot >>> 6] |= 1L << slot;
+        if (arrays != null) {
+            arrays[slot] = null;
+        }
+        if (versions != null) {
+            versions[slot] = ++version;
+        }
+    }
+    
+    /**
+     * @param slot slot index of a script variable.
+     * @return the array held by the variable, or null if the variable does 
+     * not hold an array.
+     */
+    public int[] getArray(int slot) {
+        return (arrays != null) ? arrays[slot] : null;
+    }
+    
+    /**
+     * Assigns the array to a script variable (the variable has no assigned 
+     * value after that). The array is not copied.
+     * 
+     * @param slot slot index of the script variable.
+     * @param array the array to assign.
+     */
+    public void setArray(int slot, int[] array) {
+        if (arrays == null) {
+            arrays = new int[values.length][];
+        }
+        arrays[slot] = array;
+        assigned[slot >>> 6] &= ~(1L << slot);
+        if (versions != null) {
+            versions[slot] = ++version;
+        }
+    }
+    
+    /**
+     * @return the expression cache attached to this frame, or null.
+     */
+    public ExpressionCache getExpressionCache() {
+        return expressionCache;
+    }
+    
+    /**
+     * Attaches the expression cache to this frame and starts stamping the 
+     * versions of the variables. The cache forgets the results stored for 
+     * another frame.
+     * 
+     * @param expressionCache the expression cache.
+     */
+    public void attachExpressionCache(ExpressionCache expressionCache) {
+        if (versions == null) {
+            versions = new long[values.length];
+        }
+        expressionCache.attach(this);
+        this.expressionCache = expressionCache;
+    }
+    
+    /**
+     * @param slot slot index of a script variable.
+     * @return version of the variable: it changes on each assignment of the 
+     * variable while an expression cache is attached, and is 0 before that.
+     */
+    public long getVersion(int slot) {
+        return (versions != null) ? versions[slot] : 0;
+    }
+}
@@ -0,0 +1,83 @@
+package main.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import main.io.OutputSink;
+
+/**
+ * This class is the thin client of the script server: it submits a script 
+ * file to the server (see {@link ScriptServer}) and writes the script output 
+ * and error to the given stream as the server sends them.
+ *
+ * @author SoundlyGifted
+ */
+public final class ScriptClient {
+
+    /**
+     * Exit status of the client when the server cannot be connected or the 
+     * connection fails (exit statuses of the script are 0 - success, 1 - 
+     * script error, 2 - file reading error).
+     */
+    public static final int EXIT_CONNECTION_ERROR = 3;
+
+    private final Path socketPath;
+
+    /**
+     * Creates ScriptClient instance.
+     *
+     * @param socketPath path of the Unix domain socket file of the server.
+     */
+    public ScriptClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+
+    /**
+     * Runs the script on the server.
+     *
+     * @param scriptFileName name of the script file (relative to the current 
+     * directory of the client).
+     * @param charset charset of the script file.
+     * @param out the stream to write the script output and error to (the 
+     * output is written in the standard output charset).
+     * @return exit status of the script.
+     * @throws IOException is thrown when the server cannot be connected or the 
+     * connection fails.
+     */
+    public int run(String scriptFileName, Charset charset, PrintStream out)
+            throws IOException {
+        try (SocketChannel connection = SocketChannel.open( 
+                UnixDomainSocketAddress.of(socketPath))) {
+            String request = charset.name() + "\n"
+                    + OutputSink.STANDARD_OUTPUT_CHARSET.name() + "\n"
+                    + Paths.get(scriptFileName).toAbsolutePath();
+            ServerProtocol.writeFrame(connection, ServerProtocol.FRAME_RUN, 
+                    StandardCharsets.UTF_8.encode(request));
+
+            ServerProtocol.Frame frame;
+            while ((frame = ServerProtocol.readFrame(connection)) != null) {
+                ByteBuffer payload = frame.payload;
+                if (frame.type == ServerProtocol.FRAME_OUTPUT) {
+                    out.write(payload.array(), 0, payload.limit());
+                } else if (frame.type == ServerProtocol.FRAME_ERROR) {
+                    out.println(StandardCharsets.UTF_8.decode(payload));
+                } else if (frame.type == ServerProtocol.FRAME_EXIT) {
+                    out.flush();
+                    return payload.getInt();
+                }
+            }
+            throw new EOFException("Server closed the connection before the "
+                    + "script finished");
+        } finally {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package main.server;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import main.io.ChannelOutputSink;
+import main.io.CompiledScriptCache;
+import main.io.OutputSink;
+import main.io.ScriptReader;
+import main.io.exceptions.FileReadingException;
+import main.io.exceptions.OutputWritingException;
+import main.process.ExecutionMode;
+import main.process.ScriptInterpreter;
+import main.process.binary.CompiledScript;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.modules.ModuleStore;
+
+/**
+ * This class is the long-running script server: it accepts script 
+ * submissions over a Unix domain socket and streams the output of each script 
+ * back to the client (see {@link ServerProtocol}), so that running a script 
+ * does not pay for the JVM startup and uses the warmed-up interpreter code.
+ *
+ * Each connection is handled by a task on the given executor, and each 
+ * script is executed by its own Script Interpreter instance (isolated script 
+ * variables). Files included by the scripts are compiled once and shared by 
+ * all the scripts that include them in the same charset.
+ *
+ * @author SoundlyGifted
+ */
+public final class ScriptServer {
+
+    // Size of the output buffer of a connection in bytes.
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final Path socketPath;
+    private final ExecutionMode mode;
+    private final boolean optimizing;
+    private final ExecutorService executor;
+
+    // Cache of compiled scripts, or null if scripts are not cached.
+    private final CompiledScriptCache cache;
+
+    // Compiled files included by the scripts by the charset of the scripts.
+    private final ConcurrentMap<Charset, ModuleStore> modules
+            = new ConcurrentHashMap<>();
+
+    /**
+     * Creates ScriptServer instance.
+     *
+     * @param socketPath path of the Unix domain socket file.
+     * @param mode script execution mode.
+     * @param optimizing whether to optimize the scripts before execution.
+     * @param executor executor that handles the connections (it is not shut 
+     * down by the server).
+     * @param cache cache of compiled scripts used for script text files (not 
+     * in the reference mode), or null.
+     */
+    public ScriptServer(Path socketPath, ExecutionMode mode, 
+            boolean optimizing, ExecutorService executor, 
+            CompiledScriptCache cache) {
+        this.socketPath = socketPath;
+        this.mode = mode;
+        this.optimizing = optimizing;
+        this.executor = executor;
+        this.cache = (mode != ExecutionMode.REFERENCE) ? cache : null;
+    }
+
+
+    /**
+     * Listens on the socket and handles the connections until the current 
+     * thread is interrupted or the socket fails. A socket file left by a 
+     * server that is not running any more is replaced.
+     *
+     * @param ready is run when the server is listening on the socket.
+     * @throws IOException is thrown when the socket cannot be created (i.e., 
+     * another server is listening on it) or fails.
+     */
+    public void serve(Runnable ready) throws IOException {
+        UnixDomainSocketAddress address
+                = UnixDomainSocketAddress.of(socketPath);
+        removeStaleSocket(address);
+        try (ServerSocketChannel server
+                = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(address);
+            ready.run();
+            while (!Thread.currentThread().isInterrupted()) {
+                SocketChannel connection = server.accept();
+                executor.execute(() -> handle(connection));
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+
+    /* Deletes the socket file if no server accepts connections on it. Regular
+     * files and directories are not deleted (binding then fails).
+     */
+    private void removeStaleSocket(UnixDomainSocketAddress address)
+            throws IOException {
+        if (!Files.exists(socketPath) || Files.isRegularFile(socketPath)
+                || Files.isDirectory(socketPath)) {
+            return;
+        }
+        boolean listening;
+        try (SocketChannel probe = SocketChannel.open(address)) {
+            listening = probe.isConnected();
+        } catch (IOException ioex) {
+            listening = false;
+        }
+        if (listening) {
+            throw new IOException("Another server is listening on '"
+                    + socketPath + "'");
+        }
+        Files.deleteIfExists(socketPath);
+    }
+
+
+    /* Reads the request of one connection, executes the script and sends its
+     * output, error and exit status. An unknown charset of the request is 
+     * reported like a script error. The connection is closed when the client 
+     * sends a wrong request or disconnects.
+     */
+    private void handle(SocketChannel connection) {
+        try (connection) {
+            ServerProtocol.Frame request
+                    = ServerProtocol.readFrame(connection);
+            if (request == null || request.type != ServerProtocol.FRAME_RUN) {
+                return;
+            }
+            String[] fields = StandardCharsets.UTF_8.decode(request.payload)
+                    .toString().split("\n", 3);
+            if (fields.length != 3) {
+                return;
+            }
+            Charset charset;
+            Charset outputCharset;
+            try {
+                charset = Charset.forName(fields[0]);
+                outputCharset = Charset.forName(fields[1]);
+            } catch (IllegalArgumentException iaex) {
+                // The message of the charset exceptions is the charset name.
+                sendResult(connection, "[ScriptLanguage: Command Line Args "
+                        + "Error] Unknown charset '" + iaex.getMessage() 
+                        + "'.", ServerProtocol.EXIT_FILE_ERROR);
+                return;
+            }
+            runScript(connection, charset, outputCharset, fields[2]);
+        } catch (IOException ioex) {
+            // The client disconnected.
+        }
+    }
+
+
+    /* Executes the script and sends its output, error and exit status. The
+     * error message has the same form as in the single script mode.
+     */
+    private void runScript(SocketChannel connection, Charset charset, 
+            Charset outputCharset, String scriptFileName) throws IOException {
+        OutputSink output = new ChannelOutputSink( 
+                new ServerProtocol.OutputFrameChannel(connection), 
+                outputCharset, OUTPUT_BUFFER_SIZE, 0);
+        String error = null;
+        int status = ServerProtocol.EXIT_SUCCESS;
+        try {
+            ScriptInterpreter interpreter = new ScriptInterpreter(mode, 
+                    output, optimizing, null, 
+                    modules.computeIfAbsent(charset, ModuleStore::new), 
+                    scriptFileName);
+            CompiledScript compiledScript = null;
+            if (ScriptReader.isCompiledScriptFile(scriptFileName)) {
+                compiledScript 
+                        = ScriptReader.readCompiledScript(scriptFileName);
+            } else if (cache != null) {
+                // Scripts that cannot be compiled are executed from text.
+                compiledScript = cache.getCompiledScript(scriptFileName, 
+                        charset, interpreter::compileScript);
+            }
+            if (compiledScript != null) {
+                interpreter.interpretCompiledScript(compiledScript);
+            } else {
+                interpreter.interpretScript( 
+                        ScriptReader.readScriptFile(scriptFileName, charset));
+            }
+        } catch (FileReadingException frex) {
+            error = "[ScriptLanguage: File Reading Error] " + frex.getMessage()
+                    + (frex.getCause() != null
+                            ? ", caused by: " + frex.getCause() : "");
+            status = ServerProtocol.EXIT_FILE_ERROR;
+        } catch (UnsupportedScriptOperationException
+                | WrongScriptExpressionException exception) {
+            error = "[ScriptLanguage: Script Error] " + exception.getMessage();
+            status = ServerProtocol.EXIT_SCRIPT_ERROR;
+        } catch (OutputWritingException owex) {
+            // The client disconnected.
+            return;
+        } catch (RuntimeException rex) {
+            // I.e., division by zero in a "set" expression.
+            error = "[ScriptLanguage: Runtime Error] " + rex;
+            status = ServerProtocol.EXIT_SCRIPT_ERROR;
+        }
+
+        sendResult(connection, error, status);
+    }
+
+
+    // Sends the error message (if any) and the exit status of the script.
+    private static void sendResult(SocketChannel connection, String error, 
+            int status) throws IOException {
+        if (error != null) {
+            ServerProtocol.writeFrame(connection, ServerProtocol.FRAME_ERROR, 
+                    StandardCharsets.UTF_8.encode(error));
+        }
+        ServerProtocol.writeFrame(connection, ServerProtocol.FRAME_EXIT, 
+                ByteBuffer.allocate(Integer.BYTES).putInt(status).flip());
+    }
+}
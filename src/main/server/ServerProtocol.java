@@ -0,0 +1,155 @@
+package main.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class contains the protocol of the script server connections. Each 
+ * message is a frame: one byte of the frame type, four bytes of the payload 
+ * size and the payload. A connection runs one script:
+ *
+ * 1) the client sends a {@link #FRAME_RUN} frame with three lines in UTF-8: 
+ * the charset of the script file, the charset of the output and the absolute 
+ * name of the script file; 
+ * 2) the server sends the script output in {@link #FRAME_OUTPUT} frames while 
+ * the script is executed, then a {@link #FRAME_ERROR} frame with the error 
+ * message (in UTF-8) if the script failed, and a {@link #FRAME_EXIT} frame 
+ * with the exit status.
+ *
+ * @author SoundlyGifted
+ */
+final class ServerProtocol {
+
+    // Frame types.
+    static final byte FRAME_RUN = 1;
+    static final byte FRAME_OUTPUT = 2;
+    static final byte FRAME_ERROR = 3;
+    static final byte FRAME_EXIT = 4;
+
+    // Exit statuses of a script.
+    static final int EXIT_SUCCESS = 0;
+    static final int EXIT_SCRIPT_ERROR = 1;
+    static final int EXIT_FILE_ERROR = 2;
+
+    // Size of the frame header (type and payload size) in bytes.
+    static final int HEADER_SIZE = 5;
+
+    // Maximum payload size of a frame.
+    static final int MAX_FRAME_SIZE = 1 << 24;
+
+    private ServerProtocol() {}
+
+
+    /**
+     * Writes the frame to the channel.
+     *
+     * @param channel the channel.
+     * @param type frame type.
+     * @param payload frame payload (from its position to its limit).
+     * @throws IOException is thrown when the frame cannot be written.
+     */
+    static void writeFrame(WritableByteChannel channel, byte type, 
+            ByteBuffer payload) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .put(type).putInt(payload.remaining()).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        while (payload.hasRemaining()) {
+            channel.write(payload);
+        }
+    }
+
+
+    /**
+     * Reads the next frame from the channel.
+     *
+     * @param channel the channel.
+     * @return the frame, or null if the channel is at the end of stream.
+     * @throws IOException is thrown when the frame cannot be read, is not 
+     * complete or is too large.
+     */
+    static Frame readFrame(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(channel, header)) {
+            return null;
+        }
+        int size = header.getInt(1);
+        if (size < 0 || size > MAX_FRAME_SIZE) {
+            throw new IOException("Wrong frame size " + size);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        if (size > 0 && !readFully(channel, payload)) {
+            throw new EOFException("Connection closed in the middle of a "
+                    + "frame");
+        }
+        return new Frame(header.get(0), payload.flip());
+    }
+
+
+    /* Fills the buffer from the channel. Returns false if the channel is at
+     * the end of stream before the first byte.
+     */
+    private static boolean readFully(ReadableByteChannel channel, 
+            ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Connection closed in the middle of a "
+                        + "frame");
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * A frame read from a channel.
+     */
+    static final class Frame {
+
+        final byte type;
+        final ByteBuffer payload;
+
+        private Frame(byte type, ByteBuffer payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+
+    /**
+     * This class is the channel that writes the script output into the 
+     * connection as {@link #FRAME_OUTPUT} frames, so that an output sink 
+     * streams the output to the client. Closing it does not close the 
+     * connection.
+     */
+    static final class OutputFrameChannel implements WritableByteChannel {
+
+        private final WritableByteChannel connection;
+
+        OutputFrameChannel(WritableByteChannel connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int size = src.remaining();
+            writeFrame(connection, FRAME_OUTPUT, src);
+            return size;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return connection.isOpen();
+        }
+
+        @Override
+        public void close() {}
+    }
+}
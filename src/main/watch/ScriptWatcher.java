@@ -0,0 +1,161 @@
+package main.watch;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import main.io.PrintStreamOutputSink;
+import main.io.ScriptReader;
+import main.io.exceptions.FileReadingException;
+import main.process.exceptions.UnsupportedScriptOperationException;
+import main.process.exceptions.WrongScriptExpressionException;
+import main.process.incremental.IncrementalScript;
+
+/**
+ * This class executes a script file and then watches the file for changes. 
+ * When the file changes, only the changed lines and the lines affected by 
+ * them are executed again, and the output is printed again starting with the
+ * first changed printed line.
+ * 
+ * @author SoundlyGifted
+ */
+public final class ScriptWatcher {
+    
+    /* Time to wait for more file change events after the first one (editors
+     * may write a file in several steps).
+     */
+    private static final long SETTLE_MILLIS = 50;
+    
+    private final String fileName;
+    private final Charset charset;
+    private final PrintStream out;
+    private final IncrementalScript script = new IncrementalScript();
+
+    /**
+     * Creates ScriptWatcher instance.
+     * 
+     * @param fileName name of the script file to watch.
+     * @param charset charset of the script file.
+     * @param out the stream to print the script output and messages to.
+     */
+    public ScriptWatcher(String fileName, Charset charset, PrintStream out) {
+        this.fileName = fileName;
+        this.charset = charset;
+        this.out = out;
+    }
+    
+    
+    /**
+     * Executes the script and re-executes it on each change of the file until
+     * the current thread is interrupted.
+     * 
+     * @throws main.io.exceptions.FileReadingException is thrown when the file 
+     * cannot be read at the start or cannot be watched.
+     * @throws InterruptedException is thrown when the current thread is 
+     * interrupted.
+     */
+    public void watch() throws FileReadingException, InterruptedException {
+        Path file = Paths.get(fileName).toAbsolutePath();
+        List<String> lines = ScriptReader.readScriptFile(fileName, charset);
+        script.update(lines);
+        printOutput(0);
+        printError();
+        
+        try (WatchService watchService 
+                = FileSystems.getDefault().newWatchService()) {
+            file.getParent().register(watchService, 
+                    StandardWatchEventKinds.ENTRY_CREATE, 
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            out.println("[ScriptLanguage: Watch] Watching '" + fileName 
+                    + "' for changes (press Ctrl+C to finish)...");
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = isFileChanged(key, file);
+                // Collecting the events that follow the first one.
+                while ((key = watchService.poll(SETTLE_MILLIS, 
+                        TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isFileChanged(key, file);
+                }
+                if (changed) {
+                    rerun();
+                }
+            }
+        } catch (IOException ioex) {
+            throw new FileReadingException("Error during watching the '" 
+                    + fileName + "' file", ioex);
+        }
+    }
+    
+    
+    /* Executes the lines affected by the file change and prints the changed
+     * output.
+     */
+    private void rerun() {
+        List<String> lines;
+        try {
+            lines = ScriptReader.readScriptFile(fileName, charset);
+        } catch (FileReadingException frex) {
+            // The file can be removed or incomplete while it is being saved.
+            out.println("[ScriptLanguage: File Reading Error] " 
+                    + frex.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        int executed = script.update(lines);
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        
+        out.println();
+        out.println("[ScriptLanguage: Watch] Script changed: " + executed 
+                + " of " + lines.size() + " lines executed in " + micros 
+                + " us.");
+        int firstChangedPrint = script.getFirstChangedPrintLine();
+        if (firstChangedPrint >= 0) {
+            out.println("[ScriptLanguage: Watch] Re-executed from line " 
+                    + (firstChangedPrint + 1) + ":");
+            printOutput(firstChangedPrint);
+        } else if (!script.isErrorChanged()) {
+            out.println("[ScriptLanguage: Watch] Output not changed.");
+        }
+        printError();
+    }
+    
+    
+    private void printOutput(int fromLine) {
+        PrintStreamOutputSink output = new PrintStreamOutputSink(out);
+        script.printOutput(fromLine, output);
+        output.flush();
+    }
+    
+    
+    private void printError() {
+        Exception error = script.getError();
+        if (error instanceof UnsupportedScriptOperationException 
+                || error instanceof WrongScriptExpressionException) {
+            out.println("[ScriptLanguage: Script Error] " + error.getMessage());
+        } else if (error != null) {
+            out.println("[ScriptLanguage: Runtime Error] " + error);
+        }
+    }
+    
+    
+    // Checks events of the watch key and resets the key.
+    private static boolean isFileChanged(WatchKey key, Path file) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW 
+                    || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}